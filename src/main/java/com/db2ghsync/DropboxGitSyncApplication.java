@@ -6,11 +6,13 @@ import org.slf4j.LoggerFactory;
 import com.db2ghsync.app.DropboxToGitWorkflow;
 import com.db2ghsync.app.GitToDropboxProcessor;
 import com.db2ghsync.app.GitToDropboxWorkflow;
+import com.db2ghsync.app.SyncDaemon;
 import com.db2ghsync.app.SyncProcessor;
 import com.db2ghsync.app.SyncWorkflow;
 import com.db2ghsync.common.AppConfig;
 import com.db2ghsync.common.ConfigManager;
 import com.db2ghsync.common.SyncDirection;
+import com.db2ghsync.dropbox.ChangeDebouncer;
 import com.db2ghsync.dropbox.CursorManager;
 import com.db2ghsync.dropbox.CursorService;
 import com.db2ghsync.dropbox.DropboxClient;
@@ -19,8 +21,13 @@ import com.db2ghsync.exception.DropboxSyncException;
 import com.db2ghsync.exception.GithubSyncException;
 import com.db2ghsync.git.GitRepositoryManager;
 import com.db2ghsync.git.GitService;
+import com.db2ghsync.webhook.WebhookServer;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * DropboxとGitHub間の同期バッチアプリケーションのエントリポイント。
@@ -35,15 +42,20 @@ public class DropboxGitSyncApplication {
 
     private static final String ARG_CONFIG = "--config";
     private static final String ARG_DIRECTION = "--direction";
+    private static final String ARG_DAEMON = "--daemon";
 
     /**
      * アプリケーションのメインメソッド。
+     * <p>
+     * {@code --daemon} を指定した場合は、停止シグナルを受けるまで同期を一定間隔で繰り返す。
      * 
      * @param args コマンドライン引数（設定ファイルパスを1件指定）
      */
     public static void main(String[] args) {
 
         int exitCode = EXIT_CODE_ERROR;
+        // 停止シグナルによる終了処理中にSystem.exitを呼ぶと終了しないため、常駐の終了後は呼ばない
+        boolean exit = true;
 
         try {
             LOGGER.info("Dropbox-GitHub Sync Application started");
@@ -56,10 +68,17 @@ public class DropboxGitSyncApplication {
 
             // 依存関係の構築
             AppConfig config = ConfigManager.getAppConfig();
+
+            if (options.daemon()) {
+                runDaemon(options.direction(), config);
+                exit = false;
+                return;
+            }
+
             SyncDirection direction = options.direction();
             LOGGER.info("Selected sync direction: {}", direction);
 
-            SyncWorkflow workflow = createWorkflow(direction, config);
+            SyncWorkflow workflow = createWorkflows(List.of(direction), config).get(direction);
             workflow.execute();
 
             LOGGER.info("Dropbox-GitHub Sync Application completed");
@@ -78,22 +97,80 @@ public class DropboxGitSyncApplication {
         } catch (Exception e) {
             LOGGER.error("Unexpected error occurred", e);
         } finally {
-            System.exit(exitCode);
+            if (exit) {
+                System.exit(exitCode);
+            }
         }
     }
 
-    private static SyncWorkflow createWorkflow(SyncDirection direction, AppConfig config) {
-        CursorService cursorService = new CursorManager(config);
-        DropboxService dropboxService = new DropboxClient(config, cursorService);
-        GitService gitService = new GitRepositoryManager(config);
+    /**
+     * 常駐モードで同期を繰り返す。停止シグナルを受けた場合は、実行中の同期の完了を待って終了する。
+     * Webhookのポートが設定されている場合は、受信したイベントの対象を同期する。
+     *
+     * @param direction 同期方向（nullの場合は両方向を順に実行）
+     * @param config    アプリケーション設定
+     * @throws IOException Webhookのポートを使用できない場合
+     */
+    private static void runDaemon(SyncDirection direction, AppConfig config) throws IOException {
+
+        List<SyncDirection> directions = direction != null ? List.of(direction) : List.of(SyncDirection.values());
+        LOGGER.info("Starting daemon mode. directions: {}", directions);
+
+        SyncDaemon daemon = new SyncDaemon(createWorkflows(directions, config),
+                config.getDaemonIntervalSeconds() * 1000L);
+        long shutdownTimeoutSeconds = config.getDaemonShutdownTimeoutSeconds();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            LOGGER.info("Shutdown signal received. Waiting for the running sync to finish.");
+            daemon.stop();
+            try {
+                if (!daemon.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                    LOGGER.warn("Running sync did not finish within {} seconds", shutdownTimeoutSeconds);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "sync-daemon-shutdown"));
 
-        if (direction == SyncDirection.DBX_TO_GIT) {
-            SyncProcessor processor = new SyncProcessor(dropboxService, gitService, cursorService);
-            return new DropboxToGitWorkflow(processor);
+        WebhookServer webhookServer = null;
+        if (config.getWebhookPort() > 0) {
+            webhookServer = new WebhookServer(config, daemon);
+            webhookServer.start();
+        }
+        try {
+            daemon.run();
+        } finally {
+            if (webhookServer != null) {
+                webhookServer.close();
+            }
         }
+    }
 
-        GitToDropboxProcessor processor = new GitToDropboxProcessor(config, gitService, dropboxService);
-        return new GitToDropboxWorkflow(processor);
+    /**
+     * 同期方向ごとの同期処理を構築する。設定・クライアント・リポジトリは全ての同期処理で共有する。
+     *
+     * @param directions 実行順の同期方向
+     * @param config     アプリケーション設定
+     * @return 同期方向ごとの同期処理
+     */
+    private static Map<SyncDirection, SyncWorkflow> createWorkflows(List<SyncDirection> directions,
+            AppConfig config) {
+        CursorService cursorService = new CursorManager(config);
+        GitService gitService = new GitRepositoryManager(config);
+        DropboxService dropboxService = new DropboxClient(config, cursorService, gitService::writeBlob,
+                gitService::insertBlob);
+
+        Map<SyncDirection, SyncWorkflow> workflows = new EnumMap<>(SyncDirection.class);
+        for (SyncDirection direction : directions) {
+            if (direction == SyncDirection.DBX_TO_GIT) {
+                SyncProcessor processor = new SyncProcessor(dropboxService, gitService, cursorService,
+                        new ChangeDebouncer(dropboxService, cursorService, config));
+                workflows.put(direction, new DropboxToGitWorkflow(processor));
+            } else {
+                GitToDropboxProcessor processor = new GitToDropboxProcessor(config, gitService, dropboxService);
+                workflows.put(direction, new GitToDropboxWorkflow(processor));
+            }
+        }
+        return workflows;
     }
 
     /**
@@ -103,20 +180,29 @@ public class DropboxGitSyncApplication {
 
         private final String configPath;
         private final SyncDirection direction;
+        private final boolean daemon;
 
-        private CommandLineOptions(String configPath, SyncDirection direction) {
+        private CommandLineOptions(String configPath, SyncDirection direction, boolean daemon) {
             this.configPath = configPath;
             this.direction = direction;
+            this.daemon = daemon;
         }
 
         String configPath() {
             return configPath;
         }
 
+        /**
+         * 同期方向。常駐モードで省略した場合はnull（両方向を実行）。
+         */
         SyncDirection direction() {
             return direction;
         }
 
+        boolean daemon() {
+            return daemon;
+        }
+
         static CommandLineOptions parse(String[] args) {
             if (args == null || args.length == 0) {
                 throw new IllegalArgumentException("arguments are not provided.");
@@ -124,6 +210,7 @@ public class DropboxGitSyncApplication {
 
             String configPath = null;
             String directionValue = null;
+            boolean daemon = false;
 
             for (int i = 0; i < args.length; i++) {
                 String arg = args[i];
@@ -136,6 +223,7 @@ public class DropboxGitSyncApplication {
                         ensureValueAvailable(args, i, ARG_DIRECTION);
                         directionValue = args[++i];
                     }
+                    case ARG_DAEMON -> daemon = true;
                     default -> throw new IllegalArgumentException("Unknown argument: " + arg);
                 }
             }
@@ -144,10 +232,13 @@ public class DropboxGitSyncApplication {
                 throw new IllegalArgumentException("--config <path> is required.");
             }
             if (directionValue == null) {
+                if (daemon) {
+                    return new CommandLineOptions(configPath, null, true);
+                }
                 throw new IllegalArgumentException("--direction <dbx-to-git|git-to-dbx> is required.");
             }
 
-            return new CommandLineOptions(configPath, SyncDirection.fromArgument(directionValue));
+            return new CommandLineOptions(configPath, SyncDirection.fromArgument(directionValue), daemon);
         }
 
         private static void ensureValueAvailable(String[] args, int index, String option) {
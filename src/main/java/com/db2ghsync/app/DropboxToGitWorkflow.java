@@ -20,5 +20,10 @@ public class DropboxToGitWorkflow implements SyncWorkflow {
     public void execute() throws DropboxSyncException, GithubSyncException, IOException {
         syncProcessor.start();
     }
+
+    @Override
+    public void stop() {
+        syncProcessor.stop();
+    }
 }
 
@@ -4,13 +4,19 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.common.FileMatcher;
+import com.db2ghsync.common.PathMapper;
+import com.db2ghsync.common.ZipContainerNormalizer;
 import com.db2ghsync.dropbox.DropboxService;
 import com.db2ghsync.exception.DropboxSyncException;
 import com.db2ghsync.exception.GithubSyncException;
@@ -27,21 +33,50 @@ public class GitToDropboxProcessor {
     private final GitService gitService;
     private final DropboxService dropboxService;
 
+    // 同期対象ディレクトリ配下の判定
+    private final FileMatcher fileMatcher;
+
+    // 圧縮し直すzipコンテナの判定
+    private final FileMatcher zipNormalizeMatcher;
+
     public GitToDropboxProcessor(AppConfig config, GitService gitService, DropboxService dropboxService) {
         this.config = config;
         this.gitService = gitService;
         this.dropboxService = dropboxService;
+        this.fileMatcher = FileMatcher.forGitToDropbox(config);
+        this.zipNormalizeMatcher = FileMatcher.ofExtensions(config.getZipNormalizeExtensions());
     }
 
     public void start() throws DropboxSyncException, GithubSyncException, IOException {
+        start(null);
+    }
+
+    /**
+     * 指定したブランチのみを同期する。ローカルに存在しないブランチは対象外とする。
+     *
+     * @param targetBranches 同期するブランチ名（nullの場合は全てのローカルブランチ）
+     */
+    public void start(Collection<String> targetBranches)
+            throws DropboxSyncException, GithubSyncException, IOException {
         try {
             gitService.cloneOrOpenRepository();
             List<String> branches = gitService.listLocalBranches();
+            if (targetBranches != null) {
+                Set<String> requested = targetBranches.stream()
+                        .map(PathMapper::toBranchName)
+                        .collect(Collectors.toSet());
+                branches = branches.stream().filter(requested::contains).collect(Collectors.toList());
+                if (branches.size() < requested.size()) {
+                    LOGGER.info("Skipping branches not found locally. requested: {}, found: {}", requested, branches);
+                }
+            }
             LOGGER.info("Processing {} branches for git-to-dbx sync", branches.size());
 
             for (String branch : branches) {
                 processBranch(branch);
             }
+
+            runMaintenance();
         } finally {
             gitService.close();
         }
@@ -65,20 +100,18 @@ public class GitToDropboxProcessor {
         }
 
         Path repoRoot = Paths.get(config.getLocalRepoPath()).toAbsolutePath().normalize();
-        String targetDir = ensureTrailingSlash(normalizeRelativePath(config.getSyncTargetDir()));
-        LOGGER.info("Target directory filter: '{}' (files must start with this path)", targetDir);
+        LOGGER.info("Target directory filter: '{}' (files must be under this path)", config.getSyncTargetDir());
 
         int uploadCount = 0;
         int filteredOutCount = 0;
         int nonFileCount = 0;
         
         for (String updatedFile : updatedFiles) {
-            String normalized = normalizeRelativePath(updatedFile);
+            String normalized = PathMapper.normalize(updatedFile);
             LOGGER.debug("Checking file: '{}' -> normalized: '{}'", updatedFile, normalized);
             
-            if (!normalized.startsWith(targetDir)) {
-                LOGGER.debug("File '{}' filtered out (does not start with target dir '{}')", 
-                        normalized, targetDir);
+            if (!fileMatcher.matches(normalized)) {
+                LOGGER.debug("File '{}' filtered out (not under target dir or excluded)", normalized);
                 filteredOutCount++;
                 continue;
             }
@@ -90,10 +123,9 @@ public class GitToDropboxProcessor {
                 continue;
             }
 
-            Path relative = repoRoot.relativize(localFilePath);
-            String dropboxPath = buildDropboxPath(branch, relative);
+            String dropboxPath = PathMapper.toDropboxPath(branch, PathMapper.toRelativePath(repoRoot, localFilePath));
             LOGGER.info("Uploading file: {} -> Dropbox: {}", localFilePath, dropboxPath);
-            dropboxService.uploadFile(localFilePath, dropboxPath);
+            uploadContent(localFilePath, dropboxPath);
             uploadCount++;
         }
 
@@ -101,17 +133,64 @@ public class GitToDropboxProcessor {
                 branch, uploadCount, filteredOutCount, nonFileCount);
     }
 
-    private String normalizeRelativePath(String path) {
-        return path.replace("\\", "/").replaceAll("//+", "/").replaceFirst("^/", "");
+    /**
+     * ファイルの実体をDropboxへアップロードする。
+     * LFSポインタの場合は実体を取得し、無圧縮で格納したzipコンテナは圧縮し直してからアップロードする。
+     */
+    private void uploadContent(Path localFilePath, String dropboxPath)
+            throws GithubSyncException, DropboxSyncException, IOException {
+
+        Path content = gitService.resolveLfsContent(localFilePath);
+        Path rebuilt = null;
+        try {
+            rebuilt = rebuildZipContainer(content);
+            dropboxService.uploadFile(rebuilt != null ? rebuilt : content, dropboxPath);
+        } finally {
+            if (rebuilt != null) {
+                Files.deleteIfExists(rebuilt);
+            }
+            if (!content.equals(localFilePath)) {
+                Files.deleteIfExists(content);
+            }
+        }
     }
 
-    private String ensureTrailingSlash(String path) {
-        return path.endsWith("/") ? path : path + "/";
+    /**
+     * 対象拡張子のzipコンテナを圧縮し直した一時ファイルを作成する。
+     *
+     * @param content アップロード対象ファイル
+     * @return 一時ファイル。対象外・zipとして読み込めない場合はnull
+     */
+    private Path rebuildZipContainer(Path content) throws IOException {
+
+        String fileName = content.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!zipNormalizeMatcher.matches(fileName)) {
+            return null;
+        }
+
+        Path rebuilt = Files.createTempFile("zip-", "-" + content.getFileName());
+        try {
+            ZipContainerNormalizer.rebuild(content, rebuilt);
+            Files.setLastModifiedTime(rebuilt, Files.getLastModifiedTime(content));
+            return rebuilt;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to rebuild zip container, uploading as is: {}", content, e);
+            Files.deleteIfExists(rebuilt);
+            return null;
+        }
     }
 
-    private String buildDropboxPath(String branchName, Path relativePath) {
-        String sanitizedBranch = branchName.replace("\\", "/").replaceAll("//+", "/").replaceFirst("^/", "");
-        return "/" + sanitizedBranch + "/" + relativePath.toString().replace("\\", "/");
+    /**
+     * 全ブランチの処理完了後にリポジトリの保守を行う。
+     * 保守の失敗は同期結果に影響させず、ログ出力のみとする。
+     */
+    private void runMaintenance() {
+        try {
+            gitService.runMaintenance();
+        } catch (GithubSyncException e) {
+            LOGGER.warn("Repository maintenance failed. Synchronization result is not affected.", e);
+        }
     }
+
 }
 
@@ -1,6 +1,7 @@
 package com.db2ghsync.app;
 
 import java.io.IOException;
+import java.util.List;
 
 import com.db2ghsync.exception.DropboxSyncException;
 import com.db2ghsync.exception.GithubSyncException;
@@ -20,5 +21,10 @@ public class GitToDropboxWorkflow implements SyncWorkflow {
     public void execute() throws DropboxSyncException, GithubSyncException, IOException {
         processor.start();
     }
+
+    @Override
+    public void execute(String target) throws DropboxSyncException, GithubSyncException, IOException {
+        processor.start(List.of(target));
+    }
 }
 
@@ -0,0 +1,225 @@
+package com.db2ghsync.app;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.db2ghsync.common.SyncDirection;
+import com.db2ghsync.exception.DropboxSyncException;
+import com.db2ghsync.exception.GithubSyncException;
+
+/**
+ * 同期処理を一定間隔で繰り返し実行する常駐処理。
+ * <p>
+ * 設定・Dropboxクライアント・リポジトリを保持したまま、登録された同期処理を同期方向の順に実行する。
+ * 1回の同期が失敗してもプロセスは終了せず、次回の実行で再試行する。
+ * 停止要求を受けた場合は、実行中の同期処理の完了を待ってから終了する（同期処理を中断しない）。
+ * <p>
+ * Webhook等で要求された同期は、定期実行の待機中に対象を絞って実行する。
+ * 同期の実行中に受けた要求は実行待ちとし、同じ対象への要求は1つにまとめる。
+ * 同期処理は全て同じスレッドで順に実行するため、リポジトリを同時に操作しない。
+ */
+public class SyncDaemon implements SyncTrigger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyncDaemon.class);
+
+    private final Map<SyncDirection, SyncWorkflow> workflows;
+    private final long intervalMillis;
+
+    private final Object lock = new Object();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean stopRequested = false;
+
+    // 実行待ちの要求。対象の集合が空の場合は同期方向の全体を表す（lockで保護）
+    private final Map<SyncDirection, Set<String>> pending = new EnumMap<>(SyncDirection.class);
+
+    /**
+     * コンストラクタ。
+     *
+     * @param workflows      同期方向ごとの同期処理（同期方向の定義順に実行する）
+     * @param intervalMillis 同期を開始する間隔（ミリ秒）
+     */
+    public SyncDaemon(Map<SyncDirection, SyncWorkflow> workflows, long intervalMillis) {
+        this.workflows = new EnumMap<>(Objects.requireNonNull(workflows, "workflows must not be null"));
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * 停止要求を受けるまで、同期処理を一定間隔で実行する。
+     * 前回の開始から間隔が経過していない場合は、要求された同期を実行しながら待機する。
+     * 経過している場合はすぐに次の同期を開始する。
+     */
+    public void run() {
+
+        LOGGER.info("Sync daemon started. workflows: {}, interval: {} ms", workflows.keySet(), intervalMillis);
+        try {
+            long nextRun = System.nanoTime();
+            while (!stopRequested) {
+                if (System.nanoTime() - nextRun >= 0) {
+                    nextRun = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+                    synchronized (lock) {
+                        // 実行待ちの要求は全体の同期に含まれる
+                        pending.clear();
+                    }
+                    runOnce();
+                } else {
+                    runRequested(awaitRequests(nextRun));
+                }
+            }
+        } finally {
+            terminated.countDown();
+            LOGGER.info("Sync daemon stopped");
+        }
+    }
+
+    /**
+     * 登録された同期処理を順に1回ずつ実行する。
+     * 失敗した同期処理はログに出力し、残りの同期処理を続ける。停止要求後は残りを実行しない。
+     *
+     * @return 全ての同期処理が成功した場合true
+     */
+    boolean runOnce() {
+
+        boolean succeeded = true;
+        for (SyncDirection direction : workflows.keySet()) {
+            if (stopRequested) {
+                LOGGER.info("Stop requested. Skipping remaining workflows.");
+                return false;
+            }
+            succeeded &= execute(direction, null);
+        }
+        return succeeded;
+    }
+
+    @Override
+    public boolean trigger(SyncDirection direction, String target) {
+
+        synchronized (lock) {
+            if (!workflows.containsKey(direction)) {
+                LOGGER.debug("Ignoring sync request for disabled direction: {}", direction);
+                return false;
+            }
+            Set<String> targets = pending.get(direction);
+            boolean added;
+            if (targets != null && targets.isEmpty()) {
+                // 全体の同期が実行待ち
+                added = false;
+            } else if (target == null) {
+                pending.put(direction, new LinkedHashSet<>());
+                added = true;
+            } else {
+                added = pending.computeIfAbsent(direction, key -> new LinkedHashSet<>()).add(target);
+            }
+            if (added) {
+                LOGGER.info("Sync requested: {} {}", direction, target != null ? target : "(all)");
+                lock.notifyAll();
+            } else {
+                LOGGER.debug("Sync request merged into pending request: {} {}", direction, target);
+            }
+            return added;
+        }
+    }
+
+    /**
+     * 停止を要求する。実行中の同期処理は中断せず、待機中の場合はすぐに終了する。
+     * 実行中の同期処理が変更のまとめのために待機している場合は、その待機を打ち切る。
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopRequested = true;
+            lock.notifyAll();
+        }
+        workflows.values().forEach(SyncWorkflow::stop);
+    }
+
+    /**
+     * 常駐処理の終了を待つ。
+     *
+     * @param timeout 待機の上限
+     * @param unit    待機の上限の単位
+     * @return 終了した場合true
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * 次回の実行時刻・停止要求・同期の要求のいずれかまで待機し、実行待ちの要求を取り出す。
+     *
+     * @param deadline 次回の実行時刻（System.nanoTime()の値）
+     * @return 実行待ちだった要求（ない場合は空）
+     */
+    private Map<SyncDirection, Set<String>> awaitRequests(long deadline) {
+
+        synchronized (lock) {
+            while (!stopRequested && pending.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopRequested = true;
+                }
+            }
+            Map<SyncDirection, Set<String>> requests = new EnumMap<>(pending);
+            pending.clear();
+            return requests;
+        }
+    }
+
+    private void runRequested(Map<SyncDirection, Set<String>> requests) {
+
+        for (Map.Entry<SyncDirection, Set<String>> request : requests.entrySet()) {
+            if (request.getValue().isEmpty()) {
+                execute(request.getKey(), null);
+                continue;
+            }
+            for (String target : request.getValue()) {
+                if (stopRequested) {
+                    return;
+                }
+                execute(request.getKey(), target);
+            }
+        }
+    }
+
+    /**
+     * 同期処理を実行する。失敗した場合はログに出力し、次回の実行で再試行する。
+     *
+     * @param direction 同期方向
+     * @param target    同期対象（nullの場合は全体）
+     * @return 成功した場合true
+     */
+    private boolean execute(SyncDirection direction, String target) {
+
+        if (stopRequested) {
+            return false;
+        }
+        SyncWorkflow workflow = workflows.get(direction);
+        try {
+            if (target == null) {
+                workflow.execute();
+            } else {
+                workflow.execute(target);
+            }
+            return true;
+        } catch (DropboxSyncException | GithubSyncException | IOException | RuntimeException e) {
+            // 1回の失敗で常駐を止めず、次回の実行で再試行する
+            LOGGER.error("Scheduled sync failed: {} {}. Retrying at next run.", direction,
+                    target != null ? target : "(all)", e);
+            return false;
+        }
+    }
+}
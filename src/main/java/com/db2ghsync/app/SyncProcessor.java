@@ -1,15 +1,21 @@
 package com.db2ghsync.app;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.dropbox.ChangeDebouncer;
 import com.db2ghsync.dropbox.CursorService;
 import com.db2ghsync.dropbox.DropboxService;
+import com.db2ghsync.dropbox.SyncEntryCoalescer;
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.CursorResetException;
 import com.db2ghsync.exception.DropboxSyncException;
 import com.db2ghsync.exception.GithubSyncException;
 import com.db2ghsync.git.GitService;
@@ -28,6 +34,11 @@ public class SyncProcessor {
     private final DropboxService dropboxService;
     private final GitService gitService;
     private final CursorService cursorService;
+    private final ChangeDebouncer changeDebouncer;
+
+    // 1回の同期で作成したコミット数と、変更がなくコミット・プッシュを省略した数
+    private int commits;
+    private int unchangedCommits;
 
     /**
      * コンストラクタ。依存関係を注入してSyncProcessorを初期化する。
@@ -37,9 +48,32 @@ public class SyncProcessor {
      * @param cursorService  カーソルサービス
      */
     public SyncProcessor(DropboxService dropboxService, GitService gitService, CursorService cursorService) {
+        this(dropboxService, gitService, cursorService, ChangeDebouncer.disabled(
+                Objects.requireNonNull(dropboxService, "DropboxService must not be null"),
+                Objects.requireNonNull(cursorService, "CursorService must not be null")));
+    }
+
+    /**
+     * コンストラクタ。検知した変更に続く変更をまとめてから反映するSyncProcessorを初期化する。
+     *
+     * @param dropboxService  Dropboxサービス
+     * @param gitService      Gitサービス
+     * @param cursorService   カーソルサービス
+     * @param changeDebouncer 続く変更をまとめる処理
+     */
+    public SyncProcessor(DropboxService dropboxService, GitService gitService, CursorService cursorService,
+            ChangeDebouncer changeDebouncer) {
         this.dropboxService = Objects.requireNonNull(dropboxService, "DropboxService must not be null");
         this.gitService = Objects.requireNonNull(gitService, "GitService must not be null");
         this.cursorService = Objects.requireNonNull(cursorService, "CursorService must not be null");
+        this.changeDebouncer = Objects.requireNonNull(changeDebouncer, "ChangeDebouncer must not be null");
+    }
+
+    /**
+     * 変更をまとめるための待機を打ち切る。待機中の場合は、その時点までの変更を反映して同期を続ける。
+     */
+    public void stop() {
+        changeDebouncer.stop();
     }
 
     /**
@@ -53,6 +87,8 @@ public class SyncProcessor {
     public void start() throws GithubSyncException, DropboxSyncException, IOException {
 
         LOGGER.info("Starting synchronization process");
+        commits = 0;
+        unchangedCommits = 0;
 
         List<String> targetDirs = dropboxService.getTargetDirectories();
         LOGGER.info("Found {} target directories to process", targetDirs.size());
@@ -62,49 +98,192 @@ public class SyncProcessor {
         for (String targetDir : targetDirs) {
 
             LOGGER.info("Processing directory: {}", targetDir);
-            List<SyncEntry> targetEntries = null;
             String cursor = cursorService.readCursor(targetDir);
 
             if (Strings.isNullOrEmpty(cursor)) {
-                LOGGER.info("No cursor found for directory: {}. Fetching all files.", targetDir);
-                targetEntries = dropboxService.getTargetFiles(targetDir);
+                LOGGER.info("No cursor found for directory: {}.", targetDir);
+                syncWithoutCursor(targetDir);
             } else {
                 LOGGER.info("Cursor found for directory: {}. Fetching changes since last sync.", targetDir);
-                targetEntries = dropboxService.getChangesWithCursor(targetDir, cursor);
+                List<SyncEntry> targetEntries = null;
+                try {
+                    targetEntries = dropboxService.getChangesWithCursor(targetDir, cursor);
+                    // 短時間に続く保存を1回のコミットにまとめる
+                    targetEntries = changeDebouncer.collect(targetDir, targetEntries);
+                } catch (CursorResetException e) {
+                    // カーソルが無効化された場合は、このディレクトリのみ一覧し直す
+                    // 待機中に無効化された場合、取得済みの変更は一覧し直した内容より古いため反映しない
+                    LOGGER.warn("Cursor was reset by Dropbox for directory: {}. Re-listing the folder.", targetDir, e);
+                    targetEntries = null;
+                    syncWithoutCursor(targetDir);
+                }
+                if (targetEntries != null) {
+                    applyChanges(targetDir, targetEntries);
+                }
             }
 
-            LOGGER.info("Found {} entries to sync for directory: {}", targetEntries.size(), targetDir);
+            cursorService.writeCursor(targetDir);
+            LOGGER.info("Completed processing directory: {}", targetDir);
+
+        }
+
+        runMaintenance();
+
+        LOGGER.info("Synchronization process completed successfully ({} commits, {} skipped as unchanged)",
+                commits, unchangedCommits);
+
+    }
+
+    /**
+     * カーソルを使わずにディレクトリを同期する。
+     * ブランチが既に存在する場合はその内容を基準に差分のみを反映し、存在しない場合は全ファイルを取り込む。
+     * 中断した取り込みの再開位置が残っている場合は、ブランチの有無に関わらず取り込みを再開する。
+     *
+     * @param targetDir 対象ディレクトリ名（ブランチ名としても利用）
+     * @throws GithubSyncException  Git操作失敗時
+     * @throws DropboxSyncException 一覧取得・ダウンロード失敗時
+     */
+    private void syncWithoutCursor(String targetDir) throws GithubSyncException, DropboxSyncException {
+
+        boolean resuming = !Strings.isNullOrEmpty(cursorService.readImportCheckpoint(targetDir));
+        if (!resuming && gitService.hasBranch(targetDir)) {
+            LOGGER.info("Branch exists for directory: {}. Re-baselining.", targetDir);
+            rebaseline(targetDir);
+            return;
+        }
+
+        LOGGER.info("Importing all files for directory: {}", targetDir);
+        // 区切りごとにコミット・プッシュするため、先にブランチをチェックアウトする
+        gitService.checkoutBranch(targetDir);
+        int importedFiles = dropboxService.importDirectory(targetDir,
+                downloadedFiles -> commitAndPush(targetDir, downloadedFiles));
+        if (importedFiles == 0) {
+            LOGGER.info("No target files found for directory: {}", targetDir);
+        }
+        gitService.checkoutBranch(MAIN_BRANCH);
+    }
+
+    /**
+     * カーソルで取得した変更をまとめてから反映する。
+     *
+     * @param targetDir     対象ディレクトリ名（ブランチ名としても利用）
+     * @param targetEntries カーソルで取得した変更
+     * @throws GithubSyncException  Git操作失敗時
+     * @throws DropboxSyncException ダウンロード失敗時
+     */
+    private void applyChanges(String targetDir, List<SyncEntry> targetEntries)
+            throws GithubSyncException, DropboxSyncException {
+
+        int fetchedCount = targetEntries.size();
+        targetEntries = SyncEntryCoalescer.coalesce(targetEntries);
+        LOGGER.info("Found {} entries to sync for directory: {} ({} fetched, {} eliminated by coalescing)",
+                targetEntries.size(), targetDir, fetchedCount, fetchedCount - targetEntries.size());
 
-            if (!targetEntries.isEmpty()) {
-                dropboxService.downloadFiles(targetEntries);
-                manageGit(targetDir);
+        if (!targetEntries.isEmpty()) {
+            List<DownloadedFile> downloadedFiles = dropboxService.downloadFiles(targetEntries);
+            if (isAlreadyCommitted(targetDir, targetEntries, downloadedFiles)) {
+                unchangedCommits++;
+                LOGGER.info("Downloaded content is unchanged for directory: {}. Skipping checkout, commit and push.",
+                        targetDir);
             } else {
-                LOGGER.info("No changes detected for directory: {}", targetDir);
+                manageGit(targetDir, downloadedFiles);
             }
+        } else {
+            LOGGER.info("No changes detected for directory: {}", targetDir);
+        }
+    }
 
-            cursorService.writeCursor(targetDir);
-            LOGGER.info("Completed processing directory: {}", targetDir);
+    /**
+     * 変更が作成・更新のみで、ダウンロードした内容が全てプッシュ済みのブランチと同じ場合にtrue。
+     * チェックアウトせずに判定するため、変更のない実行ではブランチを切り替えない。
+     *
+     * @param targetDir       対象ディレクトリ名（ブランチ名としても利用）
+     * @param targetEntries   反映する変更
+     * @param downloadedFiles ダウンロード済みファイルの情報
+     * @return ブランチの更新が不要な場合true
+     * @throws GithubSyncException Git操作失敗時
+     */
+    private boolean isAlreadyCommitted(String targetDir, List<SyncEntry> targetEntries,
+            List<DownloadedFile> downloadedFiles) throws GithubSyncException {
+
+        // 削除・移動を含む場合は、ワークツリー全体をステージして比較する
+        boolean updatesOnly = downloadedFiles.size() == targetEntries.size() && targetEntries.stream()
+                .allMatch(entry -> SyncAction.CREATE_OR_UPDATE.equals(entry.getAction()));
+        return updatesOnly
+                && !gitService.hasUnpushedCommits(targetDir)
+                && gitService.discardUnchanged(targetDir, downloadedFiles);
+    }
+
+    /**
+     * ブランチの内容を基準に、Dropboxと異なるファイルのみを反映する。
+     * 比較のため、先に対象ディレクトリのブランチをチェックアウトする。
+     *
+     * @param targetDir 対象ディレクトリ名（ブランチ名としても利用）
+     * @throws GithubSyncException  Git操作失敗時
+     * @throws DropboxSyncException 一覧取得・ダウンロード失敗時
+     */
+    private void rebaseline(String targetDir) throws GithubSyncException, DropboxSyncException {
 
+        gitService.checkoutBranch(targetDir);
+        List<SyncEntry> differences = dropboxService.rebaselineDirectory(targetDir);
+        if (!differences.isEmpty()) {
+            manageGit(targetDir, Collections.emptyList());
+        } else {
+            LOGGER.info("Branch is already up to date for directory: {}", targetDir);
+            gitService.checkoutBranch(MAIN_BRANCH);
         }
+    }
 
-        LOGGER.info("Synchronization process completed successfully");
+    /**
+     * 全ディレクトリのプッシュ完了後にリポジトリの保守を行う。
+     * 保守の失敗は同期結果に影響させず、ログ出力のみとする。
+     */
+    private void runMaintenance() {
 
+        try {
+            gitService.runMaintenance();
+        } catch (GithubSyncException e) {
+            LOGGER.warn("Repository maintenance failed. Synchronization result is not affected.", e);
+        }
     }
 
     /**
      * 指定ディレクトリのファイルをGitリポジトリへコミット・プッシュする。
      * 
-     * @param targetDir 対象ディレクトリ名（ブランチ名としても利用）
+     * @param targetDir       対象ディレクトリ名（ブランチ名としても利用）
+     * @param downloadedFiles ダウンロード済みファイルの情報（作成済みのブロブをステージに利用）
      * @throws GithubSyncException Git操作失敗時
      */
-    private void manageGit(String targetDir) throws GithubSyncException {
+    private void manageGit(String targetDir, List<DownloadedFile> downloadedFiles) throws GithubSyncException {
 
         LOGGER.debug("Starting Git operations for directory: {}", targetDir);
         gitService.checkoutBranch(targetDir);
-        gitService.addAndCommit();
-        gitService.push();
+        commitAndPush(targetDir, downloadedFiles);
         gitService.checkoutBranch(MAIN_BRANCH);
         LOGGER.debug("Git operations completed for directory: {}", targetDir);
     }
 
+    /**
+     * チェックアウト済みのブランチへコミットし、プッシュする。
+     * 内容が変わらず空のコミットとなる場合は、コミットを省略する。前回の実行でプッシュに失敗した
+     * コミットが残っている場合はプッシュし、残っていない場合はプッシュも省略する。
+     *
+     * @param targetDir       対象ディレクトリ名（ブランチ名としても利用）
+     * @param downloadedFiles ダウンロード済みファイルの情報
+     * @throws GithubSyncException Git操作失敗時
+     */
+    private void commitAndPush(String targetDir, List<DownloadedFile> downloadedFiles) throws GithubSyncException {
+
+        if (gitService.addAndCommit(downloadedFiles)) {
+            commits++;
+        } else if (gitService.hasUnpushedCommits(targetDir)) {
+            LOGGER.info("Downloaded content is unchanged, but earlier commits are not pushed yet. Pushing them.");
+        } else {
+            unchangedCommits++;
+            LOGGER.info("Downloaded content is unchanged. Skipping commit and push.");
+            return;
+        }
+        gitService.push();
+    }
+
 }
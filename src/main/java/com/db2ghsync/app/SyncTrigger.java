@@ -0,0 +1,19 @@
+package com.db2ghsync.app;
+
+import com.db2ghsync.common.SyncDirection;
+
+/**
+ * Webhook等の外部イベントから同期の実行を要求するインターフェース。
+ */
+@FunctionalInterface
+public interface SyncTrigger {
+
+    /**
+     * 同期の実行を要求する。同じ対象の要求が実行待ちの場合は1つにまとめる。
+     *
+     * @param direction 同期方向
+     * @param target    同期対象のディレクトリ・ブランチ名（nullの場合は同期方向の全体）
+     * @return 新たに実行待ちにした場合true。実行待ちの要求にまとめた場合false
+     */
+    boolean trigger(SyncDirection direction, String target);
+}
@@ -11,5 +11,22 @@ import com.db2ghsync.exception.GithubSyncException;
 public interface SyncWorkflow {
 
     void execute() throws DropboxSyncException, GithubSyncException, IOException;
+
+    /**
+     * 指定した対象（ディレクトリ・ブランチ）のみを同期する。
+     * 対象を絞り込めない同期処理では全体を同期する。
+     *
+     * @param target 同期対象のディレクトリ・ブランチ名
+     */
+    default void execute(String target) throws DropboxSyncException, GithubSyncException, IOException {
+        execute();
+    }
+
+    /**
+     * 実行中の同期処理に、変更を待つための待機を打ち切るよう要求する。同期処理自体は中断しない。
+     * 別スレッドから呼び出される。待機しない同期処理では何もしない。
+     */
+    default void stop() {
+    }
 }
 
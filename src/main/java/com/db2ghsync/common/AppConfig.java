@@ -20,8 +20,42 @@ public final class AppConfig {
     private final String localRepoPath;
     private final String cursorFilePath;
     private final List<String> targetFileExtensions;
+    private final List<String> targetFileIncludeGlobs;
+    private final List<String> targetFileExcludeGlobs;
     private final List<String> targetDirectories;
     private final String syncTargetDir;
+    private final String gitSeedBundlePath;
+    private final String gitReferenceRepoPath;
+    private final int gitGcLooseObjectThreshold;
+    private final int gitGcPackThreshold;
+    private final int gitPushThreads;
+    private final int gitPushBigFileThreshold;
+    private final List<String> gitPushBinaryExtensions;
+    private final List<String> gitLfsPatterns;
+    private final String gitLfsUrl;
+    private final String gitLfsLocalStorePath;
+    private final List<String> zipNormalizeExtensions;
+    private final int gitBulkImportThreshold;
+    private final int dropboxDownloadSegmentThreshold;
+    private final int dropboxDownloadThreads;
+    private final int dropboxDownloadMaxRetries;
+    private final boolean dropboxDownloadComputeBlobId;
+    private final boolean dropboxDownloadTeeGitObjects;
+    private final int dropboxListThreads;
+    private final int dropboxListPageLimit;
+    private final int dropboxPipelineDownloadWorkers;
+    private final int dropboxPipelineStageWorkers;
+    private final int dropboxPipelineQueueCapacity;
+    private final int dropboxPipelineMaxInFlightBytes;
+    private final int changeSetMemoryThreshold;
+    private final int importCheckpointFiles;
+    private final long importCheckpointBytes;
+    private final int syncDebounceQuietSeconds;
+    private final int syncDebounceMaxSeconds;
+    private final int daemonIntervalSeconds;
+    private final int daemonShutdownTimeoutSeconds;
+    private final int webhookPort;
+    private final String webhookGithubSecret;
 
     /**
      * プライベートコンストラクタ。Builder経由でのみインスタンス化可能。
@@ -38,9 +72,48 @@ public final class AppConfig {
         this.cursorFilePath = Objects.requireNonNull(builder.cursorFilePath, "cursor.file.path must not be null");
         this.targetFileExtensions = Collections.unmodifiableList(
                 Objects.requireNonNull(builder.targetFileExtensions, "target.file.extensions must not be null"));
+        this.targetFileIncludeGlobs = Collections.unmodifiableList(Objects.requireNonNull(
+                builder.targetFileIncludeGlobs, "target.file.include.globs must not be null"));
+        this.targetFileExcludeGlobs = Collections.unmodifiableList(Objects.requireNonNull(
+                builder.targetFileExcludeGlobs, "target.file.exclude.globs must not be null"));
         this.targetDirectories = Collections.unmodifiableList(
                 Objects.requireNonNull(builder.targetDirectories, "target.directories must not be null"));
         this.syncTargetDir = Objects.requireNonNull(builder.syncTargetDir, "sync.target.dir must not be null");
+        this.gitSeedBundlePath = builder.gitSeedBundlePath;
+        this.gitReferenceRepoPath = builder.gitReferenceRepoPath;
+        this.gitGcLooseObjectThreshold = builder.gitGcLooseObjectThreshold;
+        this.gitGcPackThreshold = builder.gitGcPackThreshold;
+        this.gitPushThreads = builder.gitPushThreads;
+        this.gitPushBigFileThreshold = builder.gitPushBigFileThreshold;
+        this.gitPushBinaryExtensions = Collections.unmodifiableList(
+                Objects.requireNonNull(builder.gitPushBinaryExtensions, "git.push.binary.extensions must not be null"));
+        this.gitLfsPatterns = Collections.unmodifiableList(
+                Objects.requireNonNull(builder.gitLfsPatterns, "git.lfs.patterns must not be null"));
+        this.gitLfsUrl = builder.gitLfsUrl;
+        this.gitLfsLocalStorePath = builder.gitLfsLocalStorePath;
+        this.zipNormalizeExtensions = Collections.unmodifiableList(
+                Objects.requireNonNull(builder.zipNormalizeExtensions, "zip.normalize.extensions must not be null"));
+        this.gitBulkImportThreshold = builder.gitBulkImportThreshold;
+        this.dropboxDownloadSegmentThreshold = builder.dropboxDownloadSegmentThreshold;
+        this.dropboxDownloadThreads = builder.dropboxDownloadThreads;
+        this.dropboxDownloadMaxRetries = builder.dropboxDownloadMaxRetries;
+        this.dropboxDownloadComputeBlobId = builder.dropboxDownloadComputeBlobId;
+        this.dropboxDownloadTeeGitObjects = builder.dropboxDownloadTeeGitObjects;
+        this.dropboxListThreads = builder.dropboxListThreads;
+        this.dropboxListPageLimit = builder.dropboxListPageLimit;
+        this.dropboxPipelineDownloadWorkers = builder.dropboxPipelineDownloadWorkers;
+        this.dropboxPipelineStageWorkers = builder.dropboxPipelineStageWorkers;
+        this.dropboxPipelineQueueCapacity = builder.dropboxPipelineQueueCapacity;
+        this.dropboxPipelineMaxInFlightBytes = builder.dropboxPipelineMaxInFlightBytes;
+        this.changeSetMemoryThreshold = builder.changeSetMemoryThreshold;
+        this.importCheckpointFiles = builder.importCheckpointFiles;
+        this.importCheckpointBytes = builder.importCheckpointBytes;
+        this.syncDebounceQuietSeconds = builder.syncDebounceQuietSeconds;
+        this.syncDebounceMaxSeconds = builder.syncDebounceMaxSeconds;
+        this.daemonIntervalSeconds = builder.daemonIntervalSeconds;
+        this.daemonShutdownTimeoutSeconds = builder.daemonShutdownTimeoutSeconds;
+        this.webhookPort = builder.webhookPort;
+        this.webhookGithubSecret = builder.webhookGithubSecret;
     }
 
     public String getDropboxRefreshToken() {
@@ -83,6 +156,14 @@ public final class AppConfig {
         return targetFileExtensions;
     }
 
+    public List<String> getTargetFileIncludeGlobs() {
+        return targetFileIncludeGlobs;
+    }
+
+    public List<String> getTargetFileExcludeGlobs() {
+        return targetFileExcludeGlobs;
+    }
+
     public List<String> getTargetDirectories() {
         return targetDirectories;
     }
@@ -91,6 +172,134 @@ public final class AppConfig {
         return syncTargetDir;
     }
 
+    public String getGitSeedBundlePath() {
+        return gitSeedBundlePath;
+    }
+
+    public String getGitReferenceRepoPath() {
+        return gitReferenceRepoPath;
+    }
+
+    public int getGitGcLooseObjectThreshold() {
+        return gitGcLooseObjectThreshold;
+    }
+
+    public int getGitGcPackThreshold() {
+        return gitGcPackThreshold;
+    }
+
+    public int getGitPushThreads() {
+        return gitPushThreads;
+    }
+
+    public int getGitPushBigFileThreshold() {
+        return gitPushBigFileThreshold;
+    }
+
+    public List<String> getGitPushBinaryExtensions() {
+        return gitPushBinaryExtensions;
+    }
+
+    public List<String> getGitLfsPatterns() {
+        return gitLfsPatterns;
+    }
+
+    public String getGitLfsUrl() {
+        return gitLfsUrl;
+    }
+
+    public String getGitLfsLocalStorePath() {
+        return gitLfsLocalStorePath;
+    }
+
+    public List<String> getZipNormalizeExtensions() {
+        return zipNormalizeExtensions;
+    }
+
+    public int getGitBulkImportThreshold() {
+        return gitBulkImportThreshold;
+    }
+
+    public int getDropboxDownloadSegmentThreshold() {
+        return dropboxDownloadSegmentThreshold;
+    }
+
+    public int getDropboxDownloadThreads() {
+        return dropboxDownloadThreads;
+    }
+
+    public int getDropboxDownloadMaxRetries() {
+        return dropboxDownloadMaxRetries;
+    }
+
+    public boolean isDropboxDownloadComputeBlobId() {
+        return dropboxDownloadComputeBlobId;
+    }
+
+    public boolean isDropboxDownloadTeeGitObjects() {
+        return dropboxDownloadTeeGitObjects;
+    }
+
+    public int getDropboxListThreads() {
+        return dropboxListThreads;
+    }
+
+    public int getDropboxListPageLimit() {
+        return dropboxListPageLimit;
+    }
+
+    public int getDropboxPipelineDownloadWorkers() {
+        return dropboxPipelineDownloadWorkers;
+    }
+
+    public int getDropboxPipelineStageWorkers() {
+        return dropboxPipelineStageWorkers;
+    }
+
+    public int getDropboxPipelineQueueCapacity() {
+        return dropboxPipelineQueueCapacity;
+    }
+
+    public int getDropboxPipelineMaxInFlightBytes() {
+        return dropboxPipelineMaxInFlightBytes;
+    }
+
+    public int getChangeSetMemoryThreshold() {
+        return changeSetMemoryThreshold;
+    }
+
+    public int getImportCheckpointFiles() {
+        return importCheckpointFiles;
+    }
+
+    public long getImportCheckpointBytes() {
+        return importCheckpointBytes;
+    }
+
+    public int getSyncDebounceQuietSeconds() {
+        return syncDebounceQuietSeconds;
+    }
+
+    public int getSyncDebounceMaxSeconds() {
+        return syncDebounceMaxSeconds;
+    }
+
+    public int getDaemonIntervalSeconds() {
+        return daemonIntervalSeconds;
+    }
+
+    public int getDaemonShutdownTimeoutSeconds() {
+        return daemonShutdownTimeoutSeconds;
+    }
+
+    public int getWebhookPort() {
+        return webhookPort;
+    }
+
+    public String getWebhookGithubSecret() {
+        return webhookGithubSecret;
+    }
+
     /**
      * AppConfigのBuilderクラス。
      */
@@ -105,8 +314,42 @@ public final class AppConfig {
         private String localRepoPath;
         private String cursorFilePath;
         private List<String> targetFileExtensions;
+        private List<String> targetFileIncludeGlobs = List.of();
+        private List<String> targetFileExcludeGlobs = List.of();
         private List<String> targetDirectories;
         private String syncTargetDir;
+        private String gitSeedBundlePath = "";
+        private String gitReferenceRepoPath = "";
+        private int gitGcLooseObjectThreshold = 6700;
+        private int gitGcPackThreshold = 50;
+        private int gitPushThreads = 0;
+        private int gitPushBigFileThreshold = 16 * 1024 * 1024;
+        private List<String> gitPushBinaryExtensions = List.of(".zip", ".xlsx", ".xlsm", ".png");
+        private List<String> gitLfsPatterns = List.of();
+        private String gitLfsUrl = "";
+        private String gitLfsLocalStorePath = "";
+        private List<String> zipNormalizeExtensions = List.of();
+        private int gitBulkImportThreshold = 1000;
+        private int dropboxDownloadSegmentThreshold = 64 * 1024 * 1024;
+        private int dropboxDownloadThreads = 4;
+        private int dropboxDownloadMaxRetries = 3;
+        private boolean dropboxDownloadComputeBlobId = false;
+        private boolean dropboxDownloadTeeGitObjects = false;
+        private int dropboxListThreads = 4;
+        private int dropboxListPageLimit = 2000;
+        private int dropboxPipelineDownloadWorkers = 4;
+        private int dropboxPipelineStageWorkers = 2;
+        private int dropboxPipelineQueueCapacity = 256;
+        private int dropboxPipelineMaxInFlightBytes = 256 * 1024 * 1024;
+        private int changeSetMemoryThreshold = 64 * 1024 * 1024;
+        private int importCheckpointFiles = 10000;
+        private long importCheckpointBytes = 1024L * 1024 * 1024;
+        private int syncDebounceQuietSeconds = 0;
+        private int syncDebounceMaxSeconds = 300;
+        private int daemonIntervalSeconds = 300;
+        private int daemonShutdownTimeoutSeconds = 120;
+        private int webhookPort = 0;
+        private String webhookGithubSecret = "";
 
         public Builder dropboxRefreshToken(String dropboxRefreshToken) {
             this.dropboxRefreshToken = dropboxRefreshToken != null ? dropboxRefreshToken : "";
@@ -158,6 +401,16 @@ public final class AppConfig {
             return this;
         }
 
+        public Builder targetFileIncludeGlobs(List<String> targetFileIncludeGlobs) {
+            this.targetFileIncludeGlobs = targetFileIncludeGlobs;
+            return this;
+        }
+
+        public Builder targetFileExcludeGlobs(List<String> targetFileExcludeGlobs) {
+            this.targetFileExcludeGlobs = targetFileExcludeGlobs;
+            return this;
+        }
+
         public Builder targetDirectories(List<String> targetDirectories) {
             this.targetDirectories = targetDirectories;
             return this;
@@ -168,6 +421,166 @@ public final class AppConfig {
             return this;
         }
 
+        public Builder gitSeedBundlePath(String gitSeedBundlePath) {
+            this.gitSeedBundlePath = gitSeedBundlePath != null ? gitSeedBundlePath : "";
+            return this;
+        }
+
+        public Builder gitReferenceRepoPath(String gitReferenceRepoPath) {
+            this.gitReferenceRepoPath = gitReferenceRepoPath != null ? gitReferenceRepoPath : "";
+            return this;
+        }
+
+        public Builder gitGcLooseObjectThreshold(int gitGcLooseObjectThreshold) {
+            this.gitGcLooseObjectThreshold = gitGcLooseObjectThreshold;
+            return this;
+        }
+
+        public Builder gitGcPackThreshold(int gitGcPackThreshold) {
+            this.gitGcPackThreshold = gitGcPackThreshold;
+            return this;
+        }
+
+        public Builder gitPushThreads(int gitPushThreads) {
+            this.gitPushThreads = gitPushThreads;
+            return this;
+        }
+
+        public Builder gitPushBigFileThreshold(int gitPushBigFileThreshold) {
+            this.gitPushBigFileThreshold = gitPushBigFileThreshold;
+            return this;
+        }
+
+        public Builder gitPushBinaryExtensions(List<String> gitPushBinaryExtensions) {
+            this.gitPushBinaryExtensions = gitPushBinaryExtensions;
+            return this;
+        }
+
+        public Builder gitLfsPatterns(List<String> gitLfsPatterns) {
+            this.gitLfsPatterns = gitLfsPatterns;
+            return this;
+        }
+
+        public Builder gitLfsUrl(String gitLfsUrl) {
+            this.gitLfsUrl = gitLfsUrl != null ? gitLfsUrl : "";
+            return this;
+        }
+
+        public Builder gitLfsLocalStorePath(String gitLfsLocalStorePath) {
+            this.gitLfsLocalStorePath = gitLfsLocalStorePath != null ? gitLfsLocalStorePath : "";
+            return this;
+        }
+
+        public Builder zipNormalizeExtensions(List<String> zipNormalizeExtensions) {
+            this.zipNormalizeExtensions = zipNormalizeExtensions;
+            return this;
+        }
+
+        public Builder gitBulkImportThreshold(int gitBulkImportThreshold) {
+            this.gitBulkImportThreshold = gitBulkImportThreshold;
+            return this;
+        }
+
+        public Builder dropboxDownloadSegmentThreshold(int dropboxDownloadSegmentThreshold) {
+            this.dropboxDownloadSegmentThreshold = dropboxDownloadSegmentThreshold;
+            return this;
+        }
+
+        public Builder dropboxDownloadThreads(int dropboxDownloadThreads) {
+            this.dropboxDownloadThreads = dropboxDownloadThreads;
+            return this;
+        }
+
+        public Builder dropboxDownloadMaxRetries(int dropboxDownloadMaxRetries) {
+            this.dropboxDownloadMaxRetries = dropboxDownloadMaxRetries;
+            return this;
+        }
+
+        public Builder dropboxDownloadComputeBlobId(boolean dropboxDownloadComputeBlobId) {
+            this.dropboxDownloadComputeBlobId = dropboxDownloadComputeBlobId;
+            return this;
+        }
+
+        public Builder dropboxDownloadTeeGitObjects(boolean dropboxDownloadTeeGitObjects) {
+            this.dropboxDownloadTeeGitObjects = dropboxDownloadTeeGitObjects;
+            return this;
+        }
+
+        public Builder dropboxListThreads(int dropboxListThreads) {
+            this.dropboxListThreads = dropboxListThreads;
+            return this;
+        }
+
+        public Builder dropboxListPageLimit(int dropboxListPageLimit) {
+            this.dropboxListPageLimit = dropboxListPageLimit;
+            return this;
+        }
+
+        public Builder dropboxPipelineDownloadWorkers(int dropboxPipelineDownloadWorkers) {
+            this.dropboxPipelineDownloadWorkers = dropboxPipelineDownloadWorkers;
+            return this;
+        }
+
+        public Builder dropboxPipelineStageWorkers(int dropboxPipelineStageWorkers) {
+            this.dropboxPipelineStageWorkers = dropboxPipelineStageWorkers;
+            return this;
+        }
+
+        public Builder dropboxPipelineQueueCapacity(int dropboxPipelineQueueCapacity) {
+            this.dropboxPipelineQueueCapacity = dropboxPipelineQueueCapacity;
+            return this;
+        }
+
+        public Builder dropboxPipelineMaxInFlightBytes(int dropboxPipelineMaxInFlightBytes) {
+            this.dropboxPipelineMaxInFlightBytes = dropboxPipelineMaxInFlightBytes;
+            return this;
+        }
+
+        public Builder changeSetMemoryThreshold(int changeSetMemoryThreshold) {
+            this.changeSetMemoryThreshold = changeSetMemoryThreshold;
+            return this;
+        }
+
+        public Builder importCheckpointFiles(int importCheckpointFiles) {
+            this.importCheckpointFiles = importCheckpointFiles;
+            return this;
+        }
+
+        public Builder importCheckpointBytes(long importCheckpointBytes) {
+            this.importCheckpointBytes = importCheckpointBytes;
+            return this;
+        }
+
+        public Builder syncDebounceQuietSeconds(int syncDebounceQuietSeconds) {
+            this.syncDebounceQuietSeconds = syncDebounceQuietSeconds;
+            return this;
+        }
+
+        public Builder syncDebounceMaxSeconds(int syncDebounceMaxSeconds) {
+            this.syncDebounceMaxSeconds = syncDebounceMaxSeconds;
+            return this;
+        }
+
+        public Builder daemonIntervalSeconds(int daemonIntervalSeconds) {
+            this.daemonIntervalSeconds = daemonIntervalSeconds;
+            return this;
+        }
+
+        public Builder daemonShutdownTimeoutSeconds(int daemonShutdownTimeoutSeconds) {
+            this.daemonShutdownTimeoutSeconds = daemonShutdownTimeoutSeconds;
+            return this;
+        }
+
+        public Builder webhookPort(int webhookPort) {
+            this.webhookPort = webhookPort;
+            return this;
+        }
+
+        public Builder webhookGithubSecret(String webhookGithubSecret) {
+            this.webhookGithubSecret = webhookGithubSecret;
+            return this;
+        }
+
         public AppConfig build() {
             return new AppConfig(this);
         }
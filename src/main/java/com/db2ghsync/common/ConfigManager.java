@@ -4,6 +4,7 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -191,9 +192,47 @@ public class ConfigManager {
                 .cursorFilePath(getRequiredProperty(props, "cursor.file.path"))
                 .targetFileExtensions(Arrays.asList(
                         getRequiredProperty(props, "target.file.extensions").split(",")))
+                .targetFileIncludeGlobs(getListProperty(props, "target.file.include.globs", ""))
+                .targetFileExcludeGlobs(getListProperty(props, "target.file.exclude.globs", ""))
                 .targetDirectories(Arrays.asList(
                         getRequiredProperty(props, "target.directories").split(",")))
                 .syncTargetDir(getRequiredProperty(props, "sync.target.dir"))
+                .gitSeedBundlePath(props.getProperty("git.seed.bundle.path", ""))
+                .gitReferenceRepoPath(props.getProperty("git.reference.repo.path", ""))
+                .gitGcLooseObjectThreshold(getIntProperty(props, "git.gc.loose.object.threshold", 6700))
+                .gitGcPackThreshold(getIntProperty(props, "git.gc.pack.threshold", 50))
+                .gitPushThreads(getIntProperty(props, "git.push.threads", 0))
+                .gitPushBigFileThreshold(getIntProperty(props, "git.push.big.file.threshold", 16 * 1024 * 1024))
+                .gitPushBinaryExtensions(getListProperty(props, "git.push.binary.extensions", ".zip,.xlsx,.xlsm,.png"))
+                .gitLfsPatterns(getListProperty(props, "git.lfs.patterns", ""))
+                .gitLfsUrl(props.getProperty("git.lfs.url", ""))
+                .gitLfsLocalStorePath(props.getProperty("git.lfs.local.store.path", ""))
+                .zipNormalizeExtensions(getListProperty(props, "zip.normalize.extensions", ""))
+                .gitBulkImportThreshold(getIntProperty(props, "git.bulk.import.threshold", 1000))
+                .dropboxDownloadSegmentThreshold(
+                        getIntProperty(props, "dropbox.download.segment.threshold", 64 * 1024 * 1024))
+                .dropboxDownloadThreads(getIntProperty(props, "dropbox.download.threads", 4))
+                .dropboxDownloadMaxRetries(getIntProperty(props, "dropbox.download.max.retries", 3))
+                .dropboxDownloadComputeBlobId(
+                        Boolean.parseBoolean(props.getProperty("dropbox.download.compute.blob.id", "false")))
+                .dropboxDownloadTeeGitObjects(
+                        Boolean.parseBoolean(props.getProperty("dropbox.download.tee.git.objects", "false")))
+                .dropboxListThreads(getIntProperty(props, "dropbox.list.threads", 4))
+                .dropboxListPageLimit(getIntProperty(props, "dropbox.list.page.limit", 2000))
+                .dropboxPipelineDownloadWorkers(getIntProperty(props, "dropbox.pipeline.download.workers", 4))
+                .dropboxPipelineStageWorkers(getIntProperty(props, "dropbox.pipeline.stage.workers", 2))
+                .dropboxPipelineQueueCapacity(getIntProperty(props, "dropbox.pipeline.queue.capacity", 256))
+                .dropboxPipelineMaxInFlightBytes(
+                        getIntProperty(props, "dropbox.pipeline.max.inflight.bytes", 256 * 1024 * 1024))
+                .changeSetMemoryThreshold(getIntProperty(props, "change.set.memory.threshold", 64 * 1024 * 1024))
+                .importCheckpointFiles(getIntProperty(props, "import.checkpoint.files", 10000))
+                .importCheckpointBytes(getLongProperty(props, "import.checkpoint.bytes", 1024L * 1024 * 1024))
+                .syncDebounceQuietSeconds(getIntProperty(props, "sync.debounce.quiet.seconds", 0))
+                .syncDebounceMaxSeconds(getIntProperty(props, "sync.debounce.max.seconds", 300))
+                .daemonIntervalSeconds(getIntProperty(props, "daemon.interval.seconds", 300))
+                .daemonShutdownTimeoutSeconds(getIntProperty(props, "daemon.shutdown.timeout.seconds", 120))
+                .webhookPort(getIntProperty(props, "webhook.port", 0))
+                .webhookGithubSecret(props.getProperty("webhook.github.secret", ""))
                 .build();
     }
 
@@ -219,4 +258,73 @@ public class ConfigManager {
 
         return val;
     }
-}
\ No newline at end of file
+
+    /**
+     * Propertiesから任意の整数項目を取得するヘルパーメソッド。
+     * 
+     * @param props        Propertiesオブジェクト
+     * @param key          取得するキー
+     * @param defaultValue 未設定・空の場合のデフォルト値
+     * @return 設定値
+     * @throws IllegalArgumentException 整数として解釈できない場合
+     */
+    private static int getIntProperty(Properties props, String key, int defaultValue) {
+
+        String val = props.getProperty(key);
+
+        if (Objects.isNull(val) || val.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(val.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property is not an integer: " + key, e);
+        }
+    }
+
+    /**
+     * Propertiesから任意の整数項目をlongとして取得するヘルパーメソッド。intの範囲を超えるサイズの指定に使用する。
+     * 
+     * @param props        Propertiesオブジェクト
+     * @param key          取得するキー
+     * @param defaultValue 未設定・空の場合のデフォルト値
+     * @return 設定値
+     * @throws IllegalArgumentException 整数として解釈できない場合
+     */
+    private static long getLongProperty(Properties props, String key, long defaultValue) {
+
+        String val = props.getProperty(key);
+
+        if (Objects.isNull(val) || val.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(val.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property is not an integer: " + key, e);
+        }
+    }
+
+    /**
+     * Propertiesから任意のカンマ区切り項目を取得するヘルパーメソッド。空の要素は除外する。
+     * 
+     * @param props        Propertiesオブジェクト
+     * @param key          取得するキー
+     * @param defaultValue 未設定の場合のデフォルト値（カンマ区切り）
+     * @return 設定値のリスト
+     */
+    private static List<String> getListProperty(Properties props, String key, String defaultValue) {
+
+        String val = props.getProperty(key, defaultValue);
+        List<String> result = new ArrayList<>();
+        for (String element : val.split(",")) {
+            String trimmed = element.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,303 @@
+package com.db2ghsync.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 同期対象のファイルを判定する、設定から一度だけ構築して使い回すマッチャー。
+ * <p>
+ * 判定対象はリポジトリのルートからの相対パス（区切りは"/"、先頭の"/"なし）で、
+ * 以下をすべて満たす場合に一致とする。
+ * <ul>
+ * <li>ディレクトリの接頭辞のいずれかで始まる（未指定の場合は全て）</li>
+ * <li>拡張子のいずれかで終わる、または包含globのいずれかに一致する（どちらも未指定の場合は全て）</li>
+ * <li>除外globのいずれにも一致しない</li>
+ * </ul>
+ * 拡張子は末尾の文字から辿る逆順のトライで照合するため、拡張子の数に関わらず
+ * 判定はパス末尾の数文字の比較で済み、判定ごとの文字列の生成も行わない。
+ * "/"を含まないglobはファイル名に対して照合する（例: {@code *.tmp}は全ての階層に一致する）。
+ * <p>
+ * 構築後は不変で、複数のスレッドから同時に使用できる。
+ */
+public final class FileMatcher {
+
+    // 拡張子の逆順トライ（未指定の場合はnull。空のリストを指定した場合はいずれにも一致しない）
+    private final SuffixNode suffixes;
+
+    // 包含・除外globをまとめた正規表現（未指定の場合はnull）
+    private final Pattern include;
+    private final Pattern exclude;
+
+    // 末尾に"/"を付けたディレクトリの接頭辞（未指定の場合は空）
+    private final String[] prefixes;
+
+    private FileMatcher(Builder builder) {
+        this.suffixes = builder.extensions == null ? null : SuffixNode.of(builder.extensions);
+        this.include = compileGlobs(builder.includeGlobs);
+        this.exclude = compileGlobs(builder.excludeGlobs);
+        this.prefixes = builder.prefixes.toArray(new String[0]);
+    }
+
+    /**
+     * 拡張子のみで判定するマッチャーを構築する。
+     * 拡張子リストが空の場合はいずれにも一致しない。
+     *
+     * @param extensions 拡張子リスト（例: .txt, .pdf）
+     * @return マッチャー
+     */
+    public static FileMatcher ofExtensions(List<String> extensions) {
+        return new Builder().extensions(extensions).build();
+    }
+
+    /**
+     * Dropbox->Git同期の対象ファイルを判定するマッチャーを構築する。
+     *
+     * @param config アプリケーション設定
+     * @return 対象拡張子・包含glob・除外globから構築したマッチャー
+     */
+    public static FileMatcher forDropboxToGit(AppConfig config) {
+        return new Builder()
+                .extensions(config.getTargetFileExtensions())
+                .includeGlobs(config.getTargetFileIncludeGlobs())
+                .excludeGlobs(config.getTargetFileExcludeGlobs())
+                .build();
+    }
+
+    /**
+     * Git->Dropbox同期の対象ファイルを判定するマッチャーを構築する。
+     *
+     * @param config アプリケーション設定
+     * @return 同期対象ディレクトリと除外globから構築したマッチャー
+     */
+    public static FileMatcher forGitToDropbox(AppConfig config) {
+        return new Builder()
+                .prefixes(List.of(config.getSyncTargetDir()))
+                .excludeGlobs(config.getTargetFileExcludeGlobs())
+                .build();
+    }
+
+    /**
+     * 相対パスが対象か判定する。
+     *
+     * @param relativePath リポジトリのルートからの相対パス（区切りは"/"）
+     * @return 対象の場合true
+     */
+    public boolean matches(String relativePath) {
+        if (!matchesPrefix(relativePath)) {
+            return false;
+        }
+        if (suffixes != null || include != null) {
+            boolean included = (suffixes != null && suffixes.matchesEnd(relativePath))
+                    || (include != null && include.matcher(relativePath).matches());
+            if (!included) {
+                return false;
+            }
+        }
+        return exclude == null || !exclude.matcher(relativePath).matches();
+    }
+
+    private boolean matchesPrefix(String relativePath) {
+        if (prefixes.length == 0) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (relativePath.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern compileGlobs(List<String> globs) {
+        if (globs.isEmpty()) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String glob : globs) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append("(?:");
+            if (glob.indexOf('/') < 0) {
+                // ファイル名のみのglobは全ての階層に一致させる
+                regex.append("(?:.*/)?");
+            }
+            appendGlob(regex, glob.startsWith("/") ? glob.substring(1) : glob);
+            regex.append(')');
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * globを正規表現へ変換する。
+     * {@code **}は"/"を含む任意の文字列、{@code *}と{@code ?}は"/"を含まない文字列に一致する。
+     * {@code {a,b}}の選択と{@code [...]}の文字クラスに対応する。
+     */
+    private static void appendGlob(StringBuilder regex, String glob) {
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            // "**/"は0個以上のディレクトリ
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '{':
+                    inGroup = true;
+                    regex.append("(?:");
+                    break;
+                case '}':
+                    regex.append(inGroup ? ")" : "\\}");
+                    inGroup = false;
+                    break;
+                case ',':
+                    regex.append(inGroup ? "|" : ",");
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i + 1);
+                    if (end < 0) {
+                        regex.append("\\[");
+                    } else {
+                        String body = glob.substring(i + 1, end);
+                        regex.append('[').append(body.startsWith("!") ? "^" + body.substring(1) : body)
+                                .append(']');
+                        i = end;
+                    }
+                    break;
+                default:
+                    if ("\\.^$+()|]{".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 拡張子の末尾の文字から辿る逆順トライのノード。
+     */
+    private static final class SuffixNode {
+
+        private char[] keys = new char[0];
+        private SuffixNode[] children = new SuffixNode[0];
+
+        // ここまでの文字列が登録した拡張子のいずれかと一致する
+        private boolean terminal;
+
+        private static SuffixNode of(List<String> extensions) {
+            SuffixNode root = new SuffixNode();
+            for (String extension : extensions) {
+                SuffixNode node = root;
+                for (int i = extension.length() - 1; i >= 0; i--) {
+                    node = node.childOrCreate(extension.charAt(i));
+                }
+                node.terminal = true;
+            }
+            return root;
+        }
+
+        private SuffixNode childOrCreate(char key) {
+            SuffixNode child = child(key);
+            if (child == null) {
+                child = new SuffixNode();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+        private SuffixNode child(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private boolean matchesEnd(String path) {
+            SuffixNode node = this;
+            for (int i = path.length() - 1; i >= 0; i--) {
+                if (node.terminal) {
+                    return true;
+                }
+                node = node.child(path.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+    }
+
+    /**
+     * FileMatcherのビルダー。
+     */
+    public static class Builder {
+
+        private List<String> extensions = null;
+        private List<String> includeGlobs = new ArrayList<>();
+        private List<String> excludeGlobs = new ArrayList<>();
+        private List<String> prefixes = new ArrayList<>();
+
+        public Builder extensions(List<String> extensions) {
+            this.extensions = new ArrayList<>(extensions);
+            return this;
+        }
+
+        public Builder includeGlobs(List<String> includeGlobs) {
+            this.includeGlobs = new ArrayList<>(includeGlobs);
+            return this;
+        }
+
+        public Builder excludeGlobs(List<String> excludeGlobs) {
+            this.excludeGlobs = new ArrayList<>(excludeGlobs);
+            return this;
+        }
+
+        /**
+         * ディレクトリの接頭辞を設定する。先頭の"/"は除き、末尾に"/"を補う。
+         * ルート（空文字・"/"）を含む場合は全てのパスを対象とする。
+         */
+        public Builder prefixes(List<String> prefixes) {
+            List<String> normalized = new ArrayList<>();
+            for (String prefix : prefixes) {
+                String value = prefix.replace('\\', '/');
+                int start = 0;
+                while (start < value.length() && value.charAt(start) == '/') {
+                    start++;
+                }
+                value = value.substring(start);
+                if (value.isEmpty()) {
+                    normalized.clear();
+                    break;
+                }
+                normalized.add(value.endsWith("/") ? value : value + "/");
+            }
+            this.prefixes = normalized;
+            return this;
+        }
+
+        public FileMatcher build() {
+            return new FileMatcher(this);
+        }
+    }
+}
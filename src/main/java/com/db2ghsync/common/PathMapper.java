@@ -0,0 +1,227 @@
+package com.db2ghsync.common;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Dropbox・Gitブランチ・ローカルリポジトリ間のパスの対応付けを一元的に扱うユーティリティクラス。
+ * <p>
+ * Dropboxの対象ディレクトリ（例: /dir1）はGitのブランチ（dir1）に対応し、
+ * その配下のパス（/dir1/sub/a.txt）はリポジトリ内の相対パス（sub/a.txt）に対応する。
+ * <p>
+ * 正規化は正規表現を使わず1回の走査で行い、変換が不要なパスは同じインスタンスをそのまま返す。
+ * ディレクトリ名・ブランチ名は種類が少なく全てのエントリで繰り返し現れるため、
+ * 部分文字列を生成せずに照合する表で同じインスタンスを共有する。
+ * 表は登録のみで削除しないため、参照はロックを取らずに行い、登録は空き枠への比較・交換で行う。
+ */
+public final class PathMapper {
+
+    // 共有する名前の表の大きさ（2の累乗）と、共有する名前の数の上限
+    private static final int NAME_TABLE_SIZE = 1024;
+    private static final int MAX_SHARED_NAMES = NAME_TABLE_SIZE / 2;
+
+    private static final AtomicReferenceArray<String> NAMES = new AtomicReferenceArray<>(NAME_TABLE_SIZE);
+    private static final AtomicInteger SHARED_NAMES = new AtomicInteger();
+
+    private PathMapper() {
+    }
+
+    /**
+     * パスを正規化する。"\"を"/"に置き換え、連続する"/"を1つにまとめ、先頭の"/"を除く。
+     * 例: /dir1//sub\a.txt -> dir1/sub/a.txt
+     *
+     * @param path パス文字列
+     * @return 正規化したパス。変換が不要な場合は引数と同じインスタンス
+     */
+    public static String normalize(String path) {
+        int length = path.length();
+        int firstChange = -1;
+        char previous = '/';
+        for (int i = 0; i < length; i++) {
+            char c = path.charAt(i);
+            if (c == '\\' || (c == '/' && previous == '/')) {
+                firstChange = i;
+                break;
+            }
+            previous = c;
+        }
+        if (firstChange < 0) {
+            return path;
+        }
+
+        char[] buffer = new char[length];
+        path.getChars(0, firstChange, buffer, 0);
+        int size = firstChange;
+        boolean afterSlash = size == 0 || buffer[size - 1] == '/';
+        for (int i = firstChange; i < length; i++) {
+            char c = path.charAt(i);
+            if (c == '\\' || c == '/') {
+                if (afterSlash) {
+                    continue;
+                }
+                c = '/';
+                afterSlash = true;
+            } else {
+                afterSlash = false;
+            }
+            buffer[size++] = c;
+        }
+        return new String(buffer, 0, size);
+    }
+
+    /**
+     * Dropboxのパスの先頭のディレクトリ名を取得する。
+     * 例: /foo/bar.txt -> foo
+     *
+     * @param dropboxPath Dropboxのパス（先頭が/で始まること）
+     * @return 先頭のディレクトリ名（共有インスタンス）。該当しない場合は空文字
+     */
+    public static String firstSegment(String dropboxPath) {
+        if (dropboxPath == null || !dropboxPath.startsWith("/")) {
+            return "";
+        }
+        int end = dropboxPath.indexOf('/', 1);
+        return shared(dropboxPath, 1, end < 0 ? dropboxPath.length() : end);
+    }
+
+    /**
+     * Dropboxのパスから先頭の対象ディレクトリを除いた、リポジトリ内の相対パスを返す。
+     * 例: /dir1/sub/a.txt -> sub/a.txt
+     *
+     * @param dropboxPath Dropboxのパス
+     * @return リポジトリ内の相対パス。ディレクトリを含まない場合は先頭の"/"を除いたパス
+     */
+    public static String stripFirstSegment(String dropboxPath) {
+        int start = dropboxPath.startsWith("/") ? 1 : 0;
+        int slash = dropboxPath.indexOf('/', start);
+        return slash != -1 ? dropboxPath.substring(slash + 1) : dropboxPath.substring(start);
+    }
+
+    /**
+     * Dropboxの対象ディレクトリに対応するブランチ名を返す。
+     * 例: /dir1 -> dir1
+     *
+     * @param directory 対象ディレクトリ
+     * @return ブランチ名（共有インスタンス）
+     */
+    public static String toBranchName(String directory) {
+        String normalized = normalize(directory);
+        return shared(normalized, 0, normalized.length());
+    }
+
+    /**
+     * ブランチ名に対応するDropboxの対象ディレクトリを返す。
+     * 例: dir1 -> /dir1
+     *
+     * @param branchName ブランチ名
+     * @return 対象ディレクトリ
+     */
+    public static String toDirectory(String branchName) {
+        return "/" + toBranchName(branchName);
+    }
+
+    /**
+     * ブランチとリポジトリ内の相対パスから、Dropboxのパスを組み立てる。
+     * 例: (feature, review/a.txt) -> /feature/review/a.txt
+     *
+     * @param branchName   ブランチ名
+     * @param relativePath リポジトリ内の相対パス
+     * @return Dropboxのパス
+     */
+    public static String toDropboxPath(String branchName, String relativePath) {
+        String branch = toBranchName(branchName);
+        String relative = normalize(relativePath);
+        return new StringBuilder(branch.length() + relative.length() + 2)
+                .append('/').append(branch).append('/').append(relative).toString();
+    }
+
+    /**
+     * Dropboxのパスをローカルリポジトリ上のパスに変換する。
+     * 先頭の対象ディレクトリ（ブランチ名）はパスに含めない。
+     *
+     * @param dropboxPath Dropbox上のファイルパス（例: /dir1/file.txt）
+     * @param repoRoot    ローカルリポジトリのルート
+     * @return ローカルのパス
+     */
+    public static Path toLocalPath(String dropboxPath, Path repoRoot) {
+        return repoRoot.resolve(stripFirstSegment(dropboxPath));
+    }
+
+    /**
+     * Dropboxのパスを、同期で書き込み・削除してよいローカルのパスに変換する。
+     * 対象ディレクトリ自体（リポジトリのルート）、.git配下、ルートの外を指すパスは対象外とする。
+     * 例: /dir1/a.txt -> repoRoot/a.txt、/dir1 -> null、/dir1/.git/config -> null
+     *
+     * @param dropboxPath Dropbox上のパス
+     * @param repoRoot    ローカルリポジトリのルート
+     * @return ローカルのパス。対象外の場合はnull
+     */
+    public static Path toManagedLocalPath(String dropboxPath, Path repoRoot) {
+        if (normalize(dropboxPath).indexOf('/') == -1) {
+            // 対象ディレクトリ自体
+            return null;
+        }
+        Path root = repoRoot.toAbsolutePath().normalize();
+        Path path = toLocalPath(dropboxPath, root).normalize();
+        if (path.equals(root) || !path.startsWith(root)) {
+            return null;
+        }
+        // 大文字小文字を区別しないファイルシステムでは.GITも同じディレクトリを指す
+        String top = root.relativize(path).getName(0).toString();
+        return top.equalsIgnoreCase(".git") ? null : path;
+    }
+
+    /**
+     * ローカルのパスを、ルートからの相対パス（区切りは"/"）に変換する。
+     *
+     * @param root ルートディレクトリ
+     * @param path ルート配下のパス
+     * @return 相対パス
+     */
+    public static String toRelativePath(Path root, Path path) {
+        String relative = root.relativize(path).toString();
+        return File.separatorChar == '/' ? relative : relative.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * 文字列の指定範囲と等しい共有インスタンスを返す。
+     * 表に登録済みの場合は部分文字列を生成しない。上限を超えた名前は共有せずに返す。
+     * 同時に登録した場合の上限の超過はスレッド数程度で、表の空きは十分に残る。
+     */
+    private static String shared(String source, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int mask = NAME_TABLE_SIZE - 1;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String created = null;
+        while (true) {
+            String name = NAMES.get(index);
+            if (name == null) {
+                if (created == null) {
+                    created = start == 0 && end == source.length() ? source : source.substring(start, end);
+                }
+                if (SHARED_NAMES.get() >= MAX_SHARED_NAMES) {
+                    return created;
+                }
+                if (NAMES.compareAndSet(index, null, created)) {
+                    SHARED_NAMES.incrementAndGet();
+                    return created;
+                }
+                // 他のスレッドが同じ枠に登録したため、登録された名前と照合し直す
+                continue;
+            }
+            if (name.length() == length && source.regionMatches(start, name, 0, length)) {
+                return name;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.db2ghsync.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * zip形式のコンテナファイル（.xlsx/.xlsm/.zip等）を変換するユーティリティクラス。
+ * <p>
+ * 圧縮済みのエントリは小さな編集でも全体が別物になり、Gitのデルタ圧縮が効かない。
+ * そのため、Gitへ格納する際は全エントリを無圧縮（STORED）に正規化し、
+ * Dropboxへ戻す際は同じエントリ・内容のまま圧縮（DEFLATED）し直す。
+ */
+public class ZipContainerNormalizer {
+
+    // ODF等で先頭に無圧縮で格納することが求められるエントリ
+    private static final String MIMETYPE_ENTRY = "mimetype";
+
+    /**
+     * ファイルを無圧縮のzipに置き換える。
+     * 
+     * @param file 対象ファイル
+     * @throws IOException zipとして読み込めない場合、書き込み失敗時
+     */
+    public static void normalize(Path file) throws IOException {
+
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), ".normalize-", ".tmp");
+        try {
+            copyEntries(file, tmp, true);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 正規化されたzipから、同じエントリ・内容を圧縮したzipを作成する。
+     * 
+     * @param source 元ファイル
+     * @param target 作成先ファイル
+     * @throws IOException zipとして読み込めない場合、書き込み失敗時
+     */
+    public static void rebuild(Path source, Path target) throws IOException {
+        copyEntries(source, target, false);
+    }
+
+    private static void copyEntries(Path source, Path target, boolean stored) throws IOException {
+
+        try (ZipFile zipFile = new ZipFile(source.toFile());
+                OutputStream out = Files.newOutputStream(target);
+                ZipOutputStream zipOut = new ZipOutputStream(out)) {
+
+            zipOut.setComment(zipFile.getComment());
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                ZipEntry copied = new ZipEntry(entry.getName());
+                copied.setTime(entry.getTime());
+                copied.setComment(entry.getComment());
+
+                if (stored || MIMETYPE_ENTRY.equals(entry.getName())) {
+                    copied.setMethod(ZipEntry.STORED);
+                    copied.setSize(entry.getSize());
+                    copied.setCompressedSize(entry.getSize());
+                    copied.setCrc(entry.getCrc());
+                } else {
+                    copied.setMethod(ZipEntry.DEFLATED);
+                }
+
+                zipOut.putNextEntry(copied);
+                if (!entry.isDirectory()) {
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        in.transferTo(zipOut);
+                    }
+                }
+                zipOut.closeEntry();
+            }
+        }
+    }
+}
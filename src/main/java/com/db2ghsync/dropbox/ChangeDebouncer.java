@@ -0,0 +1,160 @@
+package com.db2ghsync.dropbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.DropboxSyncException;
+
+/**
+ * 差分同期で検知した変更に続く変更を、一定時間新たな変更がなくなるまで待ってまとめるクラス。
+ * <p>
+ * 短時間に繰り返し保存されるファイルを、保存ごとではなく1回のコミット・プッシュで反映するために使用する。
+ * 待機時間ごとに一時保存したカーソルから続きの変更を取得し、対象の変更がなければ待機を終了する。
+ * 待機時間の合計が上限に達した場合は、その時点までの変更を返す。
+ * <p>
+ * 停止を要求された場合は待機を打ち切り、その時点までの変更を返す。
+ */
+public class ChangeDebouncer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeDebouncer.class);
+
+    /**
+     * 待機処理。テストで実際に待たずに検証できるよう差し替え可能にする。
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final DropboxService dropboxService;
+    private final CursorService cursorService;
+    private final long quietMillis;
+    private final long maxMillis;
+    private final Sleeper sleeper;
+
+    private final Object stopLock = new Object();
+    private boolean stopRequested = false;
+
+    /**
+     * コンストラクタ。設定の待機時間でChangeDebouncerを初期化する。
+     *
+     * @param dropboxService Dropboxサービス
+     * @param cursorService  カーソルサービス
+     * @param config         アプリケーション設定
+     */
+    public ChangeDebouncer(DropboxService dropboxService, CursorService cursorService, AppConfig config) {
+        this(dropboxService, cursorService, config.getSyncDebounceQuietSeconds() * 1000L,
+                config.getSyncDebounceMaxSeconds() * 1000L, null);
+    }
+
+    ChangeDebouncer(DropboxService dropboxService, CursorService cursorService, long quietMillis, long maxMillis,
+            Sleeper sleeper) {
+        this.dropboxService = Objects.requireNonNull(dropboxService, "DropboxService must not be null");
+        this.cursorService = Objects.requireNonNull(cursorService, "CursorService must not be null");
+        this.quietMillis = quietMillis;
+        this.maxMillis = maxMillis;
+        // 指定がない場合は、停止要求で打ち切れる待機を使用する
+        this.sleeper = sleeper != null ? sleeper : this::awaitStop;
+    }
+
+    /**
+     * 待機しない（検知した変更をそのまま返す）インスタンスを返す。
+     *
+     * @param dropboxService Dropboxサービス
+     * @param cursorService  カーソルサービス
+     * @return 待機しないインスタンス
+     */
+    public static ChangeDebouncer disabled(DropboxService dropboxService, CursorService cursorService) {
+        return new ChangeDebouncer(dropboxService, cursorService, 0, 0, null);
+    }
+
+    /**
+     * 停止を要求する。待機中の場合はすぐに打ち切り、以降の待機も行わない。
+     */
+    public void stop() {
+        synchronized (stopLock) {
+            stopRequested = true;
+            stopLock.notifyAll();
+        }
+    }
+
+    /**
+     * 検知した変更に続く変更を、新たな変更がなくなるまで取得して追加する。
+     * 変更がない場合・待機しない設定の場合は引数をそのまま返す。
+     * 待機中に割り込まれた場合は、その時点までの変更を返す。
+     *
+     * @param targetDir 対象ディレクトリ
+     * @param entries   カーソルで取得した変更
+     * @return 待機中の変更を取得順に追加した変更一覧
+     * @throws DropboxSyncException 変更取得失敗時
+     */
+    public List<SyncEntry> collect(String targetDir, List<SyncEntry> entries) throws DropboxSyncException {
+
+        if (quietMillis <= 0 || maxMillis <= 0 || entries.isEmpty()) {
+            return entries;
+        }
+
+        List<SyncEntry> collected = new ArrayList<>(entries);
+        int batches = 1;
+        long waited = 0;
+        while (waited < maxMillis) {
+            long wait = Math.min(quietMillis, maxMillis - waited);
+            try {
+                sleeper.sleep(wait);
+            } catch (InterruptedException e) {
+                // 停止要求。ここまでの変更を反映できるよう待機のみ打ち切る
+                Thread.currentThread().interrupt();
+                LOGGER.info("Waiting for changes was interrupted for directory: {}", targetDir);
+                return collected;
+            }
+            waited += wait;
+            if (isStopRequested()) {
+                LOGGER.info("Waiting for changes was stopped for directory: {}", targetDir);
+                return collected;
+            }
+
+            String cursor = cursorService.readTmpCursor(targetDir);
+            List<SyncEntry> changes = dropboxService.getChangesWithCursor(targetDir, cursor);
+            if (changes.isEmpty()) {
+                LOGGER.info("Collected {} entries in {} batches for directory: {} (quiet after {} ms)",
+                        collected.size(), batches, targetDir, waited);
+                return collected;
+            }
+            collected.addAll(changes);
+            batches++;
+        }
+
+        LOGGER.info("Collected {} entries in {} batches for directory: {} (wait limit {} ms reached)",
+                collected.size(), batches, targetDir, waited);
+        return collected;
+    }
+
+    private boolean isStopRequested() {
+        synchronized (stopLock) {
+            return stopRequested;
+        }
+    }
+
+    /**
+     * 指定時間、または停止を要求されるまで待機する。
+     */
+    private void awaitStop(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        synchronized (stopLock) {
+            while (!stopRequested) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                TimeUnit.NANOSECONDS.timedWait(stopLock, remaining);
+            }
+        }
+    }
+}
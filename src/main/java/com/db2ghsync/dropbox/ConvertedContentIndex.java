@@ -0,0 +1,179 @@
+package com.db2ghsync.dropbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import com.db2ghsync.git.LfsPointer;
+
+/**
+ * ダウンロード後に内容を変換して格納したファイルについて、格納した内容から元のcontent_hashを引く索引。
+ * <p>
+ * zipコンテナの無圧縮化やLFSのポインタへの置き換えにより、ローカルの内容はDropboxの内容と一致しなくなる。
+ * ダウンロード時に格納した内容のハッシュと元のcontent_hashの対応を記録しておき、
+ * カーソルを失った際の比較で、再ダウンロードせずに同じ内容か判定できるようにする。
+ * <p>
+ * 対応は内容のみから決まり、ブランチやパスに依存しない。記録はファイルへの追記で行い、
+ * 失われた場合は該当ファイルを再ダウンロードするだけのため、fsyncは行わない。
+ * 同じ内容の対応の書き換えで行数が増えた場合は、現在の対応のみを書いた新しいファイルへ置き換えて圧縮する。
+ * <p>
+ * 全てのメソッドはスレッドセーフ。
+ */
+class ConvertedContentIndex {
+
+    private static final String SHA256_PREFIX = "sha256:";
+    private static final String CONTENT_HASH_PREFIX = "content_hash:";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 圧縮を行う行数の下限と、現在の対応の数に対する倍率
+    private static final int COMPACT_MIN_RECORDS = 1024;
+    private static final int COMPACT_RATIO = 4;
+
+    private final Path file;
+
+    // 格納した内容のハッシュから元のcontent_hashへの対応（最初の参照時に読み込む）
+    private Map<String, String> originals;
+
+    // ファイルの行数（不正な行を含む）
+    private int records;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param file 記録先のファイル
+     */
+    ConvertedContentIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * 変換して格納したファイルと、元の内容のcontent_hashの対応を記録する。
+     * コミット時にLFSのポインタに置き換えられる場合に備え、LFSのoid（SHA-256）も記録する。
+     *
+     * @param localFile           格納したファイル
+     * @param originalContentHash 元の内容のcontent_hash
+     * @throws IOException 読み込み・記録失敗時
+     */
+    void record(Path localFile, String originalContentHash) throws IOException {
+
+        DropboxContentHasher contentHasher = new DropboxContentHasher();
+        MessageDigest sha256 = newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(localFile)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                contentHasher.update(buffer, 0, read);
+                sha256.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder lines = new StringBuilder();
+        synchronized (this) {
+            Map<String, String> loaded = originals();
+            String contentHash = contentHasher.digest();
+            if (!contentHash.equals(originalContentHash)) {
+                append(loaded, lines, CONTENT_HASH_PREFIX + contentHash, originalContentHash);
+            }
+            append(loaded, lines, SHA256_PREFIX + HexFormat.of().formatHex(sha256.digest()), originalContentHash);
+            if (lines.length() > 0) {
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, lines, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (records >= Math.max(COMPACT_MIN_RECORDS, COMPACT_RATIO * loaded.size())) {
+                    compact(loaded);
+                }
+            }
+        }
+    }
+
+    /**
+     * ローカルファイルの内容が、指定したcontent_hashの内容またはそれを変換したものか判定する。
+     * LFSのポインタファイルの場合は、ポインタのoidで判定する。
+     *
+     * @param localFile           ローカルファイル
+     * @param originalContentHash Dropboxのcontent_hash
+     * @return 同じ内容の場合true
+     * @throws IOException 読み込み失敗時
+     */
+    boolean matchesOriginal(Path localFile, String originalContentHash) throws IOException {
+
+        LfsPointer pointer = LfsPointer.read(localFile);
+        if (pointer != null) {
+            return originalContentHash.equals(lookup(SHA256_PREFIX + pointer.getOid()));
+        }
+        String contentHash = DropboxContentHasher.hash(localFile);
+        return contentHash.equals(originalContentHash)
+                || originalContentHash.equals(lookup(CONTENT_HASH_PREFIX + contentHash));
+    }
+
+    private synchronized String lookup(String key) throws IOException {
+        return originals().get(key);
+    }
+
+    private void append(Map<String, String> loaded, StringBuilder lines, String key, String original) {
+        if (!original.equals(loaded.put(key, original))) {
+            lines.append(key).append(' ').append(original).append('\n');
+            records++;
+        }
+    }
+
+    /**
+     * 現在の対応のみを書いたファイルを作成し、アトミックに置き換える。
+     */
+    private void compact(Map<String, String> loaded) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, String> entry : loaded.entrySet()) {
+            content.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        Files.writeString(compacted, content, StandardCharsets.UTF_8);
+        try {
+            Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        records = loaded.size();
+    }
+
+    /**
+     * 記録済みの対応を読み込む。書き込み途中で中断した行は無視する。
+     */
+    private Map<String, String> originals() throws IOException {
+
+        if (originals == null) {
+            Map<String, String> loaded = new HashMap<>();
+            if (Files.isRegularFile(file)) {
+                List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                records = lines.size();
+                for (String line : lines) {
+                    String[] fields = line.split(" ");
+                    if (fields.length == 2 && fields[1].length() == 64) {
+                        loaded.put(fields[0], fields[1]);
+                    }
+                }
+            }
+            originals = loaded;
+        }
+        return originals;
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
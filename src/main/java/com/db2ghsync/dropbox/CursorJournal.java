@@ -0,0 +1,310 @@
+package com.db2ghsync.dropbox;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ブランチごとのカーソルを1つのファイルに追記していくジャーナル。
+ * <p>
+ * 1行が1レコードで、書き込み途中で中断した行はチェックサムで検出し、読み込み時に切り捨てる。
+ * レコードには一時保存（STAGE）と確定（COMMIT）があり、確定時のみfsyncする。
+ * 同時に確定した複数の書き込みは1回のfsyncにまとめる。
+ * レコードが増えた場合は、現在の状態のみを書いた新しいファイルへ置き換えて圧縮する。
+ * <p>
+ * 全てのメソッドはスレッドセーフ。
+ */
+class CursorJournal implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CursorJournal.class);
+
+    private static final String STAGE = "S";
+    private static final String COMMIT = "C";
+
+    // 圧縮を行うレコード数の下限と、現在の状態のレコード数に対する倍率
+    private static final int COMPACT_MIN_RECORDS = 1024;
+    private static final int COMPACT_RATIO = 4;
+
+    private final Path file;
+
+    private final Map<String, String> staged = new HashMap<>();
+    private final Map<String, String> committed = new HashMap<>();
+
+    private volatile FileChannel channel;
+    private int records;
+
+    // 書き込み済みの確定レコードの通番と、fsync済みの通番
+    private volatile long appendedSequence = 0;
+    private long durableSequence = 0;
+
+    // 書き込み済みでfsyncを待っている確定の数（0の場合のみ圧縮する）
+    private int pendingCommits = 0;
+
+    // fsyncを1スレッドずつ行うためのロック
+    private final Object syncLock = new Object();
+
+    /**
+     * ジャーナルを開き、記録済みの状態を読み込む。
+     * 末尾の不完全なレコードは切り捨てる。
+     *
+     * @param file ジャーナルファイル（親ディレクトリは存在すること）
+     * @throws IOException 読み込み・書き込み失敗時
+     */
+    CursorJournal(Path file) throws IOException {
+        this.file = file;
+        long validLength = replay();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validLength) {
+            LOGGER.warn("Discarding incomplete cursor journal records: {} ({} bytes)",
+                    file, channel.size() - validLength);
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        channel.position(validLength);
+    }
+
+    synchronized String committed(String branchName) {
+        return committed.getOrDefault(branchName, "");
+    }
+
+    synchronized String staged(String branchName) {
+        return staged.get(branchName);
+    }
+
+    /**
+     * カーソルを一時保存する。fsyncは行わない。
+     */
+    synchronized void stage(String branchName, String cursor) throws IOException {
+        append(STAGE, branchName, cursor);
+        staged.put(branchName, cursor);
+    }
+
+    /**
+     * 一時保存したカーソルをまとめて確定し、fsyncの完了まで待つ。
+     * 他のスレッドが同時に確定した場合は、1回のfsyncにまとめる。
+     *
+     * @param branchNames 確定するブランチ名
+     * @throws IOException 書き込み失敗時
+     * @throws IllegalStateException 一時保存されていないブランチを含む場合
+     */
+    void commit(Collection<String> branchNames) throws IOException {
+        Map<String, String> cursors = new HashMap<>();
+        long sequence;
+        synchronized (this) {
+            for (String branchName : branchNames) {
+                String cursor = staged.get(branchName);
+                if (cursor == null) {
+                    throw new IllegalStateException("No staged cursor for branch: " + branchName);
+                }
+                cursors.put(branchName, cursor);
+            }
+            pendingCommits++;
+            try {
+                for (Map.Entry<String, String> entry : cursors.entrySet()) {
+                    append(COMMIT, entry.getKey(), entry.getValue());
+                }
+                sequence = ++appendedSequence;
+            } catch (IOException e) {
+                pendingCommits--;
+                throw e;
+            }
+        }
+        try {
+            sync(sequence);
+        } catch (IOException e) {
+            synchronized (this) {
+                pendingCommits--;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            // 反映と同時に待ちを解除し、反映前の確定を圧縮で失わないようにする
+            pendingCommits--;
+            for (Map.Entry<String, String> entry : cursors.entrySet()) {
+                // 確定を待つ間に一時保存し直された場合は、新しいカーソルを残す
+                staged.remove(entry.getKey(), entry.getValue());
+                committed.put(entry.getKey(), entry.getValue());
+            }
+            if (pendingCommits == 0 && records >= Math.max(COMPACT_MIN_RECORDS,
+                    COMPACT_RATIO * (committed.size() + staged.size()))) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * カーソルを確定済みとして直接保存する。空文字の場合は削除となる。
+     */
+    void put(String branchName, String cursor) throws IOException {
+        synchronized (this) {
+            append(STAGE, branchName, cursor);
+            staged.put(branchName, cursor);
+        }
+        commit(List.of(branchName));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (durableSequence >= sequence) {
+                // 他のスレッドのfsyncに含まれた
+                return;
+            }
+            long target = appendedSequence;
+            channel.force(false);
+            durableSequence = target;
+        }
+    }
+
+    private void append(String type, String branchName, String cursor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(encode(type, branchName, cursor).getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        records++;
+    }
+
+    /**
+     * 現在の状態のみを書いたファイルを作成し、アトミックに置き換える。
+     */
+    private void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, String> entry : committed.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                // 削除済み
+                continue;
+            }
+            content.append(encode(STAGE, entry.getKey(), entry.getValue()));
+            content.append(encode(COMMIT, entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, String> entry : staged.entrySet()) {
+            content.append(encode(STAGE, entry.getKey(), entry.getValue()));
+        }
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+
+        synchronized (syncLock) {
+            channel.close();
+            try {
+                Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        committed.values().removeIf(String::isEmpty);
+        LOGGER.debug("Compacted cursor journal: {} records -> {}", records, 2 * committed.size() + staged.size());
+        records = 2 * committed.size() + staged.size();
+    }
+
+    /**
+     * ファイルの置き換えを永続化するため、ディレクトリをfsyncする。
+     * ディレクトリを開けない環境（Windows等）では何もしない。
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Directory fsync is not supported: {}", directory, e);
+        }
+    }
+
+    /**
+     * ファイルのレコードを順に反映する。
+     *
+     * @return 正しく読み込めたレコードの末尾位置
+     */
+    private long replay() throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        long validLength = 0;
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+            String line = new String(content, start, i - start, StandardCharsets.UTF_8);
+            if (!apply(line)) {
+                break;
+            }
+            start = i + 1;
+            validLength = start;
+        }
+        return validLength;
+    }
+
+    private boolean apply(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 4) {
+            return false;
+        }
+        String body = fields[1] + "\t" + fields[2] + "\t" + fields[3];
+        if (!fields[0].equals(checksum(body))) {
+            return false;
+        }
+        String branchName = URLDecoder.decode(fields[2], StandardCharsets.UTF_8);
+        String cursor = URLDecoder.decode(fields[3], StandardCharsets.UTF_8);
+        if (STAGE.equals(fields[1])) {
+            staged.put(branchName, cursor);
+        } else if (COMMIT.equals(fields[1])) {
+            staged.remove(branchName, cursor);
+            committed.put(branchName, cursor);
+        } else {
+            return false;
+        }
+        records++;
+        return true;
+    }
+
+    /**
+     * レコードを1行に変換する。形式: チェックサム、種別、ブランチ名、カーソルのタブ区切り。
+     */
+    private static String encode(String type, String branchName, String cursor) {
+        String body = type + "\t" + URLEncoder.encode(branchName, StandardCharsets.UTF_8) + "\t"
+                + URLEncoder.encode(cursor, StandardCharsets.UTF_8);
+        return checksum(body) + "\t" + body + "\n";
+    }
+
+    private static String checksum(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+}
@@ -3,29 +3,46 @@ package com.db2ghsync.dropbox;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.common.PathMapper;
 import com.db2ghsync.exception.DropboxSyncException;
 
 /**
  * Dropboxカーソル情報の管理クラス
  * <p>
  * カーソル情報のファイル保存・取得を担当します。
+ * 全ブランチのカーソルは、設定ファイルで指定されたディレクトリ内の1つのジャーナルファイルに記録します。
+ * 確定したカーソルはfsyncしてから反映するため、異常終了しても確定前後のいずれかの状態に戻ります。
+ * 以前の形式（ブランチごとのファイル）のカーソルは、読み込み時にジャーナルへ移行します。
  */
-public class CursorManager implements CursorService {
+public class CursorManager implements CursorService, AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CursorManager.class);
 
+    // ジャーナルファイル名
+    static final String JOURNAL_FILE_NAME = "cursors.journal";
+
+    // 初回取り込みの再開位置を保存するキーの接尾辞（Gitのブランチ名に使えない":"で区別する）
+    private static final String IMPORT_CHECKPOINT_SUFFIX = ":import";
+
     private final String cursorFilePath;
 
+    // 初回の読み書き時に開く
+    private CursorJournal journal;
+
     /**
      * コンストラクタ。依存関係を注入してCursorManagerを初期化する。
-     * 
+     *
      * @param config アプリケーション設定
      */
     public CursorManager(AppConfig config) {
@@ -46,7 +63,18 @@ public class CursorManager implements CursorService {
     public String readCursor(String branchName) {
 
         LOGGER.debug("Reading cursor for branch: {}", branchName);
-        String cursor = readCursorFile(cursorFilePath, branchName);
+        String key = PathMapper.toBranchName(branchName);
+        String cursor;
+        try {
+            cursor = journal().committed(key);
+            if (cursor.isEmpty()) {
+                cursor = migrateLegacyCursor(key);
+            }
+        } catch (IOException e) {
+            // 初回更新でファイルがないケースとみなし、空文字を返却
+            LOGGER.warn("Failed to read cursor journal for branch: {}", branchName, e);
+            cursor = "";
+        }
         if (cursor.isEmpty()) {
             LOGGER.info("No cursor file found for branch: {}", branchName);
         } else {
@@ -56,108 +84,144 @@ public class CursorManager implements CursorService {
     }
 
     /**
-     * 指定パスのファイルからカーソル情報を取得します。
+     * カーソル情報を一時保存します。
      * <p>
-     * ファイルが存在しない場合や読み込み失敗時は空文字を返します。
+     * 確定するまでは{@link #readCursor(String)}の結果に影響しません。
      *
-     * @param filePath カーソル情報ファイルのパス
-     * @param branchName ブランチ名
-     * @return ファイルの内容（空文字の場合は未取得）
+     * @param branchName    ブランチ名
+     * @param currentCursor 保存するカーソル情報
+     * @throws DropboxSyncException 書き込み失敗時
      */
-    private String readCursorFile(String filePath, String branchName) {
+    @Override
+    public void writeTmpCursor(String branchName, String currentCursor) throws DropboxSyncException {
 
+        LOGGER.debug("Writing temporary cursor for branch: {}", branchName);
         try {
-            return Files.readString(Paths.get(filePath, branchName), StandardCharsets.UTF_8);
+            journal().stage(PathMapper.toBranchName(branchName), currentCursor);
         } catch (IOException e) {
-            // 初回更新でファイルがないケースとみなし、空文字を返却
-            return "";
+            throw new DropboxSyncException("Can not write new cursor", e);
         }
+        LOGGER.debug("Temporary cursor written successfully for branch: {}", branchName);
     }
 
     /**
-     * カーソル情報を一時Cursorファイルに保存します。
-     * <p>
-     * 設定ファイルで指定されたパスにカーソル情報を保存します。
+     * 一時保存したカーソル情報を読み込みます。
      *
-     * @param branchName    ブランチ名
-     * @param currentCursor 保存するカーソル情報
-     * @throws DropboxSyncException 書き込み失敗時
+     * @param branchName ブランチ名
+     * @return 一時保存したカーソル情報（空文字の場合は一時保存なし）
      */
     @Override
-    public void writeTmpCursor(String branchName, String currentCursor) throws DropboxSyncException {
-
-        LOGGER.debug("Writing temporary cursor for branch: {}", branchName);
-        writeCursorFile(cursorFilePath, branchName + ".tmp", currentCursor);
-        LOGGER.debug("Temporary cursor written successfully for branch: {}", branchName);
+    public String readTmpCursor(String branchName) {
+        try {
+            String cursor = journal().staged(PathMapper.toBranchName(branchName));
+            return cursor != null ? cursor : "";
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read temporary cursor for branch: {}", branchName, e);
+            return "";
+        }
     }
 
     /**
-     * カーソル情報をファイルに保存します。
-     * <p>
-     * 設定ファイルで指定されたパスに一時ファイルからカーソル情報を取得し、
-     * カーソル情報を保存します。
-     * 完了後、不要になった一時ファイルを削除します。
+     * 一時保存したカーソル情報を確定します。
      *
      * @param branchName ブランチ名
-     * @throws DropboxSyncException 書き込み・読み込み失敗時
+     * @throws DropboxSyncException 書き込み失敗時、または一時保存したカーソルがない場合
      */
     @Override
     public void writeCursor(String branchName) throws DropboxSyncException {
-
-        LOGGER.debug("Writing cursor for branch: {}", branchName);
-        writeCursorFile(cursorFilePath, branchName, readTmpCursorFile(cursorFilePath, branchName));
-        deleteTmpCursor(cursorFilePath, branchName);
-        LOGGER.info("Cursor written successfully for branch: {}", branchName);
+        writeCursors(List.of(branchName));
     }
 
     /**
-     * 指定パスの一時ファイルからカーソル情報を取得します。
-     * <p>
-     * 完了時のCursorファイル更新用のメソッド。
-     * ファイルが存在しない、または読み込みに失敗した場合はDropboxSyncExceptionをスローします。
+     * 複数ブランチの一時保存したカーソル情報を、1回のfsyncでまとめて確定します。
      *
-     * @param filePath   カーソル情報ファイルのパス
-     * @param branchName ブランチ名
-     * @return ファイルの内容
-     * @throws DropboxSyncException 読み込み失敗時
+     * @param branchNames ブランチ名
+     * @throws DropboxSyncException 書き込み失敗時、または一時保存したカーソルがない場合
      */
-    private String readTmpCursorFile(String filePath, String branchName) throws DropboxSyncException {
+    @Override
+    public void writeCursors(Collection<String> branchNames) throws DropboxSyncException {
 
+        LOGGER.debug("Writing cursor for branches: {}", branchNames);
+        List<String> keys = new ArrayList<>();
+        for (String branchName : branchNames) {
+            keys.add(PathMapper.toBranchName(branchName));
+        }
         try {
-            return Files.readString(Paths.get(filePath, branchName + ".tmp"), StandardCharsets.UTF_8);
-        } catch (IOException e) {
+            journal().commit(keys);
+        } catch (IllegalStateException e) {
             throw new DropboxSyncException("Can not read tmp file.", e);
+        } catch (IOException e) {
+            throw new DropboxSyncException("Can not write new cursor", e);
         }
-
+        LOGGER.info("Cursor written successfully for branches: {}", branchNames);
     }
 
-    /**
-     * 指定パスのファイルにカーソル情報を書き込みます。
-     * <p>
-     * ファイル書き込み失敗時はDropboxSyncExceptionをスローします。
-     *
-     * @param cursorFilePath ファイルパス
-     * @param branchName     ブランチ名
-     * @param currentCursor  保存するカーソル情報
-     * @throws DropboxSyncException 書き込み失敗時
-     */
-    private void writeCursorFile(String cursorFilePath, String branchName, String currentCursor)
-            throws DropboxSyncException {
+    @Override
+    public String readImportCheckpoint(String branchName) {
         try {
-            Files.writeString(Paths.get(cursorFilePath, branchName), currentCursor, StandardCharsets.UTF_8);
+            return journal().committed(PathMapper.toBranchName(branchName) + IMPORT_CHECKPOINT_SUFFIX);
         } catch (IOException e) {
-            throw new DropboxSyncException("Can not write new cursor", e);
+            LOGGER.warn("Failed to read import checkpoint for branch: {}", branchName, e);
+            return "";
         }
     }
 
-    private void deleteTmpCursor(String cursorFilePath, String branchName) {
+    @Override
+    public void writeImportCheckpoint(String branchName, String cursor) throws DropboxSyncException {
+        putImportCheckpoint(branchName, cursor);
+        LOGGER.info("Import checkpoint written for branch: {}", branchName);
+    }
 
+    @Override
+    public void clearImportCheckpoint(String branchName) throws DropboxSyncException {
+        putImportCheckpoint(branchName, "");
+        LOGGER.debug("Import checkpoint cleared for branch: {}", branchName);
+    }
+
+    private void putImportCheckpoint(String branchName, String cursor) throws DropboxSyncException {
         try {
-            Files.delete(Paths.get(cursorFilePath, branchName + ".tmp"));
-            LOGGER.debug("Temporary cursor file deleted for branch: {}", branchName);
+            journal().put(PathMapper.toBranchName(branchName) + IMPORT_CHECKPOINT_SUFFIX, cursor);
         } catch (IOException e) {
-            // 削除に失敗しても影響はないため、ログ出力のみで処理なし
-            LOGGER.warn("Failed to delete temporary cursor file for branch: {}", branchName, e);
+            throw new DropboxSyncException("Can not write import checkpoint", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private synchronized CursorJournal journal() throws IOException {
+        if (journal == null) {
+            journal = new CursorJournal(Paths.get(cursorFilePath, JOURNAL_FILE_NAME));
         }
+        return journal;
+    }
+
+    /**
+     * 以前の形式のカーソルファイルがあればジャーナルへ移行し、元のファイルを削除します。
+     *
+     * @param branchName ブランチ名
+     * @return 移行したカーソル情報。ファイルがない場合は空文字
+     */
+    private String migrateLegacyCursor(String branchName) throws IOException {
+
+        Path legacyFile = Paths.get(cursorFilePath, branchName);
+        if (branchName.isEmpty() || !Files.isRegularFile(legacyFile)
+                || legacyFile.getFileName().toString().equals(JOURNAL_FILE_NAME)) {
+            return "";
+        }
+        String cursor = Files.readString(legacyFile, StandardCharsets.UTF_8);
+        if (cursor.isEmpty()) {
+            return "";
+        }
+        journal().put(branchName, cursor);
+        Files.deleteIfExists(legacyFile);
+        Files.deleteIfExists(Paths.get(cursorFilePath, branchName + ".tmp"));
+        LOGGER.info("Migrated cursor file to journal for branch: {}", branchName);
+        return cursor;
     }
 }
@@ -1,5 +1,7 @@
 package com.db2ghsync.dropbox;
 
+import java.util.Collection;
+
 import com.db2ghsync.exception.DropboxSyncException;
 
 /**
@@ -26,6 +28,14 @@ public interface CursorService {
      */
     void writeTmpCursor(String branchName, String currentCursor) throws DropboxSyncException;
 
+    /**
+     * 一時保存したカーソル情報を読み込む。
+     *
+     * @param branchName ブランチ名
+     * @return 一時保存したカーソル情報（空文字の場合は一時保存なし）
+     */
+    String readTmpCursor(String branchName);
+
     /**
      * カーソル情報をファイルに保存します。
      * 一時ファイルからカーソル情報を取得し、カーソル情報を保存します。
@@ -35,5 +45,42 @@ public interface CursorService {
      * @throws DropboxSyncException 書き込み・読み込み失敗時
      */
     void writeCursor(String branchName) throws DropboxSyncException;
+
+    /**
+     * 複数ブランチの一時保存したカーソル情報をまとめて保存します。
+     *
+     * @param branchNames ブランチ名
+     * @throws DropboxSyncException 書き込み・読み込み失敗時
+     */
+    default void writeCursors(Collection<String> branchNames) throws DropboxSyncException {
+        for (String branchName : branchNames) {
+            writeCursor(branchName);
+        }
+    }
+
+    /**
+     * 中断した初回取り込みの再開位置（取り込み開始時の一覧のカーソル）を読み込む。
+     *
+     * @param branchName ブランチ名
+     * @return 再開位置のカーソル（空文字の場合は中断した取り込みなし）
+     */
+    String readImportCheckpoint(String branchName);
+
+    /**
+     * 初回取り込みの再開位置を確定して保存する。
+     *
+     * @param branchName ブランチ名
+     * @param cursor     取り込み開始時の一覧のカーソル
+     * @throws DropboxSyncException 書き込み失敗時
+     */
+    void writeImportCheckpoint(String branchName, String cursor) throws DropboxSyncException;
+
+    /**
+     * 初回取り込みの完了後に再開位置を削除する。
+     *
+     * @param branchName ブランチ名
+     * @throws DropboxSyncException 書き込み失敗時
+     */
+    void clearImportCheckpoint(String branchName) throws DropboxSyncException;
 }
 
@@ -4,25 +4,50 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.common.FileMatcher;
+import com.db2ghsync.common.PathMapper;
 import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.common.ZipContainerNormalizer;
+import com.db2ghsync.entity.ChangeSet;
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.CursorResetException;
 import com.db2ghsync.exception.DropboxSyncException;
+import com.db2ghsync.exception.GithubSyncException;
+import com.dropbox.core.DbxApiException;
+import com.dropbox.core.DbxDownloader;
 import com.dropbox.core.DbxException;
 import com.dropbox.core.DbxRequestConfig;
 import com.dropbox.core.oauth.DbxCredential;
 import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.DownloadBuilder;
+import com.dropbox.core.v2.files.DownloadZipResult;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.ListFolderContinueErrorException;
 import com.dropbox.core.v2.files.ListFolderResult;
 import com.dropbox.core.v2.files.Metadata;
 import com.dropbox.core.v2.files.WriteMode;
@@ -39,23 +64,70 @@ public class DropboxClient implements DropboxService {
 
     private static final String APP_NAME = "db2ghsync-app";
 
+    // ダウンロード中の一時ファイルの格納先（ワークツリーに含まれないよう.git配下に置く）
+    private static final String DOWNLOAD_WORK_DIR = ".git/db2ghsync/downloads";
+
+    // 件数の多い一覧を書き出す一時ファイルの格納先
+    private static final String CHANGE_SET_WORK_DIR = ".git/db2ghsync/changes";
+
+    // 内容を変換して格納したファイルの、変換前のcontent_hashの記録先
+    private static final String CONVERTED_CONTENT_FILE = ".git/db2ghsync/converted-content";
+
     // DropBox公式のクライアント
     private DbxClientV2 client;
     private final DbxRequestConfig requestConfig;
     private final DbxCredential credential;
 
-    // 更新対象とする拡張子一覧（不変）
-    private final List<String> extensions;
+    // 同期対象のファイルの判定（拡張子・glob）
+    private final FileMatcher fileMatcher;
 
     // 対象とするディレクトリ（不変）
     private final List<String> directories;
 
     // ローカルリポジトリパス
     private final String localRepoPath;
+    private final Path repoRoot;
+
+    // Gitへ無圧縮で格納するzipコンテナの判定
+    private final FileMatcher zipNormalizeMatcher;
+
+    // コミット時にLFSのポインタへ置き換えられるファイルの判定
+    private final FileMatcher lfsMatcher;
+
+    // 内容を変換して格納したファイルの、変換前のcontent_hash
+    private final ConvertedContentIndex convertedContent;
 
     // カーソルサービス
     private final CursorService cursorService;
 
+    // 一時ファイル経由の再開可能なダウンロード
+    private final ResumableDownloader downloader;
+
+    // 並列一覧・再帰カーソルの取得に使用する一覧API
+    private final ParallelFolderCrawler.PageSource pageSource;
+
+    // サブフォルダごとの並列一覧（スレッド数が1の場合は従来の再帰一覧を使用）
+    private final ParallelFolderCrawler crawler;
+
+    // ダウンロード後にGitのブロブを書き込む処理
+    private final UnaryOperator<DownloadedFile> blobWriter;
+
+    // ダウンロード・ステージのパイプライン設定
+    private final int pipelineDownloadWorkers;
+    private final int pipelineStageWorkers;
+    private final int pipelineQueueCapacity;
+    private final long pipelineMaxInFlightBytes;
+
+    // 一覧をメモリ上に保持する量の上限
+    private final long changeSetMemoryThreshold;
+
+    // この件数以上のダウンロードは一括取り込みとしてパックへ格納するため、ブロブを個別に書き込まない
+    private final int bulkImportThreshold;
+
+    // 初回取り込みをコミット・プッシュで区切る件数・サイズ（0以下で区切りなし）
+    private final int importCheckpointFiles;
+    private final long importCheckpointBytes;
+
     /**
      * コンストラクタ。依存関係を注入してDropbox APIクライアントを初期化する。
      * 
@@ -63,11 +135,42 @@ public class DropboxClient implements DropboxService {
      * @param cursorService カーソル管理サービス
      */
     public DropboxClient(AppConfig config, CursorService cursorService) {
+        this(config, cursorService, UnaryOperator.identity(), null);
+    }
+
+    /**
+     * コンストラクタ。ダウンロードと並行してGitのブロブを書き込む処理を指定する。
+     *
+     * @param config        アプリケーション設定
+     * @param cursorService カーソル管理サービス
+     * @param blobWriter    ダウンロードしたファイルのブロブを書き込み、ブロブIDを設定したファイル情報を返す処理
+     * @param blobSink      ダウンロードと同時にブロブを書き込む先（dropbox.download.tee.git.objects=trueの場合に使用）
+     */
+    public DropboxClient(AppConfig config, CursorService cursorService, UnaryOperator<DownloadedFile> blobWriter,
+            ResumableDownloader.BlobSink blobSink) {
+        this(config, cursorService, blobWriter, blobSink, null, null);
+    }
+
+    /**
+     * コンストラクタ。一覧とダウンロードに使用するDropbox APIを指定する。
+     *
+     * @param config        アプリケーション設定
+     * @param cursorService カーソル管理サービス
+     * @param blobWriter    ダウンロードしたファイルのブロブを書き込み、ブロブIDを設定したファイル情報を返す処理
+     * @param blobSink      ダウンロードと同時にブロブを書き込む先（dropbox.download.tee.git.objects=trueの場合に使用）
+     * @param pageSource    一覧API（nullの場合はDropbox APIクライアントを使用）
+     * @param fetcher       範囲指定の取得API（nullの場合はDropbox APIクライアントを使用）
+     */
+    DropboxClient(AppConfig config, CursorService cursorService, UnaryOperator<DownloadedFile> blobWriter,
+            ResumableDownloader.BlobSink blobSink, ParallelFolderCrawler.PageSource pageSource,
+            ResumableDownloader.RangeFetcher fetcher) {
         Objects.requireNonNull(config, "AppConfig must not be null");
         Objects.requireNonNull(cursorService, "CursorService must not be null");
 
         this.cursorService = cursorService;
+        this.blobWriter = Objects.requireNonNull(blobWriter, "blobWriter must not be null");
         this.localRepoPath = config.getLocalRepoPath();
+        this.repoRoot = Paths.get(localRepoPath);
 
         this.requestConfig = DbxRequestConfig.newBuilder(APP_NAME).build();
         String refreshToken = config.getDropboxRefreshToken();
@@ -87,8 +190,32 @@ public class DropboxClient implements DropboxService {
             this.credential = null;
             this.client = new DbxClientV2(requestConfig, accessToken);
         }
-        this.extensions = Collections.unmodifiableList(config.getTargetFileExtensions());
+        this.fileMatcher = FileMatcher.forDropboxToGit(config);
         this.directories = Collections.unmodifiableList(config.getTargetDirectories());
+        this.zipNormalizeMatcher = FileMatcher.ofExtensions(config.getZipNormalizeExtensions());
+        this.lfsMatcher = FileMatcher.ofExtensions(config.getGitLfsPatterns());
+        this.convertedContent = new ConvertedContentIndex(Paths.get(localRepoPath, CONVERTED_CONTENT_FILE));
+        this.pageSource = pageSource != null ? pageSource : new CrawlerPageSource();
+        this.downloader = new ResumableDownloader(
+                fetcher != null ? fetcher : this::fetchRange,
+                Paths.get(localRepoPath, DOWNLOAD_WORK_DIR),
+                config.getDropboxDownloadSegmentThreshold(),
+                config.getDropboxDownloadThreads(),
+                config.getDropboxDownloadMaxRetries(),
+                config.isDropboxDownloadComputeBlobId(),
+                config.isDropboxDownloadTeeGitObjects() ? blobSink : null);
+        this.crawler = config.getDropboxListThreads() > 1
+                ? new ParallelFolderCrawler(this.pageSource, config.getDropboxListThreads(),
+                        config.getDropboxListPageLimit())
+                : null;
+        this.pipelineDownloadWorkers = config.getDropboxPipelineDownloadWorkers();
+        this.pipelineStageWorkers = config.getDropboxPipelineStageWorkers();
+        this.pipelineQueueCapacity = config.getDropboxPipelineQueueCapacity();
+        this.pipelineMaxInFlightBytes = config.getDropboxPipelineMaxInFlightBytes();
+        this.bulkImportThreshold = config.getGitBulkImportThreshold();
+        this.changeSetMemoryThreshold = config.getChangeSetMemoryThreshold();
+        this.importCheckpointFiles = config.getImportCheckpointFiles();
+        this.importCheckpointBytes = config.getImportCheckpointBytes();
     }
 
     /**
@@ -134,7 +261,7 @@ public class DropboxClient implements DropboxService {
 
         try {
             LOGGER.debug("Fetching changes with cursor for directory: {}", targetDir);
-            String branchName = targetDir.startsWith("/") ? targetDir.substring(1) : targetDir;
+            String branchName = PathMapper.toBranchName(targetDir);
 
             List<SyncEntry> changedEntries = new ArrayList<SyncEntry>();
             ListFolderResult result = client.files().listFolderContinue(cursor);
@@ -143,10 +270,8 @@ public class DropboxClient implements DropboxService {
 
                 // 一覧取得したデータから対象の拡張子ファイルのデータを保持
                 for (Metadata metadata : result.getEntries()) {
-                    for (String extension : extensions) {
-                        if (metadata.getName().endsWith(extension)) {
-                            changedEntries.add(SyncEntryFactory.convertMetadataToSyncEntry(metadata));
-                        }
+                    if (isSyncTarget(metadata)) {
+                        changedEntries.add(SyncEntryFactory.convertMetadataToSyncEntry(metadata));
                     }
                 }
 
@@ -172,57 +297,378 @@ public class DropboxClient implements DropboxService {
             }
 
             return changedEntries;
+        } catch (ListFolderContinueErrorException e) {
+            if (e.errorValue.isReset()) {
+                throw new CursorResetException("Cursor was reset by Dropbox: " + targetDir, e);
+            }
+            throw new DropboxSyncException("Getting changed files, Error happened. ", e);
         } catch (DbxException e) {
             throw new DropboxSyncException("Getting changed files, Error happened. ", e);
         }
     }
 
     /**
-     * 管理対象ディレクトリ配下の全ファイルのうち、指定拡張子に一致するものをSyncEntryリストとして返す。
+     * 管理対象ディレクトリ配下の全ファイルのうち、指定拡張子に一致するものを返す。
      *
      * @param targetDir 対象ディレクトリ
-     * @return 拡張子一致ファイルのSyncEntryリスト
+     * @return 拡張子一致ファイルのSyncEntry（使用後に閉じること）
      * @throws DropboxSyncException ファイル一覧取得失敗時
      */
-    public List<SyncEntry> getTargetFiles(String targetDir) throws DropboxSyncException {
+    public ChangeSet getTargetFiles(String targetDir) throws DropboxSyncException {
+
+        return listFolder(targetDir, null, null).entries;
+    }
+
+    /**
+     * カーソルのないディレクトリを初回取り込みする。
+     * <p>
+     * download_zipの制限（合計20GB未満、エントリ数10000未満、各ファイル4GB未満）に収まり、
+     * 対象ファイルがフォルダ容量の大半を占める場合はzipで一括取得する。
+     * zipから取り出せなかったファイルはファイルごとにダウンロードする。
+     * <p>
+     * 対象ファイルが区切りの件数・サイズを超える場合は、区切りごとにダウンロードして反映し、
+     * 一覧開始前（または一覧時点）のカーソルを再開位置として記録する。zipの制限を超えて一覧と並行して
+     * ダウンロードしている場合も、一覧の途中で区切りごとに反映する。中断後の再開時は、内容（content_hash）が
+     * 一致するファイルがローカルに存在するものを反映済みとして飛ばし、中断前の再開位置のカーソルを一時保存し直す。
+     *
+     * @param targetDir 対象ディレクトリ
+     * @param handler   書き出したファイルの反映処理
+     * @return 取り込んだファイル数
+     * @throws DropboxSyncException 一覧取得・ダウンロード失敗時
+     * @throws GithubSyncException  反映失敗時
+     */
+    @Override
+    public int importDirectory(String targetDir, ImportChunkHandler handler)
+            throws DropboxSyncException, GithubSyncException {
+
+        String checkpoint = cursorService.readImportCheckpoint(PathMapper.toBranchName(targetDir));
+        String resumeCursor = checkpoint != null && !checkpoint.isEmpty() ? checkpoint : null;
+        // 再開時は反映済みのファイルを飛ばすため、一覧と並行したダウンロードを行わない
+        StreamingCheckpoint streamingCheckpoint = resumeCursor == null
+                && (importCheckpointFiles > 0 || importCheckpointBytes > 0)
+                        ? new StreamingCheckpoint(targetDir, handler)
+                        : null;
+
+        List<SyncEntry> entries;
+        FolderListing listing;
+        try (TransferPipeline pipeline = resumeCursor != null ? null : newPipeline(true);
+                FolderListing listed = listFolder(targetDir, pipeline, streamingCheckpoint)) {
+            listing = listed;
+            if (listing.streaming) {
+                // zipの制限を超えた時点から一覧と並行してダウンロード済み（区切りごとの反映分を除く）
+                List<DownloadedFile> downloaded = pipeline.finish();
+                LOGGER.info("Imported {} files individually while listing directory: {} ({} entries, {} bytes)",
+                        listing.targetEntries, targetDir, listing.totalEntries, listing.totalBytes);
+                if (streamingCheckpoint != null) {
+                    streamingCheckpoint.finish(downloaded);
+                } else {
+                    handler.accept(downloaded);
+                }
+                return listing.targetEntries;
+            }
+            if (resumeCursor != null || isOverCheckpoint(listing.targetEntries, listing.targetBytes)) {
+                return importInChunks(targetDir, listing, resumeCursor, handler);
+            }
+            // zipの制限内に収まっているため、件数は限られる
+            try (Stream<SyncEntry> stream = listing.entries.stream()) {
+                entries = stream.collect(Collectors.toList());
+            }
+        } catch (DropboxSyncException | RuntimeException e) {
+            CheckpointException.rethrowCause(e);
+            throw e;
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        if (!listing.fitsDownloadZip()) {
+            LOGGER.info("Importing {} files individually for directory: {} ({} entries, {} bytes)",
+                    entries.size(), targetDir, listing.totalEntries, listing.totalBytes);
+            handler.accept(downloadFiles(entries));
+            return entries.size();
+        }
 
+        LOGGER.info("Importing {} files via download_zip for directory: {} ({} entries, {} bytes)",
+                entries.size(), targetDir, listing.totalEntries, listing.totalBytes);
+        Map<String, Path> targets = new HashMap<>();
+        Map<String, String> contentHashes = new HashMap<>();
+        for (SyncEntry entry : entries) {
+            targets.put(entry.getDropboxPath(), PathMapper.toLocalPath(entry.getDropboxPath(), repoRoot));
+            contentHashes.put(entry.getDropboxPath(), entry.getContentHash());
+        }
+
+        Set<String> extracted;
+        try (DbxDownloader<DownloadZipResult> downloader = client.files().downloadZip(targetDir)) {
+            extracted = ZipImportExtractor.extract(downloader.getInputStream(), targets);
+        } catch (IOException | DbxException e) {
+            throw new DropboxSyncException("Downloading zip of directory failed.", e);
+        }
+        for (String dropboxPath : extracted) {
+            Path target = targets.get(dropboxPath);
+            normalizeZipContainer(target);
+            recordConvertedContent(target, contentHashes.get(dropboxPath));
+        }
+
+        // zip作成後の変更等で取り出せなかったファイルは個別にダウンロード
+        List<SyncEntry> missing = entries.stream()
+                .filter(entry -> !extracted.contains(entry.getDropboxPath()))
+                .collect(Collectors.toList());
+        List<DownloadedFile> downloaded = Collections.emptyList();
+        if (!missing.isEmpty()) {
+            LOGGER.info("{} files were not found in zip, downloading individually", missing.size());
+            downloaded = downloadFiles(missing);
+        }
+        handler.accept(downloaded);
+        return entries.size();
+    }
+
+    /**
+     * 一覧したファイルを区切りごとにダウンロードして反映する。
+     *
+     * @param targetDir    対象ディレクトリ
+     * @param listing      一覧結果
+     * @param resumeCursor 中断した取り込みの再開位置（新規の場合はnull）
+     * @param handler      書き出したファイルの反映処理
+     * @return 取り込んだファイル数（反映済みとして飛ばしたファイルを含む）
+     */
+    private int importInChunks(String targetDir, FolderListing listing, String resumeCursor,
+            ImportChunkHandler handler) throws DropboxSyncException, GithubSyncException {
+
+        String branchName = PathMapper.toBranchName(targetDir);
+        if (resumeCursor == null) {
+            // 区切りごとの反映後に中断しても再開できるよう、一覧時点のカーソルを確定して残す
+            cursorService.writeImportCheckpoint(branchName, listing.cursor);
+        } else {
+            // 中断前の一覧時点以降の変更を、取り込み完了後の差分同期で取得する
+            LOGGER.info("Resuming interrupted import for directory: {}", targetDir);
+            cursorService.writeTmpCursor(branchName, resumeCursor);
+        }
+
+        int imported = 0;
+        int skipped = 0;
+        List<SyncEntry> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+        try (Stream<SyncEntry> stream = listing.entries.stream()) {
+            Iterator<SyncEntry> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                SyncEntry entry = iterator.next();
+                if (resumeCursor != null && isImported(entry)) {
+                    skipped++;
+                    continue;
+                }
+                chunk.add(entry);
+                chunkBytes += Math.max(entry.getSize(), 0);
+                if (isOverCheckpoint(chunk.size(), chunkBytes)) {
+                    handler.accept(downloadFiles(chunk));
+                    imported += chunk.size();
+                    LOGGER.info("Import checkpoint for directory: {} ({} of {} files imported, {} skipped)",
+                            targetDir, imported, listing.targetEntries, skipped);
+                    chunk = new ArrayList<>();
+                    chunkBytes = 0;
+                }
+            }
+        }
+        // 再開時は、中断前にダウンロード済みで未反映のファイルも反映する
+        if (!chunk.isEmpty() || resumeCursor != null) {
+            handler.accept(downloadFiles(chunk));
+            imported += chunk.size();
+        }
+        cursorService.clearImportCheckpoint(branchName);
+        LOGGER.info("Imported {} files in checkpoints for directory: {} ({} skipped as already imported)",
+                imported, targetDir, skipped);
+        return imported + skipped;
+    }
+
+    /**
+     * 対象ディレクトリの現時点の再帰カーソルを取得する。
+     *
+     * @param targetDir 対象ディレクトリ
+     * @return カーソル
+     * @throws DropboxSyncException 取得失敗時
+     */
+    private String latestCursor(String targetDir) throws DropboxSyncException {
+        try {
+            return pageSource.latestRecursiveCursor(targetDir);
+        } catch (DbxException e) {
+            throw new DropboxSyncException("Getting latest cursor failed: " + targetDir, e);
+        }
+    }
+
+    /**
+     * 区切りの件数・サイズに達した場合にtrue。
+     */
+    private boolean isOverCheckpoint(int files, long bytes) {
+        return (importCheckpointFiles > 0 && files >= importCheckpointFiles)
+                || (importCheckpointBytes > 0 && bytes >= importCheckpointBytes);
+    }
+
+    /**
+     * 中断前の取り込みで、一覧と同じ内容のファイルがローカルに書き出し済みの場合にtrue。
+     * サイズが同じでも内容が異なるファイル（書き出し途中・中断後の変更）は取り込み直す。
+     * 内容を変換して格納したファイルは、記録済みの変換前のcontent_hashと比較する。
+     */
+    private boolean isImported(SyncEntry entry) {
+        Path local = PathMapper.toLocalPath(entry.getDropboxPath(), repoRoot);
+        if (entry.getContentHash() == null || !Files.isRegularFile(local, LinkOption.NOFOLLOW_LINKS)) {
+            return false;
+        }
+        try {
+            if (isConverted(local)) {
+                return convertedContent.matchesOriginal(local, entry.getContentHash());
+            }
+            return Files.size(local) == entry.getSize()
+                    && entry.getContentHash().equals(DropboxContentHasher.hash(local));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * カーソルを失ったディレクトリを、ローカルの既存の内容を基準に同期し直す。
+     * ローカルファイルのcontent_hashは並列に計算する。
+     *
+     * @param targetDir 対象ディレクトリ
+     * @return 反映した差分のSyncEntryリスト
+     * @throws DropboxSyncException 一覧取得・比較・ダウンロード失敗時
+     */
+    @Override
+    public List<SyncEntry> rebaselineDirectory(String targetDir) throws DropboxSyncException {
+
+        LocalStateComparator comparator = new LocalStateComparator(
+                dropboxPath -> PathMapper.toLocalPath(dropboxPath, repoRoot),
+                Runtime.getRuntime().availableProcessors(), this::isConverted, convertedContent,
+                repoRoot.resolve(CHANGE_SET_WORK_DIR), changeSetMemoryThreshold);
+        List<SyncEntry> differences;
+        try (FolderListing listing = listFolder(targetDir, null, null);
+                Stream<SyncEntry> remoteEntries = listing.entries.stream()) {
+            differences = comparator.diff(remoteEntries, repoRoot, targetDir,
+                    fileMatcher::matches);
+            LOGGER.info("Re-baselined directory: {} ({} listed, {} differ from local)",
+                    targetDir, listing.targetEntries, differences.size());
+        }
+
+        if (!differences.isEmpty()) {
+            downloadFiles(differences);
+        }
+        return differences;
+    }
+
+    /**
+     * 対象ディレクトリを再帰的に一覧し、拡張子に一致するファイルとフォルダ全体の規模を返す。
+     * 取得したカーソルは一時カーソルファイルへ保存し、対象ディレクトリのプッシュ完了後に本ファイルに反映する。
+     * <p>
+     * パイプラインを指定した場合、download_zipの制限を超えた時点から対象ファイルをパイプラインへ投入する。
+     *
+     * @param targetDir  対象ディレクトリ
+     * @param pipeline   一覧と並行してダウンロードするパイプライン（nullの場合は一覧のみ）
+     * @param checkpoint パイプラインへ投入したファイルの区切りごとの反映処理（nullの場合は区切らない）
+     * @return 一覧結果
+     * @throws DropboxSyncException 一覧取得失敗時
+     */
+    private FolderListing listFolder(String targetDir, TransferPipeline pipeline, StreamingCheckpoint checkpoint)
+            throws DropboxSyncException {
+
+        if (crawler != null) {
+            return crawlFolder(targetDir, pipeline, checkpoint);
+        }
         try {
             LOGGER.debug("Fetching all target files for directory: {}", targetDir);
-            String branchName = targetDir.startsWith("/") ? targetDir.substring(1) : targetDir;
+            String branchName = PathMapper.toBranchName(targetDir);
+
+            // 区切りごとの再開位置には一覧開始前のカーソルが必要なため、一覧の前に取得する
+            if (checkpoint != null) {
+                checkpoint.started(latestCursor(targetDir));
+            }
 
             // 対象ディレクトリごとに全ファイルを取得
 
             ListFolderResult result = client.files().listFolderBuilder(targetDir).withRecursive(true).start();
 
-            List<SyncEntry> changedEntries = new ArrayList<SyncEntry>();
-            while (true) {
-                for (Metadata metadata : result.getEntries()) {
-                    for (String extension : extensions) {
-                        if (metadata.getName().endsWith(extension)) {
-                            changedEntries.add(SyncEntryFactory.convertMetadataToSyncEntry(metadata));
-                        }
+            FolderListing listing = new FolderListing(pipeline, checkpoint);
+            try {
+                while (true) {
+                    for (Metadata metadata : result.getEntries()) {
+                        listing.add(metadata);
                     }
-                }
 
-                if (!result.getHasMore()) {
-                    break;
+                    if (!result.getHasMore()) {
+                        break;
+                    }
+                    result = client.files().listFolderContinue(result.getCursor());
                 }
-                result = client.files().listFolderContinue(result.getCursor());
-            }
 
-            LOGGER.info("Found {} target files for directory: {}", changedEntries.size(), targetDir);
+                LOGGER.info("Found {} target files for directory: {}", listing.targetEntries, targetDir);
 
-            // 一時カーソルファイルのデータを更新
-            // 対象ディレクトリのプッシュ完了後に本ファイルに反映
+                // 一時カーソルファイルのデータを更新
+                // 対象ディレクトリのプッシュ完了後に本ファイルに反映
 
-            cursorService.writeTmpCursor(branchName, result.getCursor());
-            return changedEntries;
+                cursorService.writeTmpCursor(branchName, result.getCursor());
+                listing.cursor = result.getCursor();
+                return listing;
+            } catch (DbxException | DropboxSyncException | RuntimeException e) {
+                listing.close();
+                throw e;
+            }
 
         } catch (DbxException e) {
             throw new DropboxSyncException("Getting targeting-file-list, Error happened. ", e);
         }
     }
 
+    /**
+     * 対象ディレクトリをサブフォルダごとに並列に一覧する。
+     * カーソルは一覧開始前に取得した再帰カーソルを一時カーソルファイルへ保存し、区切りごとの再開位置にも使用する。
+     *
+     * @param targetDir  対象ディレクトリ
+     * @param pipeline   一覧と並行してダウンロードするパイプライン（nullの場合は一覧のみ）
+     * @param checkpoint パイプラインへ投入したファイルの区切りごとの反映処理（nullの場合は区切らない）
+     * @return 一覧結果
+     * @throws DropboxSyncException 一覧取得失敗時
+     */
+    private FolderListing crawlFolder(String targetDir, TransferPipeline pipeline, StreamingCheckpoint checkpoint)
+            throws DropboxSyncException {
+
+        LOGGER.debug("Crawling all target files for directory: {}", targetDir);
+        String branchName = PathMapper.toBranchName(targetDir);
+
+        FolderListing listing = new FolderListing(pipeline, checkpoint);
+        try {
+            String cursor = crawler.crawl(targetDir, started -> {
+                if (checkpoint != null) {
+                    checkpoint.started(started);
+                }
+            }, listing::add);
+
+            LOGGER.info("Found {} target files for directory: {} ({} entries)",
+                    listing.targetEntries, targetDir, listing.totalEntries);
+            cursorService.writeTmpCursor(branchName, cursor);
+            listing.cursor = cursor;
+            return listing;
+        } catch (DropboxSyncException | RuntimeException e) {
+            listing.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 同期対象のメタデータか判定する。
+     * <p>
+     * 削除はフォルダの削除である可能性があるため、拡張子に関わらず対象とする。
+     * ファイルは対象ディレクトリからの相対パスで判定する。
+     *
+     * @param metadata Dropbox APIのMetadata
+     * @return 同期対象の場合true
+     */
+    private boolean isSyncTarget(Metadata metadata) {
+        if (metadata instanceof DeletedMetadata) {
+            return true;
+        }
+        if (!(metadata instanceof FileMetadata)) {
+            return false;
+        }
+        String path = metadata.getPathDisplay() != null ? metadata.getPathDisplay() : metadata.getName();
+        return fileMatcher.matches(PathMapper.stripFirstSegment(path));
+    }
+
     /**
      * 対象のファイルをダウンロードし、上書きするメソッド
      *
@@ -230,80 +676,216 @@ public class DropboxClient implements DropboxService {
      * @throws DropboxSyncException ダウンロード・削除失敗時
      */
     @Override
-    public void downloadFiles(List<SyncEntry> syncEntries) throws DropboxSyncException {
+    public List<DownloadedFile> downloadFiles(List<SyncEntry> syncEntries) throws DropboxSyncException {
 
         LOGGER.info("Downloading {} files from Dropbox", syncEntries.size());
-        String gitPath = localRepoPath;
+        List<DownloadedFile> downloadedFiles = new ArrayList<>();
 
-        for (SyncEntry entry : syncEntries) {
+        // 移動・リネームはローカルのファイル移動で反映し、ダウンロード対象から外す
+        LocalMoveDetector moveDetector = new LocalMoveDetector(
+                dropboxPath -> PathMapper.toManagedLocalPath(dropboxPath, repoRoot));
+        List<SyncEntry> remainingEntries = moveDetector.applyMoves(syncEntries);
+
+        // 削除を先に反映し、後から削除されるファイルはダウンロードしない
+        List<SyncEntry> downloads = new ArrayList<>();
+        Set<String> deletedPaths = new HashSet<>();
+        for (int i = remainingEntries.size() - 1; i >= 0; i--) {
+            SyncEntry entry = remainingEntries.get(i);
+            String lowerPath = entry.getDropboxPath().toLowerCase(Locale.ROOT);
+            if (PathMapper.toManagedLocalPath(entry.getDropboxPath(), repoRoot) == null) {
+                // リポジトリのルート・.git配下を書き換えない
+                LOGGER.warn("Skipping path outside the synced worktree: {}", entry.getDropboxPath());
+                continue;
+            }
             if (entry.getAction().equals(SyncAction.CREATE_OR_UPDATE)) {
-                downloadFile(entry.getDropboxPath(), gitPath);
+                if (!isDeletedLater(lowerPath, deletedPaths)) {
+                    downloads.add(entry);
+                }
             } else {
-                deleteFile(entry.getDropboxPath(), gitPath);
+                deletedPaths.add(lowerPath);
+            }
+        }
+        Collections.reverse(downloads);
+        for (SyncEntry entry : remainingEntries) {
+            if (!entry.getAction().equals(SyncAction.CREATE_OR_UPDATE)) {
+                deleteFile(entry.getDropboxPath());
             }
         }
+
+        boolean bulk = bulkImportThreshold > 0 && downloads.size() >= bulkImportThreshold;
+        try (TransferPipeline pipeline = newPipeline(bulk)) {
+            downloads.forEach(pipeline::submit);
+            downloadedFiles.addAll(pipeline.finish());
+        }
         LOGGER.info("Download completed for {} files", syncEntries.size());
+        return downloadedFiles;
+    }
+
+    /**
+     * 指定パス、またはその上位のフォルダが削除対象に含まれるか判定する。
+     */
+    private static boolean isDeletedLater(String lowerPath, Set<String> deletedPaths) {
+        for (String path = lowerPath; !path.isEmpty(); path = path.substring(0, Math.max(0, path.lastIndexOf('/')))) {
+            if (deletedPaths.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ダウンロードとステージを並行して実行するパイプラインを作成する。
+     * <p>
+     * 一括取り込みの規模ではコミット時にパックへまとめて格納するため、ブロブを個別に書き込まない。
+     *
+     * @param bulk 一括取り込みの場合true
+     * @return パイプライン
+     */
+    private TransferPipeline newPipeline(boolean bulk) {
+        return new TransferPipeline(entry -> downloadFile(entry, !bulk),
+                bulk ? UnaryOperator.identity() : blobWriter,
+                pipelineDownloadWorkers, pipelineStageWorkers, pipelineQueueCapacity, pipelineMaxInFlightBytes);
     }
 
     /**
      * 指定したDropboxパスのファイルをローカルにダウンロードして保存する
+     * <p>
+     * 一時ファイルへダウンロードし、サイズとcontent_hashを確認してから配置するため、
+     * 中断時にワークツリーへ壊れたファイルが残ることはない。
      *
-     * @param dropboxPath Dropbox上のファイルパス（例: /dir1/file.txt）
-     * @param gitPath     ローカルリポジトリパス（例: C:/work/yourrepo）
+     * @param entry      ダウンロード対象のSyncEntry
+     * @param writeBlobs ダウンロードと同時にブロブを書き込む場合true
+     * @return ダウンロード中に計算したハッシュを含むファイル情報
      * @throws DropboxSyncException ダウンロード失敗時
      */
-    private void downloadFile(String dropboxPath, String gitPath)
+    private DownloadedFile downloadFile(SyncEntry entry, boolean writeBlobs)
             throws DropboxSyncException {
 
+        String dropboxPath = entry.getDropboxPath();
         LOGGER.debug("Downloading file: {}", dropboxPath);
 
-        // Windows環境で動作不良を起こす可能性があるため、"/"をtrim
-        String relativePath = dropboxPath.startsWith("/") ? dropboxPath.substring(1) : dropboxPath;
-        int firstSlash = relativePath.indexOf("/");
-        if (firstSlash != -1) {
-            relativePath = relativePath.substring(firstSlash + 1);
-        }
+        Path path = PathMapper.toLocalPath(dropboxPath, repoRoot);
 
-        Path path = Paths.get(gitPath, relativePath);
+        DownloadedFile downloaded;
+        try {
+            // 内容を変換して格納するファイルは、ダウンロードした内容のブロブを書き込まない
+            downloaded = downloader.download(dropboxPath, entry.getContentHash(), entry.getSize(), path,
+                    writeBlobs && !isConverted(path));
+        } catch (IOException e) {
+            throw new DropboxSyncException("Downloading file failed.", e);
+        }
 
-        // 親ディレクトリを作成
-        if (Objects.nonNull(path.getParent())) {
-            try {
-                Files.createDirectories(path.getParent());
-            } catch (IOException e) {
-                throw new DropboxSyncException("Creating directory failed.", e);
-            }
+        LOGGER.debug("Downloaded file: {} to {}", dropboxPath, path);
+        boolean normalized = normalizeZipContainer(path);
+        recordConvertedContent(path, downloaded.getContentHash());
+        if (normalized) {
+            // 内容を変換したため、ダウンロード時のブロブIDはローカルファイルと一致しない
+            return new DownloadedFile(dropboxPath, path, downloaded.getContentHash(), null, downloaded.getSize());
         }
+        return downloaded;
+    }
 
-        // コピー処理を実行
-        try (OutputStream out = Files.newOutputStream(path)) {
+    /**
+     * 無圧縮化するzipコンテナ、またはコミット時にLFSのポインタへ置き換えるファイルの場合にtrue。
+     * これらのローカルの内容はDropboxの内容と一致しない。
+     *
+     * @param localPath ローカルパス
+     * @return 内容を変換して格納するファイルの場合true
+     */
+    private boolean isConverted(Path localPath) {
+        return zipNormalizeMatcher.matches(localPath.getFileName().toString().toLowerCase(Locale.ROOT))
+                || lfsMatcher.matches(PathMapper.toRelativePath(repoRoot, localPath).toLowerCase(Locale.ROOT));
+    }
 
-            client.files().download(dropboxPath).download(out);
+    /**
+     * 内容を変換して格納するファイルについて、変換前のcontent_hashを記録する。
+     * 記録に失敗しても同期は続け、次回の比較で再ダウンロードする。
+     *
+     * @param localPath   格納したファイル
+     * @param contentHash Dropboxのcontent_hash
+     */
+    private void recordConvertedContent(Path localPath, String contentHash) {
 
-        } catch (IOException | DbxException e) {
-            throw new DropboxSyncException("Downloading file failed.", e);
+        if (contentHash == null || !isConverted(localPath)) {
+            return;
         }
+        try {
+            convertedContent.record(localPath, contentHash);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to record original content hash: {}", localPath, e);
+        }
+    }
 
-        LOGGER.debug("Downloaded file: {} to {}", dropboxPath, path);
+    /**
+     * 範囲指定でファイルを取得する。
+     * API側のエラー（ファイルが存在しない等）は再試行しないよう区別する。
+     */
+    private void fetchRange(String dropboxPath, long offset, long length, OutputStream out) throws IOException {
+
+        try {
+            DownloadBuilder builder = client.files().downloadBuilder(dropboxPath);
+            if (length >= 0) {
+                builder.range(offset, length);
+            } else if (offset > 0) {
+                builder.range(offset);
+            }
+            builder.download(out);
+        } catch (DbxApiException e) {
+            throw new ResumableDownloader.FatalFetchException("Downloading file failed: " + dropboxPath, e);
+        } catch (DbxException e) {
+            throw new IOException("Downloading file failed: " + dropboxPath, e);
+        }
     }
 
-    private void deleteFile(String dropboxPath, String gitPath)
+    /**
+     * 対象拡張子のzipコンテナを、Gitでデルタ圧縮が効くよう無圧縮のzipに置き換える。
+     * zipとして読み込めない場合はダウンロードした内容のまま残す。
+     *
+     * @param path ダウンロード済みファイル
+     * @return 内容を置き換えた場合true
+     */
+    private boolean normalizeZipContainer(Path path) {
+
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!zipNormalizeMatcher.matches(fileName)) {
+            return false;
+        }
+        try {
+            ZipContainerNormalizer.normalize(path);
+            LOGGER.debug("Normalized zip container: {}", path);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to normalize zip container, keeping original content: {}", path, e);
+            return false;
+        }
+    }
+
+    private void deleteFile(String dropboxPath)
             throws DropboxSyncException {
 
         LOGGER.debug("Deleting file: {}", dropboxPath);
 
-        // Windows環境で動作不良を起こす可能性があるため、"/"をtrim
-        String relativePath = dropboxPath.startsWith("/") ? dropboxPath.substring(1) : dropboxPath;
-        int firstSlash = relativePath.indexOf("/");
-        if (firstSlash != -1) {
-            relativePath = relativePath.substring(firstSlash + 1);
+        Path path = PathMapper.toManagedLocalPath(dropboxPath, repoRoot);
+        if (path == null) {
+            // 対象ディレクトリ自体・.git配下の再帰削除はリポジトリを壊すため行わない
+            LOGGER.warn("Skipping delete outside the synced worktree: {}", dropboxPath);
+            return;
         }
 
-        Path path = Paths.get(gitPath, relativePath);
-
         try {
-            Files.delete(path);
-            LOGGER.debug("Deleted file: {}", path);
+            // フォルダの削除は配下ごと削除し、ローカルに存在しない場合は何もしない
+            if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    for (Path child : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                        Files.delete(child);
+                    }
+                }
+                LOGGER.debug("Deleted directory: {}", path);
+            } else if (Files.deleteIfExists(path)) {
+                LOGGER.debug("Deleted file: {}", path);
+            } else {
+                LOGGER.debug("File already absent: {}", path);
+            }
 
         } catch (IOException e) {
             throw new DropboxSyncException("Deleting file failed.", e);
@@ -347,4 +929,215 @@ public class DropboxClient implements DropboxService {
             LOGGER.info("Uploaded {} to {}", localFilePath, dropboxPath);
         }
     }
+
+    /**
+     * 並列一覧で使用するDropbox APIの呼び出し。
+     * クライアントは認証情報の更新で差し替えられるため、呼び出しのたびに参照する。
+     */
+    private final class CrawlerPageSource implements ParallelFolderCrawler.PageSource {
+
+        @Override
+        public String latestRecursiveCursor(String folderPath) throws DbxException {
+            return client.files().listFolderGetLatestCursorBuilder(folderPath).withRecursive(true).start()
+                    .getCursor();
+        }
+
+        @Override
+        public ListFolderResult list(String folderPath, long pageLimit) throws DbxException {
+            return client.files().listFolderBuilder(folderPath).withLimit(pageLimit).start();
+        }
+
+        @Override
+        public ListFolderResult listContinue(String cursor) throws DbxException {
+            return client.files().listFolderContinue(cursor);
+        }
+    }
+
+    /**
+     * 一覧と並行してダウンロードしたファイルを、区切りの件数・サイズごとに反映する処理。
+     * 最初の反映の前に、一覧開始前のカーソルを再開位置として記録する。
+     * カーソルは一覧側が開始前に取得したものを受け取る（並列一覧では一覧自体の再帰カーソルを共用する）。
+     */
+    private final class StreamingCheckpoint {
+
+        private final String targetDir;
+        private final ImportChunkHandler handler;
+        private String cursor;
+        private int chunkFiles = 0;
+        private long chunkBytes = 0;
+        private int imported = 0;
+        private boolean recorded = false;
+
+        private StreamingCheckpoint(String targetDir, ImportChunkHandler handler) {
+            this.targetDir = targetDir;
+            this.handler = handler;
+        }
+
+        /**
+         * 一覧開始前に取得したカーソルを受け取る。
+         */
+        private void started(String cursor) {
+            this.cursor = cursor;
+        }
+
+        /**
+         * パイプラインへ投入したファイルを数え、区切りに達した場合は処理完了を待って反映する。
+         * 一覧のコールバックから呼ばれるため、失敗は{@link CheckpointException}で通知する。
+         */
+        private void submitted(SyncEntry entry, TransferPipeline pipeline) {
+            chunkFiles++;
+            chunkBytes += Math.max(entry.getSize(), 0);
+            if (!isOverCheckpoint(chunkFiles, chunkBytes)) {
+                return;
+            }
+            try {
+                List<DownloadedFile> downloaded = pipeline.drain();
+                record();
+                handler.accept(downloaded);
+            } catch (DropboxSyncException | GithubSyncException e) {
+                throw new CheckpointException(e);
+            }
+            imported += chunkFiles;
+            LOGGER.info("Import checkpoint for directory: {} ({} files imported while listing)",
+                    targetDir, imported);
+            chunkFiles = 0;
+            chunkBytes = 0;
+        }
+
+        /**
+         * 残りのファイルを反映し、記録した再開位置を削除する。
+         */
+        private void finish(List<DownloadedFile> downloaded) throws DropboxSyncException, GithubSyncException {
+            handler.accept(downloaded);
+            if (recorded) {
+                cursorService.clearImportCheckpoint(PathMapper.toBranchName(targetDir));
+            }
+        }
+
+        private void record() throws DropboxSyncException {
+            if (!recorded) {
+                cursorService.writeImportCheckpoint(PathMapper.toBranchName(targetDir), cursor);
+                recorded = true;
+            }
+        }
+    }
+
+    /**
+     * 一覧の途中の反映に失敗したことを、一覧の呼び出し元まで伝える例外。
+     */
+    private static final class CheckpointException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private CheckpointException(Exception cause) {
+            super(cause);
+        }
+
+        /**
+         * 例外の原因にこの例外が含まれる場合、元の例外を投げる。
+         */
+        private static void rethrowCause(Throwable e) throws DropboxSyncException, GithubSyncException {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof CheckpointException) {
+                    Throwable original = cause.getCause();
+                    if (original instanceof GithubSyncException) {
+                        throw (GithubSyncException) original;
+                    }
+                    throw (DropboxSyncException) original;
+                }
+            }
+        }
+    }
+
+    /**
+     * フォルダの一覧結果。download_zipの利用可否判定のため、対象外のファイルも含めた規模を保持する。
+     * 対象ファイルは件数が多い場合に一時ファイルへ書き出されるため、使用後に閉じること。
+     */
+    private final class FolderListing implements AutoCloseable {
+
+        // download_zipの制限
+        private static final long ZIP_MAX_TOTAL_BYTES = 20L * 1024 * 1024 * 1024;
+        private static final long ZIP_MAX_FILE_BYTES = 4L * 1024 * 1024 * 1024;
+        private static final int ZIP_MAX_ENTRIES = 10_000;
+
+        private final ChangeSet entries = new ChangeSet(Paths.get(localRepoPath, CHANGE_SET_WORK_DIR),
+                changeSetMemoryThreshold);
+        private final TransferPipeline pipeline;
+        private final StreamingCheckpoint checkpoint;
+        private int targetEntries = 0;
+        private long targetBytes = 0;
+        private int totalEntries = 0;
+        private long totalBytes = 0;
+        private long largestFileBytes = 0;
+
+        // 一覧と並行してパイプラインへ投入している場合true
+        private boolean streaming = false;
+
+        // 一覧時点のカーソル
+        private String cursor;
+
+        private FolderListing(TransferPipeline pipeline, StreamingCheckpoint checkpoint) {
+            this.pipeline = pipeline;
+            this.checkpoint = checkpoint;
+        }
+
+        private void add(Metadata metadata) {
+            totalEntries++;
+            if (metadata instanceof FileMetadata) {
+                long size = ((FileMetadata) metadata).getSize();
+                totalBytes += size;
+                largestFileBytes = Math.max(largestFileBytes, size);
+            }
+            if (isSyncTarget(metadata)) {
+                SyncEntry entry = SyncEntryFactory.convertMetadataToSyncEntry(metadata);
+                targetEntries++;
+                targetBytes += Math.max(entry.getSize(), 0);
+                if (streaming) {
+                    submit(entry);
+                } else {
+                    entries.add(entry);
+                }
+            }
+            if (!streaming && pipeline != null && exceedsDownloadZip()) {
+                // zipでは取得できないことが確定したため、一覧の完了を待たずにダウンロードを始める
+                streaming = true;
+                try (Stream<SyncEntry> listed = entries.stream()) {
+                    listed.forEach(this::submit);
+                }
+            }
+        }
+
+        private void submit(SyncEntry entry) {
+            pipeline.submit(entry);
+            if (checkpoint != null) {
+                checkpoint.submitted(entry, pipeline);
+            }
+        }
+
+        /**
+         * download_zipの制限のいずれかを超えた場合にtrue。一覧の途中でも判定できる。
+         */
+        private boolean exceedsDownloadZip() {
+            return totalEntries >= ZIP_MAX_ENTRIES
+                    || totalBytes >= ZIP_MAX_TOTAL_BYTES
+                    || largestFileBytes >= ZIP_MAX_FILE_BYTES;
+        }
+
+        /**
+         * download_zipの制限内で、かつ対象ファイルが容量の半分以上を占める場合にtrue。
+         * 対象外のファイルが大半のフォルダをzipで取得すると、不要な転送が増えるため除外する。
+         */
+        private boolean fitsDownloadZip() {
+            return targetEntries > 1
+                    && totalEntries < ZIP_MAX_ENTRIES
+                    && totalBytes < ZIP_MAX_TOTAL_BYTES
+                    && largestFileBytes < ZIP_MAX_FILE_BYTES
+                    && targetBytes * 2 >= totalBytes;
+        }
+
+        @Override
+        public void close() {
+            entries.close();
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package com.db2ghsync.dropbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Dropboxのcontent_hashを計算するクラス。
+ * <p>
+ * ファイルを4MBのブロックに分割して各ブロックのSHA-256を求め、
+ * それらを連結したバイト列のSHA-256を16進文字列で表したものがcontent_hashとなる。
+ * 書き込みながら計算できるよう、逐次的にデータを与えられる。
+ */
+public class DropboxContentHasher {
+
+    /** content_hashのブロックサイズ */
+    public static final int BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MessageDigest overall = newSha256();
+    private final MessageDigest block = newSha256();
+    private int blockPosition = 0;
+
+    /**
+     * データを追加する。
+     *
+     * @param data   データ
+     * @param offset 開始位置
+     * @param length 長さ
+     */
+    public void update(byte[] data, int offset, int length) {
+
+        int position = offset;
+        int end = offset + length;
+        while (position < end) {
+            if (blockPosition == BLOCK_SIZE) {
+                overall.update(block.digest());
+                blockPosition = 0;
+            }
+            int chunk = Math.min(end - position, BLOCK_SIZE - blockPosition);
+            block.update(data, position, chunk);
+            blockPosition += chunk;
+            position += chunk;
+        }
+    }
+
+    /**
+     * content_hashを16進文字列で返す。呼び出し後は再利用しないこと。
+     *
+     * @return content_hash
+     */
+    public String digest() {
+
+        if (blockPosition > 0) {
+            overall.update(block.digest());
+            blockPosition = 0;
+        }
+        return HexFormat.of().formatHex(overall.digest());
+    }
+
+    /**
+     * ファイルのcontent_hashを計算する。
+     *
+     * @param file 対象ファイル
+     * @return content_hash
+     * @throws IOException 読み込み失敗時
+     */
+    public static String hash(Path file) throws IOException {
+
+        DropboxContentHasher hasher = new DropboxContentHasher();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                hasher.update(buffer, 0, read);
+            }
+        }
+        return hasher.digest();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
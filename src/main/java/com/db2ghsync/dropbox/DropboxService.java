@@ -3,8 +3,12 @@ package com.db2ghsync.dropbox;
 import java.nio.file.Path;
 import java.util.List;
 
+import com.db2ghsync.entity.ChangeSet;
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.CursorResetException;
 import com.db2ghsync.exception.DropboxSyncException;
+import com.db2ghsync.exception.GithubSyncException;
 
 /**
  * Dropbox APIとの連携を行うサービスのインターフェース。
@@ -26,26 +30,61 @@ public interface DropboxService {
      * @param targetDir 対象ディレクトリ
      * @param cursor    Dropbox APIの差分取得用カーソル
      * @return 変更されたSyncEntryのリスト
+     * @throws CursorResetException Dropboxによりカーソルが無効化された場合
      * @throws DropboxSyncException 変更取得失敗時
      */
     List<SyncEntry> getChangesWithCursor(String targetDir, String cursor) throws DropboxSyncException;
 
     /**
-     * 管理対象ディレクトリ配下の全ファイルのうち、指定拡張子に一致するものをSyncEntryリストとして返す。
+     * 管理対象ディレクトリ配下の全ファイルのうち、指定拡張子に一致するものを返す。
+     * 件数が多い場合は一時ファイルへ書き出されるため、使用後に閉じること。
      *
      * @param targetDir 対象ディレクトリ
-     * @return 拡張子一致ファイルのSyncEntryリスト
+     * @return 拡張子一致ファイルのSyncEntry
      * @throws DropboxSyncException ファイル一覧取得失敗時
      */
-    List<SyncEntry> getTargetFiles(String targetDir) throws DropboxSyncException;
+    ChangeSet getTargetFiles(String targetDir) throws DropboxSyncException;
+
+    /**
+     * カーソルのないディレクトリを初回取り込みする。
+     * <p>
+     * 全ファイルを一覧して差分取得用カーソルを一時保存し、拡張子に一致するファイルをローカルへ書き出す。
+     * API制限内のフォルダはzipで一括取得し、それ以外はファイルごとにダウンロードする。
+     * 書き出したファイルはhandlerで反映する。件数・サイズの大きいフォルダは区切りごとに反映し、
+     * 中断した場合は次回に反映済みのファイルを飛ばして再開する。
+     *
+     * @param targetDir 対象ディレクトリ
+     * @param handler   書き出したファイルの反映処理
+     * @return 取り込んだファイル数
+     * @throws DropboxSyncException 一覧取得・ダウンロード失敗時
+     * @throws GithubSyncException  反映失敗時
+     */
+    int importDirectory(String targetDir, ImportChunkHandler handler)
+            throws DropboxSyncException, GithubSyncException;
+
+    /**
+     * カーソルを失ったディレクトリを、ローカルの既存の内容を基準に同期し直す。
+     * <p>
+     * 全ファイルを一覧して差分取得用カーソルを一時保存し、ローカルとcontent_hashが異なるファイルのみを反映する。
+     * 呼び出し前に、対象ディレクトリのブランチをチェックアウトしておくこと。
+     *
+     * @param targetDir 対象ディレクトリ
+     * @return 反映した差分のSyncEntryリスト
+     * @throws DropboxSyncException 一覧取得・比較・ダウンロード失敗時
+     */
+    List<SyncEntry> rebaselineDirectory(String targetDir) throws DropboxSyncException;
 
     /**
      * 対象のファイルをダウンロードし、上書きするメソッド
      *
+     * <p>
+     * ダウンロードした内容はDropboxのcontent_hashで検証してから配置する。
+     *
      * @param syncEntries ダウンロード対象のSyncEntryリスト
+     * @return ダウンロードしたファイルと、その際に計算したハッシュ
      * @throws DropboxSyncException ダウンロード・削除失敗時
      */
-    void downloadFiles(List<SyncEntry> syncEntries) throws DropboxSyncException;
+    List<DownloadedFile> downloadFiles(List<SyncEntry> syncEntries) throws DropboxSyncException;
 
     /**
      * ローカルファイルをDropboxへアップロードする。
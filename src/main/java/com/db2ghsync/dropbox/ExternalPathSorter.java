@@ -0,0 +1,233 @@
+package com.db2ghsync.dropbox;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * 大量の相対パスを整列した順に読み出すクラス。
+ * <p>
+ * 保持量が閾値を超えた場合は整列済みの一時ファイルへ書き出し、読み出し時に全ての一時ファイルを併合する。
+ * 順序は"/"を他のどの文字よりも小さいものとして比較するため、
+ * 各ディレクトリの子を名前順に辿った順序と一致する。
+ * <p>
+ * スレッドセーフではない。
+ */
+final class ExternalPathSorter implements AutoCloseable {
+
+    /**
+     * "/"を他のどの文字よりも小さいものとして比較する順序。
+     */
+    static final Comparator<String> PATH_ORDER = ExternalPathSorter::comparePaths;
+
+    // パス1件あたりの概算のオーバーヘッド（String・配列・リストの参照）
+    private static final int BYTES_PER_PATH = 64;
+
+    private final Path spillDirectory;
+    private final long memoryThreshold;
+
+    // メモリ上のパス
+    private List<String> buffer = new ArrayList<>();
+    private long bufferBytes = 0;
+
+    // 一時ファイルへ書き出した整列済みのパスと件数
+    private final List<Path> runs = new ArrayList<>();
+    private final List<Integer> runSizes = new ArrayList<>();
+    private final List<DataInputStream> readers = new ArrayList<>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param spillDirectory  一時ファイルの作成先（nullの場合はシステムの一時ディレクトリ）
+     * @param memoryThreshold メモリ上に保持するパスの量の上限（バイト、0以下の場合は書き出さない）
+     */
+    ExternalPathSorter(Path spillDirectory, long memoryThreshold) {
+        this.spillDirectory = spillDirectory;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * パスを追加する。
+     *
+     * @param path 追加するパス
+     */
+    void add(String path) {
+        buffer.add(path);
+        bufferBytes += BYTES_PER_PATH + 2L * path.length();
+        if (memoryThreshold > 0 && bufferBytes >= memoryThreshold) {
+            spill();
+        }
+    }
+
+    /**
+     * 一時ファイルへ書き出した回数を返す。
+     */
+    int spilledRuns() {
+        return runs.size();
+    }
+
+    /**
+     * 追加した全てのパスを整列した順に読み出す。重複したパスはそのまま返す。
+     *
+     * @return 整列済みのパスのイテレータ
+     */
+    Iterator<String> sorted() {
+        buffer.sort(PATH_ORDER);
+        PriorityQueue<Run> queue = new PriorityQueue<>((a, b) -> PATH_ORDER.compare(a.head, b.head));
+        addRun(queue, buffer.iterator());
+        for (int i = 0; i < runs.size(); i++) {
+            addRun(queue, openRun(runs.get(i), runSizes.get(i)));
+        }
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public String next() {
+                Run run = queue.poll();
+                if (run == null) {
+                    throw new NoSuchElementException();
+                }
+                String head = run.head;
+                addRun(queue, run.source);
+                return head;
+            }
+        };
+    }
+
+    /**
+     * 一時ファイルを削除する。
+     */
+    @Override
+    public void close() {
+        try {
+            for (DataInputStream reader : readers) {
+                reader.close();
+            }
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Deleting path sort spill file failed.", e);
+        } finally {
+            readers.clear();
+            runs.clear();
+            runSizes.clear();
+        }
+    }
+
+    private static void addRun(PriorityQueue<Run> queue, Iterator<String> source) {
+        if (source.hasNext()) {
+            queue.add(new Run(source.next(), source));
+        }
+    }
+
+    /**
+     * メモリ上のパスを整列して一時ファイルへ書き出し、メモリを解放する。
+     */
+    private void spill() {
+        buffer.sort(PATH_ORDER);
+        try {
+            Path run;
+            if (spillDirectory != null) {
+                Files.createDirectories(spillDirectory);
+                run = Files.createTempFile(spillDirectory, "paths_", ".bin");
+            } else {
+                run = Files.createTempFile("paths_", ".bin");
+            }
+            runs.add(run);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run)))) {
+                for (String path : buffer) {
+                    byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing path sort spill file failed.", e);
+        }
+        runSizes.add(buffer.size());
+        buffer = new ArrayList<>();
+        bufferBytes = 0;
+    }
+
+    private Iterator<String> openRun(Path run, int total) {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading path sort spill file failed.", e);
+        }
+        readers.add(in);
+        return new Iterator<String>() {
+            private int read = 0;
+
+            @Override
+            public boolean hasNext() {
+                return read < total;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    read++;
+                    return new String(bytes, StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Reading path sort spill file failed.", e);
+                }
+            }
+        };
+    }
+
+    private static int comparePaths(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                if (x == '/') {
+                    return -1;
+                }
+                if (y == '/') {
+                    return 1;
+                }
+                return Character.compare(x, y);
+            }
+        }
+        return Integer.compare(a.length(), b.length());
+    }
+
+    /**
+     * 併合中の整列済みの列と、その先頭のパス。
+     */
+    private static final class Run {
+
+        private final String head;
+        private final Iterator<String> source;
+
+        private Run(String head, Iterator<String> source) {
+            this.head = head;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.db2ghsync.dropbox;
+
+import java.util.List;
+
+import com.db2ghsync.entity.DownloadedFile;
+import com.db2ghsync.exception.GithubSyncException;
+
+/**
+ * 初回取り込みでローカルへ書き出したファイルを反映（コミット・プッシュ）する処理。
+ * <p>
+ * 取り込みが区切りごとに行われる場合は区切りごとに、それ以外は最後に1回呼び出される。
+ */
+@FunctionalInterface
+public interface ImportChunkHandler {
+
+    /**
+     * 書き出したファイルを反映する。
+     *
+     * @param downloadedFiles ダウンロード済みファイルの情報（zipで取得した場合は空）
+     * @throws GithubSyncException 反映失敗時
+     */
+    void accept(List<DownloadedFile> downloadedFiles) throws GithubSyncException;
+}
@@ -0,0 +1,162 @@
+package com.db2ghsync.dropbox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.SyncEntry;
+
+/**
+ * Dropbox上での移動・リネームを検知し、ローカルのファイル移動で反映するクラス。
+ * <p>
+ * Dropboxは移動を「移動元の削除」と「移動先の作成」として通知するため、
+ * 削除対象のローカルファイルのうちサイズとcontent_hashが作成エントリと一致するものを移動先へ移し、
+ * 再ダウンロードを不要にする。
+ */
+public class LocalMoveDetector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalMoveDetector.class);
+
+    // Dropboxパスからローカルパスへの変換
+    private final Function<String, Path> localPathResolver;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param localPathResolver Dropboxパスをローカルパスに変換する関数。移動元・移動先にできないパスはnullを返す
+     */
+    public LocalMoveDetector(Function<String, Path> localPathResolver) {
+        this.localPathResolver = Objects.requireNonNull(localPathResolver);
+    }
+
+    /**
+     * 移動と判定できたエントリをローカルで移動し、残りのエントリを返す。
+     * <p>
+     * 移動元の削除エントリは残すが、ファイルは既に移動済みのため削除処理では何も起きない。
+     * 移動に失敗した場合はダウンロード対象として残す。
+     *
+     * @param syncEntries 反映対象のSyncEntryリスト
+     * @return ダウンロード・削除が必要なSyncEntryリスト
+     */
+    public List<SyncEntry> applyMoves(List<SyncEntry> syncEntries) {
+
+        List<Path> deletedPaths = new ArrayList<>();
+        Map<Long, List<Path>> candidatesBySize = new HashMap<>();
+        for (SyncEntry entry : syncEntries) {
+            if (entry.getAction() == SyncAction.DELETE) {
+                Path path = localPathResolver.apply(entry.getDropboxPath());
+                if (path == null) {
+                    continue;
+                }
+                deletedPaths.add(path);
+                collectCandidates(path, candidatesBySize);
+            }
+        }
+        if (candidatesBySize.isEmpty()) {
+            return syncEntries;
+        }
+
+        Map<Path, String> hashCache = new HashMap<>();
+        Set<SyncEntry> moved = new HashSet<>();
+        for (SyncEntry entry : syncEntries) {
+            if (entry.getAction() != SyncAction.CREATE_OR_UPDATE || entry.getContentHash() == null) {
+                continue;
+            }
+            List<Path> candidates = candidatesBySize.get(entry.getSize());
+            if (candidates == null) {
+                continue;
+            }
+            Path target = localPathResolver.apply(entry.getDropboxPath());
+            // 後続の削除で消されてしまう場所への移動はダウンロードに任せる
+            if (target == null || isUnderAny(target, deletedPaths)) {
+                continue;
+            }
+            Path source = findSameContent(candidates, entry.getContentHash(), hashCache);
+            if (source != null && move(source, target)) {
+                candidates.remove(source);
+                moved.add(entry);
+            }
+        }
+
+        LOGGER.info("Applied {} moves locally without downloading", moved.size());
+        return syncEntries.stream().filter(entry -> !moved.contains(entry)).collect(Collectors.toList());
+    }
+
+    private void collectCandidates(Path path, Map<Long, List<Path>> candidatesBySize) {
+
+        try {
+            if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                candidatesBySize.computeIfAbsent(Files.size(path), size -> new ArrayList<>()).add(path);
+            } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // フォルダの移動は配下のファイルを候補とする
+                try (Stream<Path> walk = Files.walk(path)) {
+                    for (Path child : walk.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                        candidatesBySize.computeIfAbsent(Files.size(child), size -> new ArrayList<>()).add(child);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to inspect deleted path, skipping move detection: {}", path, e);
+        }
+    }
+
+    private Path findSameContent(List<Path> candidates, String contentHash, Map<Path, String> hashCache) {
+
+        for (Path candidate : candidates) {
+            String hash = hashCache.get(candidate);
+            if (hash == null) {
+                try {
+                    hash = DropboxContentHasher.hash(candidate);
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to hash local file: {}", candidate, e);
+                    hash = "";
+                }
+                hashCache.put(candidate, hash);
+            }
+            if (hash.equals(contentHash)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean move(Path source, Path target) {
+
+        try {
+            if (Objects.nonNull(target.getParent())) {
+                Files.createDirectories(target.getParent());
+            }
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.debug("Moved {} to {}", source, target);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to move {} to {}, falling back to download", source, target, e);
+            return false;
+        }
+    }
+
+    private static boolean isUnderAny(Path path, List<Path> roots) {
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,235 @@
+package com.db2ghsync.dropbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import com.db2ghsync.common.PathMapper;
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.DropboxSyncException;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * Dropboxの一覧とローカルのファイルを突き合わせ、実際に異なるものだけを差分として返すクラス。
+ * <p>
+ * サイズが一致するファイルのみDropboxのcontent_hashを並列に計算して比較する。
+ * ダウンロード後に内容を変換して格納したファイル（LFSのポインタ、無圧縮化したzip）は、
+ * 記録済みの変換前のcontent_hashと比較する。
+ * カーソルを失った場合や無効化された場合に、全件を再ダウンロードせずに同期状態を取り戻すために使用する。
+ */
+public class LocalStateComparator {
+
+    private static final String GIT_DIR = ".git";
+
+    // 1スレッドあたり同時に比較するファイル数
+    private static final int WINDOW_PER_THREAD = 256;
+
+    // 削除の検出のためにメモリ上に保持するDropbox上のパスの量の既定の上限
+    private static final long DEFAULT_MEMORY_THRESHOLD = 64L * 1024 * 1024;
+
+    // Dropboxパスからローカルパスへの変換
+    private final Function<String, Path> localPathResolver;
+
+    // ハッシュ計算のスレッド数
+    private final int threads;
+
+    // ダウンロード後に内容を変換して格納するファイルの判定と、変換前のcontent_hashの索引
+    private final Predicate<Path> isConverted;
+    private final ConvertedContentIndex convertedContent;
+
+    // 削除の検出に使用するDropbox上のパスの一時ファイルの作成先と、メモリ上に保持する量の上限
+    private final Path spillDirectory;
+    private final long memoryThreshold;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param localPathResolver Dropboxパスをローカルパスに変換する関数
+     * @param threads           ハッシュ計算のスレッド数
+     */
+    public LocalStateComparator(Function<String, Path> localPathResolver, int threads) {
+        this(localPathResolver, threads, path -> false, null, null, DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * コンストラクタ。内容を変換して格納するファイルを、変換前のcontent_hashと比較する。
+     *
+     * @param localPathResolver Dropboxパスをローカルパスに変換する関数
+     * @param threads           ハッシュ計算のスレッド数
+     * @param isConverted       ローカルパスが内容を変換して格納するファイルか判定する関数
+     * @param convertedContent  変換前のcontent_hashの索引
+     * @param spillDirectory    Dropbox上のパスの一時ファイルの作成先（nullの場合はシステムの一時ディレクトリ）
+     * @param memoryThreshold   メモリ上に保持するDropbox上のパスの量の上限（バイト、0以下の場合は書き出さない）
+     */
+    LocalStateComparator(Function<String, Path> localPathResolver, int threads, Predicate<Path> isConverted,
+            ConvertedContentIndex convertedContent, Path spillDirectory, long memoryThreshold) {
+        this.localPathResolver = Objects.requireNonNull(localPathResolver);
+        this.threads = Math.max(1, threads);
+        this.isConverted = Objects.requireNonNull(isConverted);
+        this.convertedContent = convertedContent;
+        this.spillDirectory = spillDirectory;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Dropboxの一覧とローカルを比較し、差分のエントリを返す。
+     * <p>
+     * 内容が異なる・ローカルに無いファイルは作成・更新、Dropboxに無い対象ファイルは削除として返す。
+     * Dropboxの一覧は一定件数ずつ比較するため、エントリ自体は一覧全体をメモリ上に展開しない。
+     * 削除は、整列したDropbox上のパス（閾値を超えた分は一時ファイルへ書き出す）と
+     * 名前順に辿ったローカルのファイルを併合して検出する。
+     *
+     * @param remoteEntries Dropbox上の対象ファイル一覧
+     * @param localRoot     比較するローカルのディレクトリ
+     * @param targetDir     対象ディレクトリ（削除エントリのDropboxパス生成に使用）
+     * @param isTarget      ローカルルートからの相対パス（区切りは"/"）が同期対象か判定する関数
+     * @return 差分のSyncEntryリスト
+     * @throws DropboxSyncException ローカルファイルの読み込み失敗時
+     */
+    public List<SyncEntry> diff(Stream<SyncEntry> remoteEntries, Path localRoot, String targetDir,
+            Predicate<String> isTarget) throws DropboxSyncException {
+
+        // 削除の検出に使用するDropbox上の全ファイルのローカルルートからの相対パス
+        try (ExternalPathSorter remotePaths = new ExternalPathSorter(spillDirectory, memoryThreshold)) {
+            List<SyncEntry> differences = compare(remoteEntries, localRoot, remotePaths);
+
+            // Dropboxに存在しない対象ファイルは削除する（.git配下は辿らない）
+            String dropboxRoot = targetDir.toLowerCase(Locale.ROOT);
+            PeekingIterator<String> sortedRemotePaths = Iterators.peekingIterator(remotePaths.sorted());
+            new DeletedFileCollector(localRoot, dropboxRoot, isTarget, sortedRemotePaths, differences)
+                    .visit(localRoot, "");
+            return differences;
+        } catch (IOException e) {
+            throw new DropboxSyncException("Listing local files failed.", e);
+        } catch (UncheckedIOException e) {
+            throw new DropboxSyncException("Sorting remote paths failed.", e.getCause());
+        }
+    }
+
+    private List<SyncEntry> compare(Stream<SyncEntry> remoteEntries, Path localRoot, ExternalPathSorter remotePaths)
+            throws DropboxSyncException {
+
+        List<SyncEntry> differences = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Iterator<SyncEntry> iterator = remoteEntries.iterator();
+            List<SyncEntry> window = new ArrayList<>(threads * WINDOW_PER_THREAD);
+            List<Future<Boolean>> results = new ArrayList<>(threads * WINDOW_PER_THREAD);
+            while (iterator.hasNext()) {
+                window.clear();
+                results.clear();
+                while (iterator.hasNext() && window.size() < threads * WINDOW_PER_THREAD) {
+                    SyncEntry entry = iterator.next();
+                    Path local = localPathResolver.apply(entry.getDropboxPath());
+                    if (local.startsWith(localRoot)) {
+                        remotePaths.add(PathMapper.toRelativePath(localRoot, local));
+                    }
+                    window.add(entry);
+                    results.add(executor.submit(() -> isDifferent(entry, local)));
+                }
+                for (int i = 0; i < window.size(); i++) {
+                    if (results.get(i).get()) {
+                        differences.add(window.get(i));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DropboxSyncException("Comparing local files was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new DropboxSyncException("Comparing local files failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return differences;
+    }
+
+    private boolean isDifferent(SyncEntry entry, Path local) throws IOException {
+
+        if (!Files.isRegularFile(local) || entry.getContentHash() == null) {
+            return true;
+        }
+        if (convertedContent != null && isConverted.test(local)) {
+            // 格納時に変換したためサイズ・content_hashは一致しない。変換前の内容で比較する
+            return !convertedContent.matchesOriginal(local, entry.getContentHash());
+        }
+        if (Files.size(local) != entry.getSize()) {
+            return true;
+        }
+        return !entry.getContentHash().equals(DropboxContentHasher.hash(local));
+    }
+
+    /**
+     * ローカルのファイルを各ディレクトリの子の名前順に辿り、整列済みのDropbox上のパスに無い対象ファイルを
+     * 削除のエントリとして追加する。
+     */
+    private static final class DeletedFileCollector {
+
+        private static final Comparator<Path> NAME_ORDER = Comparator.comparing(
+                path -> path.getFileName().toString(), ExternalPathSorter.PATH_ORDER);
+
+        private final Path gitDir;
+        private final String dropboxRoot;
+        private final Predicate<String> isTarget;
+        private final PeekingIterator<String> remotePaths;
+        private final List<SyncEntry> differences;
+
+        private DeletedFileCollector(Path localRoot, String dropboxRoot, Predicate<String> isTarget,
+                PeekingIterator<String> remotePaths, List<SyncEntry> differences) {
+            this.gitDir = localRoot.resolve(GIT_DIR);
+            this.dropboxRoot = dropboxRoot;
+            this.isTarget = isTarget;
+            this.remotePaths = remotePaths;
+            this.differences = differences;
+        }
+
+        private void visit(Path dir, String prefix) throws IOException {
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                stream.forEach(children::add);
+            }
+            children.sort(NAME_ORDER);
+            for (Path child : children) {
+                BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS);
+                String relative = prefix + child.getFileName();
+                if (attrs.isDirectory()) {
+                    if (!child.equals(gitDir)) {
+                        visit(child, relative + "/");
+                    }
+                } else if (attrs.isRegularFile() && isTarget.test(relative) && !existsInDropbox(relative)) {
+                    differences.add(new SyncEntry(dropboxRoot + "/" + relative, child.getFileName().toString(),
+                            PathMapper.firstSegment(dropboxRoot), SyncAction.DELETE));
+                }
+            }
+        }
+
+        // Dropbox上のパスはローカルと同じ順序のため、読み飛ばした分は以降の比較に使用しない
+        private boolean existsInDropbox(String relative) {
+            while (remotePaths.hasNext() && ExternalPathSorter.PATH_ORDER.compare(remotePaths.peek(), relative) < 0) {
+                remotePaths.next();
+            }
+            return remotePaths.hasNext() && remotePaths.peek().equals(relative);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.db2ghsync.dropbox;
+
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.db2ghsync.exception.DropboxSyncException;
+import com.dropbox.core.DbxException;
+import com.dropbox.core.RateLimitException;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * 大量のエントリを持つフォルダを、サブフォルダごとの非再帰一覧に分けて並列に取得するクラス。
+ * <p>
+ * 再帰一覧はページを順番にしか取得できないため、数百万件規模のフォルダでは一覧だけで長時間かかる。
+ * 見つかったサブフォルダを固定数のワーカーに振り分けて一覧し、結果は取得した順に呼び出し元へ渡す。
+ * <p>
+ * 一覧を始める前に再帰カーソルを1つ取得する。一覧中に発生した変更はこのカーソル以降の差分として
+ * 次回の同期で再度取得されるため、一覧結果とカーソルの間で変更を取りこぼすことはない。
+ */
+public class ParallelFolderCrawler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelFolderCrawler.class);
+
+    // レート制限時に同じページを再試行する回数
+    private static final int MAX_RATE_LIMIT_RETRIES = 5;
+
+    /**
+     * Dropboxの一覧APIを抽象化したインターフェース。
+     */
+    public interface PageSource {
+
+        /**
+         * 対象フォルダの現在の再帰カーソルを取得する。
+         */
+        String latestRecursiveCursor(String folderPath) throws DbxException;
+
+        /**
+         * 対象フォルダ直下を非再帰で一覧し、最初のページを返す。
+         */
+        ListFolderResult list(String folderPath, long pageLimit) throws DbxException;
+
+        /**
+         * 一覧の続きのページを返す。
+         */
+        ListFolderResult listContinue(String cursor) throws DbxException;
+    }
+
+    private final PageSource source;
+
+    // 一覧のスレッド数
+    private final int threads;
+
+    // 1ページあたりの最大エントリ数
+    private final long pageLimit;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param source    一覧API
+     * @param threads   一覧のスレッド数
+     * @param pageLimit 1ページあたりの最大エントリ数（Dropboxの上限は2000）
+     */
+    public ParallelFolderCrawler(PageSource source, int threads, long pageLimit) {
+        this.source = Objects.requireNonNull(source);
+        this.threads = Math.max(1, threads);
+        this.pageLimit = Math.max(1, Math.min(2000, pageLimit));
+    }
+
+    /**
+     * 対象フォルダ配下を並列に一覧し、見つかったエントリ（フォルダを含む）を順次consumerへ渡す。
+     * <p>
+     * consumerの呼び出しは直列化されるため、consumer側で排他制御をする必要はない。
+     *
+     * @param rootPath 対象フォルダ
+     * @param consumer エントリの受け取り先
+     * @return 一覧開始前に取得した再帰カーソル
+     * @throws DropboxSyncException 一覧取得失敗時
+     */
+    public String crawl(String rootPath, Consumer<Metadata> consumer) throws DropboxSyncException {
+        return crawl(rootPath, cursor -> {
+        }, consumer);
+    }
+
+    /**
+     * 対象フォルダ配下を並列に一覧し、見つかったエントリ（フォルダを含む）を順次consumerへ渡す。
+     * 一覧開始前に取得した再帰カーソルは、最初のエントリより前にcursorConsumerへ渡す。
+     *
+     * @param rootPath       対象フォルダ
+     * @param cursorConsumer 一覧開始前に取得した再帰カーソルの受け取り先
+     * @param consumer       エントリの受け取り先
+     * @return 一覧開始前に取得した再帰カーソル
+     * @throws DropboxSyncException 一覧取得失敗時
+     */
+    public String crawl(String rootPath, Consumer<String> cursorConsumer, Consumer<Metadata> consumer)
+            throws DropboxSyncException {
+
+        String cursor;
+        try {
+            cursor = withRateLimitRetry(() -> source.latestRecursiveCursor(rootPath));
+        } catch (DbxException e) {
+            throw new DropboxSyncException("Getting latest cursor failed: " + rootPath, e);
+        }
+        cursorConsumer.accept(cursor);
+
+        Crawl crawl = new Crawl(consumer);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            crawl.submit(executor, rootPath);
+            crawl.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DropboxSyncException("Listing folder was interrupted: " + rootPath, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Throwable failure = crawl.failure.get();
+        if (failure instanceof DropboxSyncException) {
+            throw (DropboxSyncException) failure;
+        }
+        if (failure != null) {
+            throw new DropboxSyncException("Listing folder failed: " + rootPath, failure);
+        }
+        LOGGER.debug("Crawled {} folders under {}", crawl.folders.get(), rootPath);
+        return cursor;
+    }
+
+    /**
+     * 1回の一覧処理の状態。未完了のフォルダ数が0になった時点で完了とする。
+     */
+    private final class Crawl {
+
+        private final Consumer<Metadata> consumer;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger folders = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Crawl(Consumer<Metadata> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void submit(ExecutorService executor, String folderPath) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            listFolder(executor, folderPath);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        finish();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                failure.compareAndSet(null, e);
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+
+        private void listFolder(ExecutorService executor, String folderPath) throws DbxException {
+            folders.incrementAndGet();
+            ListFolderResult result = withRateLimitRetry(() -> source.list(folderPath, pageLimit));
+            while (true) {
+                for (Metadata metadata : result.getEntries()) {
+                    if (metadata instanceof FolderMetadata) {
+                        submit(executor, metadata.getPathLower());
+                    }
+                }
+                synchronized (consumer) {
+                    result.getEntries().forEach(consumer);
+                }
+                if (!result.getHasMore() || failure.get() != null) {
+                    return;
+                }
+                String next = result.getCursor();
+                result = withRateLimitRetry(() -> source.listContinue(next));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface DbxCall<T> {
+        T call() throws DbxException;
+    }
+
+    /**
+     * レート制限を受けた場合、Dropboxが指定した時間だけ待って再試行する。
+     */
+    private static <T> T withRateLimitRetry(DbxCall<T> call) throws DbxException {
+        for (int attempt = 0;; attempt++) {
+            try {
+                return call.call();
+            } catch (RateLimitException e) {
+                if (attempt >= MAX_RATE_LIMIT_RETRIES) {
+                    throw e;
+                }
+                LOGGER.debug("Rate limited while listing, retrying after {} ms", e.getBackoffMillis());
+                try {
+                    Thread.sleep(Math.max(1, e.getBackoffMillis()));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
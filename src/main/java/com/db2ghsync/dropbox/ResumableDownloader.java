@@ -0,0 +1,619 @@
+package com.db2ghsync.dropbox;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.db2ghsync.entity.DownloadedFile;
+
+/**
+ * Dropboxのファイルを一時ファイルへダウンロードし、完了後にアトミックに配置するクラス。
+ * <p>
+ * 通信が途中で切れた場合は、書き込み済みのサイズから範囲指定で再開する。
+ * 一時ファイルはcontent_hashから名前を決めるため、前回の実行で中断したダウンロードも再開できる。
+ * 閾値以上のファイルは複数の範囲に分割して並列に取得し、最後に連結する。
+ * 範囲の取得は全てのファイルで共有するスレッドで行う。
+ * 範囲ごとの一時ファイルは範囲の大きさを名前に含め、並列数を変えた後の再開で取り違えないようにする。
+ * 一定期間更新されていない一時ファイルは、再開されないものとして作成時に削除する。
+ * <p>
+ * 書き込みと同時にcontent_hash（指定時はGitブロブIDも）を計算し、
+ * Dropboxのcontent_hashと一致しない場合は配置せずに取得し直す。
+ * <p>
+ * ブロブの書き込み先を指定した場合は、書き込む内容をそのままGitのオブジェクトデータベースへも渡す。
+ * コミット時にファイルを読み直してハッシュ・圧縮する必要がなくなる。
+ */
+public class ResumableDownloader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumableDownloader.class);
+
+    // 再開されないものとして削除する一時ファイルの経過時間
+    private static final Duration STALE_PART_AGE = Duration.ofDays(7);
+
+    /**
+     * 範囲指定でファイルを取得する関数。
+     */
+    @FunctionalInterface
+    public interface RangeFetcher {
+
+        /**
+         * 指定範囲のデータを出力先へ書き込む。
+         *
+         * @param dropboxPath Dropbox上のファイルパス
+         * @param offset      開始位置
+         * @param length      長さ（負の場合は末尾まで）
+         * @param out         出力先
+         * @throws IOException 取得失敗時（FatalFetchExceptionの場合は再試行しない）
+         */
+        void fetch(String dropboxPath, long offset, long length, OutputStream out) throws IOException;
+    }
+
+    /**
+     * 内容を読み込みながらGitのブロブを書き込む関数。
+     */
+    @FunctionalInterface
+    public interface BlobSink {
+
+        /**
+         * 内容を末尾まで読み込み、ブロブとして書き込む。
+         *
+         * @param size    内容のサイズ
+         * @param content 内容
+         * @return 書き込んだブロブのID
+         * @throws IOException 書き込み失敗時、内容がサイズに満たない場合
+         */
+        String insert(long size, InputStream content) throws IOException;
+    }
+
+    /**
+     * 再試行しても解消しない取得失敗（ファイルが存在しない等）を表す例外。
+     */
+    public static class FatalFetchException extends IOException {
+
+        public FatalFetchException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final RangeFetcher fetcher;
+    private final Path workDir;
+    private final long segmentThreshold;
+    private final int threads;
+    private final int maxRetries;
+    private final boolean computeBlobId;
+    private final BlobSink blobSink;
+
+    // ブロブの書き込み先へ内容を渡すスレッド（書き込み先を指定しない場合はnull）
+    private final ExecutorService teeExecutor;
+
+    // 範囲ごとの取得を行うスレッド（分割しない場合はnull）
+    private final ExecutorService segmentExecutor;
+
+    // 同じ一時ファイルを使うダウンロード（同一内容のファイル）を並列に実行しないための、キーごとのロック
+    // 使用中のキーのみ保持し、無関係なダウンロードが同じロックを待つことはない
+    private final ConcurrentHashMap<String, KeyLock> keyLocks = new ConcurrentHashMap<>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param fetcher          範囲指定の取得関数
+     * @param workDir          一時ファイルの格納先（配置先と同じファイルシステム上であること）
+     * @param segmentThreshold 分割ダウンロードするファイルサイズの閾値（バイト、0以下で分割しない）
+     * @param threads          分割ダウンロードの並列数（全てのファイルで共有する）
+     * @param maxRetries       中断・内容不一致時の最大再試行回数
+     * @param computeBlobId    GitブロブIDも計算する場合true
+     * @param blobSink         ダウンロードと同時にブロブを書き込む先（nullの場合は書き込まない）
+     */
+    public ResumableDownloader(RangeFetcher fetcher, Path workDir, long segmentThreshold, int threads,
+            int maxRetries, boolean computeBlobId, BlobSink blobSink) {
+        this.fetcher = Objects.requireNonNull(fetcher);
+        this.workDir = Objects.requireNonNull(workDir);
+        this.segmentThreshold = segmentThreshold;
+        this.threads = Math.max(1, threads);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.computeBlobId = computeBlobId || blobSink != null;
+        this.blobSink = blobSink;
+        this.teeExecutor = blobSink == null ? null : Executors.newCachedThreadPool(daemonThreads("blob-tee"));
+        this.segmentExecutor = segmentThreshold > 0 && this.threads > 1
+                ? Executors.newFixedThreadPool(this.threads, daemonThreads("download-segment"))
+                : null;
+        deleteStaleParts();
+    }
+
+    /**
+     * ファイルをダウンロードし、内容を検証してから配置する。
+     * <p>
+     * 複数のスレッドから呼び出せる。同じ一時ファイルを使うダウンロードは順に実行する。
+     *
+     * @param dropboxPath Dropbox上のファイルパス
+     * @param contentHash Dropboxのcontent_hash（不明な場合はnull、検証しない）
+     * @param size        ファイルサイズ（不明な場合は負数）
+     * @param target      配置先
+     * @return ダウンロード中に計算したハッシュを含むファイル情報
+     * @throws IOException ダウンロード・検証・配置失敗時
+     */
+    public DownloadedFile download(String dropboxPath, String contentHash, long size, Path target)
+            throws IOException {
+        return download(dropboxPath, contentHash, size, target, true);
+    }
+
+    /**
+     * ファイルをダウンロードし、内容を検証してから配置する。
+     * <p>
+     * 配置後に内容を変換する（LFSのポインタ・無圧縮のzipとしてGitへ格納する）ファイルは、
+     * ダウンロードした内容のブロブが使われないため、ブロブIDの計算とブロブの書き込みを行わない。
+     * 一括取り込みでパックへまとめて格納する場合も、ブロブを個別に書き込まないよう指定する。
+     *
+     * @param dropboxPath Dropbox上のファイルパス
+     * @param contentHash Dropboxのcontent_hash（不明な場合はnull、検証しない）
+     * @param size        ファイルサイズ（不明な場合は負数）
+     * @param target      配置先
+     * @param storedAsIs  ダウンロードした内容のブロブをそのままステージに使う場合true
+     * @return ダウンロード中に計算したハッシュを含むファイル情報
+     * @throws IOException ダウンロード・検証・配置失敗時
+     */
+    public DownloadedFile download(String dropboxPath, String contentHash, long size, Path target,
+            boolean storedAsIs) throws IOException {
+
+        Files.createDirectories(workDir);
+        String key = partKey(dropboxPath, contentHash);
+        KeyLock keyLock = keyLocks.compute(key, (k, current) -> {
+            KeyLock acquired = current != null ? current : new KeyLock();
+            acquired.holders++;
+            return acquired;
+        });
+        keyLock.lock.lock();
+        try {
+            return download(dropboxPath, contentHash, size, target, key, storedAsIs);
+        } finally {
+            keyLock.lock.unlock();
+            keyLocks.compute(key, (k, current) -> --current.holders == 0 ? null : current);
+        }
+    }
+
+    private DownloadedFile download(String dropboxPath, String contentHash, long size, Path target, String key,
+            boolean storedAsIs) throws IOException {
+
+        Path temp = workDir.resolve(key + ".part");
+        if (contentHash == null) {
+            // 内容を特定できない一時ファイルは、範囲ごとのものも含めて再開に使わない
+            deleteParts(key, null);
+        }
+
+        int mismatches = 0;
+        while (true) {
+            Digests digests = storedAsIs
+                    ? new Digests(computeBlobId ? size : -1, blobSink, teeExecutor)
+                    : new Digests(-1, null, null);
+            try {
+                if (size > 0 && segmentExecutor != null && size >= segmentThreshold) {
+                    downloadSegments(dropboxPath, size, temp, key, digests);
+                } else {
+                    downloadRange(dropboxPath, 0, size, temp, digests);
+                }
+                // 前回の実行で完了済みの一時ファイル等、書き込みで計算できなかった場合のみ読み直す
+                digests.catchUp(temp);
+
+                if (size >= 0 && Files.size(temp) != size) {
+                    Files.deleteIfExists(temp);
+                    throw new IOException("Downloaded size mismatch: " + dropboxPath);
+                }
+                String actualHash = digests.contentHash();
+                if (contentHash != null && !contentHash.equals(actualHash)) {
+                    Files.deleteIfExists(temp);
+                    digests.discardObject();
+                    if (++mismatches > maxRetries) {
+                        throw new IOException("Content hash mismatch: " + dropboxPath);
+                    }
+                    LOGGER.warn("Content hash mismatch, downloading {} again (retry {}/{})",
+                            dropboxPath, mismatches, maxRetries);
+                    continue;
+                }
+
+                long actualSize = Files.size(temp);
+                String blobId = digests.commitObject();
+                moveIntoPlace(temp, target);
+                return new DownloadedFile(dropboxPath, target, actualHash, blobId, actualSize);
+            } catch (IOException e) {
+                digests.discardObject();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 指定範囲を一時ファイルへ取得する。一時ファイルに書き込み済みの分は再取得しない。
+     * digestsを指定した場合は、書き込む内容からハッシュを計算する。
+     */
+    private void downloadRange(String dropboxPath, long offset, long length, Path part, Digests digests)
+            throws IOException {
+
+        if (Files.notExists(part)) {
+            Files.createFile(part);
+        }
+        int failures = 0;
+        while (true) {
+            if (digests != null) {
+                digests.catchUp(part);
+            }
+            long done = Files.size(part);
+            if (length >= 0 && done == length) {
+                return;
+            }
+            if (length >= 0 && done > length) {
+                // 想定より大きい一時ファイルは破損とみなして最初から取得
+                Files.write(part, new byte[0]);
+                done = 0;
+                if (digests != null) {
+                    digests.reset();
+                }
+            }
+
+            OutputStream file = Files.newOutputStream(part, StandardOpenOption.APPEND);
+            try (OutputStream out = new BufferedOutputStream(
+                    digests != null ? new DigestingOutputStream(file, digests) : file)) {
+                fetcher.fetch(dropboxPath, offset + done, length < 0 ? -1 : length - done, out);
+            } catch (FatalFetchException e) {
+                throw e;
+            } catch (IOException e) {
+                if (++failures > maxRetries) {
+                    throw e;
+                }
+                LOGGER.warn("Download interrupted, resuming {} from byte {} (retry {}/{})",
+                        dropboxPath, offset + Files.size(part), failures, maxRetries, e);
+                continue;
+            }
+
+            if (length < 0) {
+                return;
+            }
+            if (Files.size(part) < length) {
+                if (++failures > maxRetries) {
+                    throw new IOException("Download ended early: " + dropboxPath);
+                }
+                LOGGER.warn("Download ended early, resuming {} (retry {}/{})", dropboxPath, failures, maxRetries);
+            }
+        }
+    }
+
+    /**
+     * ファイルを範囲ごとに並列に取得し、一時ファイルへ連結する。
+     */
+    private void downloadSegments(String dropboxPath, long size, Path temp, String key, Digests digests)
+            throws IOException {
+
+        if (Files.exists(temp) && Files.size(temp) == size) {
+            return;
+        }
+        long segmentSize = (size + threads - 1) / threads;
+        // 範囲の大きさが異なる（並列数を変更する前の）一時ファイルは再開に使えない
+        String partPrefix = key + "." + segmentSize + ".part";
+        deleteParts(key, partPrefix);
+        List<Path> parts = new ArrayList<>();
+        List<Future<Void>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i * segmentSize < size; i++) {
+                long offset = i * segmentSize;
+                long length = Math.min(segmentSize, size - offset);
+                Path part = workDir.resolve(partPrefix + i);
+                parts.add(part);
+                results.add(segmentExecutor.submit(() -> {
+                    downloadRange(dropboxPath, offset, length, part, null);
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Segmented download was interrupted: " + dropboxPath, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause
+                    : new IOException("Segmented download failed: " + dropboxPath, cause);
+        } finally {
+            // 失敗した場合は残りの範囲の取得を打ち切る
+            for (Future<Void> result : results) {
+                result.cancel(true);
+            }
+        }
+
+        // 連結時に一度だけ読む内容からハッシュを計算する
+        try (OutputStream out = new DigestingOutputStream(Files.newOutputStream(temp), digests)) {
+            for (Path part : parts) {
+                Files.copy(part, out);
+            }
+        }
+        for (Path part : parts) {
+            Files.deleteIfExists(part);
+        }
+        LOGGER.debug("Downloaded {} in {} segments", dropboxPath, parts.size());
+    }
+
+    /**
+     * 書き込む内容のcontent_hashとGitブロブIDを計算する。
+     * ブロブの書き込み先を指定した場合は、同じ内容をパイプ経由で書き込み先へ渡す。
+     */
+    private static final class Digests {
+
+        private static final int PIPE_SIZE = 64 * 1024;
+
+        private final long blobSize;
+        private final BlobSink blobSink;
+        private final ExecutorService teeExecutor;
+        private DropboxContentHasher contentHasher;
+        private MessageDigest blobDigest;
+        private String blobId;
+        private OutputStream teeOut;
+        private Future<String> teeResult;
+        private long count;
+
+        private Digests(long blobSize, BlobSink blobSink, ExecutorService teeExecutor) throws IOException {
+            this.blobSize = blobSize;
+            this.blobSink = blobSize >= 0 ? blobSink : null;
+            this.teeExecutor = teeExecutor;
+            reset();
+        }
+
+        private void reset() throws IOException {
+            discardObject();
+            contentHasher = new DropboxContentHasher();
+            blobDigest = null;
+            blobId = null;
+            if (blobSize >= 0) {
+                try {
+                    blobDigest = MessageDigest.getInstance("SHA-1");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("SHA-1 is not available", e);
+                }
+                blobDigest.update(("blob " + blobSize + "\0").getBytes(StandardCharsets.US_ASCII));
+                if (blobSink != null) {
+                    // 書き込み先は内容を読み込む形のため、別スレッドでパイプから読み込ませる
+                    PipedInputStream teeIn = new PipedInputStream(PIPE_SIZE);
+                    teeOut = new PipedOutputStream(teeIn);
+                    teeResult = teeExecutor.submit(() -> {
+                        try (InputStream in = teeIn) {
+                            return blobSink.insert(blobSize, in);
+                        }
+                    });
+                }
+            }
+            count = 0;
+        }
+
+        private void update(byte[] data, int offset, int length) throws IOException {
+            contentHasher.update(data, offset, length);
+            if (blobDigest != null) {
+                blobDigest.update(data, offset, length);
+            }
+            if (teeOut != null) {
+                try {
+                    teeOut.write(data, offset, length);
+                } catch (IOException e) {
+                    // 書き込み先の失敗ではダウンロードを止めず、コミット時に通常どおりaddする
+                    LOGGER.warn("Failed to write blob while downloading, it will be added on commit", e);
+                    discardObject();
+                }
+            }
+            count += length;
+        }
+
+        /**
+         * 計算済みの長さとファイルサイズが異なる場合、ファイルから計算し直す。
+         */
+        private void catchUp(Path file) throws IOException {
+            if (count == Files.size(file)) {
+                return;
+            }
+            reset();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    update(buffer, 0, read);
+                }
+            }
+        }
+
+        private String contentHash() {
+            return contentHasher.digest();
+        }
+
+        private String blobId() {
+            if (blobId == null && blobDigest != null && count == blobSize) {
+                blobId = HexFormat.of().formatHex(blobDigest.digest());
+            }
+            return blobId;
+        }
+
+        /**
+         * 書き込み先へ渡した内容を確定し、ブロブIDを返す。
+         * 書き込み先へ渡していない場合は、計算したブロブIDを返す。
+         *
+         * @return ブロブID（計算していない場合はnull）
+         */
+        private String commitObject() {
+            String id = blobId();
+            if (teeOut == null) {
+                return id;
+            }
+            Future<String> result = teeResult;
+            try {
+                teeOut.close();
+                teeOut = null;
+                teeResult = null;
+                String written = result.get();
+                if (!written.equals(id)) {
+                    LOGGER.warn("Blob written while downloading has unexpected id {} (expected {})", written, id);
+                }
+                return written;
+            } catch (IOException | ExecutionException e) {
+                LOGGER.warn("Failed to write blob while downloading, it will be added on commit", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            discardObject();
+            return id;
+        }
+
+        /**
+         * 書き込み先への受け渡しを打ち切る。内容がサイズに満たないため、ブロブは作成されない。
+         */
+        private void discardObject() {
+            OutputStream out = teeOut;
+            Future<String> result = teeResult;
+            teeOut = null;
+            teeResult = null;
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+                result.get();
+            } catch (IOException | ExecutionException e) {
+                LOGGER.debug("Discarded blob written while downloading", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * キーごとのロックと、取得待ちを含む使用中のスレッド数。
+     * スレッド数はkeyLocksの更新内でのみ変更する。
+     */
+    private static final class KeyLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int holders;
+    }
+
+    /**
+     * 書き込んだ内容をDigestsに渡す出力ストリーム。
+     */
+    private static final class DigestingOutputStream extends FilterOutputStream {
+
+        private final Digests digests;
+
+        private DigestingOutputStream(OutputStream out, Digests digests) {
+            super(out);
+            this.digests = digests;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            digests.update(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            digests.update(b, off, len);
+        }
+    }
+
+    /**
+     * 指定したキーの一時ファイルを削除する。
+     *
+     * @param key        一時ファイルのキー
+     * @param keepPrefix 削除せずに残すファイル名の接頭辞（nullの場合は全て削除）
+     */
+    private void deleteParts(String key, String keepPrefix) throws IOException {
+        String prefix = key + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(workDir, prefix + "*")) {
+            for (Path file : files) {
+                if (keepPrefix == null || !file.getFileName().toString().startsWith(keepPrefix)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一定期間更新されていない一時ファイルを削除する。
+     * 削除に失敗した場合も、ダウンロードは継続できるため警告のみとする。
+     */
+    private void deleteStaleParts() {
+        if (!Files.isDirectory(workDir)) {
+            return;
+        }
+        Instant threshold = Instant.now().minus(STALE_PART_AGE);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(workDir)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toInstant().isBefore(threshold)) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete stale download parts: {}", workDir, e);
+        }
+        if (deleted > 0) {
+            LOGGER.info("Deleted {} stale download parts in {}", deleted, workDir);
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+
+        if (Objects.nonNull(target.getParent())) {
+            Files.createDirectories(target.getParent());
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static String partKey(String dropboxPath, String contentHash) {
+
+        if (contentHash != null) {
+            return contentHash;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(dropboxPath.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
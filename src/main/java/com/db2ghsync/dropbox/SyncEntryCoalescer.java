@@ -0,0 +1,73 @@
+package com.db2ghsync.dropbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.SyncEntry;
+
+/**
+ * Dropboxの変更一覧を、パスごとの最終状態にまとめるクラス。
+ * <p>
+ * 同一パスへの複数回の変更は最後の変更のみを残し、フォルダの削除はそれ以前の配下の変更を包含する。
+ * 結果は削除を先に、作成・更新を後に並べて返す。
+ */
+public class SyncEntryCoalescer {
+
+    // "/"の次の文字。"path/"で始まるキーの範囲検索に使う
+    private static final char PATH_SEPARATOR_NEXT = '/' + 1;
+
+    /**
+     * 変更一覧をパスごとの最終状態にまとめる。
+     *
+     * @param entries Dropboxから取得した順の変更一覧
+     * @return 削除→作成・更新の順に並べた変更一覧
+     */
+    public static List<SyncEntry> coalesce(List<SyncEntry> entries) {
+
+        TreeMap<String, SyncEntry> latest = new TreeMap<>();
+
+        for (SyncEntry entry : entries) {
+            String path = entry.getDropboxPath();
+            latest.remove(path);
+
+            if (entry.getAction() == SyncAction.DELETE) {
+                // 配下のそれ以前の変更は削除に包含される
+                latest.subMap(path + "/", path + PATH_SEPARATOR_NEXT).clear();
+                if (hasDeletedAncestor(latest, path)) {
+                    continue;
+                }
+            }
+            latest.put(path, entry);
+        }
+
+        List<SyncEntry> deletes = new ArrayList<>();
+        List<SyncEntry> writes = new ArrayList<>();
+        for (Map.Entry<String, SyncEntry> entry : latest.entrySet()) {
+            if (entry.getValue().getAction() == SyncAction.DELETE) {
+                deletes.add(entry.getValue());
+            } else {
+                writes.add(entry.getValue());
+            }
+        }
+
+        List<SyncEntry> result = new ArrayList<>(deletes.size() + writes.size());
+        result.addAll(deletes);
+        result.addAll(writes);
+        return result;
+    }
+
+    private static boolean hasDeletedAncestor(Map<String, SyncEntry> latest, String path) {
+        int slash = path.lastIndexOf('/');
+        while (slash > 0) {
+            SyncEntry ancestor = latest.get(path.substring(0, slash));
+            if (ancestor != null && ancestor.getAction() == SyncAction.DELETE) {
+                return true;
+            }
+            slash = path.lastIndexOf('/', slash - 1);
+        }
+        return false;
+    }
+}
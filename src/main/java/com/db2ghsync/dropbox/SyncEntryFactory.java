@@ -1,9 +1,10 @@
 package com.db2ghsync.dropbox;
 
-import com.db2ghsync.common.FilterUtils;
+import com.db2ghsync.common.PathMapper;
 import com.db2ghsync.common.SyncAction;
 import com.db2ghsync.entity.SyncEntry;
 import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FileMetadata;
 import com.dropbox.core.v2.files.Metadata;
 
 public class SyncEntryFactory {
@@ -19,7 +20,7 @@ public class SyncEntryFactory {
     public static SyncEntry convertMetadataToSyncEntry(Metadata metadata) {
 
         String dropboxPath = metadata.getPathLower();
-        String subDirectoryKey = FilterUtils.getFirstDir(dropboxPath);
+        String subDirectoryKey = PathMapper.firstSegment(dropboxPath);
         String name = metadata.getName();
 
         SyncAction action = null;
@@ -31,6 +32,18 @@ public class SyncEntryFactory {
             action = SyncAction.CREATE_OR_UPDATE;
         }
 
+        if (metadata instanceof FileMetadata) {
+            // 移動検知・検証用にcontent_hashとサイズを保持
+            FileMetadata fileMetadata = (FileMetadata) metadata;
+            return new SyncEntry(
+                    dropboxPath,
+                    name,
+                    subDirectoryKey,
+                    action,
+                    fileMetadata.getContentHash(),
+                    fileMetadata.getSize());
+        }
+
         return new SyncEntry(
                 dropboxPath,
                 name,
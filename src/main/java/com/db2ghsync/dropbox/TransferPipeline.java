@@ -0,0 +1,328 @@
+package com.db2ghsync.dropbox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.db2ghsync.entity.DownloadedFile;
+import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.DropboxSyncException;
+
+/**
+ * ダウンロードとその後処理（ステージ）を、上限付きのキューでつないで並列に実行するクラス。
+ * <p>
+ * 一覧の取得中からエントリを投入でき、ダウンロードとステージはそれぞれのワーカーで同時に進む。
+ * キューが満杯の場合は投入側を待たせ、処理中のファイルの合計サイズにも上限を設けるため、
+ * 一覧の件数やファイルサイズに関わらず、処理中のエントリと一時ファイルの量は一定以下に保たれる。
+ * <p>
+ * {@link #drain()}で投入済みのエントリの完了を待って途中の結果を受け取れるため、
+ * 一覧の途中で区切りごとに反映する場合もパイプラインを使い続けられる。
+ */
+public class TransferPipeline implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransferPipeline.class);
+
+    // キューの終端を表す値
+    private static final SyncEntry END_OF_ENTRIES = new SyncEntry("", "", "", null);
+    private static final Transfer END_OF_TRANSFERS = new Transfer(null, 0);
+
+    /**
+     * 1ファイルをダウンロードする関数。
+     */
+    @FunctionalInterface
+    public interface Downloader {
+
+        DownloadedFile download(SyncEntry entry) throws DropboxSyncException;
+    }
+
+    private final Downloader downloader;
+    private final UnaryOperator<DownloadedFile> stager;
+    private final int downloadWorkers;
+    private final int stageWorkers;
+    private final BlockingQueue<SyncEntry> downloadQueue;
+    private final BlockingQueue<Transfer> stageQueue;
+    private final ByteBudget budget;
+    private final PendingCount pending = new PendingCount();
+    private final ExecutorService downloadExecutor;
+    private final ExecutorService stageExecutor;
+    private final List<Future<?>> downloadTasks = new ArrayList<>();
+    private final List<Future<?>> stageTasks = new ArrayList<>();
+    private final List<DownloadedFile> results = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * コンストラクタ。ワーカーを起動する。
+     *
+     * @param downloader       1ファイルのダウンロード
+     * @param stager           ダウンロード後の処理（ブロブの書き込み等）
+     * @param downloadWorkers  ダウンロードのワーカー数
+     * @param stageWorkers     ステージのワーカー数
+     * @param queueCapacity    各キューの容量
+     * @param maxInFlightBytes 処理中のファイルの合計サイズの上限（バイト）
+     */
+    public TransferPipeline(Downloader downloader, UnaryOperator<DownloadedFile> stager, int downloadWorkers,
+            int stageWorkers, int queueCapacity, long maxInFlightBytes) {
+        this.downloader = Objects.requireNonNull(downloader);
+        this.stager = Objects.requireNonNull(stager);
+        this.downloadWorkers = Math.max(1, downloadWorkers);
+        this.stageWorkers = Math.max(1, stageWorkers);
+        this.downloadQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.stageQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.budget = new ByteBudget(Math.max(1, maxInFlightBytes));
+        this.downloadExecutor = Executors.newFixedThreadPool(this.downloadWorkers);
+        this.stageExecutor = Executors.newFixedThreadPool(this.stageWorkers);
+        for (int i = 0; i < this.downloadWorkers; i++) {
+            downloadTasks.add(downloadExecutor.submit(this::runDownloads));
+        }
+        for (int i = 0; i < this.stageWorkers; i++) {
+            stageTasks.add(stageExecutor.submit(this::runStages));
+        }
+    }
+
+    /**
+     * ダウンロード対象のエントリを投入する。キューが満杯の場合は空きができるまで待つ。
+     * <p>
+     * いずれかのファイルの処理に失敗した後は、投入したエントリを処理せずに破棄する。
+     * 失敗は{@link #drain()}・{@link #finish()}で通知する。
+     *
+     * @param entry ダウンロード対象のエントリ
+     */
+    public void submit(SyncEntry entry) {
+        if (failure.get() != null) {
+            return;
+        }
+        pending.increment();
+        try {
+            downloadQueue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.decrement();
+            fail(e);
+        }
+    }
+
+    /**
+     * 投入済みのエントリの処理完了を待ち、前回の取得以降の結果を返す。ワーカーは停止せず、続けて投入できる。
+     *
+     * @return 前回の取得以降にダウンロード・ステージ済みのファイル情報（完了順）
+     * @throws DropboxSyncException いずれかのファイルの処理失敗時
+     */
+    public List<DownloadedFile> drain() throws DropboxSyncException {
+        try {
+            pending.awaitZero(failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        throwIfFailed();
+        synchronized (results) {
+            List<DownloadedFile> drained = new ArrayList<>(results);
+            results.clear();
+            return drained;
+        }
+    }
+
+    /**
+     * 投入済みのエントリの処理完了を待ち、結果を返す。
+     *
+     * @return ダウンロード・ステージ済みのファイル情報のうち、{@link #drain()}で返していないもの（完了順）
+     * @throws DropboxSyncException いずれかのファイルの処理失敗時
+     */
+    public List<DownloadedFile> finish() throws DropboxSyncException {
+        try {
+            for (int i = 0; i < downloadWorkers; i++) {
+                downloadQueue.put(END_OF_ENTRIES);
+            }
+            awaitAll(downloadTasks);
+            for (int i = 0; i < stageWorkers; i++) {
+                stageQueue.put(END_OF_TRANSFERS);
+            }
+            awaitAll(stageTasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } finally {
+            close();
+        }
+
+        throwIfFailed();
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+    @Override
+    public void close() {
+        downloadExecutor.shutdownNow();
+        stageExecutor.shutdownNow();
+    }
+
+    private void throwIfFailed() throws DropboxSyncException {
+        Throwable cause = failure.get();
+        if (cause instanceof DropboxSyncException) {
+            throw (DropboxSyncException) cause;
+        }
+        if (cause != null) {
+            throw new DropboxSyncException("Transferring files failed.", cause);
+        }
+    }
+
+    // 失敗を記録し、完了を待っている呼び出し元を起こす
+    private void fail(Throwable e) {
+        failure.compareAndSet(null, e);
+        pending.wakeUp();
+    }
+
+    private static void awaitAll(List<Future<?>> tasks) throws InterruptedException {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                // ワーカー内の失敗はfailureに記録済み
+                LOGGER.debug("Pipeline worker terminated with failure", e.getCause());
+            }
+        }
+    }
+
+    private void runDownloads() {
+        while (true) {
+            SyncEntry entry;
+            try {
+                entry = downloadQueue.take();
+            } catch (InterruptedException e) {
+                fail(e);
+                return;
+            }
+            if (entry == END_OF_ENTRIES) {
+                return;
+            }
+            // 失敗後もキューを空にするため取り出しは続け、処理のみ省く
+            if (failure.get() != null) {
+                pending.decrement();
+                continue;
+            }
+            long bytes = Math.max(0, entry.getSize());
+            try {
+                budget.acquire(bytes);
+                try {
+                    stageQueue.put(new Transfer(downloader.download(entry), bytes));
+                } catch (Throwable e) {
+                    budget.release(bytes);
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                fail(e);
+                return;
+            } catch (Throwable e) {
+                fail(e);
+                pending.decrement();
+            }
+        }
+    }
+
+    private void runStages() {
+        while (true) {
+            Transfer transfer;
+            try {
+                transfer = stageQueue.take();
+            } catch (InterruptedException e) {
+                fail(e);
+                return;
+            }
+            if (transfer == END_OF_TRANSFERS) {
+                return;
+            }
+            try {
+                if (failure.get() == null) {
+                    results.add(stager.apply(transfer.file));
+                }
+            } catch (Throwable e) {
+                fail(e);
+            } finally {
+                budget.release(transfer.bytes);
+                pending.decrement();
+            }
+        }
+    }
+
+    /**
+     * ダウンロードからステージへ渡すファイルと、確保しているサイズ。
+     */
+    private static final class Transfer {
+
+        private final DownloadedFile file;
+        private final long bytes;
+
+        private Transfer(DownloadedFile file, long bytes) {
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 投入後、ステージの完了（または失敗による破棄）まで済んでいないエントリ数。
+     */
+    private static final class PendingCount {
+
+        private long count = 0;
+
+        private synchronized void increment() {
+            count++;
+        }
+
+        private synchronized void decrement() {
+            count--;
+            if (count == 0) {
+                notifyAll();
+            }
+        }
+
+        private synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        private synchronized void awaitZero(AtomicReference<Throwable> failure) throws InterruptedException {
+            while (count > 0 && failure.get() == null) {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * 処理中のファイルの合計サイズの上限。
+     * 上限より大きいファイルは、他に処理中のファイルが無い場合のみ開始できる。
+     */
+    private static final class ByteBudget {
+
+        private final long capacity;
+        private long inFlight = 0;
+
+        private ByteBudget(long capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized void acquire(long bytes) throws InterruptedException {
+            while (inFlight > 0 && inFlight + bytes > capacity) {
+                wait();
+            }
+            inFlight += bytes;
+        }
+
+        private synchronized void release(long bytes) {
+            inFlight -= bytes;
+            notifyAll();
+        }
+    }
+}
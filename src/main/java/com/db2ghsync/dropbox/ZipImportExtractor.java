@@ -0,0 +1,58 @@
+package com.db2ghsync.dropbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Dropboxのdownload_zipで取得したフォルダのzipを、ストリームのまま展開するクラス。
+ * <p>
+ * zip内のエントリ名はフォルダ名から始まる表示用のパスのため、小文字化してDropboxのパスと突き合わせ、
+ * 対象として渡されたファイルのみを書き出す。それ以外のエントリは読み飛ばす。
+ */
+public class ZipImportExtractor {
+
+    private ZipImportExtractor() {
+    }
+
+    /**
+     * zipを展開し、対象ファイルを書き出す。
+     *
+     * @param zipStream download_zipのレスポンス
+     * @param targets   Dropboxパス（小文字）から書き出し先へのマップ
+     * @return 書き出したDropboxパス（小文字）
+     * @throws IOException 読み込み・書き込み失敗時
+     */
+    public static Set<String> extract(InputStream zipStream, Map<String, Path> targets) throws IOException {
+
+        Set<String> written = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(zipStream)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String dropboxPath = "/" + entry.getName().toLowerCase(Locale.ROOT);
+                Path target = targets.get(dropboxPath);
+                if (target == null) {
+                    continue;
+                }
+                if (Objects.nonNull(target.getParent())) {
+                    Files.createDirectories(target.getParent());
+                }
+                Files.copy(zip, target, StandardCopyOption.REPLACE_EXISTING);
+                written.add(dropboxPath);
+            }
+        }
+        return written;
+    }
+}
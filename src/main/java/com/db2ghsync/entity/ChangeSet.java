@@ -0,0 +1,475 @@
+package com.db2ghsync.entity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.db2ghsync.common.SyncAction;
+
+/**
+ * 大量のSyncEntryを少ないメモリで保持するコレクション。
+ * <p>
+ * 親ディレクトリのパスとディレクトリ名は一度だけ保持して番号で参照し、
+ * ステータス・サイズ等はプリミティブ配列、ファイル名とcontent_hashは1つのバイト列に詰めて保持する。
+ * 共有する文字列を含めた保持量が閾値を超えた場合は一時ファイルへ書き出し、追加した順にストリームとして読み出す。
+ * 書き出すエントリには共有する文字列をそのまま含めるため、書き出し後は共有する文字列も解放する。
+ * <p>
+ * スレッドセーフではない。追加と読み出しは同じスレッドから行うこと。
+ */
+public class ChangeSet implements AutoCloseable {
+
+    // 1エントリあたりのプリミティブ配列の使用量（親・ディレクトリ名・オフセット・ステータス・フラグ・サイズ）
+    private static final int BYTES_PER_ENTRY = 4 + 4 + 4 + 1 + 1 + 8;
+
+    // 文字列1件あたりの概算のオーバーヘッド（String・配列・HashMapのエントリ）
+    private static final int BYTES_PER_STRING = 96;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // パスが"/"を含まない、またはnullの場合の親の番号
+    private static final int NO_PARENT = -1;
+    private static final int NULL_PATH = -2;
+
+    private static final int FLAG_LEAF_IS_NAME = 1;
+    private static final int FLAG_LEAF_IS_LOWER_NAME = 2;
+    private static final int FLAG_HEX_HASH = 4;
+    private static final int FLAG_TEXT_HASH = 8;
+
+    private static final int HEX_HASH_LENGTH = 64;
+
+    private static final SyncAction[] ACTIONS = SyncAction.values();
+
+    private final Path spillDirectory;
+    private final long memoryThreshold;
+
+    // 共有する文字列（親ディレクトリのパス・ディレクトリ名）
+    private List<String> strings = new ArrayList<>();
+    private Map<String, Integer> stringIds = new HashMap<>();
+    private long stringBytes = 0;
+
+    // メモリ上のエントリ
+    private int count = 0;
+    private int[] parentIds = new int[INITIAL_CAPACITY];
+    private int[] subDirectoryKeyIds = new int[INITIAL_CAPACITY];
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    private byte[] actions = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private byte[] pool = new byte[INITIAL_CAPACITY * 16];
+    private int poolLength = 0;
+
+    // 一時ファイルへ書き出したエントリ
+    private Path spillFile;
+    private DataOutputStream spillOut;
+    private int spilledCount = 0;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param spillDirectory  一時ファイルの作成先（nullの場合はシステムの一時ディレクトリ）
+     * @param memoryThreshold メモリ上に保持するエントリの量の上限（バイト、0以下の場合は書き出さない）
+     */
+    public ChangeSet(Path spillDirectory, long memoryThreshold) {
+        this.spillDirectory = spillDirectory;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * エントリを追加する。
+     *
+     * @param entry 追加するエントリ
+     */
+    public void add(SyncEntry entry) {
+        ensureCapacity();
+
+        String path = entry.getDropboxPath();
+        String name = entry.getName();
+        int slash = path == null ? -1 : path.lastIndexOf('/');
+        String leaf = path == null ? null : path.substring(slash + 1);
+        int flag = 0;
+        if (path != null && leaf.equals(name)) {
+            flag |= FLAG_LEAF_IS_NAME;
+        } else if (path != null && name != null && leaf.equals(name.toLowerCase(Locale.ROOT))) {
+            flag |= FLAG_LEAF_IS_LOWER_NAME;
+        }
+
+        offsets[count] = poolLength;
+        writeString(name);
+        if ((flag & (FLAG_LEAF_IS_NAME | FLAG_LEAF_IS_LOWER_NAME)) == 0) {
+            writeString(leaf);
+        }
+        String contentHash = entry.getContentHash();
+        if (isHexHash(contentHash)) {
+            flag |= FLAG_HEX_HASH;
+            writeHexHash(contentHash);
+        } else if (contentHash != null) {
+            flag |= FLAG_TEXT_HASH;
+            writeString(contentHash);
+        }
+
+        parentIds[count] = path == null ? NULL_PATH : slash < 0 ? NO_PARENT : stringId(path.substring(0, slash));
+        subDirectoryKeyIds[count] = entry.getSubDirectoryKey() == null ? -1 : stringId(entry.getSubDirectoryKey());
+        actions[count] = (byte) (entry.getAction() == null ? -1 : entry.getAction().ordinal());
+        flags[count] = (byte) flag;
+        sizes[count] = entry.getSize();
+        count++;
+
+        if (memoryThreshold > 0 && estimatedMemory() >= memoryThreshold) {
+            spill();
+        }
+    }
+
+    /**
+     * 保持しているエントリ数を返す。
+     */
+    public int size() {
+        return spilledCount + count;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 一時ファイルへ書き出したエントリ数を返す。
+     */
+    public int spilledSize() {
+        return spilledCount;
+    }
+
+    /**
+     * メモリ上に保持している量の概算を返す。
+     */
+    public long estimatedMemory() {
+        return (long) count * BYTES_PER_ENTRY + poolLength + stringBytes;
+    }
+
+    /**
+     * 追加した順にエントリを読み出す。一時ファイルを読む場合があるため、使用後はストリームを閉じること。
+     *
+     * @return エントリのストリーム
+     */
+    public Stream<SyncEntry> stream() {
+        int memoryCount = count;
+        Stream<SyncEntry> memory = IntStream.range(0, memoryCount).mapToObj(this::entryAt);
+        if (spilledCount == 0) {
+            return memory;
+        }
+        SpillReader reader = openSpill();
+        Stream<SyncEntry> spilled = StreamSupport.stream(
+                Spliterators.spliterator(reader, spilledCount, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(reader::close);
+        return Stream.concat(spilled, memory);
+    }
+
+    /**
+     * 一時ファイルを削除する。
+     */
+    @Override
+    public void close() {
+        try {
+            if (spillOut != null) {
+                spillOut.close();
+            }
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Deleting change set spill file failed.", e);
+        } finally {
+            spillOut = null;
+            spillFile = null;
+        }
+    }
+
+    private SyncEntry entryAt(int index) {
+        int parentId = parentIds[index];
+        int subDirectoryKeyId = subDirectoryKeyIds[index];
+        return decode(parentId, parentId < 0 ? null : strings.get(parentId),
+                subDirectoryKeyId < 0 ? null : strings.get(subDirectoryKeyId), actions[index], flags[index],
+                sizes[index], pool, offsets[index]);
+    }
+
+    private static SyncEntry decode(int parentId, String parent, String subDirectoryKey, byte action, int flag,
+            long size, byte[] bytes, int offset) {
+
+        int[] position = { offset };
+        String name = readString(bytes, position);
+        String leaf;
+        if ((flag & FLAG_LEAF_IS_NAME) != 0) {
+            leaf = name;
+        } else if ((flag & FLAG_LEAF_IS_LOWER_NAME) != 0) {
+            leaf = name.toLowerCase(Locale.ROOT);
+        } else {
+            leaf = readString(bytes, position);
+        }
+        String contentHash = null;
+        if ((flag & FLAG_HEX_HASH) != 0) {
+            contentHash = readHexHash(bytes, position);
+        } else if ((flag & FLAG_TEXT_HASH) != 0) {
+            contentHash = readString(bytes, position);
+        }
+
+        String path;
+        if (parentId == NULL_PATH) {
+            path = null;
+        } else if (parentId == NO_PARENT) {
+            path = leaf;
+        } else {
+            path = parent + "/" + leaf;
+        }
+        return new SyncEntry(path, name, subDirectoryKey, action < 0 ? null : ACTIONS[action], contentHash, size);
+    }
+
+    private int stringId(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIds.put(value, id);
+            stringBytes += BYTES_PER_STRING + 2L * value.length();
+        }
+        return id;
+    }
+
+    private void ensureCapacity() {
+        if (count < parentIds.length) {
+            return;
+        }
+        int capacity = parentIds.length * 2;
+        parentIds = Arrays.copyOf(parentIds, capacity);
+        subDirectoryKeyIds = Arrays.copyOf(subDirectoryKeyIds, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        actions = Arrays.copyOf(actions, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+    }
+
+    private void ensurePoolCapacity(int additional) {
+        if (poolLength + additional > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolLength + additional));
+        }
+    }
+
+    /**
+     * メモリ上のエントリを共有する文字列と合わせて一時ファイルへ追記し、メモリを解放する。
+     */
+    private void spill() {
+        try {
+            if (spillOut == null) {
+                if (spillDirectory != null) {
+                    Files.createDirectories(spillDirectory);
+                    spillFile = Files.createTempFile(spillDirectory, "changes_", ".bin");
+                } else {
+                    spillFile = Files.createTempFile("changes_", ".bin");
+                }
+                spillOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile)));
+            }
+            for (int i = 0; i < count; i++) {
+                int end = i + 1 < count ? offsets[i + 1] : poolLength;
+                spillOut.writeInt(parentIds[i]);
+                writeSpillString(parentIds[i] < 0 ? null : strings.get(parentIds[i]));
+                writeSpillString(subDirectoryKeyIds[i] < 0 ? null : strings.get(subDirectoryKeyIds[i]));
+                spillOut.writeByte(actions[i]);
+                spillOut.writeByte(flags[i]);
+                spillOut.writeLong(sizes[i]);
+                spillOut.writeInt(end - offsets[i]);
+                spillOut.write(pool, offsets[i], end - offsets[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing change set spill file failed.", e);
+        }
+        spilledCount += count;
+        count = 0;
+        poolLength = 0;
+        int capacity = INITIAL_CAPACITY;
+        parentIds = new int[capacity];
+        subDirectoryKeyIds = new int[capacity];
+        offsets = new int[capacity];
+        actions = new byte[capacity];
+        flags = new byte[capacity];
+        sizes = new long[capacity];
+        pool = new byte[capacity * 16];
+        strings = new ArrayList<>();
+        stringIds = new HashMap<>();
+        stringBytes = 0;
+    }
+
+    // 一時ファイル上の文字列は長さ（nullは-1）とUTF-8のバイト列で格納する
+    private void writeSpillString(String value) throws IOException {
+        if (value == null) {
+            spillOut.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        spillOut.writeInt(bytes.length);
+        spillOut.write(bytes);
+    }
+
+    private SpillReader openSpill() {
+        try {
+            spillOut.flush();
+            return new SpillReader(new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile))),
+                    spilledCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading change set spill file failed.", e);
+        }
+    }
+
+    /**
+     * 一時ファイルのエントリを順に読み出すイテレータ。
+     */
+    private final class SpillReader implements Iterator<SyncEntry> {
+
+        private final DataInputStream in;
+        private final int total;
+        private int read = 0;
+        private byte[] buffer = new byte[256];
+
+        private SpillReader(DataInputStream in, int total) {
+            this.in = in;
+            this.total = total;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return read < total;
+        }
+
+        @Override
+        public SyncEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                int parentId = in.readInt();
+                String parent = readSpillString();
+                String subDirectoryKey = readSpillString();
+                byte action = in.readByte();
+                byte flag = in.readByte();
+                long size = in.readLong();
+                int length = in.readInt();
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+                read++;
+                return decode(parentId, parent, subDirectoryKey, action, flag, size, buffer, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Reading change set spill file failed.", e);
+            }
+        }
+
+        private String readSpillString() throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Closing change set spill file failed.", e);
+            }
+        }
+    }
+
+    // 文字列は長さ+1（nullは0）の可変長整数とUTF-8のバイト列で格納する
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        ensurePoolCapacity(bytes.length);
+        System.arraycopy(bytes, 0, pool, poolLength, bytes.length);
+        poolLength += bytes.length;
+    }
+
+    private static String readString(byte[] bytes, int[] position) {
+        int length = readVarInt(bytes, position) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(bytes, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    private void writeVarInt(int value) {
+        ensurePoolCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            pool[poolLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        pool[poolLength++] = (byte) value;
+    }
+
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    // content_hash（SHA-256の16進小文字）は32バイトのまま格納する
+    private static boolean isHexHash(String value) {
+        if (value == null || value.length() != HEX_HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeHexHash(String value) {
+        ensurePoolCapacity(HEX_HASH_LENGTH / 2);
+        for (int i = 0; i < HEX_HASH_LENGTH; i += 2) {
+            pool[poolLength++] = (byte) ((Character.digit(value.charAt(i), 16) << 4)
+                    | Character.digit(value.charAt(i + 1), 16));
+        }
+    }
+
+    private static String readHexHash(byte[] bytes, int[] position) {
+        char[] hex = new char[HEX_HASH_LENGTH];
+        for (int i = 0; i < HEX_HASH_LENGTH / 2; i++) {
+            int b = bytes[position[0]++] & 0xFF;
+            hex[i * 2] = Character.forDigit(b >>> 4, 16);
+            hex[i * 2 + 1] = Character.forDigit(b & 0x0F, 16);
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,30 @@
+package com.db2ghsync.entity;
+
+import java.nio.file.Path;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Dropboxからダウンロードしたファイルの情報を保持するエンティティクラス。
+ * ダウンロード中に計算したハッシュを保持し、後続のステージング等でファイルを読み直さずに利用できるようにする。
+ */
+@Data
+@AllArgsConstructor
+public class DownloadedFile {
+
+    /** Dropbox上の絶対パス */
+    private final String dropboxPath;
+
+    /** 配置先のローカルパス */
+    private final Path localPath;
+
+    /** ダウンロードした内容のDropbox content_hash */
+    private final String contentHash;
+
+    /** ローカルファイルのGitブロブID（計算していない場合・配置後に内容を変換した場合はnull） */
+    private final String blobId;
+
+    /** ダウンロードしたサイズ */
+    private final long size;
+}
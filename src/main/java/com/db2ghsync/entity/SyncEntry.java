@@ -2,6 +2,7 @@ package com.db2ghsync.entity;
 
 import com.db2ghsync.common.SyncAction;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
 
 /**
@@ -9,6 +10,7 @@ import lombok.Data;
  * ファイルパス・ディレクトリ・ステータス等を管理する。
  */
 @Data
+@AllArgsConstructor
 public class SyncEntry {
 
     /**
@@ -34,4 +36,22 @@ public class SyncEntry {
      */
     /** Dropbox上のステータス情報（SyncAction列挙型） */
     private final SyncAction action;
+
+    /** Dropboxのcontent_hash（ファイルの作成・更新のみ、それ以外はnull） */
+    private final String contentHash;
+
+    /** ファイルサイズ（ファイルの作成・更新のみ、それ以外は-1） */
+    private final long size;
+
+    /**
+     * content_hash・サイズを持たないエントリを生成する。
+     *
+     * @param dropboxPath     Dropbox上の絶対パス
+     * @param name            ファイル名
+     * @param subDirectoryKey ディレクトリ名
+     * @param action          ステータス情報
+     */
+    public SyncEntry(String dropboxPath, String name, String subDirectoryKey, SyncAction action) {
+        this(dropboxPath, name, subDirectoryKey, action, null, -1L);
+    }
 }
@@ -0,0 +1,13 @@
+package com.db2ghsync.exception;
+
+/**
+ * Dropboxにより差分取得用カーソルが無効化された（ListFolderContinueError.reset）ことを表す例外。
+ * 対象ディレクトリを一覧し直して同期する必要がある。
+ */
+public class CursorResetException extends DropboxSyncException {
+
+    // メッセージ + 原因例外
+    public CursorResetException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,41 +2,75 @@ package com.db2ghsync.git;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 import org.eclipse.jgit.api.CheckoutCommand;
+import org.eclipse.jgit.api.CreateBranchCommand;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.PullResult;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.NoFilepatternException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.PackInserter;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.pack.PackConfig;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.common.FileMatcher;
+import com.db2ghsync.common.PathMapper;
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.exception.GithubSyncException;
 
 /**
@@ -49,10 +83,29 @@ public class GitRepositoryManager implements GitService {
 
     private static final String MAIN_BRANCH = "main";
 
+    private static final String GITATTRIBUTES = Constants.DOT_GIT_ATTRIBUTES;
+    private static final String LFS_ATTRIBUTES = "filter=lfs diff=lfs merge=lfs -text";
+
     private final File localRepoDir;
     private final String githubUsername;
     private final String githubPat;
     private final String githubRemoteUrl;
+    private final String seedBundlePath;
+    private final String referenceRepoPath;
+    private final int gcLooseObjectThreshold;
+    private final int gcPackThreshold;
+    private final int pushThreads;
+    private final int pushBigFileThreshold;
+    private final List<String> pushBinaryExtensions;
+    private final FileMatcher pushBinaryMatcher;
+    private final FileMatcher lfsMatcher;
+    private final LfsStore lfsStore;
+    // LFS対象を標準のgit-lfsでも実体として取得できるよう、.gitattributesに記録する行
+    private final List<String> lfsAttributeLines;
+    private final int bulkImportThreshold;
+
+    // 常駐時に操作ごとに開き直さないよう、開いたリポジトリを保持する（close()で解放）
+    private Repository repository;
 
     /**
      * コンストラクタ。依存関係を注入してGitRepositoryManagerを初期化する。
@@ -65,10 +118,80 @@ public class GitRepositoryManager implements GitService {
         this.githubUsername = config.getGithubUsername();
         this.githubPat = config.getGithubPat();
         this.githubRemoteUrl = config.getGithubRemoteUrl();
+        this.seedBundlePath = config.getGitSeedBundlePath();
+        this.referenceRepoPath = config.getGitReferenceRepoPath();
+        this.gcLooseObjectThreshold = config.getGitGcLooseObjectThreshold();
+        this.gcPackThreshold = config.getGitGcPackThreshold();
+        this.pushThreads = config.getGitPushThreads();
+        this.pushBigFileThreshold = config.getGitPushBigFileThreshold();
+        // 判定はパスを小文字化して行うため、拡張子も小文字に揃える
+        // 無圧縮で格納するzipコンテナはデルタ圧縮が有効なため、バイナリとして扱わない
+        List<String> zipNormalizeExtensions = config.getZipNormalizeExtensions().stream()
+                .map(extension -> extension.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+        this.pushBinaryExtensions = config.getGitPushBinaryExtensions().stream()
+                .map(extension -> extension.toLowerCase(Locale.ROOT))
+                .filter(extension -> !zipNormalizeExtensions.contains(extension))
+                .collect(Collectors.toList());
+        this.pushBinaryMatcher = FileMatcher.ofExtensions(pushBinaryExtensions);
+        this.lfsMatcher = FileMatcher.ofExtensions(config.getGitLfsPatterns());
+        this.lfsStore = createLfsStore(config);
+        this.lfsAttributeLines = config.getGitLfsPatterns().stream()
+                .map(GitRepositoryManager::toLfsAttributeLine)
+                .collect(Collectors.toList());
+        this.bulkImportThreshold = config.getGitBulkImportThreshold();
+    }
+
+    /**
+     * LFS対象の拡張子を、.gitattributesの行に変換する。
+     * LFS対象の判定は大文字小文字を区別しないため、英字は両方に一致するパターンにする（例: *.[zZ][iI][pP]）。
+     *
+     * @param extension 拡張子（例: .zip）
+     * @return .gitattributesの行
+     */
+    static String toLfsAttributeLine(String extension) {
+
+        StringBuilder pattern = new StringBuilder("*");
+        for (char c : extension.toCharArray()) {
+            char lower = Character.toLowerCase(c);
+            char upper = Character.toUpperCase(c);
+            if (lower != upper) {
+                pattern.append('[').append(lower).append(upper).append(']');
+            } else if ("*?[]\\".indexOf(c) >= 0) {
+                pattern.append('\\').append(c);
+            } else {
+                pattern.append(c);
+            }
+        }
+        return pattern + " " + LFS_ATTRIBUTES;
+    }
+
+    /**
+     * LFSの設定からLfsStoreを生成する。LFS対象の拡張子が未設定の場合はnull。
+     *
+     * @param config アプリケーション設定
+     * @return LfsStore
+     */
+    private static LfsStore createLfsStore(AppConfig config) {
+
+        if (config.getGitLfsPatterns().isEmpty()) {
+            return null;
+        }
+        if (!config.getGitLfsLocalStorePath().isBlank()) {
+            return new LocalLfsStore(Paths.get(config.getGitLfsLocalStorePath()));
+        }
+        String lfsUrl = config.getGitLfsUrl().isBlank()
+                ? HttpLfsStore.deriveLfsUrl(config.getGithubRemoteUrl())
+                : config.getGitLfsUrl();
+        return new HttpLfsStore(lfsUrl, config.getGithubUsername(), config.getGithubPat());
     }
 
     /**
      * ローカルリポジトリが存在しない場合はGitHubからクローンし、存在する場合は何もしない。
+     * <p>
+     * シード用バンドルファイル、または参照リポジトリが設定されている場合は、
+     * ローカルのオブジェクトでリポジトリを構築してからリモートとの差分のみをフェッチする。
+     * シードに失敗した場合は通常のクローンにフォールバックする。
      * 
      * @throws GithubSyncException クローン失敗時
      */
@@ -79,20 +202,26 @@ public class GitRepositoryManager implements GitService {
         File localGitDir = new File(localRepoDir, ".git");
         String localRepoPath = localRepoDir.getAbsolutePath();
 
+        if (RepositoryCache.FileKey.isGitRepository(localGitDir, FS.DETECTED)) {
+            LOGGER.info("Git repository already exists at: {}", localRepoPath);
+            // すでにリポジトリがある場合は終了
+            return;
+        }
+
+        if (seedRepository()) {
+            return;
+        }
+
         try {
-            if (RepositoryCache.FileKey.isGitRepository(localGitDir, FS.DETECTED)) {
-                LOGGER.info("Git repository already exists at: {}", localRepoPath);
-                // すでにリポジトリがある場合は終了
-            } else {
-                LOGGER.info("Cloning Git repository from: {}", githubRemoteUrl);
-                // ローカルにGitリポジトリをクローン
-                Git.cloneRepository()
-                        .setURI(githubRemoteUrl)
-                        .setDirectory(localRepoDir)
-                        .setCredentialsProvider(new UsernamePasswordCredentialsProvider(githubUsername, githubPat))
-                        .call();
-                LOGGER.info("Git repository cloned successfully to: {}", localRepoPath);
-            }
+            LOGGER.info("Cloning Git repository from: {}", githubRemoteUrl);
+            // ローカルにGitリポジトリをクローン
+            Git.cloneRepository()
+                    .setURI(githubRemoteUrl)
+                    .setDirectory(localRepoDir)
+                    .setCredentialsProvider(new UsernamePasswordCredentialsProvider(githubUsername, githubPat))
+                    .call()
+                    .close();
+            LOGGER.info("Git repository cloned successfully to: {}", localRepoPath);
         } catch (GitAPIException e) {
             LOGGER.error("Failed to clone repository. Directory: {}, Repository: {}",
                     localRepoPath, githubRemoteUrl, e);
@@ -100,6 +229,148 @@ public class GitRepositoryManager implements GitService {
         }
     }
 
+    /**
+     * バンドルファイルまたは参照リポジトリからローカルリポジトリを構築する。
+     * <p>
+     * ローカルディレクトリが空でない場合、シード元が未設定・存在しない場合はシードしない。
+     * 構築途中で失敗した場合は作成したディレクトリを削除し、falseを返す。
+     *
+     * @return シードに成功した場合true
+     */
+    private boolean seedRepository() {
+
+        File bundle = seedBundlePath.isBlank() ? null : new File(seedBundlePath);
+        File reference = referenceRepoPath.isBlank() ? null : new File(referenceRepoPath);
+        boolean useBundle = bundle != null && bundle.isFile();
+        boolean useReference = reference != null && reference.isDirectory();
+
+        if (!useBundle && !useReference) {
+            if (bundle != null || reference != null) {
+                LOGGER.warn("Configured seed source not found. bundle: {}, reference: {}",
+                        seedBundlePath, referenceRepoPath);
+            }
+            return false;
+        }
+
+        String[] existing = localRepoDir.list();
+        if (existing != null && existing.length > 0) {
+            LOGGER.warn("Local repository directory is not empty, skipping seed: {}",
+                    localRepoDir.getAbsolutePath());
+            return false;
+        }
+
+        try {
+            if (useBundle) {
+                seedFromBundle(bundle);
+            } else {
+                seedFromReference(reference);
+            }
+            return true;
+        } catch (IOException | GitAPIException | URISyntaxException e) {
+            LOGGER.warn("Seeding repository failed. Falling back to full clone.", e);
+            try {
+                FileUtils.delete(localRepoDir, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+            } catch (IOException deleteException) {
+                LOGGER.warn("Failed to clean up partially seeded repository: {}",
+                        localRepoDir.getAbsolutePath(), deleteException);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * バンドルファイルからクローンし、originをGitHubへ付け替えて差分をフェッチする。
+     *
+     * @param bundle バンドルファイル
+     */
+    private void seedFromBundle(File bundle) throws IOException, GitAPIException, URISyntaxException {
+
+        LOGGER.info("Seeding Git repository from bundle: {}", bundle.getAbsolutePath());
+        try (Git git = Git.cloneRepository()
+                .setURI(bundle.getAbsolutePath())
+                .setDirectory(localRepoDir)
+                .setBranch(MAIN_BRANCH)
+                .call()) {
+
+            git.remoteSetUrl()
+                    .setRemoteName(Constants.DEFAULT_REMOTE_NAME)
+                    .setRemoteUri(new URIish(githubRemoteUrl))
+                    .call();
+            fetchSeedDelta(git);
+        }
+        LOGGER.info("Git repository seeded from bundle to: {}", localRepoDir.getAbsolutePath());
+    }
+
+    /**
+     * 参照リポジトリのオブジェクトをalternatesとして登録した空リポジトリを作成し、
+     * GitHubから差分のみをフェッチする。
+     * <p>
+     * 参照リポジトリのオブジェクトは複製されないため、参照リポジトリは削除しないこと。
+     *
+     * @param reference 参照リポジトリ（ワークツリー付き、またはbare）
+     */
+    private void seedFromReference(File reference) throws IOException, GitAPIException, URISyntaxException {
+
+        File referenceGitDir = new File(reference, Constants.DOT_GIT);
+        File referenceObjects = new File(referenceGitDir.isDirectory() ? referenceGitDir : reference,
+                Constants.OBJECTS);
+        if (!referenceObjects.isDirectory()) {
+            throw new IOException("Reference repository has no object directory: " + reference);
+        }
+
+        LOGGER.info("Seeding Git repository using reference repository: {}", reference.getAbsolutePath());
+        try (Git git = Git.init().setDirectory(localRepoDir).setInitialBranch(MAIN_BRANCH).call()) {
+
+            Path alternates = git.getRepository().getDirectory().toPath()
+                    .resolve(Constants.OBJECTS).resolve("info/alternates");
+            Files.createDirectories(alternates.getParent());
+            Files.writeString(alternates, referenceObjects.getAbsolutePath() + "\n", StandardCharsets.UTF_8);
+
+            git.remoteAdd()
+                    .setName(Constants.DEFAULT_REMOTE_NAME)
+                    .setUri(new URIish(githubRemoteUrl))
+                    .call();
+            fetchSeedDelta(git);
+        }
+        LOGGER.info("Git repository seeded from reference to: {}", localRepoDir.getAbsolutePath());
+    }
+
+    /**
+     * シード済みリポジトリにGitHubとの差分をフェッチし、mainブランチをリモートの先端に合わせる。
+     *
+     * @param git シード済みリポジトリ
+     */
+    private void fetchSeedDelta(Git git) throws IOException, GitAPIException {
+
+        FetchCommand fetch = git.fetch()
+                .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                .setRemoveDeletedRefs(true);
+        CredentialsProvider provider = buildCredentialsProvider();
+        if (provider != null) {
+            fetch.setCredentialsProvider(provider);
+        }
+        fetch.call();
+
+        Repository repository = git.getRepository();
+        String remoteMain = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + MAIN_BRANCH;
+        if (repository.findRef(remoteMain) == null) {
+            LOGGER.warn("Remote branch {} not found after seeding", remoteMain);
+            return;
+        }
+
+        // シード直後はローカル変更がないため、リモートの先端へ強制的に合わせてよい
+        if (repository.findRef(Constants.R_HEADS + MAIN_BRANCH) == null) {
+            git.checkout()
+                    .setCreateBranch(true)
+                    .setName(MAIN_BRANCH)
+                    .setStartPoint(remoteMain)
+                    .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK)
+                    .call();
+        } else {
+            git.reset().setMode(ResetType.HARD).setRef(remoteMain).call();
+        }
+    }
+
     /**
      * 指定ブランチにチェックアウトする。存在しない場合は新規作成。
      * 
@@ -109,12 +380,12 @@ public class GitRepositoryManager implements GitService {
     @Override
     public void checkoutBranch(String branchName) throws GithubSyncException {
 
-        // 先頭のスラッシュをトリムする一行処理
-        branchName = branchName.replaceFirst("^/", "");
+        // 対象ディレクトリ（/dir1）で指定された場合もブランチ名に変換する
+        branchName = PathMapper.toBranchName(branchName);
 
         LOGGER.debug("Checking out branch failed.: {}", branchName);
 
-        try (Git git = Git.open(localRepoDir)) {
+        try (Git git = openGit()) {
 
             List<Ref> branches = git.branchList().call();
             boolean branchExists = false;
@@ -134,6 +405,13 @@ public class GitRepositoryManager implements GitService {
                 // ブランチがすでにある場合、切り替えるだけ
                 // pullはpullLatestChanges()で実行されるため、ここでは不要
                 checkoutCmd.call();
+            } else if (git.getRepository().findRef(Constants.R_REMOTES + "origin/" + branchName) != null) {
+                LOGGER.debug("Branch '{}' exists on origin. Creating tracking branch.", branchName);
+                // 別ホストで作成済みのブランチは、リモートの内容から続ける
+                checkoutCmd.setCreateBranch(true)
+                        .setStartPoint("origin/" + branchName)
+                        .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK);
+                checkoutCmd.call();
             } else {
                 LOGGER.debug("Branch '{}' does not exist. Creating new branch.", branchName);
                 // 新規ブランチの場合、新規としてチェックアウト
@@ -149,26 +427,81 @@ public class GitRepositoryManager implements GitService {
         }
     }
 
+    @Override
+    public boolean hasBranch(String branchName) throws GithubSyncException {
+
+        branchName = PathMapper.toBranchName(branchName);
+        try (Git git = openGit()) {
+            Repository repository = git.getRepository();
+            return repository.findRef(Constants.R_HEADS + branchName) != null
+                    || repository.findRef(Constants.R_REMOTES + "origin/" + branchName) != null;
+        } catch (IOException e) {
+            LOGGER.error("Failed to look up branch: {}", branchName, e);
+            throw new GithubSyncException("Looking up branch failed.", e);
+        }
+    }
+
     /**
      * ワークツリー内の全ファイルをaddし、コミットする。
+     * <p>
+     * LFS対象のファイルは実体をLfsStoreへ送り、ポインタファイルとしてステージする。
+     * ダウンロード時にブロブを作成済みのファイルは、読み直さずにそのIDでステージする。
+     * 内容が変わらないファイルのみの場合（メタデータのみの変更等）は、ステージ後のツリーがHEADと同じになるため、
+     * 空のコミットを作成しない。
      * 
+     * @param downloadedFiles ダウンロード済みファイルの情報
+     * @return コミットした場合true。HEADから変更がない場合はfalse
      * @throws GithubSyncException Git操作失敗時
      */
     @Override
-    public void addAndCommit() throws GithubSyncException {
+    public boolean addAndCommit(List<DownloadedFile> downloadedFiles) throws GithubSyncException {
 
         LOGGER.debug("Adding and Committing files");
 
-        try (Git git = Git.open(localRepoDir)) {
+        try (Git git = openGit()) {
             Path repoPath = localRepoDir.toPath();
+            Map<String, DownloadedFile> precomputed = collectPrecomputedBlobs(git.getRepository(), downloadedFiles);
+            List<String> lfsPaths = new ArrayList<>();
+            List<String> addPaths = new ArrayList<>();
             try (Stream<Path> stream = Files.walk(repoPath)) {
                 for (Path path : stream.filter(Files::isRegularFile).collect(Collectors.toList())) {
-                    String relative = repoPath.relativize(path).toString().replace("\\", "/");
+                    String relative = PathMapper.toRelativePath(repoPath, path);
+                    if (isLfsTarget(relative)) {
+                        lfsPaths.add(relative);
+                        continue;
+                    }
+                    if (precomputed.containsKey(relative)) {
+                        continue;
+                    }
+                    addPaths.add(relative);
+                }
+            }
+            if (!lfsPaths.isEmpty() && writeLfsAttributes(repoPath) && !addPaths.contains(GITATTRIBUTES)) {
+                addPaths.add(GITATTRIBUTES);
+            }
+            if (isBulkImport(git.getRepository(), addPaths)) {
+                Set<String> excludedPaths = new HashSet<>(lfsPaths);
+                excludedPaths.addAll(precomputed.keySet());
+                stageWithPackInserter((FileRepository) git.getRepository(), excludedPaths);
+            } else {
+                for (String relative : addPaths) {
                     git.add().addFilepattern(relative).call();
                 }
             }
+            if (!precomputed.isEmpty()) {
+                stagePrecomputedBlobs(git.getRepository(), precomputed);
+            }
+            if (!lfsPaths.isEmpty()) {
+                stageLfsFiles(git.getRepository(), lfsPaths);
+            }
+            stageDeletions(git.getRepository());
+            if (!hasStagedChanges(git.getRepository())) {
+                LOGGER.info("No changes from HEAD. Skipping empty commit.");
+                return false;
+            }
             git.commit().setMessage("Commit.").call();
             LOGGER.info("Files added and committed successfully");
+            return true;
 
         } catch (IOException | GitAPIException e) {
             LOGGER.error("Failed to add and commit files", e);
@@ -176,8 +509,477 @@ public class GitRepositoryManager implements GitService {
         }
     }
 
+    /**
+     * インデックスのツリーがHEADのツリーと異なるか判定する。
+     * 変更がない場合のツリーは既に存在するため、新たなオブジェクトは作成されない。
+     *
+     * @param repository 対象リポジトリ
+     * @return 変更がある場合true
+     */
+    private boolean hasStagedChanges(Repository repository) throws IOException {
+
+        DirCache dirCache = repository.readDirCache();
+        ObjectId headTree = repository.resolve(Constants.HEAD + "^{tree}");
+        if (headTree == null) {
+            // 最初のコミット
+            return dirCache.getEntryCount() > 0;
+        }
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            ObjectId indexTree = dirCache.writeTree(inserter);
+            inserter.flush();
+            return !headTree.equals(indexTree);
+        }
+    }
+
+    @Override
+    public boolean discardUnchanged(String branchName, List<DownloadedFile> downloadedFiles)
+            throws GithubSyncException {
+
+        branchName = PathMapper.toBranchName(branchName);
+        if (downloadedFiles.isEmpty()) {
+            return false;
+        }
+        try (Git git = openGit()) {
+            Repository repository = git.getRepository();
+            ObjectId branchTree = repository.resolve(Constants.R_HEADS + branchName + "^{tree}");
+            if (branchTree == null) {
+                return false;
+            }
+            Map<String, DownloadedFile> precomputed = collectPrecomputedBlobs(repository, downloadedFiles);
+            if (precomputed.size() != downloadedFiles.size()) {
+                return false;
+            }
+            for (Map.Entry<String, DownloadedFile> entry : precomputed.entrySet()) {
+                try (TreeWalk treeWalk = TreeWalk.forPath(repository, entry.getKey(), branchTree)) {
+                    if (treeWalk == null || !FileMode.REGULAR_FILE.equals(treeWalk.getFileMode(0))
+                            || !treeWalk.getObjectId(0).equals(ObjectId.fromString(entry.getValue().getBlobId()))) {
+                        return false;
+                    }
+                }
+            }
+
+            // 書き出したファイルを現在のブランチの内容に戻し、現在のブランチに無いものは削除する
+            ObjectId headTree = repository.resolve(Constants.HEAD + "^{tree}");
+            CheckoutCommand checkout = git.checkout().setStartPoint(Constants.HEAD);
+            boolean restoring = false;
+            for (String relative : precomputed.keySet()) {
+                boolean tracked;
+                try (TreeWalk treeWalk = headTree == null ? null : TreeWalk.forPath(repository, relative, headTree)) {
+                    tracked = treeWalk != null;
+                }
+                if (tracked) {
+                    checkout.addPath(relative);
+                    restoring = true;
+                } else {
+                    Files.deleteIfExists(localRepoDir.toPath().resolve(relative));
+                }
+            }
+            if (restoring) {
+                checkout.call();
+            }
+            LOGGER.info("Downloaded files match branch: {}. Restored working tree without checkout.", branchName);
+            return true;
+
+        } catch (IOException | GitAPIException e) {
+            LOGGER.error("Failed to compare downloaded files with branch: {}", branchName, e);
+            throw new GithubSyncException("Comparing downloaded files with branch failed.", e);
+        }
+    }
+
+    @Override
+    public boolean hasUnpushedCommits(String branchName) throws GithubSyncException {
+
+        branchName = PathMapper.toBranchName(branchName);
+        try (Git git = openGit(); RevWalk revWalk = new RevWalk(git.getRepository())) {
+            Repository repository = git.getRepository();
+            Ref local = repository.exactRef(Constants.R_HEADS + branchName);
+            if (local == null) {
+                return false;
+            }
+            Ref remote = repository.exactRef(Constants.R_REMOTES + "origin/" + branchName);
+            if (remote == null) {
+                return true;
+            }
+            RevCommit head = revWalk.parseCommit(local.getObjectId());
+            return !revWalk.isMergedInto(head, revWalk.parseCommit(remote.getObjectId()));
+        } catch (IOException e) {
+            LOGGER.error("Failed to compare branch with remote: {}", branchName, e);
+            throw new GithubSyncException("Checking unpushed commits failed.", e);
+        }
+    }
+
+    @Override
+    public DownloadedFile writeBlob(DownloadedFile downloadedFile) {
+
+        Path repoPath = localRepoDir.toPath().toAbsolutePath().normalize();
+        Path local = downloadedFile.getLocalPath().toAbsolutePath().normalize();
+        if (!local.startsWith(repoPath)) {
+            return downloadedFile;
+        }
+        String relative = PathMapper.toRelativePath(repoPath, local);
+        if (relative.startsWith(Constants.DOT_GIT + "/") || isLfsTarget(relative)) {
+            return downloadedFile;
+        }
+
+        try (Git git = openGit();
+                ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            String blobId = downloadedFile.getBlobId();
+            if (blobId != null && git.getRepository().getObjectDatabase().has(ObjectId.fromString(blobId))) {
+                return downloadedFile;
+            }
+            // zipコンテナの変換等でダウンロード時から内容が変わっている場合があるため、現在のサイズで書き込む
+            long size = Files.size(local);
+            ObjectId written;
+            try (InputStream in = Files.newInputStream(local)) {
+                written = inserter.insert(Constants.OBJ_BLOB, size, in);
+            }
+            inserter.flush();
+            return new DownloadedFile(downloadedFile.getDropboxPath(), downloadedFile.getLocalPath(),
+                    downloadedFile.getContentHash(), written.name(), size);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write blob for {}, it will be added on commit", local, e);
+            return downloadedFile;
+        }
+    }
+
+    @Override
+    public String insertBlob(long size, InputStream content) throws IOException {
+
+        try (Git git = openGit();
+                ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            ObjectId written = inserter.insert(Constants.OBJ_BLOB, size, content);
+            inserter.flush();
+            return written.name();
+        }
+    }
+
+    /**
+     * インデックスに無い新規ファイルが閾値以上あるか判定する。
+     *
+     * @param repository 対象リポジトリ
+     * @param addPaths   追加対象のリポジトリルートからの相対パス
+     * @return 一括取り込みとして扱う場合true
+     */
+    private boolean isBulkImport(Repository repository, List<String> addPaths) throws IOException {
+
+        if (bulkImportThreshold <= 0 || addPaths.size() < bulkImportThreshold
+                || !(repository instanceof FileRepository)) {
+            return false;
+        }
+        DirCache dirCache = repository.readDirCache();
+        long newFiles = addPaths.stream()
+                .filter(path -> !path.startsWith(Constants.DOT_GIT + "/"))
+                .filter(path -> dirCache.findEntry(path) < 0)
+                .count();
+        return newFiles >= bulkImportThreshold;
+    }
+
+    /**
+     * 変更のあるファイルを1つのパックファイルに格納し、インデックスを更新する。
+     * <p>
+     * git addと同様に無視設定・変換フィルタを適用するが、ファイルごとのルーズオブジェクトは作成しない。
+     *
+     * @param repository    対象リポジトリ
+     * @param excludedPaths 別の方法でステージするリポジトリルートからの相対パス
+     */
+    private void stageWithPackInserter(FileRepository repository, Set<String> excludedPaths) throws IOException {
+
+        long start = System.nanoTime();
+        long objectFilesBefore = countObjectFiles(repository);
+        DirCache dirCache = repository.lockDirCache();
+        try (PackInserter inserter = repository.getObjectDatabase().newPackInserter();
+                ObjectReader reader = repository.newObjectReader();
+                TreeWalk walk = new TreeWalk(repository, reader)) {
+            inserter.checkExisting(true);
+            DirCacheEditor editor = dirCache.editor();
+            walk.setRecursive(true);
+            int dirCacheTree = walk.addTree(new DirCacheIterator(dirCache));
+            FileTreeIterator fileTree = new FileTreeIterator(repository);
+            fileTree.setDirCacheIterator(walk, dirCacheTree);
+            int workingTree = walk.addTree(fileTree);
+
+            int staged = 0;
+            while (walk.next()) {
+                WorkingTreeIterator file = walk.getTree(workingTree, WorkingTreeIterator.class);
+                String path = walk.getPathString();
+                if (file == null || excludedPaths.contains(path)) {
+                    continue;
+                }
+                DirCacheIterator cached = walk.getTree(dirCacheTree, DirCacheIterator.class);
+                if (cached == null && file.isEntryIgnored()) {
+                    continue;
+                }
+                FileMode mode = file.getEntryFileMode();
+                if (mode == FileMode.GITLINK || mode == FileMode.TREE) {
+                    continue;
+                }
+                if (cached != null && !file.isModified(cached.getDirCacheEntry(), false, reader)) {
+                    continue;
+                }
+
+                ObjectId blobId;
+                try (InputStream in = file.openEntryStream()) {
+                    blobId = inserter.insert(Constants.OBJ_BLOB, file.getEntryContentLength(), in);
+                }
+                long length = file.getEntryLength();
+                Instant lastModified = file.getEntryLastModifiedInstant();
+                editor.add(new DirCacheEditor.PathEdit(path) {
+                    @Override
+                    public void apply(DirCacheEntry entry) {
+                        entry.setFileMode(mode);
+                        entry.setObjectId(blobId);
+                        entry.setLength(length);
+                        entry.setLastModified(lastModified);
+                    }
+                });
+                staged++;
+            }
+            inserter.flush();
+            editor.commit();
+            LOGGER.info("Staged {} files into a single pack in {} ms (files under objects directory: {} -> {})",
+                    staged, (System.nanoTime() - start) / 1_000_000, objectFilesBefore,
+                    countObjectFiles(repository));
+        } finally {
+            dirCache.unlock();
+        }
+    }
+
+    /**
+     * objectsディレクトリ配下のファイル数（ルーズオブジェクト・パック関連ファイル）を数える。
+     *
+     * @param repository 対象リポジトリ
+     * @return ファイル数
+     */
+    private static long countObjectFiles(FileRepository repository) throws IOException {
+        try (Stream<Path> files = Files.walk(repository.getObjectsDirectory().toPath())) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * ダウンロード時に作成したブロブをそのまま使えるファイルを選ぶ。
+     * ブロブがオブジェクトデータベースに存在し、ファイルのサイズが変わっていないものに限る。
+     *
+     * @param repository      対象リポジトリ
+     * @param downloadedFiles ダウンロード済みファイルの情報
+     * @return リポジトリルートからの相対パスとファイル情報
+     */
+    private Map<String, DownloadedFile> collectPrecomputedBlobs(Repository repository,
+            List<DownloadedFile> downloadedFiles) throws IOException {
+
+        Path repoPath = localRepoDir.toPath().toAbsolutePath().normalize();
+        Map<String, DownloadedFile> precomputed = new HashMap<>();
+        for (DownloadedFile file : downloadedFiles) {
+            if (file.getBlobId() == null) {
+                continue;
+            }
+            Path local = file.getLocalPath().toAbsolutePath().normalize();
+            if (!local.startsWith(repoPath) || !Files.isRegularFile(local) || Files.size(local) != file.getSize()) {
+                continue;
+            }
+            String relative = PathMapper.toRelativePath(repoPath, local);
+            if (isLfsTarget(relative)
+                    || !repository.getObjectDatabase().has(ObjectId.fromString(file.getBlobId()))) {
+                continue;
+            }
+            precomputed.put(relative, file);
+        }
+        return precomputed;
+    }
+
+    /**
+     * ダウンロード時に作成したブロブのIDとファイルの状態で、インデックスを直接更新する。
+     *
+     * @param repository  対象リポジトリ
+     * @param precomputed リポジトリルートからの相対パスとファイル情報
+     */
+    private void stagePrecomputedBlobs(Repository repository, Map<String, DownloadedFile> precomputed)
+            throws IOException {
+
+        Path repoPath = localRepoDir.toPath();
+        DirCache dirCache = repository.lockDirCache();
+        try {
+            DirCacheEditor editor = dirCache.editor();
+            for (Map.Entry<String, DownloadedFile> entry : precomputed.entrySet()) {
+                Path file = repoPath.resolve(entry.getKey());
+                ObjectId blobId = ObjectId.fromString(entry.getValue().getBlobId());
+                long length = entry.getValue().getSize();
+                Instant lastModified = Files.getLastModifiedTime(file).toInstant();
+
+                editor.add(new DirCacheEditor.PathEdit(entry.getKey()) {
+                    @Override
+                    public void apply(DirCacheEntry dirCacheEntry) {
+                        dirCacheEntry.setFileMode(FileMode.REGULAR_FILE);
+                        dirCacheEntry.setObjectId(blobId);
+                        dirCacheEntry.setLength(length);
+                        dirCacheEntry.setLastModified(lastModified);
+                    }
+                });
+            }
+            editor.commit();
+            LOGGER.info("Staged {} downloaded files without re-reading", precomputed.size());
+        } finally {
+            dirCache.unlock();
+        }
+    }
+
+    /**
+     * ワークツリーから消えたファイルをインデックスから削除する。
+     * <p>
+     * 削除を記録しておくことで、移動されたファイルはGit上でリネームとして扱われる。
+     *
+     * @param repository 対象リポジトリ
+     */
+    private void stageDeletions(Repository repository) throws IOException {
+
+        Path repoPath = localRepoDir.toPath();
+        DirCache dirCache = repository.lockDirCache();
+        try {
+            DirCacheEditor editor = dirCache.editor();
+            int removed = 0;
+            for (int i = 0; i < dirCache.getEntryCount(); i++) {
+                String path = dirCache.getEntry(i).getPathString();
+                if (!Files.isRegularFile(repoPath.resolve(path))) {
+                    editor.add(new DirCacheEditor.DeletePath(path));
+                    removed++;
+                }
+            }
+            if (removed == 0) {
+                return;
+            }
+            editor.commit();
+            LOGGER.debug("Staged {} deleted files", removed);
+        } finally {
+            dirCache.unlock();
+        }
+    }
+
+    /**
+     * LFS対象のファイルをポインタファイルとしてインデックスに登録する。
+     * <p>
+     * 実体はLfsStoreへアップロードし、ワークツリーのファイルもポインタファイルに置き換える。
+     * 既にポインタファイルのものはそのまま登録する。
+     *
+     * @param repository 対象リポジトリ
+     * @param paths      リポジトリルートからの相対パス
+     */
+    private void stageLfsFiles(Repository repository, List<String> paths) throws IOException {
+
+        Path repoPath = localRepoDir.toPath();
+        DirCache dirCache = repository.lockDirCache();
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            DirCacheEditor editor = dirCache.editor();
+            for (String relative : paths) {
+                Path file = repoPath.resolve(relative);
+                LfsPointer pointer = LfsPointer.read(file);
+                if (pointer == null) {
+                    pointer = LfsPointer.compute(file);
+                    lfsStore.upload(pointer, file);
+                    LOGGER.debug("Stored LFS object for {}: {}", relative, pointer.getOid());
+                }
+
+                byte[] pointerBytes = pointer.toBytes();
+                ObjectId blobId = inserter.insert(Constants.OBJ_BLOB, pointerBytes);
+                Files.write(file, pointerBytes);
+                Instant lastModified = Files.getLastModifiedTime(file).toInstant();
+
+                editor.add(new DirCacheEditor.PathEdit(relative) {
+                    @Override
+                    public void apply(DirCacheEntry entry) {
+                        entry.setFileMode(FileMode.REGULAR_FILE);
+                        entry.setObjectId(blobId);
+                        entry.setLength(pointerBytes.length);
+                        entry.setLastModified(lastModified);
+                    }
+                });
+            }
+            inserter.flush();
+            editor.commit();
+            LOGGER.info("Staged {} files as LFS pointers", paths.size());
+        } finally {
+            dirCache.unlock();
+        }
+    }
+
+    /**
+     * LFS対象の拡張子の行が.gitattributesに無い場合は追記する。
+     * 既存の行は変更しないため、利用者が記述した属性はそのまま残る。
+     *
+     * @param repoPath ワークツリーのルート
+     * @return .gitattributesを新規に作成した場合true
+     */
+    private boolean writeLfsAttributes(Path repoPath) throws IOException {
+
+        Path attributes = repoPath.resolve(GITATTRIBUTES);
+        boolean exists = Files.isRegularFile(attributes);
+        List<String> lines = exists ? Files.readAllLines(attributes, StandardCharsets.UTF_8) : new ArrayList<>();
+        List<String> missing = lfsAttributeLines.stream()
+                .filter(line -> !lines.contains(line))
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return false;
+        }
+        StringBuilder text = new StringBuilder();
+        if (exists) {
+            text.append(Files.readString(attributes, StandardCharsets.UTF_8));
+            if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+                text.append('\n');
+            }
+        }
+        missing.forEach(line -> text.append(line).append('\n'));
+        Files.writeString(attributes, text, StandardCharsets.UTF_8);
+        LOGGER.info("Added {} LFS entries to {}", missing.size(), GITATTRIBUTES);
+        return !exists;
+    }
+
+    private boolean isLfsTarget(String relativePath) {
+        if (lfsStore == null || relativePath.startsWith(Constants.DOT_GIT + "/")) {
+            return false;
+        }
+        return lfsMatcher.matches(relativePath.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * ファイルがLFSポインタの場合、実体を一時ファイルに取得してそのパスを返す。
+     * 
+     * @param localFile ワークツリー上のファイル
+     * @return 実体の一時ファイル。ポインタでない場合は引数のパス
+     * @throws GithubSyncException 実体の取得失敗時
+     */
+    @Override
+    public Path resolveLfsContent(Path localFile) throws GithubSyncException {
+
+        try {
+            LfsPointer pointer = LfsPointer.read(localFile);
+            if (pointer == null) {
+                return localFile;
+            }
+            if (lfsStore == null) {
+                throw new GithubSyncException("LFS pointer found but LFS is not configured: " + localFile);
+            }
+
+            Path content = Files.createTempFile("lfs-", "-" + localFile.getFileName());
+            try {
+                lfsStore.download(pointer, content);
+                Files.setLastModifiedTime(content, Files.getLastModifiedTime(localFile));
+            } catch (IOException e) {
+                Files.deleteIfExists(content);
+                throw e;
+            }
+            LOGGER.debug("Resolved LFS pointer {} to {}", localFile, content);
+            return content;
+        } catch (IOException e) {
+            LOGGER.error("Failed to resolve LFS content: {}", localFile, e);
+            throw new GithubSyncException("Resolving LFS content failed.", e);
+        }
+    }
+
     /**
      * コミット済み内容をGitHubリモートリポジトリへプッシュする。
+     * <p>
+     * パック生成はマルチスレッドで行い、既存のデルタ・オブジェクトを再利用する。
+     * リモートに存在するオブジェクトをデルタのベースにできるよう、thin packで送信する。
+     * バイナリ拡張子のファイルのオブジェクトはデルタ探索の対象から外す。
      * 
      * @throws GithubSyncException Git操作失敗時
      */
@@ -186,8 +988,13 @@ public class GitRepositoryManager implements GitService {
 
         LOGGER.debug("Pushing changes to remote repository");
 
-        try (Git git = Git.open(localRepoDir)) {
-            git.push().setCredentialsProvider(buildCredentialsProvider()).call();
+        try (Git git = openGit()) {
+            PackConfig packConfig = buildPushPackConfig(git.getRepository());
+            git.push()
+                    .setCredentialsProvider(buildCredentialsProvider())
+                    .setThin(true)
+                    .setTransportConfigCallback(transport -> transport.setPackConfig(packConfig))
+                    .call();
             LOGGER.info("Changes pushed successfully to remote repository");
         } catch (IOException | GitAPIException e) {
             LOGGER.error("Failed to push changes to remote repository", e);
@@ -195,10 +1002,111 @@ public class GitRepositoryManager implements GitService {
         }
     }
 
+    /**
+     * プッシュ用のパック生成設定を構築する。
+     * <p>
+     * JGitのパック生成は.gitattributesのdelta属性を参照せず、オブジェクト単位でデルタ探索を
+     * 外す手段はbigFileThreshold（以上のサイズをデルタ対象外とする）のみのため、
+     * プッシュ対象のバイナリのブロブが閾値以上、テキストのブロブが閾値未満となるよう下げる。
+     * 両者のサイズが重なる場合は、テキストのデルタ圧縮を優先してテキストの最大サイズの直上とする。
+     *
+     * @param repository 対象リポジトリ
+     * @return パック生成設定
+     */
+    PackConfig buildPushPackConfig(Repository repository) throws IOException {
+
+        PackConfig packConfig = new PackConfig(repository);
+        packConfig.setThreads(pushThreads > 0 ? pushThreads : Runtime.getRuntime().availableProcessors());
+        packConfig.setReuseDeltas(true);
+        packConfig.setReuseObjects(true);
+        long threshold = pushBigFileThreshold > 0 ? pushBigFileThreshold : packConfig.getBigFileThreshold();
+
+        PushedBlobSizes sizes = collectPushedBlobSizes(repository);
+        if (sizes.minBinary != Long.MAX_VALUE) {
+            long binaryThreshold = sizes.maxText < sizes.minBinary ? sizes.minBinary : sizes.maxText + 1;
+            threshold = Math.min(threshold, binaryThreshold);
+            LOGGER.info("Push contains binary changes. Objects of {} bytes or more skip delta compression.",
+                    threshold);
+            if (sizes.maxText < 0) {
+                // デルタ対象がないため、圧縮の時間も抑える
+                packConfig.setCompressionLevel(Deflater.BEST_SPEED);
+            }
+        }
+        packConfig.setBigFileThreshold((int) Math.min(threshold, Integer.MAX_VALUE));
+        return packConfig;
+    }
+
+    /**
+     * リモート追跡ブランチに含まれないコミットで追加・変更されたブロブのサイズを、
+     * バイナリ拡張子とそれ以外に分けて集計する。
+     *
+     * @param repository 対象リポジトリ
+     * @return バイナリの最小サイズ・それ以外の最大サイズ
+     */
+    private PushedBlobSizes collectPushedBlobSizes(Repository repository) throws IOException {
+
+        PushedBlobSizes sizes = new PushedBlobSizes();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null || pushBinaryExtensions.isEmpty()) {
+            return sizes;
+        }
+
+        try (RevWalk revWalk = new RevWalk(repository);
+                TreeWalk treeWalk = new TreeWalk(repository)) {
+            ObjectReader reader = treeWalk.getObjectReader();
+            revWalk.markStart(revWalk.parseCommit(head));
+            for (Ref remoteRef : repository.getRefDatabase().getRefsByPrefix(Constants.R_REMOTES)) {
+                ObjectId remoteId = remoteRef.getObjectId();
+                if (remoteId != null) {
+                    revWalk.markUninteresting(revWalk.parseCommit(remoteId));
+                }
+            }
+
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            for (RevCommit commit : revWalk) {
+                treeWalk.reset();
+                if (commit.getParentCount() > 0) {
+                    treeWalk.addTree(revWalk.parseCommit(commit.getParent(0)).getTree());
+                } else {
+                    treeWalk.addTree(new EmptyTreeIterator());
+                }
+                treeWalk.addTree(commit.getTree());
+
+                while (treeWalk.next()) {
+                    if (treeWalk.getFileMode(1) == FileMode.MISSING) {
+                        // 削除は新しいオブジェクトを送らない
+                        continue;
+                    }
+                    long size = reader.getObjectSize(treeWalk.getObjectId(1), Constants.OBJ_BLOB);
+                    String path = treeWalk.getPathString().toLowerCase(Locale.ROOT);
+                    if (pushBinaryMatcher.matches(path)) {
+                        sizes.minBinary = Math.min(sizes.minBinary, size);
+                    } else {
+                        sizes.maxText = Math.max(sizes.maxText, size);
+                    }
+                }
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * プッシュ対象のブロブのサイズの集計結果。
+     */
+    private static final class PushedBlobSizes {
+
+        // バイナリ拡張子のブロブの最小サイズ（存在しない場合はLong.MAX_VALUE）
+        private long minBinary = Long.MAX_VALUE;
+
+        // それ以外のブロブの最大サイズ（存在しない場合は-1）
+        private long maxText = -1;
+    }
+
     @Override
     public List<String> listLocalBranches() throws GithubSyncException {
         LOGGER.debug("Listing local branches");
-        try (Git git = Git.open(localRepoDir)) {
+        try (Git git = openGit()) {
             List<Ref> branches = git.branchList().call();
             List<String> result = new ArrayList<>(branches.size());
             for (Ref branch : branches) {
@@ -214,7 +1122,7 @@ public class GitRepositoryManager implements GitService {
     @Override
     public Set<String> pullLatestChanges() throws GithubSyncException {
         LOGGER.info("Pulling latest changes on current branch");
-        try (Git git = Git.open(localRepoDir)) {
+        try (Git git = openGit()) {
             ObjectId oldHead = git.getRepository().resolve("HEAD");
             LOGGER.info("Old HEAD: {}", oldHead != null ? oldHead.getName() : "null");
             
@@ -256,9 +1164,107 @@ public class GitRepositoryManager implements GitService {
         }
     }
 
+    /**
+     * ルーズオブジェクト数・パック数が閾値を超えている場合にgcを実行する。
+     * <p>
+     * gcではビットマップとcommit-graphも書き出す。所要時間と削減できた容量をログ出力する。
+     * 
+     * @throws GithubSyncException gc失敗時
+     */
+    @Override
+    public void runMaintenance() throws GithubSyncException {
+
+        LOGGER.debug("Checking whether repository maintenance is needed");
+
+        try (Git git = openGit()) {
+            Properties before = git.gc().getStatistics();
+            long looseObjects = statistic(before, "numberOfLooseObjects");
+            long packFiles = statistic(before, "numberOfPackFiles");
+
+            boolean tooManyLooseObjects = gcLooseObjectThreshold > 0 && looseObjects > gcLooseObjectThreshold;
+            boolean tooManyPacks = gcPackThreshold > 0 && packFiles > gcPackThreshold;
+            if (!tooManyLooseObjects && !tooManyPacks) {
+                LOGGER.info("Repository maintenance not needed. loose objects: {}, packs: {}",
+                        looseObjects, packFiles);
+                return;
+            }
+
+            enableMaintenanceOutputs(git.getRepository());
+
+            LOGGER.info("Starting repository maintenance. loose objects: {}, packs: {}", looseObjects, packFiles);
+            long startNanos = System.nanoTime();
+            Properties after = git.gc().call();
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+
+            long sizeBefore = statistic(before, "sizeOfLooseObjects") + statistic(before, "sizeOfPackedObjects");
+            long sizeAfter = statistic(after, "sizeOfLooseObjects") + statistic(after, "sizeOfPackedObjects");
+            LOGGER.info("Repository maintenance completed in {} ms. loose objects: {} -> {}, packs: {} -> {}, "
+                    + "reclaimed {} bytes ({} -> {})",
+                    elapsedMillis,
+                    looseObjects, statistic(after, "numberOfLooseObjects"),
+                    packFiles, statistic(after, "numberOfPackFiles"),
+                    sizeBefore - sizeAfter, sizeBefore, sizeAfter);
+
+        } catch (IOException | GitAPIException e) {
+            LOGGER.error("Failed to run repository maintenance", e);
+            throw new GithubSyncException("Repository maintenance failed.", e);
+        }
+    }
+
+    /**
+     * 保持しているリポジトリを解放する。以降の操作では開き直す。
+     */
     @Override
-    public void close() {
-        // Git instances are opened per operation; nothing to close.
+    public synchronized void close() {
+        if (repository != null) {
+            repository.close();
+            repository = null;
+        }
+    }
+
+    /**
+     * 保持しているリポジトリを操作するGitを返す。初回の呼び出しでリポジトリを開いて保持する。
+     * 返却したGitを閉じてもリポジトリは閉じない。
+     *
+     * @return 操作用のGit
+     * @throws IOException リポジトリを開けない場合
+     */
+    private synchronized Git openGit() throws IOException {
+        if (repository == null) {
+            repository = Git.open(localRepoDir).getRepository();
+        }
+        return Git.wrap(repository);
+    }
+
+    /**
+     * gc時にビットマップとcommit-graphを書き出すようリポジトリ設定を更新する。
+     *
+     * @param repository 対象リポジトリ
+     */
+    private void enableMaintenanceOutputs(Repository repository) throws IOException {
+
+        StoredConfig config = repository.getConfig();
+        boolean changed = false;
+        changed |= enableFlag(config, ConfigConstants.CONFIG_PACK_SECTION, ConfigConstants.CONFIG_KEY_BUILD_BITMAPS);
+        changed |= enableFlag(config, ConfigConstants.CONFIG_CORE_SECTION, ConfigConstants.CONFIG_COMMIT_GRAPH);
+        changed |= enableFlag(config, ConfigConstants.CONFIG_GC_SECTION,
+                ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH);
+        if (changed) {
+            config.save();
+        }
+    }
+
+    private boolean enableFlag(StoredConfig config, String section, String name) {
+        if (config.getBoolean(section, name, false)) {
+            return false;
+        }
+        config.setBoolean(section, null, name, true);
+        return true;
+    }
+
+    private long statistic(Properties statistics, String key) {
+        Object value = statistics.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
     }
 
     private CredentialsProvider buildCredentialsProvider() {
@@ -1,8 +1,13 @@
 package com.db2ghsync.git;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.exception.GithubSyncException;
 
 /**
@@ -20,18 +25,87 @@ public interface GitService {
 
     /**
      * 指定ブランチにチェックアウトする。存在しない場合は新規作成。
+     * ローカルに無くリモートに存在する場合は、リモートブランチを追跡するブランチを作成する。
      * 
      * @param branchName チェックアウトするブランチ名
      * @throws GithubSyncException Git操作失敗時
      */
     void checkoutBranch(String branchName) throws GithubSyncException;
 
+    /**
+     * 指定ブランチがローカルまたはリモート（origin）に存在するか判定する。
+     *
+     * @param branchName ブランチ名
+     * @return 存在する場合true
+     * @throws GithubSyncException Git操作失敗時
+     */
+    boolean hasBranch(String branchName) throws GithubSyncException;
+
     /**
      * ワークツリー内の全ファイルをaddし、コミットする。
      * 
+     * @return コミットした場合true。HEADから変更がない場合はコミットせずfalse
      * @throws GithubSyncException Git操作失敗時
      */
-    void addAndCommit() throws GithubSyncException;
+    default boolean addAndCommit() throws GithubSyncException {
+        return addAndCommit(Collections.emptyList());
+    }
+
+    /**
+     * ワークツリー内の全ファイルをaddし、コミットする。
+     * ダウンロード時にブロブを作成済みのファイルは、ファイルを読み直さずにそのIDでステージする。
+     * ステージ後のツリーがHEADと同じ場合は、空のコミットを作成しない。
+     *
+     * @param downloadedFiles ダウンロード済みファイルの情報
+     * @return コミットした場合true。HEADから変更がない場合はコミットせずfalse
+     * @throws GithubSyncException Git操作失敗時
+     */
+    boolean addAndCommit(List<DownloadedFile> downloadedFiles) throws GithubSyncException;
+
+    /**
+     * ダウンロードしたファイルが全て、指定ブランチに同じ内容で含まれているか、チェックアウトせずに判定する。
+     * 含まれている場合は、ブランチを切り替えて戻した場合と同じく、それらのファイルを現在のブランチの状態へ戻す。
+     * ブロブを作成していないファイル（LFS対象等）を含む場合は判定できないためfalseを返す。
+     *
+     * @param branchName      ブランチ名
+     * @param downloadedFiles ダウンロード済みファイルの情報
+     * @return 全て同じ内容で含まれており、ワークツリーを戻した場合true
+     * @throws GithubSyncException Git操作失敗時
+     */
+    boolean discardUnchanged(String branchName, List<DownloadedFile> downloadedFiles) throws GithubSyncException;
+
+    /**
+     * 指定ブランチに、リモート（origin）へプッシュしていないコミットがあるか判定する。
+     * 前回の実行でコミット後にプッシュに失敗した場合に、再実行でプッシュし直すために使用する。
+     *
+     * @param branchName ブランチ名
+     * @return ローカルのブランチがリモートに含まれていない場合true。ローカルにブランチが無い場合はfalse
+     * @throws GithubSyncException Git操作失敗時
+     */
+    boolean hasUnpushedCommits(String branchName) throws GithubSyncException;
+
+    /**
+     * ダウンロードしたファイルのブロブをオブジェクトデータベースへ書き込む。
+     * <p>
+     * ダウンロードと並行して呼び出すことで、コミット時にファイルを読み直さずにステージできる。
+     * LFS対象・リポジトリ外のファイルや、書き込みに失敗した場合は引数をそのまま返す（コミット時に通常どおりaddする）。
+     *
+     * @param downloadedFile ダウンロード済みファイルの情報
+     * @return ブロブIDを設定したファイル情報
+     */
+    DownloadedFile writeBlob(DownloadedFile downloadedFile);
+
+    /**
+     * 内容を読み込みながら、ブロブをオブジェクトデータベースへ書き込む。
+     * <p>
+     * ダウンロード中の内容を渡すことで、ファイルを読み直さずにブロブを作成できる。
+     *
+     * @param size    内容のサイズ
+     * @param content 内容
+     * @return 書き込んだブロブのID
+     * @throws IOException 書き込み失敗時、内容がサイズに満たない場合
+     */
+    String insertBlob(long size, InputStream content) throws IOException;
 
     /**
      * コミット済み内容をGitHubリモートリポジトリへプッシュする。
@@ -56,6 +130,24 @@ public interface GitService {
      */
     Set<String> pullLatestChanges() throws GithubSyncException;
 
+    /**
+     * ファイルがLFSポインタの場合、実体を一時ファイルに取得してそのパスを返す。
+     * 返却されたパスが引数と異なる場合、呼び出し側で削除すること。
+     *
+     * @param localFile ワークツリー上のファイル
+     * @return 実体の一時ファイル。ポインタでない場合は引数のパス
+     * @throws GithubSyncException 実体の取得失敗時
+     */
+    Path resolveLfsContent(Path localFile) throws GithubSyncException;
+
+    /**
+     * ルーズオブジェクト数・パック数が閾値を超えている場合にリポジトリの保守（gc）を実行する。
+     * 同期のクリティカルパス外（プッシュ完了後）で呼び出すこと。
+     *
+     * @throws GithubSyncException 保守処理失敗時
+     */
+    void runMaintenance() throws GithubSyncException;
+
     /**
      * 使用済みリソースを解放する。
      */
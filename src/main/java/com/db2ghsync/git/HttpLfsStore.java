@@ -0,0 +1,197 @@
+package com.db2ghsync.git;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Git LFS Batch API（basic転送）を利用するLfsStore実装。
+ */
+public class HttpLfsStore implements LfsStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpLfsStore.class);
+
+    private static final String LFS_MEDIA_TYPE = "application/vnd.git-lfs+json";
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+    // java.net.httpで設定できないヘッダー
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final String batchUrl;
+    private final String authorization;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param lfsUrl   LFSエンドポイント（例: https://github.com/user/repo.git/info/lfs）
+     * @param username 認証ユーザー名（未設定の場合は認証なし）
+     * @param password 認証パスワード・トークン
+     */
+    public HttpLfsStore(String lfsUrl, String username, String password) {
+        Objects.requireNonNull(lfsUrl, "lfsUrl must not be null");
+        this.batchUrl = (lfsUrl.endsWith("/") ? lfsUrl : lfsUrl + "/") + "objects/batch";
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        if (username == null || username.isBlank() || password == null || password.isBlank()) {
+            this.authorization = null;
+        } else {
+            String credentials = username + ":" + password;
+            this.authorization = "Basic "
+                    + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * GitリモートURLからLFSエンドポイントを導出する。
+     *
+     * @param remoteUrl GitリモートURL
+     * @return LFSエンドポイント
+     */
+    public static String deriveLfsUrl(String remoteUrl) {
+        String base = remoteUrl.endsWith("/") ? remoteUrl.substring(0, remoteUrl.length() - 1) : remoteUrl;
+        return (base.endsWith(".git") ? base : base + ".git") + "/info/lfs";
+    }
+
+    @Override
+    public void upload(LfsPointer pointer, Path content) throws IOException {
+
+        JsonNode object = batch("upload", pointer);
+        JsonNode actions = object.path("actions");
+        JsonNode upload = actions.path("upload");
+        if (upload.isMissingNode()) {
+            LOGGER.debug("LFS object already exists on server: {}", pointer.getOid());
+            return;
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(upload.path("href").asText()))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/octet-stream")
+                .PUT(HttpRequest.BodyPublishers.ofFile(content));
+        applyHeaders(request, upload.path("header"));
+        send(request.build(), HttpResponse.BodyHandlers.discarding(), "upload");
+
+        JsonNode verify = actions.path("verify");
+        if (!verify.isMissingNode()) {
+            ObjectNode body = objectMapper.createObjectNode()
+                    .put("oid", pointer.getOid())
+                    .put("size", pointer.getSize());
+            HttpRequest.Builder verifyRequest = HttpRequest.newBuilder(URI.create(verify.path("href").asText()))
+                    .timeout(TIMEOUT)
+                    .header("Accept", LFS_MEDIA_TYPE)
+                    .header("Content-Type", LFS_MEDIA_TYPE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            applyHeaders(verifyRequest, verify.path("header"));
+            send(verifyRequest.build(), HttpResponse.BodyHandlers.discarding(), "verify");
+        }
+        LOGGER.debug("Uploaded LFS object: {}", pointer.getOid());
+    }
+
+    @Override
+    public void download(LfsPointer pointer, Path target) throws IOException {
+
+        JsonNode download = batch("download", pointer).path("actions").path("download");
+        if (download.isMissingNode()) {
+            throw new IOException("LFS server returned no download action: " + pointer.getOid());
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(download.path("href").asText()))
+                .timeout(TIMEOUT)
+                .GET();
+        applyHeaders(request, download.path("header"));
+
+        Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), pointer.getOid(), ".tmp");
+        try {
+            send(request.build(), HttpResponse.BodyHandlers.ofFile(tmp), "download");
+            // 破損・取り違えた実体をDropboxへ書き戻さないよう、ポインタのSHA-256と照合する
+            LfsPointer downloaded = LfsPointer.compute(tmp);
+            if (!downloaded.equals(pointer)) {
+                throw new IOException("Downloaded LFS object does not match pointer: " + pointer.getOid()
+                        + " (got " + downloaded.getOid() + ", " + downloaded.getSize() + " bytes)");
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Batch APIを呼び出し、対象オブジェクトのレスポンスを返す。
+     */
+    private JsonNode batch(String operation, LfsPointer pointer) throws IOException {
+
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("operation", operation);
+        body.putArray("transfers").add("basic");
+        ArrayNode objects = body.putArray("objects");
+        objects.addObject().put("oid", pointer.getOid()).put("size", pointer.getSize());
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(batchUrl))
+                .timeout(TIMEOUT)
+                .header("Accept", LFS_MEDIA_TYPE)
+                .header("Content-Type", LFS_MEDIA_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+
+        String response = send(request.build(), HttpResponse.BodyHandlers.ofString(), "batch " + operation);
+        JsonNode object = objectMapper.readTree(response).path("objects").path(0);
+        JsonNode error = object.path("error");
+        if (!error.isMissingNode()) {
+            throw new IOException("LFS batch " + operation + " failed for " + pointer.getOid() + ": "
+                    + error.path("code").asInt() + " " + error.path("message").asText());
+        }
+        return object;
+    }
+
+    private void applyHeaders(HttpRequest.Builder request, JsonNode headers) {
+        Iterator<Map.Entry<String, JsonNode>> fields = headers.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (RESTRICTED_HEADERS.contains(field.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            request.header(field.getKey(), field.getValue().asText());
+        }
+    }
+
+    private <T> T send(HttpRequest request, HttpResponse.BodyHandler<T> handler, String operation)
+            throws IOException {
+        try {
+            HttpResponse<T> response = httpClient.send(request, handler);
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("LFS " + operation + " failed with HTTP " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("LFS " + operation + " interrupted", e);
+        }
+    }
+}
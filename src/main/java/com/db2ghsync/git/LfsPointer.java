@@ -0,0 +1,163 @@
+package com.db2ghsync.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Git LFSのポインタファイルを表す不変オブジェクト。
+ * <p>
+ * ポインタの形式は Git LFS 仕様（spec/v1）に従う。
+ */
+public final class LfsPointer {
+
+    private static final String VERSION_LINE = "version https://git-lfs.github.com/spec/v1";
+    private static final String OID_PREFIX = "oid sha256:";
+    private static final String SIZE_PREFIX = "size ";
+
+    // ポインタファイルとして扱う最大サイズ（仕様上1024バイト未満）
+    private static final int MAX_POINTER_SIZE = 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String oid;
+    private final long size;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param oid  実体のSHA-256（16進小文字64桁）
+     * @param size 実体のサイズ
+     */
+    public LfsPointer(String oid, long size) {
+        this.oid = Objects.requireNonNull(oid, "oid must not be null");
+        this.size = size;
+    }
+
+    public String getOid() {
+        return oid;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * ポインタファイルの内容をバイト列で返す。
+     *
+     * @return ポインタファイルの内容
+     */
+    public byte[] toBytes() {
+        String text = VERSION_LINE + "\n" + OID_PREFIX + oid + "\n" + SIZE_PREFIX + size + "\n";
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ファイルの実体からポインタを計算する。
+     *
+     * @param file 実体ファイル
+     * @return ポインタ
+     * @throws IOException 読み込み失敗時
+     */
+    public static LfsPointer compute(Path file) throws IOException {
+
+        MessageDigest digest = newSha256();
+        long size = 0L;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        return new LfsPointer(HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * ファイルがポインタファイルであれば解析して返す。
+     *
+     * @param file 対象ファイル
+     * @return ポインタ。ポインタファイルでない場合はnull
+     * @throws IOException 読み込み失敗時
+     */
+    public static LfsPointer read(Path file) throws IOException {
+
+        if (Files.size(file) >= MAX_POINTER_SIZE) {
+            return null;
+        }
+        return parse(Files.readAllBytes(file));
+    }
+
+    /**
+     * バイト列をポインタファイルとして解析する。
+     *
+     * @param content 対象の内容
+     * @return ポインタ。ポインタファイルでない場合はnull
+     */
+    public static LfsPointer parse(byte[] content) {
+
+        if (content.length >= MAX_POINTER_SIZE) {
+            return null;
+        }
+        String text = new String(content, StandardCharsets.UTF_8);
+        if (!text.startsWith(VERSION_LINE + "\n")) {
+            return null;
+        }
+
+        String oid = null;
+        Long size = null;
+        for (String line : text.split("\n")) {
+            if (line.startsWith(OID_PREFIX)) {
+                oid = line.substring(OID_PREFIX.length());
+            } else if (line.startsWith(SIZE_PREFIX)) {
+                try {
+                    size = Long.parseLong(line.substring(SIZE_PREFIX.length()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+
+        if (oid == null || size == null || oid.length() != 64) {
+            return null;
+        }
+        return new LfsPointer(oid, size);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LfsPointer)) {
+            return false;
+        }
+        LfsPointer other = (LfsPointer) obj;
+        return size == other.size && oid.equals(other.oid);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(oid, size);
+    }
+
+    @Override
+    public String toString() {
+        return "LfsPointer[oid=" + oid + ", size=" + size + "]";
+    }
+}
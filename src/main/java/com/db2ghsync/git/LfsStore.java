@@ -0,0 +1,29 @@
+package com.db2ghsync.git;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Git LFSオブジェクトの保存先を表すインターフェース。
+ * LFSサーバーと、オフライン検証用のローカルディレクトリを差し替えられるようにする。
+ */
+public interface LfsStore {
+
+    /**
+     * 実体をアップロードする。保存先に既に存在する場合は何もしない。
+     *
+     * @param pointer 実体のポインタ
+     * @param content 実体ファイル
+     * @throws IOException アップロード失敗時
+     */
+    void upload(LfsPointer pointer, Path content) throws IOException;
+
+    /**
+     * 実体をダウンロードして指定ファイルに書き込む。
+     *
+     * @param pointer 実体のポインタ
+     * @param target  書き込み先ファイル
+     * @throws IOException ダウンロード失敗時、実体が存在しない場合、内容がポインタと一致しない場合
+     */
+    void download(LfsPointer pointer, Path target) throws IOException;
+}
@@ -0,0 +1,89 @@
+package com.db2ghsync.git;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+/**
+ * ローカルディレクトリをLFSサーバーの代わりに使うLfsStore実装。
+ * <p>
+ * オブジェクトは git-lfs と同じく {@code <oid先頭2桁>/<oid3-4桁>/<oid>} に配置する。
+ * 共有ボリューム上のストアやオフラインでの検証に利用する。
+ */
+public class LocalLfsStore implements LfsStore {
+
+    private final Path root;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param root ストアのルートディレクトリ
+     */
+    public LocalLfsStore(Path root) {
+        this.root = Objects.requireNonNull(root, "root must not be null");
+    }
+
+    @Override
+    public void upload(LfsPointer pointer, Path content) throws IOException {
+
+        Path target = resolve(pointer);
+        // 共有ボリューム上では他の書き込み元による途中・破損の実体も残り得るため、サイズではなくハッシュで判定する
+        if (Files.isRegularFile(target) && Files.size(target) == pointer.getSize()
+                && LfsPointer.compute(target).equals(pointer)) {
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), pointer.getOid(), ".tmp");
+        try {
+            Files.copy(content, tmp, StandardCopyOption.REPLACE_EXISTING);
+            verify(pointer, tmp, "Uploaded");
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public void download(LfsPointer pointer, Path target) throws IOException {
+
+        Path source = resolve(pointer);
+        if (!Files.isRegularFile(source)) {
+            throw new NoSuchFileException(source.toString(), null, "LFS object not found: " + pointer.getOid());
+        }
+
+        Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), pointer.getOid(), ".tmp");
+        try {
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            // 破損した実体をワークツリーへ書き戻さないよう、ポインタのSHA-256と照合する
+            verify(pointer, tmp, "Downloaded");
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * ファイルの内容がポインタのSHA-256・サイズと一致することを確認する。
+     *
+     * @param pointer 期待するポインタ
+     * @param file    確認するファイル
+     * @param action  エラーメッセージに含める操作名
+     * @throws IOException 一致しない場合
+     */
+    private static void verify(LfsPointer pointer, Path file, String action) throws IOException {
+        LfsPointer actual = LfsPointer.compute(file);
+        if (!actual.equals(pointer)) {
+            throw new IOException(action + " LFS object does not match pointer: " + pointer.getOid()
+                    + " (got " + actual.getOid() + ", " + actual.getSize() + " bytes)");
+        }
+    }
+
+    private Path resolve(LfsPointer pointer) {
+        String oid = pointer.getOid();
+        return root.resolve(oid.substring(0, 2)).resolve(oid.substring(2, 4)).resolve(oid);
+    }
+}
@@ -0,0 +1,236 @@
+package com.db2ghsync.webhook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.db2ghsync.app.SyncTrigger;
+import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.common.SyncDirection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * DropboxとGitHubのWebhookを受け付け、同期の実行を要求するHTTPサーバー。
+ * <p>
+ * 署名を検証したリクエストのみを受け付け、同期は要求先（常駐処理）で非同期に実行する。
+ * <ul>
+ * <li>Dropbox: 登録時の確認（challenge）に応答し、変更通知でDropbox→Git同期を要求する。
+ * 通知には変更されたフォルダが含まれないため、全ての対象ディレクトリを同期する</li>
+ * <li>GitHub: pushイベントで、pushされたブランチのGit→Dropbox同期を要求する</li>
+ * </ul>
+ * シークレットが未設定のWebhookは受け付けない。
+ */
+public class WebhookServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebhookServer.class);
+
+    static final String DROPBOX_PATH = "/webhook/dropbox";
+    static final String GITHUB_PATH = "/webhook/github";
+
+    private static final String DROPBOX_SIGNATURE_HEADER = "X-Dropbox-Signature";
+    private static final String GITHUB_SIGNATURE_HEADER = "X-Hub-Signature-256";
+    private static final String GITHUB_EVENT_HEADER = "X-GitHub-Event";
+    private static final String GITHUB_SIGNATURE_PREFIX = "sha256=";
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+
+    // 受け付けるボディの上限
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private final HttpServer server;
+    private final String dropboxAppSecret;
+    private final String githubSecret;
+    private final SyncTrigger trigger;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * コンストラクタ。設定のポートで待ち受けるWebhookServerを初期化する。
+     *
+     * @param config  アプリケーション設定
+     * @param trigger 同期の要求先
+     * @throws IOException ポートを使用できない場合
+     */
+    public WebhookServer(AppConfig config, SyncTrigger trigger) throws IOException {
+        this(new InetSocketAddress(config.getWebhookPort()), config.getDropboxClientSecret(),
+                config.getWebhookGithubSecret(), trigger);
+    }
+
+    WebhookServer(InetSocketAddress address, String dropboxAppSecret, String githubSecret, SyncTrigger trigger)
+            throws IOException {
+        if (Strings.isNullOrEmpty(dropboxAppSecret) && Strings.isNullOrEmpty(githubSecret)) {
+            throw new IllegalArgumentException(
+                    "webhook requires dropbox.client.secret or webhook.github.secret to verify signatures.");
+        }
+        this.dropboxAppSecret = dropboxAppSecret;
+        this.githubSecret = githubSecret;
+        this.trigger = trigger;
+        this.server = HttpServer.create(address, 0);
+        if (!Strings.isNullOrEmpty(dropboxAppSecret)) {
+            server.createContext(DROPBOX_PATH, this::handleDropbox);
+        }
+        if (!Strings.isNullOrEmpty(githubSecret)) {
+            server.createContext(GITHUB_PATH, this::handleGithub);
+        }
+    }
+
+    /**
+     * 待ち受けを開始する。
+     */
+    public void start() {
+        server.start();
+        LOGGER.info("Webhook server listening on port {}", getPort());
+    }
+
+    /**
+     * 待ち受けているポートを返す。
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        LOGGER.info("Webhook server stopped");
+    }
+
+    private void handleDropbox(HttpExchange exchange) throws IOException {
+
+        try {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                // Webhook登録時の確認。challengeをそのまま返す
+                String challenge = queryParameter(exchange.getRequestURI().getRawQuery(), "challenge");
+                if (challenge == null) {
+                    respond(exchange, 400, "missing challenge");
+                    return;
+                }
+                exchange.getResponseHeaders().set("X-Content-Type-Options", "nosniff");
+                respond(exchange, 200, challenge);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "");
+                return;
+            }
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                respond(exchange, 413, "");
+                return;
+            }
+            String signature = exchange.getRequestHeaders().getFirst(DROPBOX_SIGNATURE_HEADER);
+            if (!WebhookSignature.verify(dropboxAppSecret, body, signature)) {
+                LOGGER.warn("Rejected Dropbox webhook with invalid signature from {}", exchange.getRemoteAddress());
+                respond(exchange, 403, "");
+                return;
+            }
+            trigger.trigger(SyncDirection.DBX_TO_GIT, null);
+            respond(exchange, 200, "");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleGithub(HttpExchange exchange) throws IOException {
+
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "");
+                return;
+            }
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                respond(exchange, 413, "");
+                return;
+            }
+            String signature = exchange.getRequestHeaders().getFirst(GITHUB_SIGNATURE_HEADER);
+            if (signature == null || !signature.startsWith(GITHUB_SIGNATURE_PREFIX) || !WebhookSignature
+                    .verify(githubSecret, body, signature.substring(GITHUB_SIGNATURE_PREFIX.length()))) {
+                LOGGER.warn("Rejected GitHub webhook with invalid signature from {}", exchange.getRemoteAddress());
+                respond(exchange, 403, "");
+                return;
+            }
+            String event = exchange.getRequestHeaders().getFirst(GITHUB_EVENT_HEADER);
+            if (!"push".equals(event)) {
+                // pingやその他のイベントは受信のみ
+                LOGGER.debug("Ignoring GitHub event: {}", event);
+                respond(exchange, 200, "");
+                return;
+            }
+
+            JsonNode payload;
+            try {
+                payload = objectMapper.readTree(body);
+            } catch (IOException e) {
+                respond(exchange, 400, "invalid payload");
+                return;
+            }
+            String ref = payload.path("ref").asText("");
+            if (!ref.startsWith(BRANCH_REF_PREFIX) || payload.path("deleted").asBoolean(false)) {
+                // タグ・ブランチの削除はDropboxへ反映しない
+                LOGGER.debug("Ignoring GitHub push to ref: {}", ref);
+                respond(exchange, 200, "");
+                return;
+            }
+            trigger.trigger(SyncDirection.GIT_TO_DBX, ref.substring(BRANCH_REF_PREFIX.length()));
+            respond(exchange, 200, "");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * ボディを読み込む。上限を超える場合はnullを返す。
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (out.size() + read > MAX_BODY_BYTES) {
+                    return null;
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return separator < 0 ? "" : URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
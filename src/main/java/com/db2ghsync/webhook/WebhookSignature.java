@@ -0,0 +1,57 @@
+package com.db2ghsync.webhook;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Webhookの署名（リクエストボディのHMAC-SHA256）を計算・検証するユーティリティ。
+ * Dropbox（X-Dropbox-Signature）・GitHub（X-Hub-Signature-256）ともに16進数表記の同じ方式を使う。
+ */
+public final class WebhookSignature {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private WebhookSignature() {
+    }
+
+    /**
+     * ボディの署名を16進数（小文字）で返す。
+     *
+     * @param secret 共有シークレット
+     * @param body   リクエストボディ
+     * @return 署名
+     */
+    public static String sign(String secret, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * 受信した署名がボディの署名と一致するか検証する。比較は一定時間で行う。
+     *
+     * @param secret    共有シークレット
+     * @param body      リクエストボディ
+     * @param signature 受信した署名（16進数）。nullの場合は不一致
+     * @return 一致する場合true
+     */
+    public static boolean verify(String secret, byte[] body, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        byte[] expected = sign(secret, body).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signature.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+}
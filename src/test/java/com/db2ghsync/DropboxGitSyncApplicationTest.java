@@ -1,7 +1,10 @@
 package com.db2ghsync;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
@@ -17,6 +20,25 @@ class DropboxGitSyncApplicationTest {
 
         assertEquals("C:\\\\config.properties", options.configPath());
         assertEquals(SyncDirection.DBX_TO_GIT, options.direction());
+        assertFalse(options.daemon());
+    }
+
+    @Test
+    void testParseDaemonWithoutDirectionRunsBothDirections() {
+        CommandLineOptions options = CommandLineOptions.parse(
+                new String[] { "--config", "config.properties", "--daemon" });
+
+        assertTrue(options.daemon());
+        assertNull(options.direction());
+    }
+
+    @Test
+    void testParseDaemonWithDirection() {
+        CommandLineOptions options = CommandLineOptions.parse(
+                new String[] { "--daemon", "--config", "config.properties", "--direction", "git-to-dbx" });
+
+        assertTrue(options.daemon());
+        assertEquals(SyncDirection.GIT_TO_DBX, options.direction());
     }
 
     @Test
@@ -1,6 +1,9 @@
 package com.db2ghsync.app;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -57,6 +60,7 @@ class GitToDropboxProcessorTest {
 
         when(gitService.listLocalBranches()).thenReturn(List.of("feature"));
         when(gitService.pullLatestChanges()).thenReturn(Set.of("review/file1.txt", "other/file2.txt"));
+        when(gitService.resolveLfsContent(any(Path.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         GitToDropboxProcessor processor = new GitToDropboxProcessor(config, gitService, dropboxService);
 
@@ -72,6 +76,42 @@ class GitToDropboxProcessorTest {
         verify(gitService).close();
     }
 
+    @Test
+    void uploadsResolvedLfsContentAndDeletesTemporaryFile() throws Exception {
+        Path repo = tempDir.resolve("repo");
+        Path reviewDir = repo.resolve("review");
+        Files.createDirectories(reviewDir);
+        Path pointerFile = reviewDir.resolve("archive.zip");
+        Files.writeString(pointerFile, "pointer");
+        Path resolved = tempDir.resolve("resolved.zip");
+        Files.writeString(resolved, "content");
+
+        AppConfig config = new AppConfig.Builder()
+                .githubPat("pat")
+                .githubUsername("user")
+                .githubRemoteUrl("https://example.com/repo.git")
+                .localRepoPath(repo.toString())
+                .cursorFilePath(repo.resolve("cursor").toString())
+                .targetFileExtensions(List.of(".zip"))
+                .targetDirectories(List.of("/dir"))
+                .syncTargetDir("review")
+                .build();
+
+        GitService gitService = mock(GitService.class);
+        DropboxService dropboxService = mock(DropboxService.class);
+
+        when(gitService.listLocalBranches()).thenReturn(List.of("feature"));
+        when(gitService.pullLatestChanges()).thenReturn(Set.of("review/archive.zip"));
+        Path expectedPath = repo.toAbsolutePath().normalize().resolve("review/archive.zip");
+        when(gitService.resolveLfsContent(expectedPath)).thenReturn(resolved);
+
+        new GitToDropboxProcessor(config, gitService, dropboxService).start();
+
+        verify(dropboxService).uploadFile(resolved, "/feature/review/archive.zip");
+        assertFalse(Files.exists(resolved));
+        assertTrue(Files.exists(pointerFile));
+    }
+
     @Test
     void ensuresGitServiceClosedOnFailure() throws IOException, GithubSyncException {
         AppConfig config = new AppConfig.Builder()
@@ -0,0 +1,178 @@
+package com.db2ghsync.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.db2ghsync.common.SyncDirection;
+import com.db2ghsync.exception.DropboxSyncException;
+import com.db2ghsync.exception.GithubSyncException;
+
+/**
+ * SyncDaemonクラスのテスト。
+ * 失敗時の継続、一定間隔での繰り返し、停止要求時の終了、要求された同期の実行とまとめ方を検証する。
+ */
+@ExtendWith(MockitoExtension.class)
+class SyncDaemonTest {
+
+    @Mock
+    private SyncWorkflow dropboxToGit;
+
+    @Mock
+    private SyncWorkflow gitToDropbox;
+
+    @Test
+    void testRunOnceContinuesAfterFailure() throws Exception {
+        // Given - 先に実行する同期処理が失敗する
+        doThrow(new DropboxSyncException("Dropbox error")).when(dropboxToGit).execute();
+        SyncDaemon daemon = new SyncDaemon(bothDirections(), 60_000);
+
+        // When
+        boolean succeeded = daemon.runOnce();
+
+        // Then - 残りの同期処理は実行する
+        assertFalse(succeeded);
+        verify(gitToDropbox).execute();
+    }
+
+    @Test
+    void testRunRepeatsUntilStopped() throws Exception {
+        // Given - 3回目の実行中に停止要求を受け、実行中の同期処理は最後まで行う
+        AtomicInteger runs = new AtomicInteger();
+        SyncDaemon daemon = new SyncDaemon(bothDirections(), 0);
+        doAnswer(invocation -> {
+            if (runs.incrementAndGet() == 3) {
+                daemon.stop();
+            }
+            throw new GithubSyncException("Git error");
+        }).when(dropboxToGit).execute();
+
+        // When
+        daemon.run();
+
+        // Then - 失敗しても繰り返し、停止要求後の同期処理は実行しない
+        assertTrue(daemon.awaitTermination(0, TimeUnit.SECONDS));
+        verify(dropboxToGit, times(3)).execute();
+        verify(gitToDropbox, times(2)).execute();
+    }
+
+    @Test
+    void testStopWakesDaemonWaitingForNextRun() throws Exception {
+        // Given - 1回目の同期の後、長い間隔で待機している
+        CountDownLatch firstRun = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstRun.countDown();
+            return null;
+        }).when(dropboxToGit).execute();
+        SyncDaemon daemon = new SyncDaemon(Map.of(SyncDirection.DBX_TO_GIT, dropboxToGit),
+                TimeUnit.HOURS.toMillis(1));
+        Thread thread = new Thread(daemon::run);
+        thread.start();
+        assertTrue(firstRun.await(10, TimeUnit.SECONDS));
+
+        // When
+        daemon.stop();
+
+        // Then - 間隔の経過を待たずに終了する
+        assertTrue(daemon.awaitTermination(10, TimeUnit.SECONDS));
+        thread.join();
+        verify(dropboxToGit, times(1)).execute();
+        verify(gitToDropbox, never()).execute();
+    }
+
+    @Test
+    void testTriggerCollapsesDuplicateRequestsWhileRunning() throws Exception {
+        // Given - 定期実行の最中に同じブランチへのpushが続けて届く
+        SyncDaemon daemon = new SyncDaemon(bothDirections(), TimeUnit.HOURS.toMillis(1));
+        CountDownLatch targetedRun = new CountDownLatch(1);
+        List<Boolean> accepted = new ArrayList<>();
+        doAnswer(invocation -> {
+            accepted.add(daemon.trigger(SyncDirection.GIT_TO_DBX, "dir1"));
+            accepted.add(daemon.trigger(SyncDirection.GIT_TO_DBX, "dir1"));
+            accepted.add(daemon.trigger(SyncDirection.GIT_TO_DBX, "dir2"));
+            return null;
+        }).when(gitToDropbox).execute();
+        doAnswer(invocation -> {
+            if ("dir2".equals(invocation.getArgument(0))) {
+                targetedRun.countDown();
+            }
+            return null;
+        }).when(gitToDropbox).execute(anyString());
+        Thread thread = new Thread(daemon::run);
+
+        // When
+        thread.start();
+        assertTrue(targetedRun.await(10, TimeUnit.SECONDS));
+        daemon.stop();
+        thread.join();
+
+        // Then - 実行中に受けた要求は対象ごとに1回だけ、定期実行の後に実行する
+        assertEquals(List.of(true, false, true), accepted);
+        verify(gitToDropbox, times(1)).execute();
+        verify(gitToDropbox, times(1)).execute("dir1");
+        verify(gitToDropbox, times(1)).execute("dir2");
+    }
+
+    @Test
+    void testStopEndsWaitInsideRunningSync() throws Exception {
+        // Given - 同期処理が変更のまとめのために待機している
+        SyncDaemon daemon = new SyncDaemon(Map.of(SyncDirection.DBX_TO_GIT, dropboxToGit), 60_000);
+        CountDownLatch waiting = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            waiting.countDown();
+            assertTrue(stopped.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(dropboxToGit).execute();
+        doAnswer(invocation -> {
+            stopped.countDown();
+            return null;
+        }).when(dropboxToGit).stop();
+        Thread thread = new Thread(daemon::run);
+
+        // When
+        thread.start();
+        assertTrue(waiting.await(10, TimeUnit.SECONDS));
+        daemon.stop();
+
+        // Then - 実行中の同期処理の待機を打ち切り、同期の完了後に終了する
+        assertTrue(daemon.awaitTermination(10, TimeUnit.SECONDS));
+        thread.join();
+        verify(dropboxToGit).stop();
+        verify(dropboxToGit, times(1)).execute();
+    }
+
+    @Test
+    void testTriggerForWholeDirectionIncludesTargetedRequests() {
+        // Given
+        SyncDaemon daemon = new SyncDaemon(Map.of(SyncDirection.DBX_TO_GIT, dropboxToGit), 60_000);
+
+        // When & Then - 全体の要求の実行待ち中は個別の要求をまとめ、無効な同期方向は受け付けない
+        assertTrue(daemon.trigger(SyncDirection.DBX_TO_GIT, null));
+        assertFalse(daemon.trigger(SyncDirection.DBX_TO_GIT, null));
+        assertFalse(daemon.trigger(SyncDirection.DBX_TO_GIT, "dir1"));
+        assertFalse(daemon.trigger(SyncDirection.GIT_TO_DBX, "dir1"));
+    }
+
+    private Map<SyncDirection, SyncWorkflow> bothDirections() {
+        return Map.of(SyncDirection.DBX_TO_GIT, dropboxToGit, SyncDirection.GIT_TO_DBX, gitToDropbox);
+    }
+}
@@ -6,12 +6,14 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -21,12 +23,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.stubbing.Answer;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.dropbox.ChangeDebouncer;
 import com.db2ghsync.dropbox.CursorService;
 import com.db2ghsync.dropbox.DropboxService;
+import com.db2ghsync.dropbox.ImportChunkHandler;
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.CursorResetException;
 import com.db2ghsync.exception.DropboxSyncException;
 import com.db2ghsync.exception.GithubSyncException;
 import com.db2ghsync.git.GitService;
@@ -55,7 +62,7 @@ class SyncProcessorTest {
     }
 
     @Test
-    void testStartWithNoCursorFetchesAllFiles() throws Exception {
+    void testStartWithNoCursorImportsDirectory() throws Exception {
         // Given
         String targetDir = "/dir1";
         List<String> targetDirs = Arrays.asList(targetDir);
@@ -64,22 +71,193 @@ class SyncProcessorTest {
 
         when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
         when(cursorService.readCursor(targetDir)).thenReturn("");
-        when(dropboxService.getTargetFiles(targetDir)).thenReturn(entries);
+        when(dropboxService.importDirectory(eq(targetDir), any())).thenAnswer(importing(entries.size()));
+        when(gitService.addAndCommit(any())).thenReturn(true);
 
         // When
         syncProcessor.start();
 
         // Then
-        verify(dropboxService).getTargetFiles(targetDir);
+        verify(dropboxService).importDirectory(eq(targetDir), any());
         verify(dropboxService, never()).getChangesWithCursor(anyString(), anyString());
-        verify(dropboxService).downloadFiles(entries);
+        verify(dropboxService, never()).downloadFiles(any());
         verify(gitService).checkoutBranch(targetDir);
-        verify(gitService).addAndCommit();
+        verify(gitService).addAndCommit(any());
         verify(gitService).push();
         verify(gitService).checkoutBranch("main");
         verify(cursorService).writeCursor(targetDir);
     }
 
+    @Test
+    void testStartWithNoCursorAndEmptyImportSkipsGitOperations() throws Exception {
+        // Given
+        String targetDir = "/dir1";
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn("");
+        when(dropboxService.importDirectory(eq(targetDir), any())).thenAnswer(importing(0));
+
+        // When
+        syncProcessor.start();
+
+        // Then
+        verify(gitService, never()).addAndCommit(any());
+        verify(cursorService).writeCursor(targetDir);
+    }
+
+    @Test
+    void testStartWithNoCursorAndExistingBranchRebaselines() throws Exception {
+        // Given
+        String targetDir = "/dir1";
+        List<SyncEntry> differences = Arrays.asList(
+                createSyncEntry("/dir1/file1.txt", "file1.txt", targetDir, SyncAction.CREATE_OR_UPDATE));
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn("");
+        when(gitService.hasBranch(targetDir)).thenReturn(true);
+        when(dropboxService.rebaselineDirectory(targetDir)).thenReturn(differences);
+        when(gitService.addAndCommit(any())).thenReturn(true);
+
+        // When
+        syncProcessor.start();
+
+        // Then - ブランチをチェックアウトしてから比較し、差分のみコミットする
+        InOrder inOrder = inOrder(dropboxService, gitService, cursorService);
+        inOrder.verify(gitService).checkoutBranch(targetDir);
+        inOrder.verify(dropboxService).rebaselineDirectory(targetDir);
+        inOrder.verify(gitService).addAndCommit(any());
+        inOrder.verify(gitService).push();
+        inOrder.verify(gitService).checkoutBranch("main");
+        inOrder.verify(cursorService).writeCursor(targetDir);
+        verify(dropboxService, never()).importDirectory(anyString(), any());
+    }
+
+    @Test
+    void testStartWithImportCheckpointResumesImportOnExistingBranch() throws Exception {
+        // Given - 区切りごとのプッシュでブランチは作成済み
+        String targetDir = "/dir1";
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn("");
+        when(cursorService.readImportCheckpoint(targetDir)).thenReturn("checkpoint");
+        when(dropboxService.importDirectory(eq(targetDir), any())).thenAnswer(invocation -> {
+            ImportChunkHandler handler = invocation.getArgument(1);
+            handler.accept(Collections.emptyList());
+            handler.accept(Collections.emptyList());
+            return 2;
+        });
+        when(gitService.addAndCommit(any())).thenReturn(true);
+
+        // When
+        syncProcessor.start();
+
+        // Then - 差分の比較ではなく取り込みを再開し、区切りごとにコミット・プッシュする
+        verify(gitService, never()).hasBranch(anyString());
+        verify(dropboxService, never()).rebaselineDirectory(anyString());
+        InOrder inOrder = inOrder(dropboxService, gitService, cursorService);
+        inOrder.verify(gitService).checkoutBranch(targetDir);
+        inOrder.verify(dropboxService).importDirectory(eq(targetDir), any());
+        inOrder.verify(gitService, times(2)).push();
+        inOrder.verify(gitService).checkoutBranch("main");
+        inOrder.verify(cursorService).writeCursor(targetDir);
+    }
+
+    @Test
+    void testStartWithUnchangedContentSkipsPush() throws Exception {
+        // Given - メタデータのみの変更で内容が変わらないファイル
+        String targetDir = "/dir1";
+        String cursor = "cursor123";
+        List<SyncEntry> entries = Arrays.asList(
+                createSyncEntry("/dir1/file1.txt", "file1.txt", targetDir, SyncAction.CREATE_OR_UPDATE));
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn(cursor);
+        when(dropboxService.getChangesWithCursor(targetDir, cursor)).thenReturn(entries);
+        when(gitService.addAndCommit(any())).thenReturn(false);
+
+        // When
+        syncProcessor.start();
+
+        // Then - プッシュせずに元のブランチへ戻り、カーソルは確定する
+        verify(gitService).addAndCommit(any());
+        verify(gitService, never()).push();
+        verify(gitService).checkoutBranch("main");
+        verify(cursorService).writeCursor(targetDir);
+    }
+
+    @Test
+    void testStartPushesCommitLeftByFailedPushOnRerun() throws Exception {
+        // Given - 1回目はコミット後にプッシュが失敗し、2回目は同じ変更を取得し直す
+        String targetDir = "/dir1";
+        String cursor = "cursor123";
+        List<SyncEntry> entries = Arrays.asList(
+                createSyncEntry("/dir1/file1.txt", "file1.txt", targetDir, SyncAction.CREATE_OR_UPDATE));
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn(cursor);
+        when(dropboxService.getChangesWithCursor(targetDir, cursor)).thenReturn(entries);
+        when(gitService.addAndCommit(any())).thenReturn(true, false);
+        when(gitService.hasUnpushedCommits(targetDir)).thenReturn(true);
+        doThrow(new GithubSyncException("push failed")).doNothing().when(gitService).push();
+
+        // When
+        assertThrows(GithubSyncException.class, () -> syncProcessor.start());
+        syncProcessor.start();
+
+        // Then - 内容は変わらなくても未プッシュのコミットをプッシュしてからカーソルを確定する
+        verify(gitService, times(2)).push();
+        verify(cursorService, times(1)).writeCursor(targetDir);
+        InOrder inOrder = inOrder(gitService, cursorService);
+        inOrder.verify(gitService).hasUnpushedCommits(targetDir);
+        inOrder.verify(gitService).push();
+        inOrder.verify(cursorService).writeCursor(targetDir);
+    }
+
+    @Test
+    void testStartWithContentMatchingBranchSkipsCheckout() throws Exception {
+        // Given - ダウンロードした内容がプッシュ済みのブランチと同じ
+        String targetDir = "/dir1";
+        String cursor = "cursor123";
+        List<SyncEntry> entries = Arrays.asList(
+                createSyncEntry("/dir1/file1.txt", "file1.txt", targetDir, SyncAction.CREATE_OR_UPDATE));
+        List<DownloadedFile> downloaded = Arrays.asList(
+                new DownloadedFile("/dir1/file1.txt", Paths.get("file1.txt"), null, "blob", 1));
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn(cursor);
+        when(dropboxService.getChangesWithCursor(targetDir, cursor)).thenReturn(entries);
+        when(dropboxService.downloadFiles(entries)).thenReturn(downloaded);
+        when(gitService.discardUnchanged(targetDir, downloaded)).thenReturn(true);
+
+        // When
+        syncProcessor.start();
+
+        // Then - ブランチを切り替えずに完了し、カーソルは確定する
+        verify(gitService, never()).checkoutBranch(anyString());
+        verify(gitService, never()).addAndCommit(any());
+        verify(gitService, never()).push();
+        verify(cursorService).writeCursor(targetDir);
+    }
+
+    @Test
+    void testStartWithRebaselineWithoutDifferencesSkipsCommit() throws Exception {
+        // Given
+        String targetDir = "/dir1";
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn("");
+        when(gitService.hasBranch(targetDir)).thenReturn(true);
+        when(dropboxService.rebaselineDirectory(targetDir)).thenReturn(Collections.emptyList());
+
+        // When
+        syncProcessor.start();
+
+        // Then
+        verify(gitService, never()).addAndCommit(any());
+        verify(gitService).checkoutBranch("main");
+        verify(cursorService).writeCursor(targetDir);
+    }
+
     @Test
     void testStartWithCursorFetchesChangesOnly() throws Exception {
         // Given
@@ -92,21 +270,54 @@ class SyncProcessorTest {
         when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
         when(cursorService.readCursor(targetDir)).thenReturn(cursor);
         when(dropboxService.getChangesWithCursor(targetDir, cursor)).thenReturn(entries);
+        when(gitService.addAndCommit(any())).thenReturn(true);
 
         // When
         syncProcessor.start();
 
         // Then
-        verify(dropboxService, never()).getTargetFiles(anyString());
+        verify(dropboxService, never()).importDirectory(anyString(), any());
         verify(dropboxService).getChangesWithCursor(targetDir, cursor);
         verify(dropboxService).downloadFiles(entries);
         verify(gitService).checkoutBranch(targetDir);
-        verify(gitService).addAndCommit();
+        verify(gitService).addAndCommit(any());
         verify(gitService).push();
         verify(gitService).checkoutBranch("main");
         verify(cursorService).writeCursor(targetDir);
     }
 
+    @Test
+    void testStartRebaselinesOnlyDirectoryWithResetCursor() throws Exception {
+        // Given
+        String dir1 = "/dir1";
+        String dir2 = "/dir2";
+        List<SyncEntry> differences = Arrays.asList(
+                createSyncEntry("/dir1/file1.txt", "file1.txt", dir1, SyncAction.CREATE_OR_UPDATE));
+        List<SyncEntry> entries2 = Arrays.asList(
+                createSyncEntry("/dir2/file2.txt", "file2.txt", dir2, SyncAction.CREATE_OR_UPDATE));
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(dir1, dir2));
+        when(cursorService.readCursor(dir1)).thenReturn("expired");
+        when(cursorService.readCursor(dir2)).thenReturn("cursor2");
+        when(dropboxService.getChangesWithCursor(dir1, "expired"))
+                .thenThrow(new CursorResetException("reset", null));
+        when(dropboxService.getChangesWithCursor(dir2, "cursor2")).thenReturn(entries2);
+        when(gitService.hasBranch(dir1)).thenReturn(true);
+        when(dropboxService.rebaselineDirectory(dir1)).thenReturn(differences);
+        when(gitService.addAndCommit(any())).thenReturn(true);
+
+        // When
+        syncProcessor.start();
+
+        // Then - リセットされたディレクトリは一覧し直し、他のディレクトリは通常どおり処理する
+        verify(dropboxService).rebaselineDirectory(dir1);
+        verify(dropboxService, never()).downloadFiles(differences);
+        verify(dropboxService).downloadFiles(entries2);
+        verify(gitService, times(2)).addAndCommit(any());
+        verify(cursorService).writeCursor(dir1);
+        verify(cursorService).writeCursor(dir2);
+    }
+
     @Test
     void testStartWithNoChangesSkipsGitOperations() throws Exception {
         // Given
@@ -124,7 +335,7 @@ class SyncProcessorTest {
         // Then
         verify(dropboxService, never()).downloadFiles(any());
         verify(gitService, never()).checkoutBranch(targetDir);
-        verify(gitService, never()).addAndCommit();
+        verify(gitService, never()).addAndCommit(any());
         verify(gitService, never()).push();
         verify(cursorService).writeCursor(targetDir);
     }
@@ -143,19 +354,20 @@ class SyncProcessorTest {
         when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
         when(cursorService.readCursor(dir1)).thenReturn("");
         when(cursorService.readCursor(dir2)).thenReturn("cursor2");
-        when(dropboxService.getTargetFiles(dir1)).thenReturn(entries1);
+        when(dropboxService.importDirectory(eq(dir1), any())).thenAnswer(importing(entries1.size()));
         when(dropboxService.getChangesWithCursor(dir2, "cursor2")).thenReturn(entries2);
+        when(gitService.addAndCommit(any())).thenReturn(true);
 
         // When
         syncProcessor.start();
 
         // Then
-        verify(dropboxService).getTargetFiles(dir1);
+        verify(dropboxService).importDirectory(eq(dir1), any());
         verify(dropboxService).getChangesWithCursor(dir2, "cursor2");
-        verify(dropboxService).downloadFiles(entries1);
+        verify(dropboxService, never()).downloadFiles(entries1);
         verify(dropboxService).downloadFiles(entries2);
         verify(gitService, times(4)).checkoutBranch(anyString());
-        verify(gitService, times(2)).addAndCommit();
+        verify(gitService, times(2)).addAndCommit(any());
         verify(gitService, times(2)).push();
         verify(cursorService).writeCursor(dir1);
         verify(cursorService).writeCursor(dir2);
@@ -171,7 +383,8 @@ class SyncProcessorTest {
 
         when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
         when(cursorService.readCursor(targetDir)).thenReturn("");
-        when(dropboxService.getTargetFiles(targetDir)).thenReturn(entries);
+        when(dropboxService.importDirectory(eq(targetDir), any())).thenAnswer(importing(entries.size()));
+        when(gitService.addAndCommit(any())).thenReturn(true);
 
         // When
         syncProcessor.start();
@@ -181,13 +394,129 @@ class SyncProcessorTest {
         inOrder.verify(dropboxService).getTargetDirectories();
         inOrder.verify(gitService).cloneOrOpenRepository();
         inOrder.verify(cursorService).readCursor(targetDir);
-        inOrder.verify(dropboxService).getTargetFiles(targetDir);
-        inOrder.verify(dropboxService).downloadFiles(entries);
         inOrder.verify(gitService).checkoutBranch(targetDir);
-        inOrder.verify(gitService).addAndCommit();
+        inOrder.verify(dropboxService).importDirectory(eq(targetDir), any());
+        inOrder.verify(gitService).addAndCommit(any());
         inOrder.verify(gitService).push();
         inOrder.verify(gitService).checkoutBranch("main");
         inOrder.verify(cursorService).writeCursor(targetDir);
+        inOrder.verify(gitService).runMaintenance();
+    }
+
+    @Test
+    void testStartCommitsDebouncedChangesOnce() throws Exception {
+        // Given - 検知後の待機中に同じファイルが再度保存される
+        String targetDir = "/dir1";
+        String cursor = "cursor123";
+        SyncEntry firstSave = createSyncEntry("/dir1/book.xlsx", "book.xlsx", targetDir, SyncAction.CREATE_OR_UPDATE);
+        SyncEntry secondSave = createSyncEntry("/dir1/book.xlsx", "book.xlsx", targetDir, SyncAction.CREATE_OR_UPDATE);
+        ChangeDebouncer changeDebouncer = mock(ChangeDebouncer.class);
+        syncProcessor = new SyncProcessor(dropboxService, gitService, cursorService, changeDebouncer);
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn(cursor);
+        when(dropboxService.getChangesWithCursor(targetDir, cursor)).thenReturn(Arrays.asList(firstSave));
+        when(changeDebouncer.collect(targetDir, Arrays.asList(firstSave)))
+                .thenReturn(Arrays.asList(firstSave, secondSave));
+        when(gitService.addAndCommit(any())).thenReturn(true);
+
+        // When
+        syncProcessor.start();
+
+        // Then - まとめた変更を1回でダウンロード・コミット・プッシュする
+        verify(dropboxService).downloadFiles(Arrays.asList(secondSave));
+        verify(gitService, times(1)).addAndCommit(any());
+        verify(gitService, times(1)).push();
+        verify(cursorService).writeCursor(targetDir);
+    }
+
+    @Test
+    void testStartDiscardsFetchedChangesWhenCursorIsResetWhileDebouncing() throws Exception {
+        // Given - 最初の取得は成功し、待機中の続きの取得でカーソルが無効化される
+        String targetDir = "/dir1";
+        String cursor = "cursor123";
+        List<SyncEntry> firstBatch = Arrays.asList(
+                createSyncEntry("/dir1/book.xlsx", "book.xlsx", targetDir, SyncAction.CREATE_OR_UPDATE));
+        ChangeDebouncer changeDebouncer = mock(ChangeDebouncer.class);
+        syncProcessor = new SyncProcessor(dropboxService, gitService, cursorService, changeDebouncer);
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn(cursor);
+        when(dropboxService.getChangesWithCursor(targetDir, cursor)).thenReturn(firstBatch);
+        when(changeDebouncer.collect(targetDir, firstBatch)).thenThrow(new CursorResetException("reset", null));
+        when(gitService.hasBranch(targetDir)).thenReturn(true);
+        when(dropboxService.rebaselineDirectory(targetDir)).thenReturn(Collections.emptyList());
+
+        // When
+        syncProcessor.start();
+
+        // Then - 一覧し直した内容のみを反映し、取得済みの古い変更はダウンロードしない
+        verify(dropboxService).rebaselineDirectory(targetDir);
+        verify(dropboxService, never()).downloadFiles(any());
+        verify(gitService, never()).addAndCommit(any());
+        verify(cursorService).writeCursor(targetDir);
+    }
+
+    @Test
+    void testStartDownloadsCoalescedEntries() throws Exception {
+        // Given
+        String targetDir = "/dir1";
+        String cursor = "cursor123";
+        SyncEntry firstSave = createSyncEntry("/dir1/a.txt", "a.txt", targetDir, SyncAction.CREATE_OR_UPDATE);
+        SyncEntry deleted = createSyncEntry("/dir1/b.txt", "b.txt", targetDir, SyncAction.DELETE);
+        SyncEntry lastSave = createSyncEntry("/dir1/a.txt", "a.txt", targetDir, SyncAction.CREATE_OR_UPDATE);
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn(cursor);
+        when(dropboxService.getChangesWithCursor(targetDir, cursor))
+                .thenReturn(Arrays.asList(firstSave, deleted, lastSave));
+
+        // When
+        syncProcessor.start();
+
+        // Then
+        verify(dropboxService).downloadFiles(Arrays.asList(deleted, lastSave));
+    }
+
+    @Test
+    void testStartPassesDownloadedFilesToCommit() throws Exception {
+        // Given
+        String targetDir = "/dir1";
+        List<SyncEntry> entries = Arrays.asList(
+                createSyncEntry("/dir1/file1.txt", "file1.txt", targetDir, SyncAction.CREATE_OR_UPDATE));
+        List<DownloadedFile> downloaded = Arrays.asList(
+                new DownloadedFile("/dir1/file1.txt", Paths.get("repo/file1.txt"), "hash", "blob", 1L));
+
+        when(dropboxService.getTargetDirectories()).thenReturn(Arrays.asList(targetDir));
+        when(cursorService.readCursor(targetDir)).thenReturn("cursor123");
+        when(dropboxService.getChangesWithCursor(targetDir, "cursor123")).thenReturn(entries);
+        when(dropboxService.downloadFiles(entries)).thenReturn(downloaded);
+        when(gitService.addAndCommit(any())).thenReturn(true);
+
+        // When
+        syncProcessor.start();
+
+        // Then - ダウンロード時に作成したブロブをステージに利用する
+        verify(gitService).addAndCommit(downloaded);
+    }
+
+    @Test
+    void testStartIgnoresMaintenanceFailure() throws Exception {
+        // Given
+        String targetDir = "/dir1";
+        List<String> targetDirs = Arrays.asList(targetDir);
+
+        when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
+        when(cursorService.readCursor(targetDir)).thenReturn("cursor123");
+        when(dropboxService.getChangesWithCursor(targetDir, "cursor123")).thenReturn(Collections.emptyList());
+        doThrow(new GithubSyncException("gc error")).when(gitService).runMaintenance();
+
+        // When
+        syncProcessor.start();
+
+        // Then
+        verify(cursorService).writeCursor(targetDir);
+        verify(gitService).runMaintenance();
     }
 
     @Test
@@ -198,7 +527,7 @@ class SyncProcessorTest {
 
         when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
         when(cursorService.readCursor(targetDir)).thenReturn("");
-        when(dropboxService.getTargetFiles(targetDir))
+        when(dropboxService.importDirectory(eq(targetDir), any()))
                 .thenThrow(new DropboxSyncException("Dropbox error"));
 
         // When & Then
@@ -210,12 +539,9 @@ class SyncProcessorTest {
         // Given
         String targetDir = "/dir1";
         List<String> targetDirs = Arrays.asList(targetDir);
-        List<SyncEntry> entries = Arrays.asList(
-                createSyncEntry("/dir1/file1.txt", "file1.txt", targetDir, SyncAction.CREATE_OR_UPDATE));
 
         when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
         when(cursorService.readCursor(targetDir)).thenReturn("");
-        when(dropboxService.getTargetFiles(targetDir)).thenReturn(entries);
         doThrow(new GithubSyncException("Git error"))
                 .when(gitService).checkoutBranch(targetDir);
 
@@ -247,7 +573,7 @@ class SyncProcessorTest {
 
         when(dropboxService.getTargetDirectories()).thenReturn(targetDirs);
         when(cursorService.readCursor(targetDir)).thenReturn("");
-        when(dropboxService.getTargetFiles(targetDir)).thenReturn(entries);
+        when(dropboxService.importDirectory(eq(targetDir), any())).thenAnswer(importing(entries.size()));
 
         // When
         syncProcessor.start();
@@ -256,6 +582,19 @@ class SyncProcessorTest {
         verify(gitService, times(1)).cloneOrOpenRepository();
     }
 
+    /**
+     * 取り込んだファイルがある場合に、反映処理を1回呼び出して件数を返す。
+     */
+    private static Answer<Integer> importing(int importedFiles) {
+        return invocation -> {
+            if (importedFiles > 0) {
+                ImportChunkHandler handler = invocation.getArgument(1);
+                handler.accept(Collections.emptyList());
+            }
+            return importedFiles;
+        };
+    }
+
     private SyncEntry createSyncEntry(String dropboxPath, String name, String subDirectoryKey,
             SyncAction action) {
         return new SyncEntry(dropboxPath, name, subDirectoryKey, action);
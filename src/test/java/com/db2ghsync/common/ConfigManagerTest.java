@@ -173,6 +173,49 @@ class ConfigManagerTest {
         assertEquals("", config.getDropboxAccessToken());
     }
 
+    @Test
+    void testLoadConfigWithMaintenanceThresholds() throws IOException {
+        // Given
+        try (FileWriter writer = new FileWriter(validConfigPath, true)) {
+            writer.write("git.gc.loose.object.threshold=100\n");
+            writer.write("git.gc.pack.threshold=\n");
+        }
+
+        // When
+        ConfigManager.loadConfig(validConfigPath);
+        AppConfig config = ConfigManager.getAppConfig();
+
+        // Then
+        assertEquals(100, config.getGitGcLooseObjectThreshold());
+        assertEquals(50, config.getGitGcPackThreshold());
+    }
+
+    @Test
+    void testLoadConfigWithImportCheckpointBytesBeyondIntRange() throws IOException {
+        // Given - 8GiBの区切り
+        try (FileWriter writer = new FileWriter(validConfigPath, true)) {
+            writer.write("import.checkpoint.bytes=8589934592\n");
+        }
+
+        // When
+        ConfigManager.loadConfig(validConfigPath);
+        AppConfig config = ConfigManager.getAppConfig();
+
+        // Then
+        assertEquals(8L * 1024 * 1024 * 1024, config.getImportCheckpointBytes());
+    }
+
+    @Test
+    void testLoadConfigWithInvalidIntegerThrowsException() throws IOException {
+        // Given
+        try (FileWriter writer = new FileWriter(validConfigPath, true)) {
+            writer.write("git.gc.pack.threshold=many\n");
+        }
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> ConfigManager.loadConfig(validConfigPath));
+    }
+
     private String createValidConfigFile() throws IOException {
         File configFile = tempDir.resolve("config.properties").toFile();
         try (FileWriter writer = new FileWriter(configFile)) {
@@ -0,0 +1,75 @@
+package com.db2ghsync.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 大量の一覧に対する拡張子判定について、拡張子ごとにendsWithを繰り返す従来のループと
+ * FileMatcherの逆順トライを比較するベンチマーク。
+ * <p>
+ * 実行方法: {@code gradle benchmark --tests '*FileMatcherBenchmark'}
+ */
+@Tag("benchmark")
+class FileMatcherBenchmark {
+
+    private static final int ENTRY_COUNT = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    private static final List<String> EXTENSIONS = List.of(".zip", ".java", ".xlsx", ".xlsm", ".png", ".txt",
+            ".md", ".pdf", ".docx", ".pptx", ".csv", ".json", ".xml", ".yml", ".yaml", ".properties", ".sql",
+            ".html", ".css", ".js", ".ts", ".svg", ".jpg", ".gif", ".bmp", ".tsv", ".log", ".ini", ".bat", ".sh");
+
+    private static final String[] LISTED = { ".txt", ".sh", ".dat", ".bin", ".JPG", ".tmp", ".xlsm", ".o" };
+
+    @Test
+    void benchmarkExtensionMatchingOverLargeListing() {
+        List<String> paths = new ArrayList<>(ENTRY_COUNT);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            paths.add("project" + (i % 50) + "/folder" + (i % 2000) + "/file_" + i + LISTED[i % LISTED.length]);
+        }
+        FileMatcher matcher = FileMatcher.ofExtensions(EXTENSIONS);
+
+        long loopNanos = Long.MAX_VALUE;
+        long matcherNanos = Long.MAX_VALUE;
+        int loopCount = 0;
+        int matcherCount = 0;
+        // JITの最適化が落ち着くまで繰り返し、最速の回を採用する
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            loopCount = 0;
+            for (String path : paths) {
+                if (matchByLoop(path)) {
+                    loopCount++;
+                }
+            }
+            loopNanos = Math.min(loopNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            matcherCount = 0;
+            for (String path : paths) {
+                if (matcher.matches(path)) {
+                    matcherCount++;
+                }
+            }
+            matcherNanos = Math.min(matcherNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("%d paths, %d extensions: loop=%d ms, matcher=%d ms (%d matched)%n",
+                ENTRY_COUNT, EXTENSIONS.size(), loopNanos / 1_000_000, matcherNanos / 1_000_000, matcherCount);
+        assertEquals(loopCount, matcherCount);
+    }
+
+    private static boolean matchByLoop(String path) {
+        for (String extension : EXTENSIONS) {
+            if (path.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
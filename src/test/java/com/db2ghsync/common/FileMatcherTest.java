@@ -0,0 +1,63 @@
+package com.db2ghsync.common;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * FileMatcherクラスのテスト。
+ * 拡張子・glob・ディレクトリの接頭辞の組み合わせで対象を判定できることを検証する。
+ */
+class FileMatcherTest {
+
+    @Test
+    void testExtensionsMatchSuffixCaseSensitively() {
+        // Given
+        FileMatcher matcher = FileMatcher.ofExtensions(List.of(".txt", ".tar.gz", ".xlsx", ".xlsm"));
+
+        // Then
+        assertTrue(matcher.matches("a.txt"));
+        assertTrue(matcher.matches("sub/archive.tar.gz"));
+        assertTrue(matcher.matches("book.xlsm"));
+        assertFalse(matcher.matches("archive.gz"));
+        assertFalse(matcher.matches("a.TXT"));
+        assertFalse(matcher.matches("txt"));
+        assertFalse(FileMatcher.ofExtensions(List.of()).matches("a.txt"));
+    }
+
+    @Test
+    void testIncludeAndExcludeGlobs() {
+        // Given
+        FileMatcher matcher = new FileMatcher.Builder()
+                .extensions(List.of(".txt"))
+                .includeGlobs(List.of("docs/**", "*.{csv,tsv}"))
+                .excludeGlobs(List.of("**/tmp/**", "~$*", "draft?.txt"))
+                .build();
+
+        // Then - 拡張子またはincludeに一致し、excludeに一致しないもの
+        assertTrue(matcher.matches("a.txt"));
+        assertTrue(matcher.matches("docs/design/spec.pdf"));
+        assertTrue(matcher.matches("data/2024/table.tsv"));
+        assertFalse(matcher.matches("image.png"));
+        assertFalse(matcher.matches("work/tmp/a.txt"));
+        assertFalse(matcher.matches("sub/~$book.txt"));
+        assertFalse(matcher.matches("sub/draft1.txt"));
+        assertTrue(matcher.matches("sub/draft10.txt"));
+    }
+
+    @Test
+    void testDirectoryPrefixes() {
+        // Given - 先頭の"/"と末尾の"/"の有無は問わない
+        FileMatcher matcher = new FileMatcher.Builder().prefixes(List.of("/review", "docs/")).build();
+
+        // Then
+        assertTrue(matcher.matches("review/file1.txt"));
+        assertTrue(matcher.matches("docs/a/b.md"));
+        assertFalse(matcher.matches("reviewer/file1.txt"));
+        assertFalse(matcher.matches("other/file2.txt"));
+        assertTrue(new FileMatcher.Builder().prefixes(List.of("/")).build().matches("any/file.txt"));
+    }
+}
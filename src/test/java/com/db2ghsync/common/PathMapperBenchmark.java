@@ -0,0 +1,86 @@
+package com.db2ghsync.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ファイルごとに行うパス変換について、正規表現・splitを使う従来の処理とPathMapperを比較するベンチマーク。
+ * <p>
+ * 実行方法: {@code gradle benchmark --tests '*PathMapperBenchmark'}
+ */
+@Tag("benchmark")
+class PathMapperBenchmark {
+
+    private static final int ENTRY_COUNT = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    private final List<String> repoPaths = new ArrayList<>(ENTRY_COUNT);
+    private final List<String> dropboxPaths = new ArrayList<>(ENTRY_COUNT);
+
+    PathMapperBenchmark() {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            repoPaths.add("review/project" + (i % 50) + "/folder" + (i % 2000) + "/file_" + i + ".txt");
+            dropboxPaths.add("/dir" + (i % 4) + "/project" + (i % 50) + "/file_" + i + ".txt");
+        }
+    }
+
+    @Test
+    void benchmarkNormalize() {
+        compare("normalize", repoPaths,
+                path -> path.replace("\\", "/").replaceAll("//+", "/").replaceFirst("^/", ""),
+                PathMapper::normalize);
+    }
+
+    @Test
+    void benchmarkFirstSegment() {
+        compare("firstSegment", dropboxPaths,
+                path -> {
+                    String[] parts = path.split("/");
+                    return parts.length > 1 ? parts[1] : "";
+                },
+                PathMapper::firstSegment);
+    }
+
+    @Test
+    void benchmarkToDropboxPath() {
+        compare("toDropboxPath", repoPaths,
+                path -> "/" + "feature".replace("\\", "/").replaceAll("//+", "/").replaceFirst("^/", "") + "/"
+                        + path.replace("\\", "/"),
+                path -> PathMapper.toDropboxPath("feature", path));
+    }
+
+    private static void compare(String name, List<String> paths, Function<String, String> legacy,
+            Function<String, String> mapper) {
+        long legacyNanos = Long.MAX_VALUE;
+        long mapperNanos = Long.MAX_VALUE;
+        // JITの最適化が落ち着くまで繰り返し、最速の回を採用する
+        for (int round = 0; round < ROUNDS; round++) {
+            legacyNanos = Math.min(legacyNanos, measure(paths, legacy));
+            mapperNanos = Math.min(mapperNanos, measure(paths, mapper));
+        }
+        for (int i = 0; i < paths.size(); i += 1000) {
+            assertEquals(legacy.apply(paths.get(i)), mapper.apply(paths.get(i)));
+        }
+        System.out.printf("%s, %d paths: legacy=%d ms, mapper=%d ms%n",
+                name, paths.size(), legacyNanos / 1_000_000, mapperNanos / 1_000_000);
+    }
+
+    private static long measure(List<String> paths, Function<String, String> function) {
+        long start = System.nanoTime();
+        int length = 0;
+        for (String path : paths) {
+            length += function.apply(path).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (length < 0) {
+            throw new IllegalStateException();
+        }
+        return elapsed;
+    }
+}
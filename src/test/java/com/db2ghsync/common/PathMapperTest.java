@@ -0,0 +1,118 @@
+package com.db2ghsync.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PathMapperクラスのテスト。
+ * 正規化の結果が従来の置換処理と一致し、各方向のパスの対応付けが行えることを検証する。
+ */
+class PathMapperTest {
+
+    @Test
+    void testNormalizeMatchesRegexBasedNormalization() {
+        // Given
+        String[] paths = { "review/file1.txt", "/review/file1.txt", "//review//sub\\\\a.txt", "\\dir\\b.txt",
+                "review/", "", "/", "a//", "x" };
+
+        for (String path : paths) {
+            // When
+            String normalized = PathMapper.normalize(path);
+
+            // Then
+            assertEquals(path.replace("\\", "/").replaceAll("//+", "/").replaceFirst("^/", ""), normalized, path);
+        }
+    }
+
+    @Test
+    void testNormalizedPathIsReturnedAsIs() {
+        // Given
+        String path = "review/sub/file1.txt";
+
+        // Then - 変換不要な場合は新しい文字列を生成しない
+        assertSame(path, PathMapper.normalize(path));
+    }
+
+    @Test
+    void testDirectoryBranchAndDropboxMappings() {
+        // Given
+        Path repoRoot = Paths.get("repo");
+
+        // Then - Dropbox -> ブランチ・ローカル
+        assertEquals("dir1", PathMapper.firstSegment("/dir1/sub/a.txt"));
+        assertEquals("", PathMapper.firstSegment("dir1/a.txt"));
+        assertEquals("", PathMapper.firstSegment(null));
+        assertEquals("sub/a.txt", PathMapper.stripFirstSegment("/dir1/sub/a.txt"));
+        assertEquals("dir1", PathMapper.toBranchName("/dir1"));
+        assertEquals(repoRoot.resolve("sub/a.txt"), PathMapper.toLocalPath("/dir1/sub/a.txt", repoRoot));
+
+        // Then - ブランチ・ローカル -> Dropbox
+        assertEquals("/dir1", PathMapper.toDirectory("dir1"));
+        assertEquals("/feature/review/a.txt", PathMapper.toDropboxPath("/feature", "review\\a.txt"));
+        assertEquals("sub/a.txt", PathMapper.toRelativePath(repoRoot, repoRoot.resolve("sub").resolve("a.txt")));
+    }
+
+    @Test
+    void testManagedLocalPathExcludesRepositoryRootAndGitDirectory() {
+        // Given
+        Path repoRoot = Paths.get("repo").toAbsolutePath();
+
+        // Then - 同期対象のファイル・フォルダのみ変換する
+        assertEquals(repoRoot.resolve("sub/a.txt"), PathMapper.toManagedLocalPath("/dir1/sub/a.txt", repoRoot));
+        assertEquals(repoRoot.resolve(".github"), PathMapper.toManagedLocalPath("/dir1/.github", repoRoot));
+        assertNull(PathMapper.toManagedLocalPath("/dir1", repoRoot));
+        assertNull(PathMapper.toManagedLocalPath("/dir1/", repoRoot));
+        assertNull(PathMapper.toManagedLocalPath("/dir1/.git", repoRoot));
+        assertNull(PathMapper.toManagedLocalPath("/dir1/.GIT/config", repoRoot));
+        assertNull(PathMapper.toManagedLocalPath("/dir1/sub/../.git/index", repoRoot));
+        assertNull(PathMapper.toManagedLocalPath("/dir1/../outside.txt", repoRoot));
+    }
+
+    @Test
+    void testDirectoryNamesAreShared() {
+        // Given
+        String first = PathMapper.firstSegment("/shared_dir/a.txt");
+
+        // When
+        String second = PathMapper.firstSegment("/shared_dir/b.txt");
+
+        // Then
+        assertSame(first, second);
+        assertSame(first, PathMapper.toBranchName("/shared_dir"));
+    }
+
+    @Test
+    void testDirectoryNamesAreSharedAcrossThreads() throws Exception {
+        // Given - 同じ名前を複数のスレッドから同時に初めて登録する
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> tasks = IntStream.range(0, 64)
+                    .mapToObj(i -> (Callable<String>) () -> PathMapper.firstSegment("/concurrent_dir/f" + i + ".txt"))
+                    .collect(Collectors.toList());
+
+            // When
+            List<Future<String>> results = executor.invokeAll(tasks);
+
+            // Then - 全てのスレッドが同じインスタンスを受け取る
+            String expected = PathMapper.toBranchName("/concurrent_dir");
+            for (Future<String> result : results) {
+                assertSame(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
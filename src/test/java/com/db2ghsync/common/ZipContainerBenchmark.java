@@ -0,0 +1,150 @@
+package com.db2ghsync.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.io.CountingOutputStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.git.GitRepositoryManager;
+
+/**
+ * 小さな編集を繰り返したzipコンテナについて、リポジトリの増加量とプッシュ量を比較するベンチマーク。
+ * 圧縮されたまま格納する場合と、ZipContainerNormalizerで無圧縮に正規化する場合を比較する。
+ * <p>
+ * 実行方法: {@code gradle benchmark}
+ */
+@Tag("benchmark")
+class ZipContainerBenchmark {
+
+    private static final int EDIT_COUNT = 10;
+    private static final int ROW_COUNT = 40_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkRepositoryGrowthOverEdits() throws Exception {
+        long[] raw = measure("raw", false);
+        long[] normalized = measure("normalized", true);
+
+        System.out.printf("Zip container, %d edits: raw push=%d bytes, repo=%d bytes / "
+                + "normalized push=%d bytes, repo=%d bytes%n",
+                EDIT_COUNT, raw[0], raw[1], normalized[0], normalized[1]);
+    }
+
+    /**
+     * @return [プッシュで送信したパックサイズの合計, gc後のローカルリポジトリのオブジェクト量]
+     */
+    private long[] measure(String name, boolean normalize) throws Exception {
+        Path remote = tempDir.resolve(name + "-remote.git");
+        Path local = tempDir.resolve(name + "-local");
+        Git.init().setBare(true).setDirectory(remote.toFile()).setInitialBranch("main").call().close();
+        Git.init().setDirectory(local.toFile()).setInitialBranch("main").call().close();
+
+        GitRepositoryManager manager = new GitRepositoryManager(new AppConfig.Builder()
+                .githubPat("pat")
+                .githubUsername("user")
+                .githubRemoteUrl(remote.toString())
+                .localRepoPath(local.toString())
+                .cursorFilePath(tempDir.resolve("cursor").toString())
+                .targetFileExtensions(Arrays.asList(".xlsx"))
+                .targetDirectories(Arrays.asList("/dir1"))
+                .syncTargetDir("review")
+                .zipNormalizeExtensions(normalize ? Arrays.asList(".xlsx") : Arrays.asList())
+                .build());
+
+        long pushedBytes = 0L;
+        ObjectId remoteHead = null;
+        try (Git git = Git.open(local.toFile())) {
+            git.remoteAdd().setName("origin").setUri(new URIish(remote.toString()))
+                    .call();
+            Random random = new Random(42L);
+            int[] values = new int[ROW_COUNT];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(1_000_000);
+            }
+
+            for (int edit = 0; edit <= EDIT_COUNT; edit++) {
+                values[random.nextInt(values.length)] = random.nextInt(1_000_000);
+                Path book = local.resolve("book.xlsx");
+                writeWorkbook(book, values);
+                if (normalize) {
+                    ZipContainerNormalizer.normalize(book);
+                }
+                git.add().addFilepattern(".").call();
+                ObjectId head = git.commit().setMessage("edit " + edit).setSign(false).call().getId();
+
+                pushedBytes += packSize(git.getRepository(), remoteHead, head);
+                manager.push();
+                remoteHead = head;
+            }
+            git.gc().call();
+        }
+        return new long[] { pushedBytes, directorySize(local.resolve(".git/objects")) };
+    }
+
+    /**
+     * プッシュで送信されるthin packのサイズを計算する。
+     */
+    private long packSize(Repository repository, ObjectId have, ObjectId want) throws IOException {
+        PackConfig packConfig = new PackConfig(repository);
+        try (ObjectReader reader = repository.newObjectReader();
+                PackWriter writer = new PackWriter(packConfig, reader)) {
+            writer.setThin(true);
+            writer.preparePack(NullProgressMonitor.INSTANCE, Set.of(want),
+                    have != null ? Set.of(have) : Set.of());
+            CountingOutputStream out = new CountingOutputStream(OutputStream.nullOutputStream());
+            writer.writePack(NullProgressMonitor.INSTANCE, NullProgressMonitor.INSTANCE, out);
+            return out.getCount();
+        }
+    }
+
+    private void writeWorkbook(Path file, int[] values) throws IOException {
+        StringBuilder sheet = new StringBuilder("<worksheet><sheetData>");
+        for (int i = 0; i < values.length; i++) {
+            sheet.append("<row r=\"").append(i + 1).append("\"><c t=\"n\"><v>")
+                    .append(values[i]).append("</v></c></row>");
+        }
+        sheet.append("</sheetData></worksheet>");
+
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zipOut = new ZipOutputStream(out)) {
+            writeEntry(zipOut, "[Content_Types].xml", "<Types/>");
+            writeEntry(zipOut, "xl/workbook.xml", "<workbook/>");
+            writeEntry(zipOut, "xl/worksheets/sheet1.xml", sheet.toString());
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zipOut, String name, String content) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(0L);
+        zipOut.putNextEntry(entry);
+        zipOut.write(content.getBytes(StandardCharsets.UTF_8));
+        zipOut.closeEntry();
+    }
+
+    private long directorySize(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.db2ghsync.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ZipContainerNormalizerクラスのテスト。
+ * 正規化・再圧縮でエントリと内容が保たれることを検証する。
+ */
+class ZipContainerNormalizerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testNormalizeStoresAllEntriesUncompressed() throws IOException {
+        // Given
+        Path file = tempDir.resolve("book.xlsx");
+        Map<String, String> entries = createEntries();
+        writeZip(file, entries);
+
+        // When
+        ZipContainerNormalizer.normalize(file);
+
+        // Then
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+            }
+        }
+        assertEquals(entries, readZip(file));
+        assertEquals(new ArrayList<>(entries.keySet()), new ArrayList<>(readZip(file).keySet()));
+    }
+
+    @Test
+    void testRebuildRestoresCompressedContainerWithSameEntries() throws IOException {
+        // Given
+        Path file = tempDir.resolve("book.xlsx");
+        Map<String, String> entries = createEntries();
+        writeZip(file, entries);
+        ZipContainerNormalizer.normalize(file);
+        Path rebuilt = tempDir.resolve("rebuilt.xlsx");
+
+        // When
+        ZipContainerNormalizer.rebuild(file, rebuilt);
+
+        // Then
+        try (ZipFile zipFile = new ZipFile(rebuilt.toFile())) {
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                int expected = "mimetype".equals(entry.getName()) ? ZipEntry.STORED : ZipEntry.DEFLATED;
+                assertEquals(expected, entry.getMethod());
+            }
+        }
+        assertEquals(entries, readZip(rebuilt));
+        assertEquals(new ArrayList<>(entries.keySet()), new ArrayList<>(readZip(rebuilt).keySet()));
+    }
+
+    @Test
+    void testNormalizeLeavesNonZipFileUntouched() throws IOException {
+        // Given
+        Path file = tempDir.resolve("broken.zip");
+        byte[] content = "not a zip".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, content);
+
+        // When & Then
+        assertThrows(IOException.class, () -> ZipContainerNormalizer.normalize(file));
+        assertArrayEquals(content, Files.readAllBytes(file));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1L, files.count());
+        }
+    }
+
+    private Map<String, String> createEntries() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("mimetype", "application/vnd.test");
+        entries.put("[Content_Types].xml", "<Types/>");
+        entries.put("xl/", "");
+        entries.put("xl/worksheets/sheet1.xml", "<sheetData>" + "<row>1</row>".repeat(1000) + "</sheetData>");
+        return entries;
+    }
+
+    private void writeZip(Path file, Map<String, String> entries) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zipOut = new ZipOutputStream(out)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zipOut.putNextEntry(new ZipEntry(entry.getKey()));
+                zipOut.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zipOut.closeEntry();
+            }
+        }
+    }
+
+    private Map<String, String> readZip(Path file) throws IOException {
+        Map<String, String> result = new LinkedHashMap<>();
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+            for (ZipEntry entry : entries) {
+                result.put(entry.getName(),
+                        new String(zipFile.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+}
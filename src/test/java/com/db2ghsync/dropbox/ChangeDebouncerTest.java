@@ -0,0 +1,145 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.SyncEntry;
+
+/**
+ * ChangeDebouncerクラスのテスト。
+ * 実際には待たずに、待機時間ごとの変更の取得と待機の終了条件を検証する。
+ */
+@ExtendWith(MockitoExtension.class)
+class ChangeDebouncerTest {
+
+    private static final String TARGET_DIR = "/dir1";
+
+    @Mock
+    private DropboxService dropboxService;
+
+    @Mock
+    private CursorService cursorService;
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void testCollectWaitsUntilQuietAndAppendsChanges() throws Exception {
+        // Given - 2回続けて保存された後、変更がなくなる
+        List<SyncEntry> initial = List.of(entry("/dir1/book.xlsx"));
+        when(cursorService.readTmpCursor(TARGET_DIR)).thenReturn("c1", "c2", "c3");
+        when(dropboxService.getChangesWithCursor(TARGET_DIR, "c1")).thenReturn(List.of(entry("/dir1/book.xlsx")));
+        when(dropboxService.getChangesWithCursor(TARGET_DIR, "c2")).thenReturn(List.of(entry("/dir1/other.xlsx")));
+        when(dropboxService.getChangesWithCursor(TARGET_DIR, "c3")).thenReturn(Collections.emptyList());
+        ChangeDebouncer debouncer = newDebouncer(10_000, 300_000);
+
+        // When
+        List<SyncEntry> collected = debouncer.collect(TARGET_DIR, initial);
+
+        // Then - 取得順に追加し、変更がなくなった時点で終了する
+        assertEquals(List.of("/dir1/book.xlsx", "/dir1/book.xlsx", "/dir1/other.xlsx"),
+                collected.stream().map(SyncEntry::getDropboxPath).toList());
+        assertEquals(List.of(10_000L, 10_000L, 10_000L), sleeps);
+    }
+
+    @Test
+    void testCollectStopsAtWaitLimit() throws Exception {
+        // Given - 保存が続く
+        when(cursorService.readTmpCursor(TARGET_DIR)).thenReturn("cursor");
+        when(dropboxService.getChangesWithCursor(TARGET_DIR, "cursor")).thenReturn(List.of(entry("/dir1/a.xlsx")));
+        ChangeDebouncer debouncer = newDebouncer(10_000, 25_000);
+
+        // When
+        List<SyncEntry> collected = debouncer.collect(TARGET_DIR, List.of(entry("/dir1/a.xlsx")));
+
+        // Then - 上限までの残りのみ待ち、その時点までの変更を返す
+        assertEquals(List.of(10_000L, 10_000L, 5_000L), sleeps);
+        assertEquals(4, collected.size());
+    }
+
+    @Test
+    void testCollectReturnsEntriesWhenDisabledOrNoChanges() throws Exception {
+        // Given
+        List<SyncEntry> entries = List.of(entry("/dir1/a.xlsx"));
+
+        // When & Then - 待機しない設定・変更なしの場合は取得も待機もしない
+        assertSame(entries, newDebouncer(0, 300_000).collect(TARGET_DIR, entries));
+        assertTrue(newDebouncer(10_000, 300_000).collect(TARGET_DIR, Collections.emptyList()).isEmpty());
+        assertTrue(sleeps.isEmpty());
+        verify(dropboxService, never()).getChangesWithCursor(anyString(), anyString());
+    }
+
+    @Test
+    void testCollectReturnsCollectedEntriesWhenInterrupted() throws Exception {
+        // Given - 停止要求で待機が中断される
+        ChangeDebouncer debouncer = new ChangeDebouncer(dropboxService, cursorService, 10_000, 300_000, millis -> {
+            throw new InterruptedException();
+        });
+        List<SyncEntry> entries = List.of(entry("/dir1/a.xlsx"));
+
+        // When
+        List<SyncEntry> collected = debouncer.collect(TARGET_DIR, entries);
+
+        // Then - 割り込み状態を戻し、ここまでの変更を返す
+        assertTrue(Thread.interrupted());
+        assertEquals(entries, collected);
+        verify(dropboxService, times(0)).getChangesWithCursor(anyString(), anyString());
+    }
+
+    @Test
+    void testStopEndsWaitAndReturnsCollectedEntries() throws Exception {
+        // Given - 既定の待機を使用し、待機の上限は十分に長い
+        ChangeDebouncer debouncer = new ChangeDebouncer(dropboxService, cursorService, 60_000, 300_000, null);
+        List<SyncEntry> entries = List.of(entry("/dir1/a.xlsx"));
+        Thread stopper = new Thread(() -> {
+            sleepQuietly(100);
+            debouncer.stop();
+        });
+
+        // When
+        long started = System.nanoTime();
+        stopper.start();
+        List<SyncEntry> collected = debouncer.collect(TARGET_DIR, entries);
+        stopper.join();
+
+        // Then - 待機時間を待たずに、続きの変更を取得せずここまでの変更を返す
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(30));
+        assertEquals(entries, collected);
+        assertFalse(Thread.currentThread().isInterrupted());
+        verify(dropboxService, times(0)).getChangesWithCursor(anyString(), anyString());
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ChangeDebouncer newDebouncer(long quietMillis, long maxMillis) {
+        return new ChangeDebouncer(dropboxService, cursorService, quietMillis, maxMillis, sleeps::add);
+    }
+
+    private static SyncEntry entry(String dropboxPath) {
+        return new SyncEntry(dropboxPath, dropboxPath.substring(dropboxPath.lastIndexOf('/') + 1), TARGET_DIR,
+                SyncAction.CREATE_OR_UPDATE);
+    }
+}
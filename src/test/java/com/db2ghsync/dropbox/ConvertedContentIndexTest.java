@@ -0,0 +1,63 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ConvertedContentIndexクラスのテスト。
+ * 記録した対応で元のcontent_hashを判定でき、書き換えが続いてもファイルが肥大しないことを検証する。
+ */
+class ConvertedContentIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordedOriginalMatchesConvertedContent() throws Exception {
+        // Given
+        Path localFile = tempDir.resolve("converted.zip");
+        Files.write(localFile, "converted".getBytes(StandardCharsets.UTF_8));
+        String original = hashOf(0);
+        ConvertedContentIndex index = new ConvertedContentIndex(tempDir.resolve("index/converted"));
+
+        // When
+        index.record(localFile, original);
+
+        // Then - 再読み込みした索引でも判定できる
+        ConvertedContentIndex reloaded = new ConvertedContentIndex(tempDir.resolve("index/converted"));
+        assertTrue(reloaded.matchesOriginal(localFile, original));
+        assertFalse(reloaded.matchesOriginal(localFile, hashOf(1)));
+    }
+
+    @Test
+    void testRewrittenMappingsAreCompacted() throws Exception {
+        // Given - 同じ内容の対応を繰り返し書き換える
+        Path localFile = tempDir.resolve("converted.zip");
+        Files.write(localFile, "converted".getBytes(StandardCharsets.UTF_8));
+        Path file = tempDir.resolve("index/converted");
+        ConvertedContentIndex index = new ConvertedContentIndex(file);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            index.record(localFile, hashOf(i));
+        }
+
+        // Then - 現在の対応の数に見合う行数に圧縮され、最新の対応が残る
+        assertTrue(Files.readAllLines(file).size() < 1024);
+        ConvertedContentIndex reloaded = new ConvertedContentIndex(file);
+        assertTrue(reloaded.matchesOriginal(localFile, hashOf(999)));
+        assertFalse(reloaded.matchesOriginal(localFile, hashOf(998)));
+        assertFalse(Files.exists(file.resolveSibling("converted.compact")));
+    }
+
+    private static String hashOf(int value) {
+        return String.format("%064x", value);
+    }
+}
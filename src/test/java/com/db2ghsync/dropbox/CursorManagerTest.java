@@ -6,8 +6,16 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,7 +27,7 @@ import com.db2ghsync.exception.DropboxSyncException;
 
 /**
  * CursorManagerクラスのテスト。
- * ファイル操作、例外処理を検証する。
+ * ジャーナルへの記録・確定、以前の形式からの移行、異常終了時の復旧、例外処理を検証する。
  */
 class CursorManagerTest {
 
@@ -27,42 +35,34 @@ class CursorManagerTest {
     Path tempDir;
 
     private CursorManager cursorManager;
-    private String cursorFilePath;
 
     @BeforeEach
     void setUp() {
-        cursorFilePath = tempDir.toString();
-        AppConfig config = new AppConfig.Builder()
-                .githubPat("test_pat")
-                .githubUsername("testuser")
-                .githubRemoteUrl("https://github.com/test/repo.git")
-                .localRepoPath("/tmp/repo")
-                .cursorFilePath(cursorFilePath)
-                .targetFileExtensions(java.util.Arrays.asList(".txt"))
-                .targetDirectories(java.util.Arrays.asList("/dir1"))
-                .syncTargetDir("review")
-                .build();
-        cursorManager = new CursorManager(config);
+        cursorManager = newManager(tempDir.toString());
     }
 
     @AfterEach
-    void tearDown() {
-        // クリーンアップは@TempDirが自動的に行う
+    void tearDown() throws IOException {
+        cursorManager.close();
     }
 
     @Test
-    void testReadCursorFromExistingFile() throws IOException {
-        // Given
+    void testReadCursorMigratesLegacyFile() throws IOException {
+        // Given - 以前の形式のブランチごとのファイル
         String branchName = "test-branch";
         String expectedCursor = "cursor123";
         Path cursorFile = tempDir.resolve(branchName);
         Files.writeString(cursorFile, expectedCursor);
+        Files.writeString(tempDir.resolve(branchName + ".tmp"), "stale");
 
         // When
         String actualCursor = cursorManager.readCursor(branchName);
 
-        // Then
+        // Then - ジャーナルへ移行し、元のファイルは削除する
         assertEquals(expectedCursor, actualCursor);
+        assertFalse(Files.exists(cursorFile));
+        assertFalse(Files.exists(tempDir.resolve(branchName + ".tmp")));
+        assertEquals(expectedCursor, reopen().readCursor(branchName));
     }
 
     @Test
@@ -78,38 +78,30 @@ class CursorManagerTest {
     }
 
     @Test
-    void testWriteTmpCursorCreatesTemporaryFile() throws Exception {
+    void testWriteTmpCursorDoesNotChangeCommittedCursor() throws Exception {
         // Given
         String branchName = "test-branch";
-        String cursor = "cursor123";
 
         // When
-        cursorManager.writeTmpCursor(branchName, cursor);
+        cursorManager.writeTmpCursor(branchName, "cursor123");
 
         // Then
-        Path tmpFile = tempDir.resolve(branchName + ".tmp");
-        assertTrue(Files.exists(tmpFile));
-        String content = Files.readString(tmpFile);
-        assertEquals(cursor, content);
+        assertEquals("cursor123", cursorManager.readTmpCursor(branchName));
+        assertEquals("", cursorManager.readCursor(branchName));
+        assertEquals("", reopen().readCursor(branchName));
     }
 
     @Test
-    void testWriteCursorSavesCursorAndDeletesTmpFile() throws Exception {
-        // Given
-        String branchName = "test-branch";
-        String cursor = "cursor123";
-        Path tmpFile = tempDir.resolve(branchName + ".tmp");
-        Files.writeString(tmpFile, cursor);
+    void testWriteCursorCommitsStagedCursor() throws Exception {
+        // Given - 先頭の"/"の有無に関わらず同じブランチとして扱う
+        cursorManager.writeTmpCursor("dir1", "cursor123");
 
         // When
-        cursorManager.writeCursor(branchName);
+        cursorManager.writeCursor("/dir1");
 
         // Then
-        Path cursorFile = tempDir.resolve(branchName);
-        assertTrue(Files.exists(cursorFile));
-        String savedCursor = Files.readString(cursorFile);
-        assertEquals(cursor, savedCursor);
-        assertFalse(Files.exists(tmpFile));
+        assertEquals("cursor123", cursorManager.readCursor("dir1"));
+        assertEquals("cursor123", reopen().readCursor("/dir1"));
     }
 
     @Test
@@ -125,70 +117,116 @@ class CursorManagerTest {
 
     @Test
     void testWriteTmpCursorThrowsExceptionOnWriteFailure() {
-        // Given - 読み取り専用ディレクトリをシミュレート（実際には難しいため、無効なパスを使用）
-        String invalidPath = "/invalid/path/that/does/not/exist";
-        AppConfig invalidConfig = new AppConfig.Builder()
-                .githubPat("test_pat")
-                .githubUsername("testuser")
-                .githubRemoteUrl("https://github.com/test/repo.git")
-                .localRepoPath("/tmp/repo")
-                .cursorFilePath(invalidPath)
-                .targetFileExtensions(java.util.Arrays.asList(".txt"))
-                .targetDirectories(java.util.Arrays.asList("/dir1"))
-                .syncTargetDir("review")
-                .build();
-        CursorManager invalidManager = new CursorManager(invalidConfig);
-
-        String branchName = "test-branch";
-        String cursor = "cursor123";
+        // Given - 存在しないディレクトリを指定
+        CursorManager invalidManager = newManager("/invalid/path/that/does/not/exist");
 
         // When & Then
         assertThrows(DropboxSyncException.class, () -> {
-            invalidManager.writeTmpCursor(branchName, cursor);
+            invalidManager.writeTmpCursor("test-branch", "cursor123");
         });
     }
 
     @Test
-    void testReadCursorHandlesMultipleBranches() throws IOException {
-        // Given
-        String branch1 = "branch1";
-        String branch2 = "branch2";
-        String cursor1 = "cursor1";
-        String cursor2 = "cursor2";
-
-        Files.writeString(tempDir.resolve(branch1), cursor1);
-        Files.writeString(tempDir.resolve(branch2), cursor2);
+    void testWriteCursorsCommitsMultipleBranchesInOneFile() throws Exception {
+        // Given - "/"を含むブランチ名もディレクトリを作らない
+        cursorManager.writeTmpCursor("branch1", "cursor1");
+        cursorManager.writeTmpCursor("team/branch2", "cursor2");
 
         // When
-        String readCursor1 = cursorManager.readCursor(branch1);
-        String readCursor2 = cursorManager.readCursor(branch2);
+        cursorManager.writeCursors(List.of("branch1", "team/branch2"));
 
         // Then
-        assertEquals(cursor1, readCursor1);
-        assertEquals(cursor2, readCursor2);
+        CursorManager reopened = reopen();
+        assertEquals("cursor1", reopened.readCursor("branch1"));
+        assertEquals("cursor2", reopened.readCursor("team/branch2"));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(tempDir.resolve(CursorManager.JOURNAL_FILE_NAME)), files.toList());
+        }
     }
 
     @Test
     void testWriteCursorOverwritesExistingCursor() throws Exception {
         // Given
         String branchName = "test-branch";
-        String oldCursor = "old-cursor";
-        String newCursor = "new-cursor";
+        cursorManager.writeTmpCursor(branchName, "old-cursor");
+        cursorManager.writeCursor(branchName);
+        cursorManager.writeTmpCursor(branchName, "new-cursor");
 
-        // 既存のカーソルファイルを作成
-        Path cursorFile = tempDir.resolve(branchName);
-        Files.writeString(cursorFile, oldCursor);
+        // When
+        cursorManager.writeCursor(branchName);
 
-        // 一時ファイルを作成
-        Path tmpFile = tempDir.resolve(branchName + ".tmp");
-        Files.writeString(tmpFile, newCursor);
+        // Then
+        assertEquals("new-cursor", reopen().readCursor(branchName));
+    }
+
+    @Test
+    void testIncompleteRecordIsDiscarded() throws Exception {
+        // Given - 確定後に書き込み途中で中断したレコード
+        cursorManager.writeTmpCursor("branch1", "cursor1");
+        cursorManager.writeCursor("branch1");
+        cursorManager.close();
+        Path journal = tempDir.resolve(CursorManager.JOURNAL_FILE_NAME);
+        long validLength = Files.size(journal);
+        Files.write(journal, "0badc0de\tC\tbranch1\tcurs".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
 
         // When
-        cursorManager.writeCursor(branchName);
+        CursorManager reopened = reopen();
 
         // Then
-        String savedCursor = Files.readString(cursorFile);
-        assertEquals(newCursor, savedCursor);
+        assertEquals("cursor1", reopened.readCursor("branch1"));
+        reopened.writeTmpCursor("branch1", "cursor2");
+        reopened.writeCursor("branch1");
+        assertTrue(Files.size(journal) > validLength);
+        assertEquals("cursor2", reopen().readCursor("branch1"));
+    }
+
+    @Test
+    void testConcurrentWritersKeepLatestCommittedCursors() throws Exception {
+        // Given - 圧縮が発生する件数を複数スレッドから書き込む
+        int threads = 4;
+        int rounds = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            String branchName = "branch" + t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    cursorManager.writeTmpCursor(branchName, "cursor" + i);
+                    cursorManager.writeCursor(branchName);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        CursorManager reopened = reopen();
+        for (int t = 0; t < threads; t++) {
+            assertEquals("cursor" + (rounds - 1), reopened.readCursor("branch" + t));
+        }
+        assertTrue(Files.size(tempDir.resolve(CursorManager.JOURNAL_FILE_NAME)) < 2 * threads * rounds * 40);
+    }
+
+    @Test
+    void testImportCheckpointIsDurableAndIndependentOfCursor() throws Exception {
+        // Given
+        cursorManager.writeImportCheckpoint("/dir1", "checkpoint1");
+
+        // When
+        CursorManager reopened = reopen();
+
+        // Then - 再開位置は確定済みのカーソルとは別に保存する
+        assertEquals("checkpoint1", reopened.readImportCheckpoint("dir1"));
+        assertEquals("", reopened.readCursor("dir1"));
+
+        reopened.clearImportCheckpoint("dir1");
+        assertEquals("", reopen().readImportCheckpoint("dir1"));
     }
 
     @Test
@@ -198,5 +236,24 @@ class CursorManagerTest {
             new CursorManager(null);
         });
     }
-}
 
+    private CursorManager reopen() throws IOException {
+        cursorManager.close();
+        cursorManager = newManager(tempDir.toString());
+        return cursorManager;
+    }
+
+    private static CursorManager newManager(String cursorFilePath) {
+        AppConfig config = new AppConfig.Builder()
+                .githubPat("test_pat")
+                .githubUsername("testuser")
+                .githubRemoteUrl("https://github.com/test/repo.git")
+                .localRepoPath("/tmp/repo")
+                .cursorFilePath(cursorFilePath)
+                .targetFileExtensions(java.util.Arrays.asList(".txt"))
+                .targetDirectories(java.util.Arrays.asList("/dir1"))
+                .syncTargetDir("review")
+                .build();
+        return new CursorManager(config);
+    }
+}
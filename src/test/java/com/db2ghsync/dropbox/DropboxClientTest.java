@@ -1,18 +1,48 @@
 package com.db2ghsync.dropbox;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.common.PathMapper;
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.exception.DropboxSyncException;
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
 
 /**
  * DropboxClientクラスのテスト。
@@ -21,13 +51,19 @@ import com.db2ghsync.exception.DropboxSyncException;
  * 注意: DropboxClientは実際のDbxClientV2を使用しているため、
  * 完全なモックテストは困難です。基本的なコンストラクタテストと
  * nullチェックを中心に実装します。
+ * 初回取り込みは、一覧とダウンロードをメモリ上のFakeDropboxに置き換えて検証します。
  */
 @ExtendWith(MockitoExtension.class)
 class DropboxClientTest {
 
+    private static final String CURSOR_BEFORE_LISTING = "cursor-before-listing";
+
     @Mock
     private CursorService cursorService;
 
+    @TempDir
+    Path repoDir;
+
     @Test
     void testConstructorWithNullConfigThrowsException() {
         // When & Then
@@ -84,12 +120,176 @@ class DropboxClientTest {
         assertNotNull(client);
     }
 
+    @Test
+    void testImportRecordsCheckpointAndCommitsChunks() throws Exception {
+        // Given - 区切りは2件ごと
+        FakeDropbox dropbox = new FakeDropbox();
+        for (String name : List.of("a.txt", "b.txt", "c.txt", "d.txt", "e.txt")) {
+            dropbox.addFile("/dir1/" + name, name + " content");
+        }
+        ImportChunkHandler handler = mock(ImportChunkHandler.class);
+        DropboxClient client = createImportClient(dropbox);
+        String branch = PathMapper.toBranchName("/dir1");
+
+        // When
+        int imported = client.importDirectory("/dir1", handler);
+
+        // Then - 最初の反映前に一覧開始前のカーソルを記録し、全ての反映後に削除する
+        assertEquals(5, imported);
+        InOrder order = inOrder(cursorService, handler);
+        order.verify(cursorService).writeImportCheckpoint(branch, CURSOR_BEFORE_LISTING);
+        order.verify(handler, times(2)).accept(argThat(files -> files.size() == 2));
+        order.verify(handler).accept(argThat(files -> files.size() == 1));
+        order.verify(cursorService).clearImportCheckpoint(branch);
+        assertArrayEquals(dropbox.files.get("/dir1/e.txt"), Files.readAllBytes(repoDir.resolve("e.txt")));
+        assertEquals(1, dropbox.latestCursorCalls.get());
+    }
+
+    @Test
+    void testResumedImportSkipsOnlyFilesWithSameContent() throws Exception {
+        // Given - a.txtは取り込み済み、b.txtは同じサイズで内容が異なる
+        FakeDropbox dropbox = new FakeDropbox();
+        for (String name : List.of("a.txt", "b.txt", "c.txt", "d.txt")) {
+            dropbox.addFile("/dir1/" + name, name + " content");
+        }
+        Files.writeString(repoDir.resolve("a.txt"), "a.txt content");
+        Files.writeString(repoDir.resolve("b.txt"), "B.TXT CONTENT");
+        String branch = PathMapper.toBranchName("/dir1");
+        when(cursorService.readImportCheckpoint(branch)).thenReturn("cursor-interrupted");
+        List<List<String>> chunks = new ArrayList<>();
+        DropboxClient client = createImportClient(dropbox);
+
+        // When
+        int imported = client.importDirectory("/dir1", files -> chunks.add(paths(files)));
+
+        // Then - 中断前の再開位置を一時保存し直し、完了時に削除する
+        assertEquals(4, imported);
+        assertEquals(List.of(List.of("/dir1/b.txt", "/dir1/c.txt"), List.of("/dir1/d.txt")), chunks);
+        assertEquals(Collections.emptyList(), dropbox.fetched("/dir1/a.txt"));
+        assertEquals("b.txt content", Files.readString(repoDir.resolve("b.txt")));
+        InOrder order = inOrder(cursorService);
+        order.verify(cursorService).writeTmpCursor(branch, CURSOR_BEFORE_LISTING);
+        order.verify(cursorService).writeTmpCursor(branch, "cursor-interrupted");
+        order.verify(cursorService).clearImportCheckpoint(branch);
+        verify(cursorService, never()).writeImportCheckpoint(anyString(), any());
+    }
+
+    @Test
+    void testStreamingImportReusesListingCursorAndClearsCheckpoint() throws Exception {
+        // Given - 対象外のファイルでdownload_zipの件数制限を超え、一覧と並行してダウンロードする
+        FakeDropbox dropbox = new FakeDropbox();
+        for (String name : List.of("a.txt", "b.txt", "c.txt", "d.txt", "e.txt")) {
+            dropbox.addFile("/dir1/" + name, name + " content");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            dropbox.addFile("/dir1/other" + i + ".bin", "");
+        }
+        List<List<String>> chunks = new ArrayList<>();
+        DropboxClient client = createImportClient(dropbox);
+        String branch = PathMapper.toBranchName("/dir1");
+
+        // When
+        int imported = client.importDirectory("/dir1", files -> chunks.add(paths(files)));
+
+        // Then - 再開位置には一覧自体の再帰カーソルを使い、カーソルを別途取得しない
+        assertEquals(5, imported);
+        assertEquals(List.of(2, 2, 1), chunks.stream().map(List::size).toList());
+        assertEquals(1, dropbox.latestCursorCalls.get());
+        InOrder order = inOrder(cursorService);
+        order.verify(cursorService).writeImportCheckpoint(branch, CURSOR_BEFORE_LISTING);
+        order.verify(cursorService).clearImportCheckpoint(branch);
+        assertEquals(Collections.emptyList(), dropbox.fetched("/dir1/other0.bin"));
+    }
+
     /**
      * 注意: 実際のDropbox APIを呼び出すメソッド（getTargetDirectories、getTargetFiles等）の
      * テストは、実際のDropbox APIとの統合テストとして別途実装する必要があります。
      * モックを使用した完全なテストは、DbxClientV2がfinalクラスであるため困難です。
      */
 
+    private DropboxClient createImportClient(FakeDropbox dropbox) {
+        AppConfig config = new AppConfig.Builder()
+                .dropboxRefreshToken("")
+                .dropboxClientId("")
+                .dropboxClientSecret("")
+                .dropboxAccessToken("test_access_token")
+                .githubPat("github_pat")
+                .githubUsername("testuser")
+                .githubRemoteUrl("https://github.com/test/repo.git")
+                .localRepoPath(repoDir.toString())
+                .cursorFilePath(repoDir.resolve("cursor").toString())
+                .targetFileExtensions(Arrays.asList(".txt"))
+                .targetDirectories(Arrays.asList("/dir1"))
+                .syncTargetDir("review")
+                .dropboxListThreads(2)
+                .importCheckpointFiles(2)
+                .importCheckpointBytes(0)
+                .build();
+        return new DropboxClient(config, cursorService, file -> file, null, dropbox, dropbox);
+    }
+
+    private static List<String> paths(List<DownloadedFile> files) {
+        List<String> paths = new ArrayList<>();
+        files.forEach(file -> paths.add(file.getDropboxPath()));
+        Collections.sort(paths);
+        return paths;
+    }
+
+    /**
+     * メモリ上のファイルを一覧・ダウンロードさせるDropbox API。
+     * 全ファイルを対象ディレクトリ直下の1ページで返し、ダウンロードしたパスを記録する。
+     */
+    private static final class FakeDropbox implements ParallelFolderCrawler.PageSource,
+            ResumableDownloader.RangeFetcher {
+
+        private final Map<String, byte[]> files = new LinkedHashMap<>();
+        private final List<String> fetchedPaths = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger latestCursorCalls = new AtomicInteger();
+
+        private void addFile(String path, String content) {
+            files.put(path, content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private List<String> fetched(String path) {
+            synchronized (fetchedPaths) {
+                return fetchedPaths.stream().filter(path::equals).toList();
+            }
+        }
+
+        @Override
+        public String latestRecursiveCursor(String folderPath) {
+            latestCursorCalls.incrementAndGet();
+            return CURSOR_BEFORE_LISTING;
+        }
+
+        @Override
+        public ListFolderResult list(String folderPath, long pageLimit) {
+            List<Metadata> entries = new ArrayList<>();
+            files.forEach((path, content) -> {
+                DropboxContentHasher hasher = new DropboxContentHasher();
+                hasher.update(content, 0, content.length);
+                String name = path.substring(path.lastIndexOf('/') + 1);
+                entries.add(FileMetadata.newBuilder(name, "id:" + path, new Date(0), new Date(0),
+                        "0123456789abcdef", content.length).withPathLower(path).withPathDisplay(path)
+                        .withContentHash(hasher.digest()).build());
+            });
+            return new ListFolderResult(entries, "listed", false);
+        }
+
+        @Override
+        public ListFolderResult listContinue(String cursor) throws DbxException {
+            throw new DbxException("no more pages");
+        }
+
+        @Override
+        public void fetch(String dropboxPath, long offset, long length, OutputStream out) throws IOException {
+            fetchedPaths.add(dropboxPath);
+            byte[] content = files.get(dropboxPath);
+            int end = length < 0 ? content.length : (int) Math.min(content.length, offset + length);
+            out.write(content, (int) offset, end - (int) offset);
+        }
+    }
+
     private AppConfig createTestAppConfig() {
         return new AppConfig.Builder()
                 .dropboxRefreshToken("")
@@ -0,0 +1,53 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ExternalPathSorterクラスのテスト。
+ * 一時ファイルへの書き出しを挟んでも、"/"を最小とした順序で全てのパスを読み出せることを検証する。
+ */
+class ExternalPathSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPathsAreMergedInDirectoryOrderAcrossSpills() {
+        // Given - "/"は"-"や"."よりも前に並ぶ
+        List<String> paths = List.of("b.txt", "a.txt", "a/z.txt", "a-b.txt", "a/b/c.txt", "a.txt", "A.txt");
+
+        // When
+        List<String> sorted = new ArrayList<>();
+        int runs;
+        try (ExternalPathSorter sorter = new ExternalPathSorter(tempDir, 100)) {
+            paths.forEach(sorter::add);
+            runs = sorter.spilledRuns();
+            Iterator<String> iterator = sorter.sorted();
+            iterator.forEachRemaining(sorted::add);
+        }
+
+        // Then
+        assertTrue(runs > 1);
+        assertEquals(List.of("A.txt", "a/b/c.txt", "a/z.txt", "a-b.txt", "a.txt", "a.txt", "b.txt"), sorted);
+        assertTrue(isEmpty(tempDir));
+    }
+
+    private static boolean isEmpty(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.findAny().isEmpty();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.common.PathMapper;
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.SyncEntry;
+
+/**
+ * LocalMoveDetectorクラスのテスト。
+ * 削除と作成の組をcontent_hashで突き合わせ、ローカルの移動で反映することを検証する。
+ */
+class LocalMoveDetectorTest {
+
+    @TempDir
+    Path repoDir;
+
+    private LocalMoveDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new LocalMoveDetector(dropboxPath -> repoDir.resolve(dropboxPath.substring("/dir1/".length())));
+    }
+
+    @Test
+    void testRenamedFileIsMovedInsteadOfDownloaded() throws Exception {
+        // Given
+        byte[] content = "large binary".getBytes(StandardCharsets.UTF_8);
+        Files.write(repoDir.resolve("old.bin"), content);
+        SyncEntry deleted = delete("/dir1/old.bin");
+        SyncEntry created = write("/dir1/new/renamed.bin", content);
+
+        // When
+        List<SyncEntry> remaining = detector.applyMoves(Arrays.asList(deleted, created));
+
+        // Then
+        assertEquals(Arrays.asList(deleted), remaining);
+        assertFalse(Files.exists(repoDir.resolve("old.bin")));
+        assertEquals("large binary", Files.readString(repoDir.resolve("new/renamed.bin")));
+    }
+
+    @Test
+    void testFolderRenameMovesChildren() throws Exception {
+        // Given
+        Files.createDirectories(repoDir.resolve("before/sub"));
+        byte[] first = "first".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+        Files.write(repoDir.resolve("before/a.bin"), first);
+        Files.write(repoDir.resolve("before/sub/b.bin"), second);
+        SyncEntry deleted = delete("/dir1/before");
+
+        // When
+        List<SyncEntry> remaining = detector.applyMoves(Arrays.asList(
+                deleted, write("/dir1/after/a.bin", first), write("/dir1/after/sub/b.bin", second)));
+
+        // Then
+        assertEquals(Arrays.asList(deleted), remaining);
+        assertEquals("first", Files.readString(repoDir.resolve("after/a.bin")));
+        assertEquals("second", Files.readString(repoDir.resolve("after/sub/b.bin")));
+    }
+
+    @Test
+    void testDifferentContentIsLeftForDownload() throws Exception {
+        // Given - サイズは同じだが内容が異なる
+        Files.write(repoDir.resolve("old.bin"), "aaaa".getBytes(StandardCharsets.UTF_8));
+        SyncEntry deleted = delete("/dir1/old.bin");
+        SyncEntry created = write("/dir1/new.bin", "bbbb".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        List<SyncEntry> remaining = detector.applyMoves(Arrays.asList(deleted, created));
+
+        // Then
+        assertEquals(Arrays.asList(deleted, created), remaining);
+        assertTrue(Files.exists(repoDir.resolve("old.bin")));
+        assertFalse(Files.exists(repoDir.resolve("new.bin")));
+    }
+
+    @Test
+    void testMoveIntoDeletedFolderIsLeftForDownload() throws Exception {
+        // Given - 移動先が後続の削除対象配下になる
+        byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(repoDir.resolve("folder"));
+        Files.write(repoDir.resolve("folder/old.bin"), content);
+        SyncEntry deleted = delete("/dir1/folder");
+        SyncEntry created = write("/dir1/folder/new.bin", content);
+
+        // When
+        List<SyncEntry> remaining = detector.applyMoves(Arrays.asList(deleted, created));
+
+        // Then
+        assertEquals(Arrays.asList(deleted, created), remaining);
+    }
+
+    @Test
+    void testContentHashSpansMultipleBlocks() throws Exception {
+        // Given - 4MBブロック境界をまたぐファイル
+        byte[] content = new byte[DropboxContentHasher.BLOCK_SIZE + 10];
+        Arrays.fill(content, (byte) 7);
+        Path file = repoDir.resolve("big.bin");
+        Files.write(file, content);
+
+        // When
+        DropboxContentHasher incremental = new DropboxContentHasher();
+        incremental.update(content, 0, 100);
+        incremental.update(content, 100, content.length - 100);
+
+        // Then
+        assertEquals(hashOf(content), incremental.digest());
+        assertEquals(hashOf(content), DropboxContentHasher.hash(file));
+    }
+
+    @Test
+    void testRepositoryRootAndGitDirectoryAreNotMoveSources() throws Exception {
+        // Given - 対象ディレクトリ自体の削除と、.git配下への作成
+        byte[] content = "tracked".getBytes(StandardCharsets.UTF_8);
+        Files.write(repoDir.resolve("tracked.bin"), content);
+        LocalMoveDetector guarded = new LocalMoveDetector(
+                dropboxPath -> PathMapper.toManagedLocalPath(dropboxPath, repoDir));
+        SyncEntry deletedRoot = delete("/dir1");
+        SyncEntry createdInGit = write("/dir1/.git/tracked.bin", content);
+        SyncEntry created = write("/dir1/moved.bin", content);
+
+        // When
+        List<SyncEntry> remaining = guarded.applyMoves(Arrays.asList(deletedRoot, createdInGit, created));
+
+        // Then - ルート配下のファイルを移動元にせず、すべてダウンロード・削除処理へ残す
+        assertEquals(Arrays.asList(deletedRoot, createdInGit, created), remaining);
+        assertTrue(Files.exists(repoDir.resolve("tracked.bin")));
+        assertFalse(Files.exists(repoDir.resolve("moved.bin")));
+    }
+
+    private static String hashOf(byte[] content) throws Exception {
+        MessageDigest overall = MessageDigest.getInstance("SHA-256");
+        for (int offset = 0; offset < content.length; offset += DropboxContentHasher.BLOCK_SIZE) {
+            int length = Math.min(DropboxContentHasher.BLOCK_SIZE, content.length - offset);
+            MessageDigest block = MessageDigest.getInstance("SHA-256");
+            block.update(content, offset, length);
+            overall.update(block.digest());
+        }
+        return HexFormat.of().formatHex(overall.digest());
+    }
+
+    private static SyncEntry write(String path, byte[] content) {
+        DropboxContentHasher hasher = new DropboxContentHasher();
+        hasher.update(content, 0, content.length);
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return new SyncEntry(path, name, "dir1", SyncAction.CREATE_OR_UPDATE, hasher.digest(), content.length);
+    }
+
+    private static SyncEntry delete(String path) {
+        return new SyncEntry(path, path.substring(path.lastIndexOf('/') + 1), "dir1", SyncAction.DELETE);
+    }
+}
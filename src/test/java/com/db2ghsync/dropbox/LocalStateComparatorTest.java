@@ -0,0 +1,114 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.git.LfsPointer;
+
+/**
+ * LocalStateComparatorクラスのテスト。
+ * Dropboxの一覧とローカルの内容を比較し、実際の差分のみを返すことを検証する。
+ */
+class LocalStateComparatorTest {
+
+    @TempDir
+    Path repoDir;
+
+    @Test
+    void testDiffReturnsOnlyChangedMissingAndRemovedFiles() throws Exception {
+        // Given
+        Files.createDirectories(repoDir.resolve(".git"));
+        Files.writeString(repoDir.resolve(".git/config.txt"), "git internal");
+        Files.writeString(repoDir.resolve("same.txt"), "same");
+        Files.writeString(repoDir.resolve("changed.txt"), "old!");
+        Files.writeString(repoDir.resolve("removed.txt"), "removed");
+        Files.writeString(repoDir.resolve("README.md"), "not a target");
+        SyncEntry same = write("/dir1/same.txt", "same");
+        SyncEntry changed = write("/dir1/changed.txt", "new!");
+        SyncEntry missing = write("/dir1/sub/missing.txt", "missing");
+        LocalStateComparator comparator = new LocalStateComparator(
+                dropboxPath -> repoDir.resolve(dropboxPath.substring("/dir1/".length())), 2);
+
+        // When
+        List<SyncEntry> differences = comparator.diff(Stream.of(same, changed, missing), repoDir, "/Dir1",
+                name -> name.endsWith(".txt"));
+
+        // Then - 同一内容・対象外・.git配下は差分に含まれない
+        assertEquals(Arrays.asList(changed, missing,
+                new SyncEntry("/dir1/removed.txt", "removed.txt", "dir1", SyncAction.DELETE)), differences);
+    }
+
+    @Test
+    void testDiffComparesConvertedFilesWithOriginalContent() throws Exception {
+        // Given - LFSのポインタ・無圧縮化したzipとして格納し、変換前のcontent_hashを記録済み
+        Path index = repoDir.resolve(".git/db2ghsync/converted-content");
+        Files.writeString(repoDir.resolve("large.bin"), "large original");
+        Files.writeString(repoDir.resolve("book.xlsx"), "normalized zip");
+        SyncEntry large = write("/dir1/large.bin", "large original");
+        SyncEntry book = write("/dir1/book.xlsx", "original zip");
+        SyncEntry unrecorded = write("/dir1/other.xlsx", "other zip");
+        ConvertedContentIndex recorder = new ConvertedContentIndex(index);
+        recorder.record(repoDir.resolve("large.bin"), large.getContentHash());
+        recorder.record(repoDir.resolve("book.xlsx"), book.getContentHash());
+        Files.write(repoDir.resolve("large.bin"), LfsPointer.compute(repoDir.resolve("large.bin")).toBytes());
+        Files.writeString(repoDir.resolve("other.xlsx"), "normalized other");
+        LocalStateComparator comparator = new LocalStateComparator(
+                dropboxPath -> repoDir.resolve(dropboxPath.substring("/dir1/".length())), 2,
+                path -> !path.getFileName().toString().endsWith(".txt"), new ConvertedContentIndex(index), null, 0);
+
+        // When
+        List<SyncEntry> differences = comparator.diff(Stream.of(large, book, unrecorded), repoDir, "/dir1",
+                name -> true);
+
+        // Then - 記録済みの変換前の内容と一致するものは再ダウンロードしない
+        assertEquals(Arrays.asList(unrecorded), differences);
+    }
+
+    @Test
+    void testDiffDetectsRemovedFilesWithSpilledRemotePaths() throws Exception {
+        // Given - Dropboxの一覧は整列されておらず、パスは1件ずつ一時ファイルへ書き出す
+        for (String path : List.of("a.txt", "a/b.txt", "a/gone.txt", "a-b.txt", "sub/x/y.txt", "sub/x/gone.txt",
+                "sub/z.txt", "zz.txt")) {
+            Files.createDirectories(repoDir.resolve(path).getParent());
+            Files.writeString(repoDir.resolve(path), path);
+        }
+        List<SyncEntry> remote = List.of(write("/dir1/sub/z.txt", "sub/z.txt"), write("/dir1/a-b.txt", "a-b.txt"),
+                write("/dir1/sub/x/y.txt", "sub/x/y.txt"), write("/dir1/a/b.txt", "a/b.txt"),
+                write("/dir1/a.txt", "a.txt"));
+        Path spillDir = repoDir.resolve(".git/db2ghsync/changes");
+        LocalStateComparator comparator = new LocalStateComparator(
+                dropboxPath -> repoDir.resolve(dropboxPath.substring("/dir1/".length())), 2, path -> false, null,
+                spillDir, 1);
+
+        // When
+        List<SyncEntry> differences = comparator.diff(remote.stream(), repoDir, "/dir1", name -> true);
+
+        // Then - ディレクトリごとの名前順に削除を返し、一時ファイルは残らない
+        assertEquals(Arrays.asList(
+                new SyncEntry("/dir1/a/gone.txt", "gone.txt", "dir1", SyncAction.DELETE),
+                new SyncEntry("/dir1/sub/x/gone.txt", "gone.txt", "dir1", SyncAction.DELETE),
+                new SyncEntry("/dir1/zz.txt", "zz.txt", "dir1", SyncAction.DELETE)), differences);
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static SyncEntry write(String path, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        DropboxContentHasher hasher = new DropboxContentHasher();
+        hasher.update(bytes, 0, bytes.length);
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return new SyncEntry(path, name, "dir1", SyncAction.CREATE_OR_UPDATE, hasher.digest(), bytes.length);
+    }
+}
@@ -0,0 +1,184 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.db2ghsync.exception.DropboxSyncException;
+import com.dropbox.core.DbxException;
+import com.dropbox.core.RateLimitException;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * ParallelFolderCrawlerクラスのテスト。
+ * サブフォルダを並列に一覧し、全エントリと開始時点のカーソルを返すことを検証する。
+ */
+class ParallelFolderCrawlerTest {
+
+    @Test
+    void testCrawlReturnsAllEntriesAndCursorCapturedBeforeListing() throws Exception {
+        // Given - 3階層・各フォルダに5ファイルのツリーを、2件ずつのページで返す
+        FakePageSource source = new FakePageSource();
+        source.addTree("/root", 3, 3, 5);
+        ParallelFolderCrawler crawler = new ParallelFolderCrawler(source, 4, 2);
+        List<Metadata> received = new ArrayList<>();
+
+        // When
+        String cursor = crawler.crawl("/root", received::add);
+
+        // Then
+        assertEquals("cursor-/root", cursor);
+        assertTrue(source.cursorBeforeListing.get());
+        Set<String> paths = new HashSet<>();
+        received.forEach(metadata -> paths.add(metadata.getPathLower()));
+        assertEquals(source.allPaths, paths);
+        assertEquals(source.allPaths.size(), received.size());
+        assertTrue(source.maxConcurrent.get() <= 4);
+        assertTrue(source.maxPageSize.get() <= 2);
+    }
+
+    @Test
+    void testCrawlRetriesRateLimitedPages() throws Exception {
+        // Given
+        FakePageSource source = new FakePageSource();
+        source.addTree("/root", 1, 2, 3);
+        source.rateLimitsRemaining.set(2);
+        ParallelFolderCrawler crawler = new ParallelFolderCrawler(source, 2, 2000);
+        List<Metadata> received = new ArrayList<>();
+
+        // When
+        crawler.crawl("/root", received::add);
+
+        // Then
+        assertEquals(source.allPaths.size(), received.size());
+    }
+
+    @Test
+    void testCrawlFailsWhenSubfolderListingFails() {
+        // Given
+        FakePageSource source = new FakePageSource();
+        source.addTree("/root", 2, 2, 1);
+        source.failingFolder = "/root/d1";
+        ParallelFolderCrawler crawler = new ParallelFolderCrawler(source, 2, 2000);
+
+        // When & Then
+        assertThrows(DropboxSyncException.class, () -> crawler.crawl("/root", metadata -> {
+        }));
+    }
+
+    /**
+     * メモリ上のツリーを返す一覧API。ページングと同時実行数を記録する。
+     */
+    private static final class FakePageSource implements ParallelFolderCrawler.PageSource {
+
+        private final Map<String, List<Metadata>> children = new HashMap<>();
+        private final Map<String, List<Metadata>> pages = Collections.synchronizedMap(new HashMap<>());
+        private final Set<String> allPaths = new HashSet<>();
+        private final AtomicBoolean cursorTaken = new AtomicBoolean();
+        private final AtomicBoolean cursorBeforeListing = new AtomicBoolean(true);
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final AtomicInteger maxPageSize = new AtomicInteger();
+        private final AtomicInteger rateLimitsRemaining = new AtomicInteger();
+        private final AtomicInteger pageIds = new AtomicInteger();
+        private volatile String failingFolder;
+
+        private void addTree(String path, int depth, int folders, int files) {
+            List<Metadata> entries = new ArrayList<>();
+            for (int i = 0; i < files; i++) {
+                String filePath = path + "/f" + i + ".txt";
+                entries.add(FileMetadata.newBuilder("f" + i + ".txt", "id:" + filePath, new Date(0), new Date(0),
+                        "0123456789abcdef", 1).withPathLower(filePath).build());
+                allPaths.add(filePath);
+            }
+            if (depth > 1) {
+                for (int i = 0; i < folders; i++) {
+                    String folderPath = path + "/d" + i;
+                    entries.add(FolderMetadata.newBuilder("d" + i, "id:" + folderPath)
+                            .withPathLower(folderPath).build());
+                    allPaths.add(folderPath);
+                    addTree(folderPath, depth - 1, folders, files);
+                }
+            }
+            children.put(path, entries);
+        }
+
+        @Override
+        public String latestRecursiveCursor(String folderPath) {
+            cursorTaken.set(true);
+            return "cursor-" + folderPath;
+        }
+
+        @Override
+        public ListFolderResult list(String folderPath, long pageLimit) throws DbxException {
+            try {
+                enter();
+                if (folderPath.equals(failingFolder)) {
+                    throw new DbxException("listing failed");
+                }
+                return page(new ArrayList<>(children.get(folderPath)), (int) pageLimit);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+
+        @Override
+        public ListFolderResult listContinue(String cursor) throws DbxException {
+            try {
+                enter();
+                List<Metadata> rest = pages.remove(cursor);
+                return page(rest, Integer.parseInt(cursor.substring(cursor.indexOf(':') + 1)));
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+
+        /**
+         * 呼び出しの開始を記録する。終了時の減算は、レート制限で失敗した場合も含め呼び出し側のfinallyで1回だけ行う。
+         */
+        private void enter() throws RateLimitException {
+            if (!cursorTaken.get()) {
+                cursorBeforeListing.set(false);
+            }
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            if (rateLimitsRemaining.getAndDecrement() > 0) {
+                throw new RateLimitException("req", "rate limited", 1, TimeUnit.MILLISECONDS);
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private ListFolderResult page(List<Metadata> entries, int limit) {
+            int size = Math.min(limit, entries.size());
+            maxPageSize.accumulateAndGet(size, Math::max);
+            List<Metadata> page = new ArrayList<>(entries.subList(0, size));
+            List<Metadata> rest = new ArrayList<>(entries.subList(size, entries.size()));
+            String cursor = "page" + pageIds.incrementAndGet() + ":" + limit;
+            boolean hasMore = !rest.isEmpty();
+            if (hasMore) {
+                pages.put(cursor, rest);
+            }
+            return new ListFolderResult(page, cursor, hasMore);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.entity.DownloadedFile;
+
+/**
+ * ResumableDownloaderクラスのテスト。
+ * 中断からの再開・分割ダウンロード・内容の検証・失敗時にワークツリーを汚さないことを検証する。
+ */
+class ResumableDownloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testInterruptedDownloadResumesWithRange() throws Exception {
+        // Given - 1回目は途中で切断される
+        byte[] content = randomBytes(10_000);
+        List<Long> offsets = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger calls = new AtomicInteger();
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            offsets.add(offset);
+            if (calls.getAndIncrement() == 0) {
+                out.write(content, (int) offset, 4_000);
+                throw new IOException("connection reset");
+            }
+            out.write(content, (int) offset, (int) length);
+        }, tempDir.resolve("work"), 0, 1, 3, false, null);
+        Path target = tempDir.resolve("repo/big.zip");
+
+        // When
+        downloader.download("/dir1/big.zip", hashOf(content), content.length, target);
+
+        // Then - 書き込み済みの位置から再開する
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(List.of(0L, 4_000L), offsets);
+        assertWorkDirEmpty();
+    }
+
+    @Test
+    void testLargeFileIsDownloadedInSegments() throws Exception {
+        // Given
+        byte[] content = randomBytes(10_001);
+        List<Long> offsets = Collections.synchronizedList(new ArrayList<>());
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            offsets.add(offset);
+            out.write(content, (int) offset, (int) length);
+        }, tempDir.resolve("work"), 1_000, 4, 0, false, null);
+        Path target = tempDir.resolve("repo/big.zip");
+
+        // When
+        downloader.download("/dir1/big.zip", hashOf(content), content.length, target);
+
+        // Then
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(4, offsets.size());
+        assertWorkDirEmpty();
+    }
+
+    @Test
+    void testSegmentPartsOfDifferentSizeAreNotReused() throws Exception {
+        // Given - 並列数を変更する前の範囲の一時ファイルが残っている
+        byte[] content = randomBytes(10_001);
+        Path work = tempDir.resolve("work");
+        Files.createDirectories(work);
+        Files.write(work.resolve(hashOf(content) + ".5001.part0"), randomBytes(2_000));
+        Files.write(work.resolve(hashOf(content) + ".part0"), randomBytes(2_000));
+        ResumableDownloader downloader = new ResumableDownloader(
+                (path, offset, length, out) -> out.write(content, (int) offset, (int) length),
+                work, 1_000, 4, 0, false, null);
+        Path target = tempDir.resolve("repo/big.zip");
+
+        // When
+        downloader.download("/dir1/big.zip", hashOf(content), content.length, target);
+
+        // Then
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertWorkDirEmpty();
+    }
+
+    @Test
+    void testUnknownHashDiscardsAllParts() throws Exception {
+        // Given - 内容を特定できないファイルの一時ファイル（範囲ごとのものを含む）
+        byte[] content = randomBytes(3_000);
+        Path work = tempDir.resolve("work");
+        Files.createDirectories(work);
+        String key = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest("/dir1/file.bin".getBytes(StandardCharsets.UTF_8)));
+        Files.write(work.resolve(key + ".part"), randomBytes(1_000));
+        Files.write(work.resolve(key + ".750.part0"), randomBytes(750));
+        List<Long> offsets = new ArrayList<>();
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            offsets.add(offset);
+            out.write(content, (int) offset, content.length - (int) offset);
+        }, work, 0, 1, 0, false, null);
+        Path target = tempDir.resolve("repo/file.bin");
+
+        // When
+        downloader.download("/dir1/file.bin", null, -1, target);
+
+        // Then - 最初から取得し直す
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(List.of(0L), offsets);
+        assertWorkDirEmpty();
+    }
+
+    @Test
+    void testStalePartsAreDeletedOnCreation() throws Exception {
+        // Given
+        Path work = tempDir.resolve("work");
+        Files.createDirectories(work);
+        Path stale = work.resolve("stale.part");
+        Path recent = work.resolve("recent.part");
+        Files.write(stale, randomBytes(100));
+        Files.write(recent, randomBytes(100));
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofDays(8))));
+
+        // When
+        new ResumableDownloader((path, offset, length, out) -> {
+        }, work, 0, 1, 0, false, null);
+
+        // Then
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    void testUnrelatedDownloadsRunConcurrently() throws Exception {
+        // Given - 全てのダウンロードが開始するまで取得を待つ
+        int files = 8;
+        CountDownLatch started = new CountDownLatch(files);
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            started.countDown();
+            try {
+                if (!started.await(10, TimeUnit.SECONDS)) {
+                    throw new ResumableDownloader.FatalFetchException("downloads were serialized", null);
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            out.write(path.getBytes(StandardCharsets.UTF_8));
+        }, tempDir.resolve("work"), 0, 1, 0, false, null);
+        ExecutorService executor = Executors.newFixedThreadPool(files);
+
+        try {
+            // When
+            List<Future<DownloadedFile>> results = new ArrayList<>();
+            for (int i = 0; i < files; i++) {
+                String path = "/dir1/file" + i + ".txt";
+                byte[] content = path.getBytes(StandardCharsets.UTF_8);
+                results.add(executor.submit(() -> downloader.download(path, hashOf(content), content.length,
+                        tempDir.resolve("repo").resolve(path.substring(1)))));
+            }
+
+            // Then - 一時ファイルのキーが異なるダウンロードは互いを待たない
+            for (Future<DownloadedFile> result : results) {
+                assertNotNull(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPartialFileFromPreviousRunIsResumed() throws Exception {
+        // Given - 前回の実行で途中まで取得済み
+        byte[] content = randomBytes(5_000);
+        Path work = tempDir.resolve("work");
+        Files.createDirectories(work);
+        Files.write(work.resolve(hashOf(content) + ".part"), Arrays.copyOf(content, 3_000));
+        List<Long> offsets = new ArrayList<>();
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            offsets.add(offset);
+            out.write(content, (int) offset, (int) length);
+        }, work, 0, 1, 0, false, null);
+        Path target = tempDir.resolve("repo/file.bin");
+
+        // When
+        downloader.download("/dir1/file.bin", hashOf(content), content.length, target);
+
+        // Then
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(List.of(3_000L), offsets);
+    }
+
+    @Test
+    void testFailedDownloadKeepsExistingFile() throws Exception {
+        // Given
+        Path target = tempDir.resolve("repo/file.bin");
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, "previous version");
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            out.write(new byte[10]);
+            throw new IOException("connection reset");
+        }, tempDir.resolve("work"), 0, 1, 2, false, null);
+
+        // When & Then - 再試行を使い切っても既存のファイルは壊れない
+        assertThrows(IOException.class, () -> downloader.download("/dir1/file.bin", "hash1", 100, target));
+        assertEquals("previous version", Files.readString(target));
+    }
+
+    @Test
+    void testFatalFetchErrorIsNotRetried() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            calls.incrementAndGet();
+            throw new ResumableDownloader.FatalFetchException("not found", null);
+        }, tempDir.resolve("work"), 0, 1, 3, false, null);
+
+        // When & Then
+        assertThrows(IOException.class,
+                () -> downloader.download("/dir1/file.bin", "hash1", 100, tempDir.resolve("repo/file.bin")));
+        assertEquals(1, calls.get());
+        assertFalse(Files.exists(tempDir.resolve("repo/file.bin")));
+    }
+
+    @Test
+    void testHashesAreComputedWhileWriting() throws Exception {
+        // Given
+        byte[] content = randomBytes(DropboxContentHasher.BLOCK_SIZE + 123);
+        ResumableDownloader downloader = new ResumableDownloader(
+                (path, offset, length, out) -> out.write(content, (int) offset, (int) length),
+                tempDir.resolve("work"), 0, 1, 0, true, null);
+        Path target = tempDir.resolve("repo/file.bin");
+
+        // When
+        DownloadedFile downloaded = downloader.download("/dir1/file.bin", hashOf(content), content.length, target);
+
+        // Then - 書き込み時に計算したハッシュが公開される
+        assertEquals(hashOf(content), downloaded.getContentHash());
+        assertEquals(ObjectId.fromRaw(blobIdOf(content)).getName(), downloaded.getBlobId());
+        assertEquals(content.length, downloaded.getSize());
+        assertEquals(target, downloaded.getLocalPath());
+    }
+
+    @Test
+    void testSegmentedDownloadComputesHashesOnConcatenation() throws Exception {
+        // Given
+        byte[] content = randomBytes(10_001);
+        ResumableDownloader downloader = new ResumableDownloader(
+                (path, offset, length, out) -> out.write(content, (int) offset, (int) length),
+                tempDir.resolve("work"), 1_000, 4, 0, true, null);
+
+        // When
+        DownloadedFile downloaded = downloader.download("/dir1/big.zip", hashOf(content), content.length,
+                tempDir.resolve("repo/big.zip"));
+
+        // Then
+        assertEquals(hashOf(content), downloaded.getContentHash());
+        assertEquals(ObjectId.fromRaw(blobIdOf(content)).getName(), downloaded.getBlobId());
+    }
+
+    @Test
+    void testCorruptedContentIsDownloadedAgain() throws Exception {
+        // Given - 1回目は内容が壊れている
+        byte[] content = randomBytes(2_000);
+        AtomicInteger calls = new AtomicInteger();
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            byte[] data = Arrays.copyOfRange(content, (int) offset, (int) (offset + length));
+            if (calls.getAndIncrement() == 0) {
+                data[10] ^= 1;
+            }
+            out.write(data);
+        }, tempDir.resolve("work"), 0, 1, 1, false, null);
+        Path target = tempDir.resolve("repo/file.bin");
+
+        // When
+        downloader.download("/dir1/file.bin", hashOf(content), content.length, target);
+
+        // Then
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testPersistentMismatchNeverReachesWorkingTree() throws Exception {
+        // Given
+        ResumableDownloader downloader = new ResumableDownloader(
+                (path, offset, length, out) -> out.write(new byte[(int) length]),
+                tempDir.resolve("work"), 0, 1, 1, false, null);
+        Path target = tempDir.resolve("repo/file.bin");
+
+        // When & Then
+        assertThrows(IOException.class, () -> downloader.download("/dir1/file.bin", "0000", 100, target));
+        assertFalse(Files.exists(target));
+        assertWorkDirEmpty();
+    }
+
+    @Test
+    void testConvertedFileIsNotWrittenAsBlob() throws Exception {
+        // Given - ブロブも書き込む設定
+        byte[] content = randomBytes(10_000);
+        Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+        ResumableDownloader downloader = new ResumableDownloader(
+                (path, offset, length, out) -> out.write(content, (int) offset, (int) length),
+                tempDir.resolve("work"), 0, 1, 0, true, recordingSink(blobs));
+
+        // When - 配置後にLFSのポインタ等へ変換するファイル
+        DownloadedFile converted = downloader.download("/dir1/large.bin", hashOf(content), content.length,
+                tempDir.resolve("repo/large.bin"), false);
+
+        // Then - 使われないブロブは計算・書き込みしない
+        assertEquals(hashOf(content), converted.getContentHash());
+        assertNull(converted.getBlobId());
+        assertTrue(blobs.isEmpty());
+
+        // When - そのまま格納するファイル
+        DownloadedFile stored = downloader.download("/dir1/same.bin", hashOf(content), content.length,
+                tempDir.resolve("repo/same.bin"));
+
+        // Then
+        String blobId = stored.getBlobId();
+        assertEquals(ObjectId.fromRaw(blobIdOf(content)).getName(), blobId);
+        assertArrayEquals(content, blobs.get(blobId));
+    }
+
+    @Test
+    void testBlobIsWrittenWhileResumingInterruptedDownload() throws Exception {
+        // Given - 1回目は途中で切断される
+        byte[] content = randomBytes(200_000);
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            if (calls.getAndIncrement() == 0) {
+                out.write(content, (int) offset, 70_000);
+                throw new IOException("connection reset");
+            }
+            out.write(content, (int) offset, (int) length);
+        }, tempDir.resolve("work"), 0, 1, 3, false, recordingSink(blobs));
+
+        // When
+        DownloadedFile downloaded = downloader.download("/dir1/big.bin", hashOf(content), content.length,
+                tempDir.resolve("repo/big.bin"));
+
+        // Then - 再開前後の内容が1つのブロブになる
+        assertEquals(List.of(downloaded.getBlobId()), List.copyOf(blobs.keySet()));
+        assertArrayEquals(content, blobs.get(downloaded.getBlobId()));
+    }
+
+    @Test
+    void testBlobIsNotWrittenForFailedDownload() throws Exception {
+        // Given - 内容がサイズに満たないまま失敗する
+        Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+        ResumableDownloader downloader = new ResumableDownloader((path, offset, length, out) -> {
+            out.write(new byte[10]);
+            throw new ResumableDownloader.FatalFetchException("not found", null);
+        }, tempDir.resolve("work"), 0, 1, 0, false, recordingSink(blobs));
+
+        // When & Then
+        assertThrows(IOException.class,
+                () -> downloader.download("/dir1/file.bin", "hash1", 100, tempDir.resolve("repo/file.bin")));
+        assertTrue(blobs.isEmpty());
+    }
+
+    private void assertWorkDirEmpty() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("work"))) {
+            assertTrue(files.findAny().isEmpty());
+        }
+    }
+
+    /**
+     * 内容を読み込み、ブロブIDごとに記録する書き込み先。
+     */
+    private static ResumableDownloader.BlobSink recordingSink(Map<String, byte[]> blobs) {
+        return (size, content) -> {
+            byte[] data = content.readAllBytes();
+            if (data.length != size) {
+                throw new EOFException("Short blob content: " + data.length + " of " + size);
+            }
+            String blobId;
+            try {
+                blobId = ObjectId.fromRaw(blobIdOf(data)).getName();
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+            blobs.put(blobId, data);
+            return blobId;
+        };
+    }
+
+    private static String hashOf(byte[] content) {
+        DropboxContentHasher hasher = new DropboxContentHasher();
+        hasher.update(content, 0, content.length);
+        return hasher.digest();
+    }
+
+    private static byte[] blobIdOf(byte[] content) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+        return digest.digest(content);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.SyncEntry;
+
+/**
+ * SyncEntryCoalescerクラスのテスト。
+ * パスごとの最終状態へのまとめと、削除→作成・更新の順序を検証する。
+ */
+class SyncEntryCoalescerTest {
+
+    @Test
+    void testRepeatedWritesCollapseToLastWrite() {
+        // Given
+        List<SyncEntry> entries = Arrays.asList(
+                write("/dir1/a.txt"), write("/dir1/b.txt"), write("/dir1/a.txt"), write("/dir1/a.txt"));
+
+        // When
+        List<SyncEntry> result = SyncEntryCoalescer.coalesce(entries);
+
+        // Then
+        assertEquals(Arrays.asList(write("/dir1/a.txt"), write("/dir1/b.txt")), result);
+    }
+
+    @Test
+    void testLastActionWinsPerPath() {
+        // Given
+        List<SyncEntry> entries = Arrays.asList(
+                write("/dir1/a.txt"), delete("/dir1/a.txt"),
+                delete("/dir1/b.txt"), write("/dir1/b.txt"));
+
+        // When
+        List<SyncEntry> result = SyncEntryCoalescer.coalesce(entries);
+
+        // Then
+        assertEquals(Arrays.asList(delete("/dir1/a.txt"), write("/dir1/b.txt")), result);
+    }
+
+    @Test
+    void testFolderDeleteSubsumesEarlierChildren() {
+        // Given
+        List<SyncEntry> entries = Arrays.asList(
+                write("/dir1/sub/a.txt"), delete("/dir1/sub/b.txt"), write("/dir1/subling.txt"),
+                delete("/dir1/sub"), write("/dir1/sub/c.txt"), delete("/dir1/sub/d.txt"));
+
+        // When
+        List<SyncEntry> result = SyncEntryCoalescer.coalesce(entries);
+
+        // Then - 削除後の作成は残り、削除済みフォルダ配下の削除は不要
+        assertEquals(Arrays.asList(
+                delete("/dir1/sub"), write("/dir1/sub/c.txt"), write("/dir1/subling.txt")), result);
+    }
+
+    @Test
+    void testDeletesAreOrderedBeforeWrites() {
+        // Given
+        List<SyncEntry> entries = Arrays.asList(
+                write("/dir1/a.txt"), delete("/dir1/z.txt"), write("/dir1/b.txt"), delete("/dir1/c.txt"));
+
+        // When
+        List<SyncEntry> result = SyncEntryCoalescer.coalesce(entries);
+
+        // Then
+        assertEquals(Arrays.asList(
+                delete("/dir1/c.txt"), delete("/dir1/z.txt"), write("/dir1/a.txt"), write("/dir1/b.txt")), result);
+    }
+
+    @Test
+    void testEmptyListReturnsEmptyList() {
+        assertEquals(Collections.emptyList(), SyncEntryCoalescer.coalesce(Collections.emptyList()));
+    }
+
+    private SyncEntry write(String path) {
+        return new SyncEntry(path, path.substring(path.lastIndexOf('/') + 1), "dir1", SyncAction.CREATE_OR_UPDATE);
+    }
+
+    private SyncEntry delete(String path) {
+        return new SyncEntry(path, path.substring(path.lastIndexOf('/') + 1), "dir1", SyncAction.DELETE);
+    }
+}
@@ -0,0 +1,169 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.db2ghsync.common.SyncAction;
+import com.db2ghsync.entity.DownloadedFile;
+import com.db2ghsync.entity.SyncEntry;
+import com.db2ghsync.exception.DropboxSyncException;
+
+/**
+ * TransferPipelineクラスのテスト。
+ * ダウンロードとステージが並行して進み、処理中のサイズが上限を超えないことを検証する。
+ */
+class TransferPipelineTest {
+
+    @Test
+    void testAllEntriesAreDownloadedAndStagedWithinByteBudget() throws Exception {
+        // Given - 上限の半分のファイルを並列に処理する
+        AtomicLong inFlight = new AtomicLong();
+        AtomicLong maxInFlight = new AtomicLong();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicLong downloading = new AtomicLong();
+        TransferPipeline pipeline = new TransferPipeline(
+                entry -> {
+                    maxInFlight.accumulateAndGet(inFlight.addAndGet(entry.getSize()), Math::max);
+                    downloading.incrementAndGet();
+                    sleep(2);
+                    downloading.decrementAndGet();
+                    return downloaded(entry);
+                },
+                file -> {
+                    if (downloading.get() > 0) {
+                        overlapped.set(true);
+                    }
+                    sleep(1);
+                    inFlight.addAndGet(-file.getSize());
+                    return new DownloadedFile(file.getDropboxPath(), file.getLocalPath(), file.getContentHash(),
+                            "blob", file.getSize());
+                },
+                4, 2, 8, 200);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            pipeline.submit(entry("/dir1/f" + i + ".txt", 100));
+        }
+        List<DownloadedFile> results = pipeline.finish();
+
+        // Then
+        assertEquals(100, results.size());
+        Set<String> paths = results.stream().map(DownloadedFile::getDropboxPath).collect(Collectors.toSet());
+        assertEquals(100, paths.size());
+        assertTrue(results.stream().allMatch(file -> "blob".equals(file.getBlobId())));
+        assertTrue(maxInFlight.get() <= 200);
+        assertTrue(overlapped.get());
+    }
+
+    @Test
+    void testFileLargerThanBudgetIsProcessedAlone() throws Exception {
+        // Given
+        TransferPipeline pipeline = new TransferPipeline(TransferPipelineTest::downloaded, file -> file,
+                2, 1, 4, 10);
+
+        // When
+        pipeline.submit(entry("/dir1/big.bin", 1_000));
+        pipeline.submit(entry("/dir1/small.txt", 1));
+        List<DownloadedFile> results = pipeline.finish();
+
+        // Then
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    void testFailureIsReportedAndRemainingEntriesAreDiscarded() {
+        // Given
+        Set<String> downloaded = new HashSet<>();
+        TransferPipeline pipeline = new TransferPipeline(entry -> {
+            if (entry.getName().equals("broken.txt")) {
+                throw new DropboxSyncException("Downloading file failed.");
+            }
+            synchronized (downloaded) {
+                downloaded.add(entry.getName());
+            }
+            return downloaded(entry);
+        }, file -> file, 1, 1, 1, 100);
+
+        // When - 失敗後も投入は待たされずに終わる
+        pipeline.submit(entry("/dir1/broken.txt", 1));
+        for (int i = 0; i < 50; i++) {
+            pipeline.submit(entry("/dir1/f" + i + ".txt", 1));
+        }
+
+        // Then
+        assertThrows(DropboxSyncException.class, pipeline::finish);
+        assertTrue(downloaded.size() < 50);
+    }
+
+    @Test
+    void testDrainReturnsCompletedFilesAndKeepsAcceptingEntries() throws Exception {
+        // Given
+        TransferPipeline pipeline = new TransferPipeline(entry -> {
+            sleep(1);
+            return downloaded(entry);
+        }, file -> file, 2, 1, 2, 100);
+
+        // When - 区切りごとに完了を待って結果を受け取り、続けて投入する
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(entry("/dir1/a" + i + ".txt", 1));
+        }
+        List<DownloadedFile> first = pipeline.drain();
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(entry("/dir1/b" + i + ".txt", 1));
+        }
+        List<DownloadedFile> second = pipeline.drain();
+        pipeline.submit(entry("/dir1/c.txt", 1));
+        List<DownloadedFile> rest = pipeline.finish();
+
+        // Then - 各区切りの結果は重複せず、前回の取得以降のもののみ
+        assertEquals(10, first.size());
+        assertTrue(first.stream().allMatch(file -> file.getDropboxPath().startsWith("/dir1/a")));
+        assertEquals(5, second.size());
+        assertTrue(second.stream().allMatch(file -> file.getDropboxPath().startsWith("/dir1/b")));
+        assertEquals(List.of("/dir1/c.txt"),
+                rest.stream().map(DownloadedFile::getDropboxPath).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testDrainReportsFailure() {
+        // Given
+        TransferPipeline pipeline = new TransferPipeline(entry -> {
+            throw new DropboxSyncException("Downloading file failed.");
+        }, file -> file, 1, 1, 1, 100);
+
+        // When
+        pipeline.submit(entry("/dir1/broken.txt", 1));
+
+        // Then
+        assertThrows(DropboxSyncException.class, pipeline::drain);
+        pipeline.close();
+    }
+
+    private static SyncEntry entry(String path, long size) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return new SyncEntry(path, name, "dir1", SyncAction.CREATE_OR_UPDATE, null, size);
+    }
+
+    private static DownloadedFile downloaded(SyncEntry entry) {
+        return new DownloadedFile(entry.getDropboxPath(), Paths.get(entry.getName()), null, null, entry.getSize());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
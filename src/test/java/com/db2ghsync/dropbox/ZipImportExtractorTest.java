@@ -0,0 +1,66 @@
+package com.db2ghsync.dropbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ZipImportExtractorクラスのテスト。
+ * download_zipのレスポンスから対象ファイルのみを書き出すことを検証する。
+ */
+class ZipImportExtractorTest {
+
+    @TempDir
+    Path repoDir;
+
+    @Test
+    void testExtractWritesOnlyTargetFiles() throws Exception {
+        // Given - zip内はフォルダの表示名から始まる
+        byte[] zip = createZip(
+                "Dir1/", null,
+                "Dir1/Sub/Book.xlsx", "book",
+                "Dir1/note.txt", "note",
+                "Dir1/ignored.tmp", "ignored");
+        Map<String, Path> targets = new HashMap<>();
+        targets.put("/dir1/sub/book.xlsx", repoDir.resolve("sub/book.xlsx"));
+        targets.put("/dir1/note.txt", repoDir.resolve("note.txt"));
+        targets.put("/dir1/missing.txt", repoDir.resolve("missing.txt"));
+
+        // When
+        Set<String> written = ZipImportExtractor.extract(new ByteArrayInputStream(zip), targets);
+
+        // Then - zipに無いファイルは書き出されず、呼び出し元で個別にダウンロードする
+        assertEquals(Set.of("/dir1/sub/book.xlsx", "/dir1/note.txt"), written);
+        assertEquals("book", Files.readString(repoDir.resolve("sub/book.xlsx")));
+        assertEquals("note", Files.readString(repoDir.resolve("note.txt")));
+        assertFalse(Files.exists(repoDir.resolve("ignored.tmp")));
+        assertFalse(Files.exists(repoDir.resolve("missing.txt")));
+    }
+
+    private static byte[] createZip(String... namesAndContents) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                if (namesAndContents[i + 1] != null) {
+                    zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,81 @@
+package com.db2ghsync.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.common.SyncAction;
+
+/**
+ * 数百万件の一覧を保持した際のヒープ使用量を確認するベンチマーク。
+ * <p>
+ * 実行方法: {@code gradle benchmark --tests '*ChangeSetScaleBenchmark'}
+ */
+@Tag("benchmark")
+class ChangeSetScaleBenchmark {
+
+    private static final int ENTRY_COUNT = 3_000_000;
+
+    // メモリ上に保持する量の上限
+    private static final int MEMORY_THRESHOLD = 16 * 1024 * 1024;
+
+    // 閾値に加え、配列の伸長分やGCの誤差を見込んだヒープ増加量の上限
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkMillionsOfEntriesStayWithinHeapBound() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedHeap(memory);
+
+        try (ChangeSet changeSet = new ChangeSet(tempDir, MEMORY_THRESHOLD)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                String name = "File_" + i + ".txt";
+                changeSet.add(new SyncEntry("/share/project" + (i % 50) + "/folder" + (i % 2000) + "/"
+                        + name.toLowerCase(), name, "share", SyncAction.CREATE_OR_UPDATE, hash(i), i));
+            }
+            long addMillis = (System.nanoTime() - start) / 1_000_000;
+            long retained = usedHeap(memory) - before;
+
+            start = System.nanoTime();
+            long count;
+            try (Stream<SyncEntry> stream = changeSet.stream()) {
+                count = stream.filter(entry -> entry.getSize() >= 0).count();
+            }
+            long readMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%d entries: add=%d ms, read=%d ms, retained heap=%d MiB (%d spilled)%n",
+                    ENTRY_COUNT, addMillis, readMillis, retained / (1024 * 1024), changeSet.spilledSize());
+            assertEquals(ENTRY_COUNT, count);
+            assertTrue(retained < MAX_HEAP_GROWTH, "retained heap " + retained);
+        }
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String hash(int seed) {
+        StringBuilder builder = new StringBuilder(64);
+        long value = seed * 0x9E3779B97F4A7C15L;
+        while (builder.length() < 64) {
+            builder.append(String.format("%016x", value));
+            value = value * 31 + seed;
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.db2ghsync.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.common.SyncAction;
+
+/**
+ * ChangeSetクラスのテスト。
+ * 追加したエントリが、一時ファイルへの書き出しを挟んでも同じ内容・順序で読み出せること、
+ * 保持するメモリが閾値で抑えられることを検証する。
+ */
+class ChangeSetTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEntriesAreReadBackInOrderAcrossSpill() {
+        // Given - 小さな閾値で何度も書き出させる
+        List<SyncEntry> expected = new ArrayList<>();
+        expected.add(new SyncEntry("/dir1/sub/report.txt", "Report.txt", "dir1", SyncAction.CREATE_OR_UPDATE,
+                "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef", 42));
+        expected.add(new SyncEntry("/dir1/sub/Exact.txt", "Exact.txt", "dir1", SyncAction.CREATE_OR_UPDATE,
+                "hash1", 7));
+        expected.add(new SyncEntry("/dir1/renamed.txt", "other.txt", "dir1", SyncAction.DELETE));
+        expected.add(new SyncEntry("noslash", null, null, null));
+        expected.add(new SyncEntry(null, "orphan.txt", "", SyncAction.DELETE));
+        for (int i = 0; i < 500; i++) {
+            expected.add(new SyncEntry("/dir1/d" + (i % 7) + "/f" + i + ".txt", "f" + i + ".txt", "dir1",
+                    SyncAction.CREATE_OR_UPDATE, null, i));
+        }
+
+        // When
+        List<SyncEntry> actual;
+        try (ChangeSet changeSet = new ChangeSet(tempDir, 1024)) {
+            expected.forEach(changeSet::add);
+            assertTrue(changeSet.spilledSize() > 0);
+            assertEquals(expected.size(), changeSet.size());
+            try (Stream<SyncEntry> stream = changeSet.stream()) {
+                actual = stream.collect(Collectors.toList());
+            }
+        }
+
+        // Then - 閉じた後は一時ファイルが残らない
+        assertEquals(expected, actual);
+        assertFalse(hasFiles(tempDir));
+    }
+
+    @Test
+    void testEntriesStayInMemoryBelowThreshold() {
+        // Given
+        try (ChangeSet changeSet = new ChangeSet(tempDir, 0)) {
+            SyncEntry entry = new SyncEntry("/dir1/a.txt", "a.txt", "dir1", SyncAction.CREATE_OR_UPDATE);
+
+            // When
+            changeSet.add(entry);
+
+            // Then
+            assertEquals(0, changeSet.spilledSize());
+            assertEquals(List.of(entry), changeSet.stream().collect(Collectors.toList()));
+            assertFalse(hasFiles(tempDir));
+        }
+    }
+
+    @Test
+    void testSharedStringsAreReleasedBySpill() {
+        // Given - 親ディレクトリが全て異なり、共有する文字列が件数に比例して増える
+        int total = 2000;
+        long threshold = 4096;
+        try (ChangeSet changeSet = new ChangeSet(tempDir, threshold)) {
+
+            // When
+            int spills = 0;
+            int spilled = 0;
+            long maxMemory = 0;
+            for (int i = 0; i < total; i++) {
+                changeSet.add(new SyncEntry("/dir1/d" + i + "/f.txt", "f.txt", "dir1",
+                        SyncAction.CREATE_OR_UPDATE, null, i));
+                maxMemory = Math.max(maxMemory, changeSet.estimatedMemory());
+                if (changeSet.spilledSize() != spilled) {
+                    spills++;
+                    spilled = changeSet.spilledSize();
+                }
+            }
+
+            // Then - 共有する文字列も書き出しで解放され、1件ずつは書き出さない
+            assertTrue(maxMemory < threshold, "max memory: " + maxMemory);
+            assertTrue(spills < total / 10, "spills: " + spills);
+            assertEquals(total, changeSet.size());
+            try (Stream<SyncEntry> stream = changeSet.stream()) {
+                List<SyncEntry> actual = stream.collect(Collectors.toList());
+                assertEquals(new SyncEntry("/dir1/d0/f.txt", "f.txt", "dir1", SyncAction.CREATE_OR_UPDATE, null, 0),
+                        actual.get(0));
+                assertEquals(new SyncEntry("/dir1/d1999/f.txt", "f.txt", "dir1", SyncAction.CREATE_OR_UPDATE, null,
+                        1999), actual.get(total - 1));
+            }
+        }
+    }
+
+    @Test
+    void testRetainedHeapStaysWithinBound() {
+        // Given - ChangeSetScaleBenchmarkを縮小した件数。閾値で抑えなければ数十MiBを保持する
+        int total = 200_000;
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedHeap(memory);
+
+        try (ChangeSet changeSet = new ChangeSet(tempDir, 1024 * 1024)) {
+
+            // When
+            for (int i = 0; i < total; i++) {
+                changeSet.add(new SyncEntry("/share/project" + (i % 50) + "/folder" + i + "/file_" + i + ".txt",
+                        "file_" + i + ".txt", "share", SyncAction.CREATE_OR_UPDATE, String.format("%064x", i), i));
+            }
+            long retained = usedHeap(memory) - before;
+
+            // Then
+            assertTrue(retained < 8L * 1024 * 1024, "retained heap " + retained);
+            try (Stream<SyncEntry> stream = changeSet.stream()) {
+                assertEquals(total, stream.count());
+            }
+        }
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static boolean hasFiles(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.findAny().isPresent();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.db2ghsync.git;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.common.AppConfig;
+
+/**
+ * 多数の小さなファイルを初回取り込みする際のベンチマーク。
+ * ファイルごとのルーズオブジェクトと、1つのパックファイルへの格納を比較する。
+ * <p>
+ * 実行方法: {@code gradle benchmark}
+ */
+@Tag("benchmark")
+class BulkImportBenchmark {
+
+    private static final int FILE_COUNT = 20_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkInitialImport() throws Exception {
+        Result loose = measure("loose", 0);
+        Result packed = measure("packed", 1000);
+
+        System.out.printf("Initial import of %d files: loose=%d ms (%d object files), packed=%d ms (%d object files)%n",
+                FILE_COUNT, loose.millis, loose.objectFiles, packed.millis, packed.objectFiles);
+        assertTrue(packed.objectFiles < loose.objectFiles);
+    }
+
+    private Result measure(String name, int threshold) throws Exception {
+        Path repo = tempDir.resolve(name);
+        Git.init().setDirectory(repo.toFile()).setInitialBranch("main").call().close();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            Path file = repo.resolve("dir" + (i % 100)).resolve("file" + i + ".txt");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, "content of file " + i);
+        }
+
+        GitRepositoryManager manager = new GitRepositoryManager(new AppConfig.Builder()
+                .githubPat("pat")
+                .githubUsername("user")
+                .githubRemoteUrl(repo.toString())
+                .localRepoPath(repo.toString())
+                .cursorFilePath(tempDir.resolve("cursor").toString())
+                .targetFileExtensions(Arrays.asList(".txt"))
+                .targetDirectories(Arrays.asList("/dir1"))
+                .syncTargetDir("review")
+                .gitBulkImportThreshold(threshold)
+                .build());
+
+        long start = System.nanoTime();
+        manager.addAndCommit();
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+
+        try (Stream<Path> objects = Files.walk(repo.resolve(".git/objects"))) {
+            return new Result(millis, objects.filter(Files::isRegularFile).count());
+        }
+    }
+
+    private static final class Result {
+        private final long millis;
+        private final long objectFiles;
+
+        private Result(long millis, long objectFiles) {
+            this.millis = millis;
+            this.objectFiles = objectFiles;
+        }
+    }
+}
@@ -1,13 +1,39 @@
 package com.db2ghsync.git;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.eclipse.jgit.transport.BundleWriter;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.db2ghsync.common.AppConfig;
+import com.db2ghsync.dropbox.ResumableDownloader;
+import com.db2ghsync.entity.DownloadedFile;
 import com.db2ghsync.exception.GithubSyncException;
 
 /**
@@ -21,6 +47,9 @@ import com.db2ghsync.exception.GithubSyncException;
  */
 class GitRepositoryManagerTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     void testConstructorWithNullConfigThrowsException() {
         // When & Then
@@ -41,6 +70,476 @@ class GitRepositoryManagerTest {
         assertNotNull(manager);
     }
 
+    @Test
+    void testCloneSeedsFromBundleAndFetchesDelta() throws Exception {
+        // Given - バンドル作成後にupstreamへ追加コミット
+        Path upstream = createUpstream();
+        Path bundle = tempDir.resolve("seed.bundle");
+        try (Repository repository = Git.open(upstream.toFile()).getRepository();
+                OutputStream out = Files.newOutputStream(bundle)) {
+            BundleWriter writer = new BundleWriter(repository);
+            writer.include(repository.exactRef("refs/heads/main"));
+            writer.writeBundle(NullProgressMonitor.INSTANCE, out);
+        }
+        ObjectId upstreamHead = commitFile(upstream, "second.txt", "second");
+
+        Path local = tempDir.resolve("local");
+        AppConfig config = createConfigBuilder(upstream, local)
+                .gitSeedBundlePath(bundle.toString())
+                .build();
+
+        // When
+        new GitRepositoryManager(config).cloneOrOpenRepository();
+
+        // Then
+        try (Git git = Git.open(local.toFile())) {
+            Repository repository = git.getRepository();
+            assertEquals(upstreamHead, repository.resolve("refs/heads/main"));
+            assertEquals(upstream.toString(), repository.getConfig().getString("remote", "origin", "url"));
+            assertTrue(Files.exists(local.resolve("second.txt")));
+        }
+    }
+
+    @Test
+    void testCloneSeedsFromReferenceRepositoryUsingAlternates() throws Exception {
+        // Given
+        Path upstream = createUpstream();
+        Path reference = tempDir.resolve("reference");
+        Git.cloneRepository().setURI(upstream.toString()).setDirectory(reference.toFile()).call().close();
+        ObjectId upstreamHead = commitFile(upstream, "second.txt", "second");
+
+        Path local = tempDir.resolve("local");
+        AppConfig config = createConfigBuilder(upstream, local)
+                .gitReferenceRepoPath(reference.toString())
+                .build();
+
+        // When
+        new GitRepositoryManager(config).cloneOrOpenRepository();
+
+        // Then
+        Path alternates = local.resolve(".git/objects/info/alternates");
+        assertTrue(Files.exists(alternates));
+        assertEquals(reference.resolve(".git/objects").toAbsolutePath().toString(),
+                Files.readString(alternates).trim());
+        try (Git git = Git.open(local.toFile())) {
+            assertEquals(upstreamHead, git.getRepository().resolve("refs/heads/main"));
+            assertTrue(Files.exists(local.resolve("first.txt")));
+            assertTrue(Files.exists(local.resolve("second.txt")));
+        }
+    }
+
+    @Test
+    void testCloneFallsBackToRemoteWhenBundleIsBroken() throws Exception {
+        // Given
+        Path upstream = createUpstream();
+        Path bundle = tempDir.resolve("broken.bundle");
+        Files.writeString(bundle, "not a bundle");
+
+        Path local = tempDir.resolve("local");
+        AppConfig config = createConfigBuilder(upstream, local)
+                .gitSeedBundlePath(bundle.toString())
+                .build();
+
+        // When
+        new GitRepositoryManager(config).cloneOrOpenRepository();
+
+        // Then
+        try (Git git = Git.open(local.toFile()); Git upstreamGit = Git.open(upstream.toFile())) {
+            assertEquals(upstreamGit.getRepository().resolve("refs/heads/main"),
+                    git.getRepository().resolve("refs/heads/main"));
+            assertFalse(Files.exists(local.resolve(".git/objects/info/alternates")));
+        }
+    }
+
+    @Test
+    void testRunMaintenancePacksLooseObjectsAboveThreshold() throws Exception {
+        // Given
+        Path repo = createUpstream();
+        commitFile(repo, "second.txt", "second");
+        AppConfig config = createConfigBuilder(repo, repo)
+                .gitGcLooseObjectThreshold(1)
+                .build();
+
+        // When
+        new GitRepositoryManager(config).runMaintenance();
+
+        // Then
+        try (Git git = Git.open(repo.toFile())) {
+            assertEquals(0L, git.gc().getStatistics().get("numberOfLooseObjects"));
+            assertTrue(git.getRepository().getConfig().getBoolean("gc", "writeCommitGraph", false));
+        }
+        assertTrue(Files.exists(repo.resolve(".git/objects/info/commit-graph")));
+    }
+
+    @Test
+    void testRunMaintenanceSkipsBelowThreshold() throws Exception {
+        // Given
+        Path repo = createUpstream();
+        AppConfig config = createConfigBuilder(repo, repo).build();
+
+        // When
+        new GitRepositoryManager(config).runMaintenance();
+
+        // Then
+        try (Git git = Git.open(repo.toFile())) {
+            assertTrue((Long) git.gc().getStatistics().get("numberOfLooseObjects") > 0);
+            assertEquals(0L, git.gc().getStatistics().get("numberOfPackFiles"));
+        }
+    }
+
+    @Test
+    void testPushSendsCommitsWithTunedPackConfig() throws Exception {
+        // Given - テキストとバイナリの混在コミット、バイナリのみのコミット
+        Path remote = tempDir.resolve("remote.git");
+        Git.init().setBare(true).setDirectory(remote.toFile()).setInitialBranch("main").call().close();
+        Path local = tempDir.resolve("local");
+        Git.cloneRepository().setURI(remote.toString()).setDirectory(local.toFile()).call().close();
+        commitFile(local, "note.txt", "note");
+        commitFile(local, "image.png", "binary");
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(remote, local).build());
+
+        // When
+        manager.push();
+        ObjectId binaryOnlyHead = commitFile(local, "archive.zip", "binary");
+        manager.push();
+
+        // Then
+        try (Git localGit = Git.open(local.toFile()); Git remoteGit = Git.open(remote.toFile())) {
+            String branch = localGit.getRepository().getFullBranch();
+            assertEquals(binaryOnlyHead, remoteGit.getRepository().resolve(branch));
+        }
+    }
+
+    @Test
+    void testPushPackConfigSkipsDeltaOnlyForBinaryObjects() throws Exception {
+        // Given - 大文字の拡張子設定、テキストとバイナリの混在コミット
+        Path remote = tempDir.resolve("remote.git");
+        Git.init().setBare(true).setDirectory(remote.toFile()).setInitialBranch("main").call().close();
+        Path local = tempDir.resolve("local");
+        Git.cloneRepository().setURI(remote.toString()).setDirectory(local.toFile()).call().close();
+        commitFile(local, "note.txt", "small note");
+        commitFile(local, "image.PNG", "binary content larger than the note");
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(remote, local)
+                .gitPushBinaryExtensions(Arrays.asList(".PNG"))
+                .build());
+
+        // When
+        PackConfig packConfig;
+        try (Git git = Git.open(local.toFile())) {
+            packConfig = manager.buildPushPackConfig(git.getRepository());
+        }
+
+        // Then - バイナリのブロブのみが閾値以上となり、テキストはデルタ対象のまま
+        assertEquals("binary content larger than the note".length(), packConfig.getBigFileThreshold());
+    }
+
+    @Test
+    void testAddAndCommitStoresLfsTargetsAsPointers() throws Exception {
+        // Given
+        Path repo = createUpstream();
+        Path store = tempDir.resolve("lfs-store");
+        byte[] content = "binary content".getBytes();
+        Files.write(repo.resolve("archive.ZIP"), content);
+        Files.writeString(repo.resolve("note.txt"), "note");
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo)
+                .gitLfsPatterns(Arrays.asList(".zip"))
+                .gitLfsLocalStorePath(store.toString())
+                .build());
+
+        // When
+        manager.addAndCommit();
+
+        // Then - コミットされた内容・ワークツリーはポインタ、実体はストアに存在
+        LfsPointer pointer = LfsPointer.read(repo.resolve("archive.ZIP"));
+        assertNotNull(pointer);
+        assertEquals(content.length, pointer.getSize());
+        try (Git git = Git.open(repo.toFile())) {
+            Repository repository = git.getRepository();
+            try (TreeWalk walk = TreeWalk.forPath(repository, "archive.ZIP",
+                    repository.parseCommit(repository.resolve("HEAD")).getTree())) {
+                byte[] committed = repository.open(walk.getObjectId(0)).getBytes();
+                assertEquals(pointer, LfsPointer.parse(committed));
+            }
+            assertTrue(git.status().call().isClean());
+            // 標準のgit-lfsでクローンした場合も実体を取得できるよう、属性をコミットする
+            try (TreeWalk walk = TreeWalk.forPath(repository, ".gitattributes",
+                    repository.parseCommit(repository.resolve("HEAD")).getTree())) {
+                assertNotNull(walk);
+                assertEquals("*.[zZ][iI][pP] filter=lfs diff=lfs merge=lfs -text\n",
+                        new String(repository.open(walk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        Path stored = store.resolve(pointer.getOid().substring(0, 2))
+                .resolve(pointer.getOid().substring(2, 4)).resolve(pointer.getOid());
+        assertTrue(Arrays.equals(content, Files.readAllBytes(stored)));
+
+        // When - Git->Dropbox側でポインタを実体に戻す
+        Path resolved = manager.resolveLfsContent(repo.resolve("archive.ZIP"));
+
+        // Then
+        assertTrue(Arrays.equals(content, Files.readAllBytes(resolved)));
+        assertEquals(repo.resolve("note.txt"), manager.resolveLfsContent(repo.resolve("note.txt")));
+        Files.delete(resolved);
+    }
+
+    @Test
+    void testAddAndCommitStagesBlobsWrittenDuringDownload() throws Exception {
+        // Given - ダウンロードと同時にオブジェクトデータベースへブロブを書き込む
+        Path repo = createUpstream();
+        byte[] content = new byte[300_000];
+        new Random(1).nextBytes(content);
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo).build());
+        ResumableDownloader downloader = new ResumableDownloader(
+                (path, offset, length, out) -> out.write(content, (int) offset, (int) length),
+                repo.resolve(".git/db2ghsync/downloads"), 0, 1, 0, false, manager::insertBlob);
+        DownloadedFile downloaded = downloader.download("/dir1/sub/data.bin", null, content.length,
+                repo.resolve("sub/data.bin"));
+
+        // When
+        manager.addAndCommit(List.of(downloaded));
+
+        // Then - 作成済みのブロブがそのままコミットされ、ワークツリーとも一致する
+        try (Git git = Git.open(repo.toFile())) {
+            Repository repository = git.getRepository();
+            try (TreeWalk walk = TreeWalk.forPath(repository, "sub/data.bin",
+                    repository.parseCommit(repository.resolve("HEAD")).getTree())) {
+                assertEquals(downloaded.getBlobId(), walk.getObjectId(0).getName());
+                assertTrue(Arrays.equals(content, repository.open(walk.getObjectId(0)).getBytes()));
+            }
+            assertTrue(git.status().call().isClean());
+        }
+    }
+
+    @Test
+    void testWriteBlobBeforeCommitIsStagedWithoutReReading() throws Exception {
+        // Given - 計算済みのIDを持たないダウンロード済みファイル
+        Path repo = createUpstream();
+        Files.createDirectories(repo.resolve("sub"));
+        Files.writeString(repo.resolve("sub/note.txt"), "downloaded");
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo).build());
+        DownloadedFile downloaded = new DownloadedFile("/dir1/sub/note.txt", repo.resolve("sub/note.txt"), null,
+                null, 10);
+
+        // When
+        DownloadedFile written = manager.writeBlob(downloaded);
+        manager.addAndCommit(List.of(written));
+
+        // Then
+        assertNotNull(written.getBlobId());
+        try (Git git = Git.open(repo.toFile())) {
+            Repository repository = git.getRepository();
+            try (TreeWalk walk = TreeWalk.forPath(repository, "sub/note.txt",
+                    repository.parseCommit(repository.resolve("HEAD")).getTree())) {
+                assertEquals(written.getBlobId(), walk.getObjectId(0).getName());
+            }
+            assertTrue(git.status().call().isClean());
+        }
+    }
+
+    @Test
+    void testAddAndCommitWritesBulkImportToSinglePack() throws Exception {
+        // Given - 閾値以上の新規ファイルと、無視設定されたファイル
+        Path repo = createUpstream();
+        for (int i = 0; i < 30; i++) {
+            Files.createDirectories(repo.resolve("sub" + (i % 3)));
+            Files.writeString(repo.resolve("sub" + (i % 3)).resolve("file" + i + ".txt"), "content " + i);
+        }
+        Files.writeString(repo.resolve(".gitignore"), "*.tmp\n");
+        Files.writeString(repo.resolve("ignored.tmp"), "ignored");
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo)
+                .gitBulkImportThreshold(10)
+                .build());
+
+        // When
+        manager.addAndCommit();
+
+        // Then - ブロブはパックに格納され、ルーズオブジェクトはツリーとコミットのみ
+        try (Git git = Git.open(repo.toFile())) {
+            Repository repository = git.getRepository();
+            try (TreeWalk walk = TreeWalk.forPath(repository, "sub1/file1.txt",
+                    repository.parseCommit(repository.resolve("HEAD")).getTree())) {
+                assertEquals("content 1", new String(repository.open(walk.getObjectId(0)).getBytes()));
+            }
+            assertTrue(git.status().call().isClean());
+            assertTrue(git.status().call().getIgnoredNotInIndex().contains("ignored.tmp"));
+        }
+        try (Stream<Path> objects = Files.walk(repo.resolve(".git/objects/pack"))) {
+            assertEquals(1, objects.filter(path -> path.toString().endsWith(".pack")).count());
+        }
+        try (Stream<Path> objects = Files.walk(repo.resolve(".git/objects"))) {
+            long looseObjects = objects.filter(Files::isRegularFile)
+                    .filter(path -> path.getParent().getFileName().toString().length() == 2)
+                    .count();
+            // 初回コミット分 + 今回のコミット・ルートツリー・サブツリー3つ
+            assertTrue(looseObjects <= 3 + 5, "loose objects: " + looseObjects);
+        }
+    }
+
+    @Test
+    void testAddAndCommitSkipsEmptyCommitForUnchangedContent() throws Exception {
+        // Given - コミット済みと同じ内容で上書き保存されたファイル
+        Path repo = createUpstream();
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo).build());
+        Files.writeString(repo.resolve("data.txt"), "same content");
+        assertTrue(manager.addAndCommit());
+        ObjectId head;
+        try (Git git = Git.open(repo.toFile())) {
+            head = git.getRepository().resolve("HEAD");
+        }
+        Files.writeString(repo.resolve("data.txt"), "same content");
+        DownloadedFile downloaded = manager.writeBlob(
+                new DownloadedFile("/dir1/data.txt", repo.resolve("data.txt"), null, null, 12));
+
+        // When
+        boolean committed = manager.addAndCommit(List.of(downloaded));
+
+        // Then - 空のコミットを作成しない
+        assertFalse(committed);
+        try (Git git = Git.open(repo.toFile())) {
+            assertEquals(head, git.getRepository().resolve("HEAD"));
+            assertTrue(git.status().call().isClean());
+        }
+    }
+
+    @Test
+    void testUnpushedCommitIsDetectedAfterFailedPush() throws Exception {
+        // Given - コミット後、リモートに到達できずプッシュが失敗する
+        Path remote = tempDir.resolve("remote.git");
+        Git.cloneRepository().setBare(true).setURI(createUpstream().toString()).setDirectory(remote.toFile())
+                .call().close();
+        Path local = tempDir.resolve("local");
+        Git.cloneRepository().setURI(remote.toString()).setDirectory(local.toFile()).call().close();
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(remote, local).build());
+        manager.checkoutBranch("/dir1");
+        Files.writeString(local.resolve("data.txt"), "content");
+        assertTrue(manager.addAndCommit());
+        Path unreachable = tempDir.resolve("unreachable.git");
+        Files.move(remote, unreachable);
+        assertThrows(GithubSyncException.class, manager::push);
+
+        // When - 再実行では内容が変わらずコミットされない
+        Files.move(unreachable, remote);
+        boolean committed = manager.addAndCommit();
+        boolean pendingBeforePush = manager.hasUnpushedCommits("/dir1");
+        manager.push();
+
+        // Then - 未プッシュのコミットを検出し、プッシュ後は検出しない
+        assertFalse(committed);
+        assertTrue(pendingBeforePush);
+        assertFalse(manager.hasUnpushedCommits("/dir1"));
+        assertFalse(manager.hasUnpushedCommits("/dir2"));
+    }
+
+    @Test
+    void testDiscardUnchangedRestoresWorkingTreeWithoutCheckout() throws Exception {
+        // Given - dir1ブランチにコミット済みの内容を、mainをチェックアウトした状態で書き出す
+        Path repo = createUpstream();
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo).build());
+        manager.checkoutBranch("/dir1");
+        Files.writeString(repo.resolve("data.txt"), "same content");
+        Files.writeString(repo.resolve("first.txt"), "first in dir1");
+        assertTrue(manager.addAndCommit());
+        manager.checkoutBranch("main");
+        Files.writeString(repo.resolve("data.txt"), "same content");
+        Files.writeString(repo.resolve("first.txt"), "first in dir1");
+        List<DownloadedFile> downloaded = List.of(
+                manager.writeBlob(new DownloadedFile("/dir1/data.txt", repo.resolve("data.txt"), null, null, 12)),
+                manager.writeBlob(new DownloadedFile("/dir1/first.txt", repo.resolve("first.txt"), null, null, 13)));
+
+        // When
+        boolean unchanged = manager.discardUnchanged("/dir1", downloaded);
+
+        // Then - mainのまま、ワークツリーはmainの内容に戻る
+        assertTrue(unchanged);
+        try (Git git = Git.open(repo.toFile())) {
+            assertEquals("main", git.getRepository().getBranch());
+            assertTrue(git.status().call().isClean());
+        }
+        assertFalse(Files.exists(repo.resolve("data.txt")));
+        assertEquals("first", Files.readString(repo.resolve("first.txt")));
+    }
+
+    @Test
+    void testDiscardUnchangedKeepsChangedContent() throws Exception {
+        // Given
+        Path repo = createUpstream();
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo).build());
+        manager.checkoutBranch("/dir1");
+        Files.writeString(repo.resolve("data.txt"), "old content");
+        assertTrue(manager.addAndCommit());
+        manager.checkoutBranch("main");
+        Files.writeString(repo.resolve("data.txt"), "new content");
+        DownloadedFile downloaded = manager.writeBlob(
+                new DownloadedFile("/dir1/data.txt", repo.resolve("data.txt"), null, null, 11));
+
+        // When
+        boolean unchanged = manager.discardUnchanged("/dir1", List.of(downloaded));
+
+        // Then - 書き出した内容は残る
+        assertFalse(unchanged);
+        assertEquals("new content", Files.readString(repo.resolve("data.txt")));
+    }
+
+    @Test
+    void testAddAndCommitStagesMovedFilesAsRename() throws Exception {
+        // Given
+        Path repo = createUpstream();
+        Files.writeString(repo.resolve("old.txt"), "moved content");
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(repo, repo).build());
+        manager.addAndCommit();
+
+        // When - ローカルで移動してからコミット
+        Files.createDirectories(repo.resolve("sub"));
+        Files.move(repo.resolve("old.txt"), repo.resolve("sub/new.txt"));
+        manager.addAndCommit();
+
+        // Then - 移動元は削除され、Git上はリネームとして扱われる
+        try (Git git = Git.open(repo.toFile())) {
+            Repository repository = git.getRepository();
+            assertTrue(git.status().call().isClean());
+            try (RevWalk revWalk = new RevWalk(repository)) {
+                RevCommit head = revWalk.parseCommit(repository.resolve("HEAD"));
+                RevCommit parent = revWalk.parseCommit(head.getParent(0));
+                try (DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                    formatter.setRepository(repository);
+                    formatter.setDetectRenames(true);
+                    List<DiffEntry> diffs = formatter.scan(parent.getTree(), head.getTree());
+                    assertEquals(1, diffs.size());
+                    assertEquals(DiffEntry.ChangeType.RENAME, diffs.get(0).getChangeType());
+                    assertEquals("sub/new.txt", diffs.get(0).getNewPath());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCheckoutBranchTracksExistingRemoteBranch() throws Exception {
+        // Given - upstreamにのみ存在するブランチ
+        Path upstream = createUpstream();
+        try (Git git = Git.open(upstream.toFile())) {
+            git.checkout().setCreateBranch(true).setName("dir1").call();
+        }
+        ObjectId branchHead = commitFile(upstream, "dir1.txt", "from another host");
+        try (Git git = Git.open(upstream.toFile())) {
+            git.checkout().setName("main").call();
+        }
+        Path local = tempDir.resolve("local");
+        GitRepositoryManager manager = new GitRepositoryManager(createConfigBuilder(upstream, local).build());
+        manager.cloneOrOpenRepository();
+
+        // When
+        boolean exists = manager.hasBranch("/dir1");
+        manager.checkoutBranch("/dir1");
+
+        // Then - リモートの内容からブランチを続ける
+        assertTrue(exists);
+        assertFalse(manager.hasBranch("/dir2"));
+        try (Git git = Git.open(local.toFile())) {
+            assertEquals(branchHead, git.getRepository().resolve("HEAD"));
+        }
+        assertEquals("from another host", Files.readString(local.resolve("dir1.txt")));
+    }
+
     /**
      * 注意: 実際のGit操作を呼び出すメソッド（cloneOrOpenRepository、checkoutBranch等）の
      * テストは、実際のGitリポジトリとの統合テストとして別途実装する必要があります。
@@ -56,6 +555,34 @@ class GitRepositoryManagerTest {
      * - 例外が適切にGithubSyncExceptionに変換されること
      */
 
+    private Path createUpstream() throws Exception {
+        Path upstream = tempDir.resolve("upstream");
+        Git.init().setDirectory(upstream.toFile()).setInitialBranch("main").call().close();
+        commitFile(upstream, "first.txt", "first");
+        return upstream;
+    }
+
+    private ObjectId commitFile(Path repo, String name, String content) throws Exception {
+        Files.writeString(repo.resolve(name), content);
+        try (Git git = Git.open(repo.toFile())) {
+            git.add().addFilepattern(name).call();
+            return git.commit().setMessage("Add " + name).setSign(false).call().getId();
+        }
+    }
+
+    private AppConfig.Builder createConfigBuilder(Path upstream, Path local) {
+        File localDir = local.toFile();
+        return new AppConfig.Builder()
+                .githubPat("test_github_pat")
+                .githubUsername("testuser")
+                .githubRemoteUrl(upstream.toString())
+                .localRepoPath(localDir.getPath())
+                .cursorFilePath(tempDir.resolve("cursor").toString())
+                .targetFileExtensions(Arrays.asList(".txt"))
+                .targetDirectories(Arrays.asList("/dir1"))
+                .syncTargetDir("review");
+    }
+
     private AppConfig createTestAppConfig() {
         return new AppConfig.Builder()
                 .githubPat("test_github_pat")
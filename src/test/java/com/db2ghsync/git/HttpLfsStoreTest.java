@@ -0,0 +1,95 @@
+package com.db2ghsync.git;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HttpLfsStoreクラスのテスト。
+ * ローカルのHTTPサーバーをLFSサーバーとして使用し、ダウンロードした実体の検証を確認する。
+ */
+class HttpLfsStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+
+    // ダウンロードで返す内容
+    private volatile byte[] served;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/info/lfs/objects/batch", exchange -> {
+            String href = "http://127.0.0.1:" + server.getAddress().getPort() + "/objects/content";
+            respond(exchange, ("{\"objects\":[{\"actions\":{\"download\":{\"href\":\"" + href + "\"}}}]}")
+                    .getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/objects/content", exchange -> respond(exchange, served));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testDownloadWritesContentMatchingPointer() throws Exception {
+        // Given
+        Path source = tempDir.resolve("source.bin");
+        Files.write(source, "binary content".getBytes(StandardCharsets.UTF_8));
+        LfsPointer pointer = LfsPointer.compute(source);
+        served = Files.readAllBytes(source);
+        Path target = tempDir.resolve("target.bin");
+
+        // When
+        newStore().download(pointer, target);
+
+        // Then
+        assertArrayEquals(served, Files.readAllBytes(target));
+    }
+
+    @Test
+    void testDownloadRejectsContentNotMatchingPointer() throws Exception {
+        // Given - サイズは同じだが内容が異なる実体が返される
+        Path source = tempDir.resolve("source.bin");
+        Files.write(source, "binary content".getBytes(StandardCharsets.UTF_8));
+        LfsPointer pointer = LfsPointer.compute(source);
+        served = "BINARY CONTENT".getBytes(StandardCharsets.UTF_8);
+        Path target = tempDir.resolve("target.bin");
+
+        // When & Then - 書き込み先には配置しない
+        assertThrows(IOException.class, () -> newStore().download(pointer, target));
+        assertFalse(Files.exists(target));
+    }
+
+    private HttpLfsStore newStore() {
+        return new HttpLfsStore("http://127.0.0.1:" + server.getAddress().getPort() + "/info/lfs", "", "");
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.db2ghsync.git;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * LocalLfsStoreクラスのテスト。
+ * ストア上の実体がポインタと一致しない場合の扱いを確認する。
+ */
+class LocalLfsStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDownloadRejectsCorruptedObject() throws Exception {
+        // Given - 同じサイズで内容が異なる実体がストアに存在する
+        Path source = tempDir.resolve("source.bin");
+        Files.write(source, "binary content".getBytes(StandardCharsets.UTF_8));
+        LfsPointer pointer = LfsPointer.compute(source);
+        LocalLfsStore store = new LocalLfsStore(tempDir.resolve("store"));
+        store.upload(pointer, source);
+        Files.write(objectPath(pointer), "BINARY CONTENT".getBytes(StandardCharsets.UTF_8));
+        Path target = tempDir.resolve("target.bin");
+
+        // When & Then - 書き込み先には配置しない
+        assertThrows(IOException.class, () -> store.download(pointer, target));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void testUploadReplacesCorruptedObjectOfSameSize() throws Exception {
+        // Given
+        Path source = tempDir.resolve("source.bin");
+        Files.write(source, "binary content".getBytes(StandardCharsets.UTF_8));
+        LfsPointer pointer = LfsPointer.compute(source);
+        LocalLfsStore store = new LocalLfsStore(tempDir.resolve("store"));
+        Files.createDirectories(objectPath(pointer).getParent());
+        Files.write(objectPath(pointer), "BINARY CONTENT".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        store.upload(pointer, source);
+
+        // Then
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(objectPath(pointer)));
+    }
+
+    @Test
+    void testUploadRejectsContentNotMatchingPointer() throws Exception {
+        // Given
+        Path source = tempDir.resolve("source.bin");
+        Files.write(source, "binary content".getBytes(StandardCharsets.UTF_8));
+        LfsPointer pointer = LfsPointer.compute(source);
+        Files.write(source, "BINARY CONTENT".getBytes(StandardCharsets.UTF_8));
+        LocalLfsStore store = new LocalLfsStore(tempDir.resolve("store"));
+
+        // When & Then
+        assertThrows(IOException.class, () -> store.upload(pointer, source));
+        assertFalse(Files.exists(objectPath(pointer)));
+    }
+
+    private Path objectPath(LfsPointer pointer) {
+        String oid = pointer.getOid();
+        return tempDir.resolve("store").resolve(oid.substring(0, 2)).resolve(oid.substring(2, 4)).resolve(oid);
+    }
+}
@@ -0,0 +1,96 @@
+package com.db2ghsync.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.db2ghsync.common.AppConfig;
+
+/**
+ * バイナリ中心のリポジトリにおけるプッシュ時間のベンチマーク。
+ * デフォルトのPackConfigと、GitRepositoryManagerのプッシュ用設定を比較する。
+ * <p>
+ * 実行方法: {@code gradle benchmark}
+ */
+@Tag("benchmark")
+class PushPackBenchmark {
+
+    private static final int FILE_COUNT = 40;
+    private static final int FILE_SIZE = 2 * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkBinaryHeavyPush() throws Exception {
+        long defaultMillis = measure("default", false);
+        long tunedMillis = measure("tuned", true);
+
+        System.out.printf("Binary-heavy push (%d files x %d bytes): default=%d ms, tuned=%d ms%n",
+                FILE_COUNT, FILE_SIZE, defaultMillis, tunedMillis);
+    }
+
+    private long measure(String name, boolean tuned) throws Exception {
+        Path remote = tempDir.resolve(name + "-remote.git");
+        Path local = tempDir.resolve(name + "-local");
+        Git.init().setBare(true).setDirectory(remote.toFile()).setInitialBranch("main").call().close();
+
+        try (Git git = Git.cloneRepository().setURI(remote.toString()).setDirectory(local.toFile()).call()) {
+            // 1回目のリビジョンをプッシュしておき、2回目のリビジョンのプッシュ時間を計測する
+            writeBinaries(local, 1L);
+            commitAll(git, "first");
+            git.push().call();
+            writeBinaries(local, 2L);
+            commitAll(git, "second");
+
+            long start = System.nanoTime();
+            if (tuned) {
+                new GitRepositoryManager(createConfig(remote, local)).push();
+            } else {
+                git.push().call();
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+
+            try (Repository remoteRepository = Git.open(remote.toFile()).getRepository()) {
+                assertEquals(git.getRepository().resolve("HEAD"), remoteRepository.resolve(git.getRepository().getFullBranch()));
+            }
+            return elapsedMillis;
+        }
+    }
+
+    private void writeBinaries(Path dir, long seed) throws Exception {
+        Random random = new Random(seed);
+        byte[] content = new byte[FILE_SIZE];
+        for (int i = 0; i < FILE_COUNT; i++) {
+            random.nextBytes(content);
+            Files.write(dir.resolve("file" + i + (i % 2 == 0 ? ".zip" : ".png")), content);
+        }
+    }
+
+    private void commitAll(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage(message).setSign(false).call();
+    }
+
+    private AppConfig createConfig(Path remote, Path local) {
+        return new AppConfig.Builder()
+                .githubPat("pat")
+                .githubUsername("user")
+                .githubRemoteUrl(remote.toString())
+                .localRepoPath(local.toString())
+                .cursorFilePath(tempDir.resolve("cursor").toString())
+                .targetFileExtensions(Arrays.asList(".zip", ".png"))
+                .targetDirectories(Arrays.asList("/dir1"))
+                .syncTargetDir("review")
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.db2ghsync.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * WebhookServerクラスのテスト。
+ * ローカルで署名したリクエストを送信し、署名の検証と同期の要求内容を検証する。
+ */
+class WebhookServerTest {
+
+    private static final String DROPBOX_SECRET = "dropbox-app-secret";
+    private static final String GITHUB_SECRET = "github-webhook-secret";
+
+    private final List<String> triggered = new CopyOnWriteArrayList<>();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private WebhookServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new WebhookServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), DROPBOX_SECRET,
+                GITHUB_SECRET, (direction, target) -> triggered.add(direction + ":" + target));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testDropboxChallengeIsEchoed() throws Exception {
+        // When - Webhook登録時の確認
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri(WebhookServer.DROPBOX_PATH + "?challenge=abc%20123")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(200, response.statusCode());
+        assertEquals("abc 123", response.body());
+        assertEquals("nosniff", response.headers().firstValue("X-Content-Type-Options").orElse(""));
+        assertTrue(triggered.isEmpty());
+    }
+
+    @Test
+    void testSignedDropboxNotificationTriggersSync() throws Exception {
+        // Given
+        byte[] body = "{\"list_folder\":{\"accounts\":[\"dbid:AAA\"]}}".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        int signed = post(WebhookServer.DROPBOX_PATH, body, "X-Dropbox-Signature",
+                WebhookSignature.sign(DROPBOX_SECRET, body));
+        int forged = post(WebhookServer.DROPBOX_PATH, body, "X-Dropbox-Signature",
+                WebhookSignature.sign("other-secret", body));
+
+        // Then - 通知にはフォルダが含まれないため、Dropbox→Git同期の全体を要求する
+        assertEquals(200, signed);
+        assertEquals(403, forged);
+        assertEquals(List.of("DBX_TO_GIT:null"), triggered);
+    }
+
+    @Test
+    void testSignedGithubPushTriggersBranchSync() throws Exception {
+        // Given
+        byte[] push = "{\"ref\":\"refs/heads/dir1\",\"deleted\":false}".getBytes(StandardCharsets.UTF_8);
+        byte[] tag = "{\"ref\":\"refs/tags/v1\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] ping = "{\"zen\":\"Keep it logically awesome.\"}".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        int pushed = postGithub("push", push, "sha256=" + WebhookSignature.sign(GITHUB_SECRET, push));
+        int tagged = postGithub("push", tag, "sha256=" + WebhookSignature.sign(GITHUB_SECRET, tag));
+        int pinged = postGithub("ping", ping, "sha256=" + WebhookSignature.sign(GITHUB_SECRET, ping));
+        int unsigned = postGithub("push", push, WebhookSignature.sign(GITHUB_SECRET, push));
+        int forged = postGithub("push", push, "sha256=" + WebhookSignature.sign(DROPBOX_SECRET, push));
+
+        // Then - pushされたブランチのみを要求し、タグ・ping・不正な署名では要求しない
+        assertEquals(List.of(200, 200, 200, 403, 403), List.of(pushed, tagged, pinged, unsigned, forged));
+        assertEquals(List.of("GIT_TO_DBX:dir1"), triggered);
+    }
+
+    @Test
+    void testSignatureMatchesGithubReferenceValue() {
+        // GitHubのドキュメントに記載された検証用の値
+        byte[] body = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+        String expected = "757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17";
+
+        assertEquals(expected, WebhookSignature.sign("It's a Secret to Everybody", body));
+        assertTrue(WebhookSignature.verify("It's a Secret to Everybody", body, expected.toUpperCase()));
+        assertFalse(WebhookSignature.verify("It's a Secret to Everybody", body, null));
+    }
+
+    @Test
+    void testServerRequiresSecret() {
+        // When & Then - 署名を検証できない設定では起動しない
+        assertThrows(IllegalArgumentException.class, () -> new WebhookServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), "", "", (direction, target) -> true));
+    }
+
+    private int postGithub(String event, byte[] body, String signature) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(WebhookServer.GITHUB_PATH))
+                .header("X-GitHub-Event", event)
+                .header("X-Hub-Signature-256", signature)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int post(String path, byte[] body, String header, String signature) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header(header, signature)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+}